@@ -0,0 +1,68 @@
+package com.shiftly.benchmark;
+
+import com.shiftly.model.Usuario;
+import com.shiftly.repository.UsuarioRepository;
+import com.shiftly.service.AuthService;
+import com.shiftly.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autenticação: login completo (BCrypt + tokens + sessão), validação de token e geração de JWT
+ * O login é dominado pelo custo BCrypt calibrado no host; a validação usa o cache de tokens verificados
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthBenchmark {
+    
+    private AuthService authService;
+    private Usuario usuario;
+    private String email;
+    private String accessToken;
+    
+    @Setup
+    public void setup() {
+        BenchmarkDatabase.preparar();
+        authService = new AuthService();
+        
+        long usuarioId = BenchmarkDatabase.getPrimeiroUsuarioId();
+        usuario = new UsuarioRepository().findById(usuarioId)
+            .orElseThrow(() -> new IllegalStateException("Usuário de benchmark não encontrado: " + usuarioId));
+        email = BenchmarkDatabase.emailDe(usuarioId);
+        
+        AuthService.AuthResult resultado = authService.login(email, BenchmarkDatabase.SENHA);
+        if (!resultado.isSuccess()) {
+            throw new IllegalStateException("Login de benchmark falhou: " + resultado.getMessage());
+        }
+        accessToken = resultado.getAccessToken();
+    }
+    
+    @Benchmark
+    public AuthService.AuthResult login() {
+        return authService.login(email, BenchmarkDatabase.SENHA);
+    }
+    
+    @Benchmark
+    public boolean validateToken() {
+        return authService.validateToken(accessToken);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return JwtUtil.generateToken(usuario);
+    }
+}
@@ -0,0 +1,195 @@
+package com.shiftly.benchmark;
+
+import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.DatabaseHealthMonitor;
+import com.shiftly.repository.DatabaseInitializer;
+import com.shiftly.repository.JornadaDiariaRepository;
+import com.shiftly.util.ConfigUtil;
+import com.shiftly.util.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banco H2 embarcado usado pelos benchmarks, populado uma única vez com volume de produção
+ * Fica em arquivo (target/bench-db) para ser reaproveitado entre forks e execuções; os volumes vêm de
+ * -Dshiftly.bench.usuarios e -Dshiftly.bench.pontos (padrão: 5 mil usuários e 10 milhões de pontos)
+ */
+public class BenchmarkDatabase {
+    
+    /**
+     * URL padrão do banco de benchmark, usada quando -Dshiftly.database.h2.url não é informado
+     */
+    public static final String URL_PADRAO = "jdbc:h2:./target/bench-db/shiftly";
+    
+    /**
+     * Senha de todos os usuários gerados
+     */
+    public static final String SENHA = "bench123";
+    
+    private static final String PREFIXO_EMAIL = "bench";
+    private static final String DOMINIO_EMAIL = "@shiftly.com";
+    private static final int TAMANHO_LOTE_PONTOS = 500_000;
+    
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkDatabase.class);
+    
+    private static boolean preparado;
+    private static long primeiroUsuarioId;
+    private static int totalUsuarios;
+    
+    /**
+     * Garante o banco populado e roteia as conexões da aplicação para ele
+     * Deve ser a primeira coisa chamada no setup: a URL precisa estar definida antes de o ConfigUtil carregar
+     */
+    public static synchronized void preparar() {
+        if (preparado) {
+            return;
+        }
+        
+        if (System.getProperty("shiftly.database.h2.url") == null) {
+            System.setProperty("shiftly.database.h2.url", URL_PADRAO);
+        }
+        
+        int usuarios = ConfigUtil.getInt("bench.usuarios", 5000);
+        long pontos = ConfigUtil.getLong("bench.pontos", 10_000_000L);
+        
+        // Os benchmarks medem o H2: o SQL Server só entra no benchmark de sincronização
+        DatabaseHealthMonitor.tripCircuit("Benchmark usando H2 embarcado");
+        DatabaseConfig.setCurrentDatabaseType(DatabaseConfig.DatabaseType.H2);
+        
+        try (Connection conn = DatabaseConfig.getH2Connection()) {
+            if (!existeTabela(conn, "USUARIOS")) {
+                DatabaseInitializer.initializeH2();
+            }
+            
+            carregarUsuarios(conn);
+            if (totalUsuarios == 0) {
+                popular(conn, usuarios, pontos);
+            } else if (totalUsuarios != usuarios) {
+                throw new IllegalStateException("Banco de benchmark tem " + totalUsuarios + " usuários, esperado " + usuarios
+                    + "; apague target/bench-db para popular de novo");
+            } else {
+                logger.info("Banco de benchmark reaproveitado: {} usuários gerados", totalUsuarios);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao preparar o banco de benchmark: " + e.getMessage(), e);
+        }
+        
+        preparado = true;
+    }
+    
+    /**
+     * ID de um usuário gerado, escolhido ao acaso
+     */
+    public static long usuarioAleatorio() {
+        return primeiroUsuarioId + ThreadLocalRandom.current().nextInt(totalUsuarios);
+    }
+    
+    /**
+     * Email do usuário gerado com o ID informado
+     */
+    public static String emailDe(long usuarioId) {
+        return PREFIXO_EMAIL + (usuarioId - primeiroUsuarioId + 1) + DOMINIO_EMAIL;
+    }
+    
+    public static long getPrimeiroUsuarioId() {
+        return primeiroUsuarioId;
+    }
+    
+    public static int getTotalUsuarios() {
+        return totalUsuarios;
+    }
+    
+    /**
+     * Última sexta-feira até hoje; os pontos gerados vão dela para trás, só em dias úteis
+     */
+    public static LocalDate diaAncora() {
+        return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.FRIDAY));
+    }
+    
+    /**
+     * Gera usuários e pontos e consolida a jornada diária
+     */
+    private static void popular(Connection conn, int usuarios, long pontos) throws SQLException {
+        long inicio = System.nanoTime();
+        logger.info("Populando banco de benchmark: {} usuários, {} pontos...", usuarios, pontos);
+        
+        // Um único hash: gerar milhares de hashes BCrypt levaria minutos
+        String hash = PasswordHasher.encode(SENHA);
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                INSERT INTO usuarios (nome, email, senha, tipo_usuario, cargo, departamento, salario, data_admissao, ativo)
+                SELECT 'Colaborador ' || X, ? || X || ?, ?,
+                       CASE WHEN MOD(X, 50) = 0 THEN 'RH' ELSE 'COLABORADOR' END,
+                       'Analista', 'Departamento ' || MOD(X, 10), 3500.00, TIMESTAMP '2020-01-02 09:00:00', TRUE
+                FROM SYSTEM_RANGE(1, ?)
+                """)) {
+            stmt.setString(1, PREFIXO_EMAIL);
+            stmt.setString(2, DOMINIO_EMAIL);
+            stmt.setString(3, hash);
+            stmt.setInt(4, usuarios);
+            stmt.executeUpdate();
+        }
+        carregarUsuarios(conn);
+        
+        // Pontos intercalados por usuário: ENTRADA e SAIDA por dia útil, do dia âncora para trás
+        String sql = String.format("""
+            INSERT INTO pontos (usuario_id, data_hora, tipo_ponto, face_validada, data_criacao)
+            SELECT usuario_id, data_hora, tipo_ponto, TRUE, data_hora
+            FROM (
+                SELECT %1$d + MOD(X, %2$d) AS usuario_id,
+                       DATEADD('MINUTE',
+                               CASE WHEN MOD(X / %2$d, 2) = 0 THEN 480 + MOD(X, 37) ELSE 1020 + MOD(X, 41) END,
+                               CAST(DATEADD('DAY', -((X / %2$d / 2) / 5 * 7 + MOD(X / %2$d / 2, 5)), DATE '%3$s') AS TIMESTAMP)) AS data_hora,
+                       CASE WHEN MOD(X / %2$d, 2) = 0 THEN 'ENTRADA' ELSE 'SAIDA' END AS tipo_ponto
+                FROM SYSTEM_RANGE(?, ?)
+            ) AS gerados
+            """, primeiroUsuarioId, totalUsuarios, diaAncora());
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (long lote = 0; lote < pontos; lote += TAMANHO_LOTE_PONTOS) {
+                stmt.setLong(1, lote);
+                stmt.setLong(2, Math.min(pontos, lote + TAMANHO_LOTE_PONTOS) - 1);
+                stmt.executeUpdate();
+                logger.info("Pontos gerados: {}/{}", Math.min(pontos, lote + TAMANHO_LOTE_PONTOS), pontos);
+            }
+        }
+        
+        new JornadaDiariaRepository().reconstruir();
+        
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+        logger.info("Banco de benchmark populado em {} s", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio));
+    }
+    
+    /**
+     * Lê a faixa de IDs dos usuários gerados (inseridos em um único comando, com IDs contíguos)
+     */
+    private static void carregarUsuarios(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT MIN(id), COUNT(*) FROM usuarios WHERE email LIKE ?")) {
+            stmt.setString(1, PREFIXO_EMAIL + "%" + DOMINIO_EMAIL);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                primeiroUsuarioId = rs.getLong(1);
+                totalUsuarios = rs.getInt(2);
+            }
+        }
+    }
+    
+    private static boolean existeTabela(Connection conn, String tabela) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, tabela, null)) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.shiftly.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ponto de entrada dos benchmarks (java -jar target/benchmarks.jar [opções do JMH])
+ * Aceita as opções de linha de comando do JMH; sem -rf/-rff grava o resultado em JSON
+ * em target/jmh-results.json, para comparar execuções entre versões
+ */
+public class BenchmarkRunner {
+    
+    private static final String RESULTADO_PADRAO = "target/jmh-results.json";
+    
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+        ChainedOptionsBuilder opcoes = new OptionsBuilder().parent(linhaDeComando);
+        
+        if (!linhaDeComando.getResultFormat().hasValue()) {
+            opcoes.resultFormat(ResultFormatType.JSON);
+        }
+        if (!linhaDeComando.getResult().hasValue()) {
+            opcoes.result(RESULTADO_PADRAO);
+        }
+        
+        // Os forks recebem as configurações do Shiftly (banco, volumes) passadas a este processo
+        List<String> jvmArgs = new ArrayList<>();
+        for (String nome : System.getProperties().stringPropertyNames()) {
+            if (nome.startsWith("shiftly.")) {
+                jvmArgs.add("-D" + nome + "=" + System.getProperty(nome));
+            }
+        }
+        if (!jvmArgs.isEmpty()) {
+            opcoes.jvmArgsAppend(jvmArgs.toArray(new String[0]));
+        }
+        
+        new Runner(opcoes.build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.shiftly.benchmark;
+
+import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.DatabaseHealthMonitor;
+import com.shiftly.repository.DatabaseSynchronizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sincronização incremental H2 → SQL Server depois de uma rajada de pontos alterados offline
+ * Precisa de um SQL Server com o schema do Shiftly, informado por -Dshiftly.database.sqlserver.url
+ * (e .username/.password); sem ele o setup falha e o benchmark é pulado
+ * A primeira sincronização completa roda no setup do trial e não entra na medição
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DatabaseSynchronizerBenchmark {
+    
+    // Pontos corrigidos entre uma sincronização e a seguinte
+    @Param({"100", "10000"})
+    private int alterados;
+    
+    private long menorId;
+    private long maiorId;
+    private long proximoId;
+    
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        BenchmarkDatabase.preparar();
+        
+        // O circuito foi aberto para os benchmarks de H2; fecha com as sondagens exigidas
+        for (int i = 0; i < 5 && !DatabaseConfig.isSqlServerAvailable(); i++) {
+            if (!DatabaseHealthMonitor.probeNow()) {
+                throw new IllegalStateException("SQL Server indisponível para o benchmark de sincronização: "
+                    + "informe -Dshiftly.database.sqlserver.url com um banco que tenha o schema do Shiftly");
+            }
+        }
+        
+        try (Connection conn = DatabaseConfig.getH2Connection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM pontos")) {
+            rs.next();
+            menorId = rs.getLong(1);
+            maiorId = rs.getLong(2);
+            proximoId = menorId;
+        }
+        
+        if (!DatabaseSynchronizer.syncH2ToSqlServer()) {
+            throw new IllegalStateException("Sincronização inicial falhou; veja o log da aplicação");
+        }
+        DatabaseConfig.setCurrentDatabaseType(DatabaseConfig.DatabaseType.H2);
+    }
+    
+    /**
+     * Marca como corrigido o próximo bloco de pontos, avançando em círculo pela tabela
+     */
+    @Setup(Level.Invocation)
+    public void alterarPontos() throws SQLException {
+        if (proximoId + alterados - 1 > maiorId) {
+            proximoId = menorId;
+        }
+        
+        try (Connection conn = DatabaseConfig.getH2Connection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "UPDATE pontos SET data_correcao = CURRENT_TIMESTAMP, motivo_correcao = 'benchmark',"
+                 + " data_atualizacao = CURRENT_TIMESTAMP WHERE id BETWEEN ? AND ?")) {
+            stmt.setLong(1, proximoId);
+            stmt.setLong(2, proximoId + alterados - 1);
+            stmt.executeUpdate();
+        }
+        proximoId += alterados;
+    }
+    
+    @TearDown(Level.Invocation)
+    public void voltarParaH2() {
+        // Uma sincronização bem-sucedida promove o SQL Server a banco principal
+        DatabaseConfig.setCurrentDatabaseType(DatabaseConfig.DatabaseType.H2);
+    }
+    
+    @Benchmark
+    public boolean syncH2ToSqlServer() {
+        return DatabaseSynchronizer.syncH2ToSqlServer();
+    }
+}
@@ -0,0 +1,124 @@
+package com.shiftly.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.shiftly.model.TipoPonto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Custo de log por registro de ponto, antes e depois do pipeline assíncrono
+ * Emite as mesmas mensagens que PontoService.registrarPonto grava por ponto, para um arquivo em target/bench-logs:
+ * SINCRONO_INFO reproduz a configuração anterior (INFO direto no FileAppender), ASSINCRONO_INFO passa pela
+ * fila do AsyncAppender e ASSINCRONO_DEBUG é a configuração atual (mensagens em DEBUG, descartadas no nível INFO)
+ * O console fica de fora para não misturar com a saída do JMH; use -t para medir com threads concorrentes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoggingBenchmark {
+    
+    private static final String ARQUIVO = "target/bench-logs/punch.log";
+    
+    public enum Modo {
+        SINCRONO_INFO, ASSINCRONO_INFO, ASSINCRONO_DEBUG
+    }
+    
+    @Param({"SINCRONO_INFO", "ASSINCRONO_INFO", "ASSINCRONO_DEBUG"})
+    public Modo modo;
+    
+    private Logger logger;
+    private Appender<ILoggingEvent> appender;
+    private final AtomicLong proximoId = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        LoggerContext contexto = (LoggerContext) LoggerFactory.getILoggerFactory();
+        
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(contexto);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+        
+        FileAppender<ILoggingEvent> arquivo = new FileAppender<>();
+        arquivo.setContext(contexto);
+        arquivo.setName("BENCH_FILE");
+        arquivo.setFile(ARQUIVO);
+        arquivo.setAppend(false);
+        arquivo.setEncoder(encoder);
+        arquivo.start();
+        
+        if (modo == Modo.SINCRONO_INFO) {
+            appender = arquivo;
+        } else {
+            // Mesmos parâmetros do ASYNC_FILE do logback.xml
+            AsyncAppender assincrono = new AsyncAppender();
+            assincrono.setContext(contexto);
+            assincrono.setName("BENCH_ASYNC_FILE");
+            assincrono.setQueueSize(8192);
+            assincrono.setNeverBlock(true);
+            assincrono.setIncludeCallerData(false);
+            assincrono.setMaxFlushTime(2000);
+            assincrono.addAppender(arquivo);
+            assincrono.start();
+            appender = assincrono;
+        }
+        
+        logger = contexto.getLogger("com.shiftly.service.PontoService.bench");
+        logger.setAdditive(false);
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger.addAppender(appender);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logger.detachAppender(appender);
+        appender.stop();
+    }
+    
+    /**
+     * Mensagens de um registro de ponto: a validação do usuário e a confirmação do lote
+     */
+    @Benchmark
+    public void registrarPonto() {
+        // Na aplicação os IDs já chegam como Long, vindos do modelo
+        long sequencia = proximoId.incrementAndGet();
+        Long id = sequencia;
+        Long usuarioId = sequencia % 5000;
+        TipoPonto tipoPonto = (sequencia & 1) == 0 ? TipoPonto.ENTRADA : TipoPonto.SAIDA;
+        
+        switch (modo) {
+            case ASSINCRONO_DEBUG:
+                logger.debug("Registrando ponto para usuário ID {} - Tipo: {}", usuarioId, tipoPonto);
+                logger.debug("Ponto registrado com sucesso: ID {}", id);
+                break;
+            default:
+                logger.info("Registrando ponto para usuário ID {} - Tipo: {}", usuarioId, tipoPonto);
+                logger.info("Ponto registrado com sucesso: ID {}", id);
+                break;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.shiftly.benchmark;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.repository.PontoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consulta de histórico de pontos por período (tela do colaborador e relatórios do RH)
+ * Cada chamada sorteia um usuário, para não medir só o cache de páginas do H2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PontoRepositoryBenchmark {
+    
+    // Semana, mês e ano de histórico
+    @Param({"7", "30", "365"})
+    private int dias;
+    
+    private PontoRepository pontoRepository;
+    private LocalDate fim;
+    private LocalDate inicio;
+    
+    @Setup
+    public void setup() {
+        BenchmarkDatabase.preparar();
+        pontoRepository = new PontoRepository();
+        fim = BenchmarkDatabase.diaAncora();
+        inicio = fim.minusDays(dias - 1);
+    }
+    
+    @Benchmark
+    public List<Ponto> findByUsuarioIdAndPeriodo() {
+        return pontoRepository.findByUsuarioIdAndPeriodo(BenchmarkDatabase.usuarioAleatorio(), inicio, fim);
+    }
+}
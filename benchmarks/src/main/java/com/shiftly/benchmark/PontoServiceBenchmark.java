@@ -0,0 +1,48 @@
+package com.shiftly.benchmark;
+
+import com.shiftly.service.PontoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saldo de horas do mês (cards do painel do colaborador), sobre a jornada diária consolidada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PontoServiceBenchmark {
+    
+    private PontoService pontoService;
+    private int ano;
+    private int mes;
+    
+    @Setup
+    public void setup() {
+        BenchmarkDatabase.preparar();
+        pontoService = new PontoService();
+        
+        // Mês fechado mais recente do período gerado
+        LocalDate mesAnterior = BenchmarkDatabase.diaAncora().minusMonths(1);
+        ano = mesAnterior.getYear();
+        mes = mesAnterior.getMonthValue();
+    }
+    
+    @Benchmark
+    public double calcularSaldoHorasMes() {
+        return pontoService.calcularSaldoHorasMes(BenchmarkDatabase.usuarioAleatorio(), ano, mes);
+    }
+}
@@ -0,0 +1,78 @@
+package com.shiftly.benchmark;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.model.TipoPonto;
+import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.PontoRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica a geração do banco de benchmark com volumes reduzidos, em memória
+ */
+public class BenchmarkDatabaseTest {
+    
+    private static final int USUARIOS = 20;
+    private static final int PONTOS = 2000;
+    
+    @BeforeAll
+    public static void setUp() {
+        // Precisa vir antes de qualquer acesso ao ConfigUtil
+        System.setProperty("shiftly.database.h2.url", "jdbc:h2:mem:bench-test;DB_CLOSE_DELAY=-1");
+        System.setProperty("shiftly.bench.usuarios", String.valueOf(USUARIOS));
+        System.setProperty("shiftly.bench.pontos", String.valueOf(PONTOS));
+        BenchmarkDatabase.preparar();
+    }
+    
+    @Test
+    public void testVolumesGerados() throws SQLException {
+        assertEquals(USUARIOS, BenchmarkDatabase.getTotalUsuarios());
+        
+        long primeiro = BenchmarkDatabase.getPrimeiroUsuarioId();
+        assertEquals(PONTOS, contar("SELECT COUNT(*) FROM pontos WHERE usuario_id >= " + primeiro));
+        // Uma entrada e uma saída por dia útil e usuário, todas consolidadas na jornada diária
+        assertEquals(PONTOS / 2, contar("SELECT COUNT(*) FROM jornada_diaria WHERE usuario_id >= " + primeiro));
+        assertEquals(0, contar("SELECT COUNT(*) FROM jornada_diaria WHERE inconsistente AND usuario_id >= " + primeiro));
+    }
+    
+    @Test
+    public void testPontosEmDiasUteisAlternados() {
+        long usuarioId = BenchmarkDatabase.usuarioAleatorio();
+        LocalDate fim = BenchmarkDatabase.diaAncora();
+        
+        List<Ponto> pontos = new PontoRepository().findByUsuarioIdAndPeriodo(usuarioId, fim.minusDays(6), fim);
+        
+        assertEquals(10, pontos.size());
+        for (Ponto ponto : pontos) {
+            DayOfWeek dia = ponto.getDataHora().getDayOfWeek();
+            assertNotEquals(DayOfWeek.SATURDAY, dia);
+            assertNotEquals(DayOfWeek.SUNDAY, dia);
+            TipoPonto esperado = ponto.getDataHora().getHour() < 12 ? TipoPonto.ENTRADA : TipoPonto.SAIDA;
+            assertEquals(esperado, ponto.getTipoPonto());
+        }
+    }
+    
+    @Test
+    public void testEmailDoUsuarioGerado() {
+        assertEquals("bench1@shiftly.com", BenchmarkDatabase.emailDe(BenchmarkDatabase.getPrimeiroUsuarioId()));
+    }
+    
+    private long contar(String sql) throws SQLException {
+        try (Connection conn = DatabaseConfig.getH2Connection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.shiftly.app;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.DatabaseHealthMonitor;
+import com.shiftly.repository.SqlRegistry;
+import com.shiftly.repository.UsuarioCache;
+import com.shiftly.service.DomainEventBus;
+import com.shiftly.util.AppExecutors;
+import com.shiftly.util.ConfigUtil;
+import com.shiftly.util.Metrics;
+import com.shiftly.util.PasswordHasher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exposição local das métricas da aplicação
+ * HTTP em 127.0.0.1 (/metrics em JSON, /stats em texto com as estatísticas de todos os componentes)
+ * e MBean com.shiftly:type=Metrics para jconsole/VisualVM
+ */
+public class MetricsServer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+    
+    private static final boolean HTTP_ENABLED = ConfigUtil.getBoolean("metrics.http.enabled", true);
+    private static final String HTTP_HOST = ConfigUtil.getString("metrics.http.host", "127.0.0.1");
+    private static final int HTTP_PORT = ConfigUtil.getInt("metrics.http.port", 9464);
+    private static final boolean JMX_ENABLED = ConfigUtil.getBoolean("metrics.jmx.enabled", true);
+    private static final String JMX_NAME = "com.shiftly:type=Metrics";
+    
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    
+    private static HttpServer server;
+    private static ExecutorService executor;
+    private static ObjectName jmxName;
+    
+    /**
+     * Interface de gerenciamento publicada no JMX
+     */
+    public interface MetricsMXBean {
+        String getStats();
+        
+        String getSnapshotJson();
+    }
+    
+    /**
+     * Inicia o endpoint HTTP e registra o MBean, conforme a configuração
+     * Falhas (ex.: porta ocupada) só geram aviso: a aplicação segue sem o endpoint
+     */
+    public static synchronized void start() {
+        if (!Metrics.isEnabled()) {
+            logger.info("Métricas desabilitadas; endpoint não iniciado");
+            return;
+        }
+        
+        if (HTTP_ENABLED && server == null) {
+            try {
+                HttpServer novo = HttpServer.create(new InetSocketAddress(HTTP_HOST, HTTP_PORT), 0);
+                novo.createContext("/metrics", exchange -> responder(exchange, "application/json", getSnapshotJson()));
+                novo.createContext("/stats", exchange -> responder(exchange, "text/plain", getStats()));
+                executor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "shiftly-metrics-http");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                novo.setExecutor(executor);
+                novo.start();
+                server = novo;
+                logger.info("Métricas disponíveis em http://{}:{}/metrics e /stats", HTTP_HOST, server.getAddress().getPort());
+            } catch (IOException e) {
+                logger.warn("Não foi possível iniciar o endpoint de métricas em {}:{}: {}", HTTP_HOST, HTTP_PORT, e.getMessage());
+                if (executor != null) {
+                    executor.shutdownNow();
+                    executor = null;
+                }
+            }
+        }
+        
+        if (JMX_ENABLED && jmxName == null) {
+            try {
+                MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+                ObjectName nome = new ObjectName(JMX_NAME);
+                if (!mbeanServer.isRegistered(nome)) {
+                    mbeanServer.registerMBean(new MetricsMXBean() {
+                        @Override
+                        public String getStats() {
+                            return MetricsServer.getStats();
+                        }
+                        
+                        @Override
+                        public String getSnapshotJson() {
+                            return MetricsServer.getSnapshotJson();
+                        }
+                    }, nome);
+                }
+                jmxName = nome;
+                logger.info("Métricas registradas no JMX como {}", JMX_NAME);
+            } catch (Exception e) {
+                logger.warn("Não foi possível registrar as métricas no JMX: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Encerra o endpoint HTTP e remove o MBean
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (jmxName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(jmxName);
+            } catch (Exception e) {
+                logger.debug("MBean de métricas já removido: {}", e.getMessage());
+            }
+            jmxName = null;
+        }
+    }
+    
+    /**
+     * Porta em que o endpoint HTTP está escutando, ou -1 se não está ativo
+     */
+    public static synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+    
+    /**
+     * Snapshot das métricas em JSON
+     */
+    public static String getSnapshotJson() {
+        try {
+            return objectMapper.writeValueAsString(Metrics.snapshot());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar métricas", e);
+        }
+    }
+    
+    /**
+     * Métricas seguidas das estatísticas dos demais componentes
+     */
+    public static String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append(Metrics.getStats()).append("\n");
+        stats.append(DatabaseConfig.getPoolStats()).append("\n");
+        stats.append(SqlRegistry.getStats()).append("\n");
+        stats.append(DatabaseHealthMonitor.getHealthStats()).append("\n");
+        stats.append(AppExecutors.getStats()).append("\n");
+        stats.append(PasswordHasher.getStats()).append("\n");
+        stats.append(UsuarioCache.getStats()).append("\n");
+        stats.append(DomainEventBus.getStats());
+        return stats.toString();
+    }
+    
+    private static void responder(HttpExchange exchange, String tipo, String corpo) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", tipo + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.shiftly.app;
 
 import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.DatabaseHealthMonitor;
 import com.shiftly.repository.DatabaseInitializer;
 import com.shiftly.repository.DatabaseSynchronizer;
+import com.shiftly.service.PontoService;
 import com.shiftly.service.SyncService;
+import com.shiftly.util.AppExecutors;
+import com.shiftly.util.PasswordHasher;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
@@ -41,6 +45,9 @@ public class ShiftlyApplication extends Application {
         // Inicia sincronização automática
         startAutoSync();
         
+        // Expõe métricas localmente (HTTP e JMX)
+        MetricsServer.start();
+        
         logger.info("Aplicação inicializada com sucesso");
     }
     
@@ -77,8 +84,9 @@ public class ShiftlyApplication extends Application {
         
         logger.info("Finalizando aplicação...");
         
-        // Para sincronização automática
+        // Para sincronização automática e monitor de saúde
         DatabaseSynchronizer.stopAutoSync();
+        DatabaseHealthMonitor.stop();
         
         // Limpa recursos
         cleanup();
@@ -124,6 +132,9 @@ public class ShiftlyApplication extends Application {
             // Testa conectividade
             DatabaseConfig.testConnectivity();
             
+            // Inicia monitoramento de saúde do SQL Server em segundo plano
+            DatabaseHealthMonitor.start();
+            
             // Inicializa estruturas do banco
             DatabaseInitializer.initializeDatabase();
             
@@ -163,7 +174,12 @@ public class ShiftlyApplication extends Application {
     private void cleanup() {
         // Executa limpeza de sessões expiradas
         try {
-            // TODO: Implementar limpeza de recursos se necessário
+            // Grava pontos ainda enfileirados e fecha pools de conexão
+            PontoService.shutdownIngestion();
+            MetricsServer.stop();
+            PasswordHasher.shutdown();
+            AppExecutors.shutdown();
+            DatabaseConfig.shutdownPools();
             logger.debug("Limpeza de recursos concluída");
         } catch (Exception e) {
             logger.warn("Erro durante limpeza de recursos: {}", e.getMessage());
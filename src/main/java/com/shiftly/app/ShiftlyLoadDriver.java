@@ -0,0 +1,415 @@
+package com.shiftly.app;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.model.TipoPonto;
+import com.shiftly.repository.ConnectionPool;
+import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.DatabaseHealthMonitor;
+import com.shiftly.repository.DatabaseInitializer;
+import com.shiftly.repository.SqlDialect;
+import com.shiftly.service.PontoService;
+import com.shiftly.util.AppExecutors;
+import com.shiftly.util.LatencyHistogram;
+import com.shiftly.util.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga sem interface que simula a troca de turno (ex.: 07:55–08:05) contra o H2
+ * Cada funcionário chega em um instante sorteado pela curva de chegada, espera um quiosque livre,
+ * consulta o próximo tipo de ponto e registra o ponto pelo PontoService, como a tela faria
+ * Uso: java -cp shiftly-system-1.0.0.jar com.shiftly.app.ShiftlyLoadDriver --funcionarios=2000 --curva=PICO
+ */
+public class ShiftlyLoadDriver {
+    
+    static {
+        // O log por ponto registrado distorceria a medição; -Dshiftly.log.level=INFO para vê-lo
+        if (System.getProperty("shiftly.log.level") == null) {
+            System.setProperty("shiftly.log.level", "WARN");
+        }
+    }
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShiftlyLoadDriver.class);
+    
+    private static final String PREFIXO_EMAIL = "carga";
+    private static final String DOMINIO_EMAIL = "@shiftly.com";
+    private static final long INTERVALO_AMOSTRAGEM_POOL_MS = 100;
+    
+    /**
+     * Distribuição dos instantes de chegada dentro da janela
+     */
+    public enum CurvaChegada {
+        // Chegadas espalhadas por igual na janela
+        CONSTANTE,
+        // Concentradas no meio da janela (triangular), como às 08:00 em ponto
+        PICO,
+        // Densidade crescente até o fim da janela (atrasados correndo para o relógio)
+        RAMPA,
+        // Todos ao mesmo tempo: pior caso
+        RAJADA;
+        
+        /**
+         * Posição da chegada na janela, entre 0 e 1
+         */
+        double sortear(Random random) {
+            switch (this) {
+                case PICO:
+                    return (random.nextDouble() + random.nextDouble()) / 2;
+                case RAMPA:
+                    return Math.sqrt(random.nextDouble());
+                case RAJADA:
+                    return 0.0;
+                case CONSTANTE:
+                default:
+                    return random.nextDouble();
+            }
+        }
+    }
+    
+    // Parâmetros da execução
+    private final int funcionarios;
+    private final int quiosques;
+    private final long janelaSegundos;
+    private final double velocidade;
+    private final CurvaChegada curva;
+    private final long semente;
+    private final double maxErros;
+    private final double maxP99Ms;
+    
+    private final PontoService pontoService = new PontoService();
+    
+    // Métricas
+    private final LatencyHistogram latenciaProximoTipo = new LatencyHistogram();
+    private final LatencyHistogram latenciaRegistro = new LatencyHistogram();
+    private final LatencyHistogram latenciaTotal = new LatencyHistogram();
+    private final LatencyHistogram esperaQuiosque = new LatencyHistogram();
+    private final Map<String, LongAdder> erros = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> concluidosPorSegundo = new ConcurrentHashMap<>();
+    private final LongAdder registrados = new LongAdder();
+    private final LongAdder offline = new LongAdder();
+    private final AtomicInteger maxConexoesAtivas = new AtomicInteger();
+    private final AtomicInteger maxConexoesAbertas = new AtomicInteger();
+    private final AtomicInteger maxAguardandoConexao = new AtomicInteger();
+    private final AtomicLong ultimaConclusao = new AtomicLong();
+    
+    public ShiftlyLoadDriver(Map<String, String> opcoes) {
+        this.funcionarios = Integer.parseInt(opcoes.getOrDefault("funcionarios", "500"));
+        this.quiosques = Integer.parseInt(opcoes.getOrDefault("quiosques", "50"));
+        this.janelaSegundos = Long.parseLong(opcoes.getOrDefault("janela", "600"));
+        this.velocidade = Double.parseDouble(opcoes.getOrDefault("velocidade", "10"));
+        this.curva = CurvaChegada.valueOf(opcoes.getOrDefault("curva", "PICO").toUpperCase());
+        this.semente = Long.parseLong(opcoes.getOrDefault("semente", "42"));
+        this.maxErros = Double.parseDouble(opcoes.getOrDefault("max-erros", "0.01"));
+        this.maxP99Ms = Double.parseDouble(opcoes.getOrDefault("max-p99-ms", "0"));
+        
+        if (funcionarios < 1 || quiosques < 1 || janelaSegundos < 0 || velocidade <= 0) {
+            throw new IllegalArgumentException("Parâmetros inválidos: funcionarios e quiosques >= 1, janela >= 0, velocidade > 0");
+        }
+    }
+    
+    public static void main(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            if (arg.equals("--ajuda") || arg.equals("--help")) {
+                imprimirAjuda();
+                return;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Argumento inválido: " + arg);
+                imprimirAjuda();
+                System.exit(2);
+            }
+            opcoes.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        
+        int codigoSaida;
+        try {
+            codigoSaida = new ShiftlyLoadDriver(opcoes).executar() ? 0 : 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            imprimirAjuda();
+            codigoSaida = 2;
+        } finally {
+            PontoService.shutdownIngestion();
+            AppExecutors.shutdown();
+            DatabaseConfig.shutdownPools();
+        }
+        System.exit(codigoSaida);
+    }
+    
+    private static void imprimirAjuda() {
+        System.out.println("""
+            Uso: ShiftlyLoadDriver [--opcao=valor ...]
+              --funcionarios=500   funcionários que batem o ponto na janela
+              --quiosques=50       relógios de ponto simultâneos (threads)
+              --janela=600         duração da janela de chegada em segundos (600 = 07:55 às 08:05)
+              --velocidade=10      compressão do tempo (10 = a janela de 600 s roda em 60 s)
+              --curva=PICO         CONSTANTE, PICO, RAMPA ou RAJADA
+              --semente=42         semente do sorteio das chegadas
+              --max-erros=0.01     taxa de erro acima da qual a execução falha (código de saída 1)
+              --max-p99-ms=0       p99 total acima do qual a execução falha (0 = sem limite)
+            O banco é o H2 de database.h2.url (-Dshiftly.database.h2.url=... para usar outro)
+            """);
+    }
+    
+    /**
+     * Prepara o banco, dispara as chegadas e imprime o relatório
+     * Retorna se a execução ficou dentro dos limites de erro e latência
+     */
+    public boolean executar() {
+        List<Long> usuarios = prepararBanco();
+        
+        long janelaNanos = (long) (TimeUnit.SECONDS.toNanos(janelaSegundos) / velocidade);
+        Random random = new Random(semente);
+        long[] chegadas = new long[funcionarios];
+        for (int i = 0; i < funcionarios; i++) {
+            chegadas[i] = (long) (curva.sortear(random) * janelaNanos);
+        }
+        
+        System.out.printf("Simulando %d funcionários em %d quiosques, curva %s, janela de %d s em %.1f s...%n",
+            funcionarios, quiosques, curva, janelaSegundos, janelaNanos / 1e9);
+        
+        ExecutorService quiosquesPool = Executors.newFixedThreadPool(quiosques, threadFactory("shiftly-quiosque-"));
+        ScheduledExecutorService relogio = Executors.newScheduledThreadPool(1, threadFactory("shiftly-chegadas-"));
+        CountDownLatch concluidos = new CountDownLatch(funcionarios);
+        
+        ScheduledFuture<?> amostragem = relogio.scheduleAtFixedRate(this::amostrarPool,
+            0, INTERVALO_AMOSTRAGEM_POOL_MS, TimeUnit.MILLISECONDS);
+        
+        long inicio = System.nanoTime();
+        for (int i = 0; i < funcionarios; i++) {
+            Long usuarioId = usuarios.get(i);
+            long chegada = inicio + chegadas[i];
+            relogio.schedule(() -> quiosquesPool.execute(() -> {
+                try {
+                    baterPonto(usuarioId, chegada, inicio);
+                } finally {
+                    concluidos.countDown();
+                }
+            }), chegada - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        
+        try {
+            concluidos.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Teste de carga interrompido");
+        }
+        long duracaoNanos = ultimaConclusao.get() - inicio;
+        
+        amostragem.cancel(false);
+        amostrarPool();
+        relogio.shutdownNow();
+        quiosquesPool.shutdownNow();
+        
+        return relatar(duracaoNanos);
+    }
+    
+    /**
+     * Um funcionário no quiosque: consulta o próximo tipo e registra o ponto
+     * A latência total conta a partir da chegada, incluindo a espera por um quiosque livre
+     */
+    private void baterPonto(Long usuarioId, long chegada, long inicio) {
+        long atendimento = System.nanoTime();
+        esperaQuiosque.registrar(atendimento - chegada);
+        
+        try {
+            TipoPonto tipo = pontoService.obterProximoTipoPonto(usuarioId);
+            long consultado = System.nanoTime();
+            latenciaProximoTipo.registrar(consultado - atendimento);
+            
+            Ponto ponto = pontoService.registrarPonto(usuarioId, tipo, -23.5505, -46.6333, null);
+            long registrado = System.nanoTime();
+            latenciaRegistro.registrar(registrado - consultado);
+            latenciaTotal.registrar(registrado - chegada);
+            
+            // ID negativo: o banco falhou e o ponto foi para o journal offline
+            if (ponto.getId() != null && ponto.getId() < 0) {
+                offline.increment();
+            } else {
+                registrados.increment();
+            }
+        } catch (RuntimeException e) {
+            erros.computeIfAbsent(e.getClass().getSimpleName() + ": " + e.getMessage(), k -> new LongAdder()).increment();
+        }
+        
+        long agora = System.nanoTime();
+        ultimaConclusao.accumulateAndGet(agora, Math::max);
+        concluidosPorSegundo.computeIfAbsent(TimeUnit.NANOSECONDS.toSeconds(agora - inicio), k -> new LongAdder()).increment();
+    }
+    
+    /**
+     * Guarda os picos de conexões do pool do H2
+     */
+    private void amostrarPool() {
+        ConnectionPool.PoolStats stats = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2);
+        if (stats != null) {
+            maxConexoesAtivas.accumulateAndGet(stats.getActive(), Math::max);
+            maxConexoesAbertas.accumulateAndGet(stats.getTotal(), Math::max);
+            maxAguardandoConexao.accumulateAndGet(stats.getWaiting(), Math::max);
+        }
+    }
+    
+    /**
+     * Imprime o relatório e avalia os limites
+     */
+    private boolean relatar(long duracaoNanos) {
+        long totalErros = offline.sum() + erros.values().stream().mapToLong(LongAdder::sum).sum();
+        double taxaErros = (double) totalErros / funcionarios;
+        double segundos = Math.max(duracaoNanos, 1) / 1e9;
+        long picoPorSegundo = concluidosPorSegundo.values().stream().mapToLong(LongAdder::sum).max().orElse(0);
+        
+        StringBuilder relatorio = new StringBuilder();
+        relatorio.append("\n=== TESTE DE CARGA: TROCA DE TURNO ===\n");
+        relatorio.append("Funcionários: ").append(funcionarios).append(" | Quiosques: ").append(quiosques)
+                 .append(" | Curva: ").append(curva).append("\n");
+        relatorio.append(String.format("Duração: %.2f s%n", segundos));
+        relatorio.append(String.format("Vazão média: %.1f pontos/s | Pico: %d pontos/s%n",
+            registrados.sum() / segundos, picoPorSegundo));
+        relatorio.append("Registrados: ").append(registrados.sum()).append("\n");
+        relatorio.append("Journal offline: ").append(offline.sum()).append("\n");
+        relatorio.append(String.format("Erros: %d (%.2f%%)%n", totalErros, taxaErros * 100));
+        new TreeMap<>(erros).forEach((mensagem, quantidade) ->
+            relatorio.append("  ").append(quantidade.sum()).append("x ").append(mensagem).append("\n"));
+        
+        relatorio.append("\n").append(latenciaTotal.formatar("LATÊNCIA TOTAL (chegada até ponto gravado)"));
+        relatorio.append("\n").append(esperaQuiosque.formatar("ESPERA POR QUIOSQUE"));
+        relatorio.append("\n").append(latenciaProximoTipo.formatar("obterProximoTipoPonto"));
+        relatorio.append("\n").append(latenciaRegistro.formatar("registrarPonto"));
+        
+        relatorio.append("\n=== CONEXÕES (H2) ===\n");
+        relatorio.append("Máximo de conexões ativas: ").append(maxConexoesAtivas.get()).append("\n");
+        relatorio.append("Máximo de conexões abertas: ").append(maxConexoesAbertas.get()).append("\n");
+        relatorio.append("Máximo aguardando conexão: ").append(maxAguardandoConexao.get()).append("\n");
+        ConnectionPool.PoolStats stats = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2);
+        if (stats != null) {
+            relatorio.append(stats).append("\n");
+        }
+        
+        boolean aprovado = taxaErros <= maxErros;
+        relatorio.append("\n=== RESULTADO ===\n");
+        relatorio.append(String.format("Taxa de erros %.2f%% (limite %.2f%%)%n", taxaErros * 100, maxErros * 100));
+        if (maxP99Ms > 0) {
+            double p99Ms = latenciaTotal.percentilMicros(99) / 1000.0;
+            aprovado &= p99Ms <= maxP99Ms;
+            relatorio.append(String.format("p99 total %.2f ms (limite %.2f ms)%n", p99Ms, maxP99Ms));
+        }
+        relatorio.append(aprovado ? "APROVADO\n" : "REPROVADO\n");
+        
+        System.out.print(relatorio);
+        return aprovado;
+    }
+    
+    /**
+     * Força o H2, cria o schema se preciso e garante os funcionários sintéticos sem pontos hoje
+     */
+    private List<Long> prepararBanco() {
+        DatabaseHealthMonitor.tripCircuit("Teste de carga no H2");
+        DatabaseConfig.setCurrentDatabaseType(DatabaseConfig.DatabaseType.H2);
+        
+        try (Connection conn = DatabaseConfig.getH2Connection()) {
+            try (ResultSet rs = conn.getMetaData().getTables(null, null, "USUARIOS", null)) {
+                if (!rs.next()) {
+                    DatabaseInitializer.initializeH2();
+                }
+            }
+            
+            int existentes = contarFuncionarios(conn);
+            if (existentes < funcionarios) {
+                criarFuncionarios(conn, existentes + 1, funcionarios);
+            }
+            
+            List<Long> usuarios = new ArrayList<>(funcionarios);
+            try (PreparedStatement stmt = conn.prepareStatement(SqlDialect.of(conn).limitParameter(
+                    "SELECT id FROM usuarios WHERE email LIKE ? ORDER BY id"))) {
+                stmt.setString(1, PREFIXO_EMAIL + "%" + DOMINIO_EMAIL);
+                stmt.setInt(2, funcionarios);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        usuarios.add(rs.getLong(1));
+                    }
+                }
+            }
+            
+            // Execuções anteriores no mesmo dia deixariam os funcionários no meio da sequência de pontos
+            Timestamp hoje = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+            for (String sql : new String[] {
+                    "DELETE FROM pontos WHERE data_hora >= ? AND usuario_id IN (SELECT id FROM usuarios WHERE email LIKE ?)",
+                    "DELETE FROM jornada_diaria WHERE data >= ? AND usuario_id IN (SELECT id FROM usuarios WHERE email LIKE ?)"}) {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setTimestamp(1, hoje);
+                    stmt.setString(2, PREFIXO_EMAIL + "%" + DOMINIO_EMAIL);
+                    stmt.executeUpdate();
+                }
+            }
+            return usuarios;
+        
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao preparar o banco do teste de carga: " + e.getMessage(), e);
+        }
+    }
+    
+    private int contarFuncionarios(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM usuarios WHERE email LIKE ?")) {
+            stmt.setString(1, PREFIXO_EMAIL + "%" + DOMINIO_EMAIL);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+    
+    /**
+     * Cria os funcionários sintéticos de primeiro a ultimo em um único comando, com o mesmo hash de senha
+     */
+    private void criarFuncionarios(Connection conn, int primeiro, int ultimo) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                INSERT INTO usuarios (nome, email, senha, tipo_usuario, cargo, departamento, ativo, data_admissao)
+                SELECT 'Funcionário Carga ' || X, ? || X || ?, ?, 'COLABORADOR', 'Operador', 'Produção', TRUE, CURRENT_TIMESTAMP
+                FROM SYSTEM_RANGE(?, ?)
+                """)) {
+            stmt.setString(1, PREFIXO_EMAIL);
+            stmt.setString(2, DOMINIO_EMAIL);
+            stmt.setString(3, PasswordHasher.encode("carga123"));
+            stmt.setInt(4, primeiro);
+            stmt.setInt(5, ultimo);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Fábrica de threads daemon nomeadas
+     */
+    private static ThreadFactory threadFactory(String prefixo) {
+        AtomicInteger sequencia = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, prefixo + sequencia.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
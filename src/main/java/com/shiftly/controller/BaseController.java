@@ -1,6 +1,10 @@
 package com.shiftly.controller;
 
 import com.shiftly.service.AuthService;
+import com.shiftly.service.DomainEvent;
+import com.shiftly.service.DomainEventBus;
+import com.shiftly.util.AppExecutors;
+import com.shiftly.util.AsyncLoader;
 import com.shiftly.util.JwtUtil;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -15,7 +19,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Controller base com funcionalidades comuns
@@ -31,6 +43,12 @@ public abstract class BaseController {
     protected static String currentAccessToken;
     protected static JwtUtil.UserInfo currentUser;
     
+    // Tarefas em segundo plano desta tela, canceladas ao sair dela
+    private final Set<Future<?>> backgroundTasks = ConcurrentHashMap.newKeySet();
+    
+    // Assinaturas de eventos desta tela, canceladas junto com as tarefas
+    private final Set<DomainEventBus.Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    
     /**
      * Inicialização do controller
      */
@@ -77,6 +95,7 @@ public abstract class BaseController {
      * Fecha a tela atual
      */
     protected void closeCurrentStage(Node node) {
+        cancelBackgroundTasks();
         Stage stage = (Stage) node.getScene().getWindow();
         stage.close();
     }
@@ -85,6 +104,8 @@ public abstract class BaseController {
      * Navega para uma nova tela fechando a atual
      */
     protected void navigateToScene(String fxmlPath, String title, Node currentNode) {
+        cancelBackgroundTasks();
+        
         try {
             Stage currentStage = (Stage) currentNode.getScene().getWindow();
             
@@ -250,12 +271,68 @@ public abstract class BaseController {
     }
     
     /**
-     * Executa tarefa em background
+     * Executa tarefa em background no executor de IO compartilhado
+     * A tarefa fica vinculada a esta tela e é cancelada ao navegar para outra (ver cancelBackgroundTasks)
+     */
+    protected Future<?> runInBackground(Runnable task) {
+        backgroundTasks.removeIf(Future::isDone);
+        
+        // javafx.concurrent.Task já é um FutureTask: cancelá-lo também atualiza o estado da Task
+        FutureTask<?> future = task instanceof FutureTask ? (FutureTask<?>) task : new FutureTask<>(task, null);
+        try {
+            AppExecutors.io().execute(future);
+        } catch (RejectedExecutionException e) {
+            // Executor saturado: a tarefa não roda; cancelá-la dispara o onCancelled de uma Task
+            future.cancel(false);
+            logger.error("Tarefa em background recusada: {}", e.getMessage());
+            runInUIThread(() -> showError("Erro", "Sistema ocupado. Tente novamente em alguns instantes"));
+            return future;
+        }
+        backgroundTasks.add(future);
+        return future;
+    }
+    
+    /**
+     * Dispara as consultas do carregador em paralelo e aplica os resultados em um único pulso da UI
+     * Assim como runInBackground, é cancelado ao sair da tela
+     */
+    protected Future<Void> runInBackground(AsyncLoader loader) {
+        backgroundTasks.removeIf(Future::isDone);
+        
+        Future<Void> future = loader.start(this::runInUIThread);
+        backgroundTasks.add(future);
+        return future;
+    }
+    
+    /**
+     * Assina eventos de domínio entregues em lote no thread da UI, para aplicar as alterações sem recarregar a tela
+     * Se eventos forem perdidos, aoPerderEventos deve recarregar os dados; a assinatura termina ao sair da tela
+     */
+    protected void subscribeEvents(Predicate<DomainEvent> filtro, Consumer<List<DomainEvent>> aoReceber,
+                                   Runnable aoPerderEventos) {
+        assinaturas.add(DomainEventBus.assinar(getClass().getSimpleName(), filtro, this::runInUIThread,
+            aoReceber, aoPerderEventos));
+    }
+    
+    /**
+     * Cancela (com interrupção) as tarefas em background ainda em andamento desta tela
+     * e encerra as assinaturas de eventos
      */
-    protected void runInBackground(Runnable task) {
-        Thread backgroundThread = new Thread(task);
-        backgroundThread.setDaemon(true);
-        backgroundThread.start();
+    protected void cancelBackgroundTasks() {
+        assinaturas.forEach(DomainEventBus.Assinatura::cancelar);
+        assinaturas.clear();
+        
+        int canceladas = 0;
+        for (Future<?> future : backgroundTasks) {
+            if (future.cancel(true)) {
+                canceladas++;
+            }
+        }
+        backgroundTasks.clear();
+        
+        if (canceladas > 0) {
+            logger.debug("{} tarefas em background canceladas ao sair da tela", canceladas);
+        }
     }
     
     /**
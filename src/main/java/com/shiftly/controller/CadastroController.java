@@ -3,6 +3,7 @@ package com.shiftly.controller;
 import com.shiftly.model.Usuario;
 import com.shiftly.service.UsuarioService;
 import com.shiftly.model.TipoUsuario;
+import com.shiftly.util.AppExecutors;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import javafx.application.Platform;
@@ -20,6 +21,7 @@ import java.net.URL;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller para a tela de cadastro de usuários
@@ -176,9 +178,7 @@ public class CadastroController implements Initializable {
             });
         });
         
-        Thread cadastroThread = new Thread(cadastroTask);
-        cadastroThread.setDaemon(true);
-        cadastroThread.start();
+        AppExecutors.io().execute(cadastroTask);
     }
     
     /**
@@ -297,22 +297,8 @@ public class CadastroController implements Initializable {
             // Mostra mensagem de sucesso
             showStatus("Usuário cadastrado com sucesso! Redirecionando para login...", "success");
             
-            // Aguarda 2 segundos e volta para login
-            Task<Void> delayTask = new Task<Void>() {
-                @Override
-                protected Void call() throws Exception {
-                    Thread.sleep(2000);
-                    return null;
-                }
-            };
-            
-            delayTask.setOnSucceeded(e -> {
-                Platform.runLater(() -> handleVoltar());
-            });
-            
-            Thread delayThread = new Thread(delayTask);
-            delayThread.setDaemon(true);
-            delayThread.start();
+            // Aguarda 2 segundos e volta para login (agendado, sem ocupar uma thread dormindo)
+            AppExecutors.scheduler().schedule(() -> Platform.runLater(this::handleVoltar), 2, TimeUnit.SECONDS);
         });
     }
     
@@ -2,7 +2,10 @@ package com.shiftly.controller;
 
 import com.shiftly.model.*;
 import com.shiftly.service.*;
+import com.shiftly.util.AsyncLoader;
+import com.shiftly.util.ConfigUtil;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
@@ -12,18 +15,33 @@ import javafx.scene.chart.LineChart;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Callback;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * Controller para dashboard do colaborador
  */
 public class ColaboradorDashboardController extends BaseController {
     
+    // Timeout de cada consulta dos cards de status
+    private static final long STATUS_CARDS_TIMEOUT_MS = ConfigUtil.getLong("ui.dashboard.query.timeout.ms", 5000);
+    private static final String INDISPONIVEL = "--";
+    
+    // Histórico de pontos: tamanho da página e quantas páginas ficam em memória
+    private static final int PONTOS_PAGINA = ConfigUtil.getInt("ui.pontos.page.size", 50);
+    private static final int PONTOS_MAX_PAGINAS = ConfigUtil.getInt("ui.pontos.max.pages", 4);
+    private static final DateTimeFormatter FORMATO_DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    // Ordem do histórico: do mais recente para o mais antigo (a mesma da consulta keyset)
+    private static final Comparator<Ponto> MAIS_RECENTE_PRIMEIRO =
+        Comparator.comparing(Ponto::getDataHora).thenComparing(Ponto::getId).reversed();
+    
     // Serviços
     private PontoService pontoService;
     private FeriasService feriasService;
@@ -52,8 +70,9 @@ public class ColaboradorDashboardController extends BaseController {
     // Elementos da interface - Histórico de Pontos
     @FXML private TableView<Ponto> pontosTable;
     @FXML private TableColumn<Ponto, LocalDateTime> dataHoraColumn;
-    @FXML private TableColumn<Ponto, String> tipoPontoColumn;
-    @FXML private TableColumn<Ponto, String> statusColumn;
+    @FXML private TableColumn<Ponto, TipoPonto> tipoPontoColumn;
+    @FXML private TableColumn<Ponto, Ponto> statusColumn;
+    private PagedTableModel<Ponto> pontosModel;
     @FXML private DatePicker dataInicioFilter;
     @FXML private DatePicker dataFimFilter;
     @FXML private Button filtrarPontosButton;
@@ -88,6 +107,11 @@ public class ColaboradorDashboardController extends BaseController {
         // Carrega dados
         loadDashboardData();
         
+        // Pontos e solicitações do próprio colaborador chegam como eventos e são aplicados nas tabelas
+        Long userId = currentUser != null ? currentUser.getId() : null;
+        subscribeEvents(evento -> evento.getTipo() == DomainEvent.Tipo.PONTO_REMOVIDO || Objects.equals(evento.getUsuarioId(), userId),
+            this::aplicarEventos, this::loadDashboardData);
+        
         // Inicia timer para atualizar horário
         startTimeTimer();
         
@@ -114,41 +138,38 @@ public class ColaboradorDashboardController extends BaseController {
     
     /**
      * Configura tabela de pontos
+     * As linhas vêm de páginas carregadas sob demanda; as células só formatam o valor com formatadores compartilhados
      */
     private void setupPontosTable() {
-        dataHoraColumn.setCellValueFactory(new PropertyValueFactory<>("dataHora"));
-        dataHoraColumn.setCellFactory(column -> new TableCell<Ponto, LocalDateTime>() {
-            @Override
-            protected void updateItem(LocalDateTime item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                } else {
-                    setText(item.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-                }
-            }
-        });
+        dataHoraColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getDataHora()));
+        dataHoraColumn.setCellFactory(celulaFormatada(FORMATO_DATA_HORA::format));
         
-        tipoPontoColumn.setCellValueFactory(new PropertyValueFactory<>("tipoPonto"));
-        tipoPontoColumn.setCellFactory(column -> new TableCell<Ponto, String>() {
+        tipoPontoColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getTipoPonto()));
+        tipoPontoColumn.setCellFactory(celulaFormatada(TipoPonto::getNome));
+        
+        statusColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue()));
+        statusColumn.setCellFactory(celulaFormatada(ColaboradorDashboardController::statusDoPonto));
+        
+        pontosModel = new PagedTableModel<>(pontosTable, PONTOS_PAGINA, PONTOS_MAX_PAGINAS,
+            this::runInBackground, this::runInUIThread);
+    }
+    
+    /**
+     * Fábrica de células que apenas exibem o valor formatado
+     */
+    private static <T> Callback<TableColumn<Ponto, T>, TableCell<Ponto, T>> celulaFormatada(Function<T, String> formatador) {
+        return column -> new TableCell<Ponto, T>() {
             @Override
-            protected void updateItem(String item, boolean empty) {
+            protected void updateItem(T item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                } else {
-                    TipoPonto tipo = TipoPonto.valueOf(item);
-                    setText(tipo.getNome());
-                }
+                setText(empty || item == null ? null : formatador.apply(item));
             }
-        });
-        
-        statusColumn.setCellValueFactory(cellData -> {
-            Ponto ponto = cellData.getValue();
-            String status = ponto.getManual() ? "Manual" : 
-                           ponto.getFaceValidada() ? "Validado" : "Pendente";
-            return new javafx.beans.property.SimpleStringProperty(status);
-        });
+        };
+    }
+    
+    private static String statusDoPonto(Ponto ponto) {
+        return ponto.getManual() ? "Manual" : 
+               ponto.getFaceValidada() ? "Validado" : "Pendente";
     }
     
     /**
@@ -261,11 +282,15 @@ public class ColaboradorDashboardController extends BaseController {
             return;
         }
         
+        // Cards de status carregam em paralelo, independentes das demais seções
+        loadStatusCards();
+        
+        // Histórico de pontos carrega a primeira página e as demais conforme a rolagem
+        loadPontosHistory();
+        
         Task<Void> loadTask = new Task<Void>() {
             @Override
             protected Void call() throws Exception {
-                loadStatusCards();
-                loadPontosHistory();
                 loadSolicitacoes();
                 loadCharts();
                 return null;
@@ -284,48 +309,45 @@ public class ColaboradorDashboardController extends BaseController {
     
     /**
      * Carrega dados dos cards de status
+     * As quatro consultas rodam em paralelo, cada uma com seu timeout, e os cards são atualizados juntos
      */
     private void loadStatusCards() {
         Long userId = currentUser.getId();
         LocalDate hoje = LocalDate.now();
         
-        // Horas trabalhadas hoje
-        double horasHoje = pontoService.calcularHorasTrabalhadas(userId, hoje);
-        Platform.runLater(() -> horasTrabalhadasHojeLabel.setText(String.format("%.1f h", horasHoje)));
-        
-        // Saldo de horas extras
-        Double saldoHoras = horasExtrasService.calcularSaldoHorasExtras(userId);
-        Platform.runLater(() -> saldoHorasExtrasLabel.setText(String.format("%.1f h", saldoHoras)));
-        
-        // Dias de férias disponíveis
-        int diasFerias = feriasService.calcularSaldoFerias(userId);
-        Platform.runLater(() -> diasFeriasDisponivelLabel.setText(diasFerias + " dias"));
-        
-        // Último ponto
-        pontoService.buscarUltimoPonto(userId).ifPresentOrElse(
-            ponto -> Platform.runLater(() -> {
-                String ultimoPonto = ponto.getTipoPonto().getNome() + " - " +
-                    ponto.getDataHora().format(DateTimeFormatter.ofPattern("HH:mm"));
-                ultimoPontoLabel.setText(ultimoPonto);
-            }),
-            () -> Platform.runLater(() -> ultimoPontoLabel.setText("Nenhum registro"))
-        );
+        AsyncLoader loader = new AsyncLoader(STATUS_CARDS_TIMEOUT_MS)
+            // Horas trabalhadas hoje
+            .add("horas trabalhadas", () -> pontoService.calcularHorasTrabalhadas(userId, hoje),
+                horasHoje -> horasTrabalhadasHojeLabel.setText(String.format("%.1f h", horasHoje)),
+                erro -> horasTrabalhadasHojeLabel.setText(INDISPONIVEL))
+            // Saldo de horas extras
+            .add("saldo de horas extras", () -> horasExtrasService.calcularSaldoHorasExtras(userId),
+                saldoHoras -> saldoHorasExtrasLabel.setText(String.format("%.1f h", saldoHoras)),
+                erro -> saldoHorasExtrasLabel.setText(INDISPONIVEL))
+            // Dias de férias disponíveis
+            .add("saldo de férias", () -> feriasService.calcularSaldoFerias(userId),
+                diasFerias -> diasFeriasDisponivelLabel.setText(diasFerias + " dias"),
+                erro -> diasFeriasDisponivelLabel.setText(INDISPONIVEL))
+            // Último ponto
+            .add("último ponto", () -> pontoService.buscarUltimoPonto(userId),
+                ultimo -> ultimoPontoLabel.setText(ultimo
+                    .map(ponto -> ponto.getTipoPonto().getNome() + " - " +
+                        ponto.getDataHora().format(DateTimeFormatter.ofPattern("HH:mm")))
+                    .orElse("Nenhum registro")),
+                erro -> ultimoPontoLabel.setText(INDISPONIVEL));
+        
+        runInBackground(loader);
     }
     
     /**
-     * Carrega histórico de pontos
+     * Carrega histórico de pontos no período do filtro (todo o histórico se o filtro estiver vazio)
      */
     private void loadPontosHistory() {
         Long userId = currentUser.getId();
         LocalDate inicio = dataInicioFilter.getValue();
         LocalDate fim = dataFimFilter.getValue();
         
-        List<Ponto> pontos = pontoService.buscarPontosPorUsuarioEPeriodo(userId, inicio, fim);
-        
-        Platform.runLater(() -> {
-            ObservableList<Ponto> pontosData = FXCollections.observableArrayList(pontos);
-            pontosTable.setItems(pontosData);
-        });
+        pontosModel.recarregar((apos, tamanho) -> pontoService.buscarPaginaHistorico(userId, inicio, fim, apos, tamanho));
     }
     
     /**
@@ -345,6 +367,84 @@ public class ColaboradorDashboardController extends BaseController {
         });
     }
     
+    /**
+     * Aplica um lote de eventos (no thread da UI) às tabelas de pontos e solicitações
+     * Os cards e os gráficos, que são agregados, são recalculados uma vez por lote
+     */
+    private void aplicarEventos(List<DomainEvent> eventos) {
+        boolean alterouPontos = false;
+        boolean alterouSolicitacoes = false;
+        
+        for (DomainEvent evento : eventos) {
+            if (evento.isSolicitacao()) {
+                alterouSolicitacoes |= aplicarEventoSolicitacao(evento);
+            } else {
+                alterouPontos |= aplicarEventoPonto(evento);
+            }
+        }
+        
+        if (alterouPontos || alterouSolicitacoes) {
+            loadStatusCards();
+        }
+        if (alterouPontos) {
+            runInBackground(this::loadCharts);
+        }
+    }
+    
+    /**
+     * Insere, substitui ou remove o ponto na tabela, respeitando o filtro de datas e a ordem do histórico
+     */
+    private boolean aplicarEventoPonto(DomainEvent evento) {
+        boolean removido = pontosModel.remover(ponto -> Objects.equals(ponto.getId(), evento.getEntidadeId()));
+        
+        if (evento.getTipo() == DomainEvent.Tipo.PONTO_REMOVIDO) {
+            return removido;
+        }
+        
+        Ponto ponto = (Ponto) evento.getEntidade();
+        LocalDate data = ponto.getDataHora().toLocalDate();
+        LocalDate inicio = dataInicioFilter.getValue();
+        LocalDate fim = dataFimFilter.getValue();
+        if ((inicio != null && data.isBefore(inicio)) || (fim != null && data.isAfter(fim))) {
+            // Fora do filtro, mas ainda conta nos cards e gráficos
+            return true;
+        }
+        
+        pontosModel.inserir(ponto, MAIS_RECENTE_PRIMEIRO);
+        return true;
+    }
+    
+    /**
+     * Insere ou atualiza a solicitação na tabela; horas extras removidas saem dela
+     */
+    private boolean aplicarEventoSolicitacao(DomainEvent evento) {
+        ObservableList<Object> solicitacoes = solicitacoesTable.getItems();
+        Object entidade = evento.getEntidade();
+        
+        int indice = -1;
+        for (int i = 0; i < solicitacoes.size() && indice < 0; i++) {
+            Object item = solicitacoes.get(i);
+            if (item.getClass() == entidade.getClass() && Objects.equals(idDe(item), evento.getEntidadeId())) {
+                indice = i;
+            }
+        }
+        
+        if (evento.getTipo() == DomainEvent.Tipo.HORAS_EXTRAS_REMOVIDAS) {
+            if (indice >= 0) {
+                solicitacoes.remove(indice);
+            }
+        } else if (indice >= 0) {
+            solicitacoes.set(indice, entidade);
+        } else {
+            solicitacoes.add(entidade);
+        }
+        return true;
+    }
+    
+    private Long idDe(Object solicitacao) {
+        return solicitacao instanceof Ferias ? ((Ferias) solicitacao).getId() : ((HorasExtras) solicitacao).getId();
+    }
+    
     /**
      * Carrega gráficos
      */
@@ -361,13 +461,11 @@ public class ColaboradorDashboardController extends BaseController {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Horas Trabalhadas");
         
-        // Últimos 7 dias
-        for (int i = 6; i >= 0; i--) {
-            LocalDate data = LocalDate.now().minusDays(i);
-            double horas = pontoService.calcularHorasTrabalhadas(userId, data);
+        // Últimos 7 dias (uma única consulta para o período)
+        LocalDate hoje = LocalDate.now();
+        pontoService.calcularHorasTrabalhadasPorDia(userId, hoje.minusDays(6), hoje).forEach((data, horas) ->
             series.getData().add(new XYChart.Data<>(
-                data.format(DateTimeFormatter.ofPattern("dd/MM")), horas));
-        }
+                data.format(DateTimeFormatter.ofPattern("dd/MM")), horas)));
         
         Platform.runLater(() -> {
             horasChart.getData().clear();
@@ -474,7 +572,7 @@ public class ColaboradorDashboardController extends BaseController {
             protected Boolean call() throws Exception {
                 if (solicitacao instanceof Ferias) {
                     Ferias ferias = (Ferias) solicitacao;
-                    feriasService.cancelarFerias(ferias.getId(), currentUser.getId());
+                    feriasService.cancelarFerias(ferias.getId(), ferias.getStatus(), ferias.getVersao(), currentUser.getId());
                     return true;
                 } else if (solicitacao instanceof HorasExtras) {
                     HorasExtras horas = (HorasExtras) solicitacao;
@@ -486,8 +584,8 @@ public class ColaboradorDashboardController extends BaseController {
         
         cancelTask.setOnSucceeded(e -> {
             if (cancelTask.getValue()) {
+                // A tabela é atualizada pelo evento publicado pelo service
                 showSuccess("Sucesso", "Solicitação cancelada com sucesso");
-                loadSolicitacoes();
             } else {
                 showError("Erro", "Erro ao cancelar solicitação");
             }
@@ -113,9 +113,7 @@ public class LoginController extends BaseController {
             });
         });
         
-        Thread loginThread = new Thread(loginTask);
-        loginThread.setDaemon(true);
-        loginThread.start();
+        runInBackground(loginTask);
     }
     
     /**
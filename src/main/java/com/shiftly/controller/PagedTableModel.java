@@ -0,0 +1,271 @@
+package com.shiftly.controller;
+
+import com.shiftly.repository.Page;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Modelo de tabela carregado sob demanda por páginas de consulta keyset
+ * A próxima página é buscada quando a rolagem se aproxima do fim; só uma janela de páginas fica em memória
+ * e, ao rolar de volta, as páginas descartadas são buscadas de novo pelos cursores guardados
+ * Todo o estado é alterado no thread da UI; as consultas rodam em background
+ */
+public class PagedTableModel<T> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PagedTableModel.class);
+    
+    /**
+     * Consulta de uma página a partir do cursor (null para a primeira)
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        Page<T> carregar(Page.Cursor apos, int tamanho);
+    }
+    
+    private final TableView<T> table;
+    private final int tamanhoPagina;
+    private final int maxPaginas;
+    private final int margem;
+    private final Consumer<Runnable> emBackground;
+    private final Consumer<Runnable> naUi;
+    private final ObservableList<T> itens = FXCollections.observableArrayList();
+    
+    // Cursor de início de cada página já alcançada (página 0 começa sem cursor)
+    private final List<Page.Cursor> cursores = new ArrayList<>();
+    // Quantidade de itens de cada página da janela, da primeira à última
+    private final List<Integer> tamanhos = new ArrayList<>();
+    private int primeiraPagina;
+    private boolean temProxima;
+    private boolean carregando;
+    // Incrementada a cada recarga, para descartar respostas de consultas antigas
+    private int geracao;
+    private PageLoader<T> loader;
+    
+    public PagedTableModel(TableView<T> table, int tamanhoPagina, int maxPaginas,
+                           Consumer<Runnable> emBackground, Consumer<Runnable> naUi) {
+        if (tamanhoPagina < 1 || maxPaginas < 2) {
+            throw new IllegalArgumentException("Página deve ter ao menos 1 item e a janela ao menos 2 páginas");
+        }
+        this.table = table;
+        this.tamanhoPagina = tamanhoPagina;
+        this.maxPaginas = maxPaginas;
+        this.margem = Math.max(1, tamanhoPagina / 4);
+        this.emBackground = emBackground;
+        this.naUi = naUi;
+        
+        table.setItems(itens);
+        // A tabela só cria linhas para a área visível; cada linha exibida avisa sua posição
+        table.setRowFactory(tv -> new TableRow<T>() {
+            @Override
+            public void updateIndex(int indice) {
+                super.updateIndex(indice);
+                if (indice >= 0) {
+                    aoExibirLinha(indice);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Descarta o que estiver carregado e recomeça pela primeira página com a nova consulta
+     */
+    public void recarregar(PageLoader<T> novoLoader) {
+        geracao++;
+        loader = novoLoader;
+        itens.clear();
+        cursores.clear();
+        cursores.add(null);
+        tamanhos.clear();
+        primeiraPagina = 0;
+        temProxima = false;
+        carregando = false;
+        carregar(0, false);
+    }
+    
+    /**
+     * Remove os itens que atendem ao critério (ex.: registro excluído)
+     */
+    public boolean remover(Predicate<T> criterio) {
+        boolean removeu = false;
+        for (int i = itens.size() - 1; i >= 0; i--) {
+            if (criterio.test(itens.get(i))) {
+                ajustarPagina(i, -1);
+                itens.remove(i);
+                removeu = true;
+            }
+        }
+        return removeu;
+    }
+    
+    /**
+     * Insere o item na posição dada pela ordem da consulta, se ela estiver dentro da janela carregada
+     * Itens que cairiam em páginas descartadas ou ainda não buscadas virão com essas páginas
+     */
+    public boolean inserir(T item, Comparator<? super T> ordem) {
+        if (tamanhos.isEmpty()) {
+            return false;
+        }
+        
+        int posicao = 0;
+        while (posicao < itens.size() && ordem.compare(itens.get(posicao), item) <= 0) {
+            posicao++;
+        }
+        if ((posicao == 0 && primeiraPagina > 0) || (posicao == itens.size() && temProxima)) {
+            return false;
+        }
+        
+        ajustarPagina(Math.max(0, posicao - 1), 1);
+        itens.add(posicao, item);
+        return true;
+    }
+    
+    /**
+     * Itens atualmente em memória
+     */
+    public int getItensCarregados() {
+        return itens.size();
+    }
+    
+    private void aoExibirLinha(int indice) {
+        if (carregando || loader == null) {
+            return;
+        }
+        
+        if (temProxima && indice >= itens.size() - margem) {
+            carregar(primeiraPagina + tamanhos.size(), false);
+        } else if (primeiraPagina > 0 && indice < margem) {
+            carregar(primeiraPagina - 1, true);
+        }
+    }
+    
+    /**
+     * Busca a página em background e a aplica na UI, se nenhuma recarga aconteceu nesse meio tempo
+     */
+    private void carregar(int pagina, boolean anterior) {
+        carregando = true;
+        int geracaoAtual = geracao;
+        PageLoader<T> consulta = loader;
+        Page.Cursor cursor = cursores.get(pagina);
+        
+        try {
+            emBackground.accept(() -> {
+                Page<T> resultado;
+                try {
+                    resultado = consulta.carregar(cursor, tamanhoPagina);
+                } catch (RuntimeException e) {
+                    logger.warn("Erro ao carregar página {}: {}", pagina, e.getMessage());
+                    naUi.accept(() -> {
+                        if (geracaoAtual == geracao) {
+                            carregando = false;
+                        }
+                    });
+                    return;
+                }
+                
+                naUi.accept(() -> {
+                    if (geracaoAtual != geracao) {
+                        return;
+                    }
+                    carregando = false;
+                    if (anterior) {
+                        aplicarAnterior(resultado);
+                    } else {
+                        aplicarProxima(pagina, resultado);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            carregando = false;
+            logger.warn("Carga da página {} recusada: {}", pagina, e.getMessage());
+        }
+    }
+    
+    /**
+     * Acrescenta a página ao fim da janela, descartando a primeira se a janela passar do limite
+     */
+    private void aplicarProxima(int pagina, Page<T> resultado) {
+        if (resultado.hasNext()) {
+            if (cursores.size() == pagina + 1) {
+                cursores.add(resultado.getProximoCursor());
+            } else {
+                cursores.set(pagina + 1, resultado.getProximoCursor());
+            }
+        }
+        temProxima = resultado.hasNext();
+        
+        int topo = primeiraLinhaVisivel();
+        itens.addAll(resultado.getItens());
+        tamanhos.add(resultado.getItens().size());
+        
+        if (tamanhos.size() > maxPaginas) {
+            int removidos = tamanhos.remove(0);
+            itens.remove(0, removidos);
+            primeiraPagina++;
+            // Mantém na tela as mesmas linhas, que subiram de posição na lista
+            if (topo >= 0) {
+                table.scrollTo(Math.max(0, topo - removidos));
+            }
+        }
+    }
+    
+    /**
+     * Acrescenta a página anterior ao início da janela, descartando a última se passar do limite
+     */
+    private void aplicarAnterior(Page<T> resultado) {
+        int topo = primeiraLinhaVisivel();
+        int adicionados = resultado.getItens().size();
+        
+        itens.addAll(0, resultado.getItens());
+        tamanhos.add(0, adicionados);
+        primeiraPagina--;
+        
+        if (tamanhos.size() > maxPaginas) {
+            int removidos = tamanhos.remove(tamanhos.size() - 1);
+            itens.remove(itens.size() - removidos, itens.size());
+            temProxima = true;
+        }
+        table.scrollTo(Math.max(0, topo) + adicionados);
+    }
+    
+    /**
+     * Ajusta o tamanho da página da janela que contém o índice
+     */
+    private void ajustarPagina(int indice, int delta) {
+        int acumulado = 0;
+        for (int p = 0; p < tamanhos.size(); p++) {
+            acumulado += tamanhos.get(p);
+            if (indice < acumulado || p == tamanhos.size() - 1) {
+                tamanhos.set(p, tamanhos.get(p) + delta);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Índice da primeira linha visível na tabela, ou -1 se ainda não foi desenhada
+     */
+    private int primeiraLinhaVisivel() {
+        Node flow = table.lookup(".virtual-flow");
+        if (flow instanceof VirtualFlow) {
+            IndexedCell<?> primeira = ((VirtualFlow<?>) flow).getFirstVisibleCell();
+            if (primeira != null) {
+                return primeira.getIndex();
+            }
+        }
+        return -1;
+    }
+}
@@ -201,6 +201,7 @@ public class RegistrarPontoController extends BaseController implements Initiali
     @FXML
     private void handleVoltar() {
         logger.info("Voltando para dashboard");
+        cancelBackgroundTasks();
         
         // Navegar de acordo com o tipo de usuário
         // TODO: Implementar verificação de tipo de usuário
@@ -318,7 +319,7 @@ public class RegistrarPontoController extends BaseController implements Initiali
         statusRegistroLabel.textProperty().bind(registroTask.messageProperty());
         
         // Executar task
-        new Thread(registroTask).start();
+        runInBackground(registroTask);
     }
     
     // ===== MÉTODOS AUXILIARES =====
@@ -405,7 +406,7 @@ public class RegistrarPontoController extends BaseController implements Initiali
             }
         };
         
-        new Thread(cameraTask).start();
+        runInBackground(cameraTask);
     }
     
     /**
@@ -473,7 +474,7 @@ public class RegistrarPontoController extends BaseController implements Initiali
             }
         };
         
-        new Thread(faceTask).start();
+        runInBackground(faceTask);
     }
     
     /**
@@ -571,7 +572,7 @@ public class RegistrarPontoController extends BaseController implements Initiali
             }
         };
         
-        new Thread(locationTask).start();
+        runInBackground(locationTask);
     }
     
     /**
@@ -1,7 +1,10 @@
 package com.shiftly.controller;
 
 import com.shiftly.model.*;
+import com.shiftly.repository.Page;
+import com.shiftly.repository.UsuarioRepository;
 import com.shiftly.service.*;
+import com.shiftly.util.ConfigUtil;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -11,13 +14,25 @@ import javafx.scene.control.*;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller para dashboard do RH
  */
 public class RhDashboardController extends BaseController {
     
+    // Solicitações pendentes exibidas (as mais recentes); o total fica no card de pendentes
+    private static final int SOLICITACOES_PAGINA = ConfigUtil.getInt("ui.rh.solicitacoes.page.size", 50);
+    
+    // Ordem da tabela: da solicitação mais recente para a mais antiga (a mesma da consulta keyset)
+    private static final Comparator<Object> MAIS_RECENTE_PRIMEIRO =
+        Comparator.comparing(RhDashboardController::dataSolicitacaoDe).reversed();
+    
     // Serviços
     private UsuarioService usuarioService;
     private PontoService pontoService;
@@ -52,6 +67,9 @@ public class RhDashboardController extends BaseController {
     
     @FXML private ListView<String> atividadeRecenteList;
     
+    // Há pendentes além das exibidas: a janela é relida quando esvazia abaixo de uma página
+    private volatile boolean haMaisSolicitacoes;
+    
     // Timer para atualizar horário
     private javafx.animation.Timeline timelineTimer;
     
@@ -71,6 +89,9 @@ public class RhDashboardController extends BaseController {
         // Carrega dados
         loadDashboardData();
         
+        // Alterações de férias e horas extras chegam como eventos e são aplicadas na tabela e nos cards
+        subscribeEvents(DomainEvent::isSolicitacao, this::aplicarEventos, this::loadDashboardData);
+        
         // Inicia timer para atualizar horário
         startTimeTimer();
         
@@ -218,27 +239,116 @@ public class RhDashboardController extends BaseController {
      * Carrega dados dos cards de status
      */
     private void loadStatusCards() {
-        // Dados simulados para demonstração
+        // Todos os contadores vêm de uma única consulta (em cache por alguns segundos)
+        UsuarioRepository.ResumoRh resumo = ResumoRhService.obterResumo();
+        
         Platform.runLater(() -> {
-            totalColaboradoresLabel.setText("25");
-            presentesHojeLabel.setText("20");
-            solicitacoesPendentesLabel.setText("3");
-            horasExtrasLabel.setText("128h");
+            totalColaboradoresLabel.setText(String.valueOf(resumo.getColaboradoresAtivos()));
+            presentesHojeLabel.setText(String.valueOf(resumo.getPresentesHoje()));
+            solicitacoesPendentesLabel.setText(String.valueOf(resumo.getSolicitacoesPendentes()));
+            horasExtrasLabel.setText(String.format("%.0fh", resumo.getHorasExtrasAprovadasMes()));
         });
     }
     
     /**
-     * Carrega solicitações pendentes
+     * Carrega as solicitações pendentes mais recentes (primeira página de férias e de horas extras)
      */
     private void loadSolicitacoesPendentes() {
-        // Dados simulados para demonstração
+        Page<Ferias> ferias = feriasService.buscarPaginaFeriasPendentes(null, SOLICITACOES_PAGINA);
+        Page<HorasExtras> horasExtras = horasExtrasService.buscarPaginaHorasExtrasPendentes(null, SOLICITACOES_PAGINA);
+        
+        List<Object> janela = new ArrayList<>(ferias.getItens());
+        janela.addAll(horasExtras.getItens());
+        janela.sort(MAIS_RECENTE_PRIMEIRO);
+        boolean haMais = ferias.hasNext() || horasExtras.hasNext() || janela.size() > SOLICITACOES_PAGINA;
+        List<Object> exibidas = janela.size() > SOLICITACOES_PAGINA ? janela.subList(0, SOLICITACOES_PAGINA) : janela;
+        
         Platform.runLater(() -> {
-            ObservableList<Object> solicitacoes = FXCollections.observableArrayList();
-            // Por enquanto, mostra tabela vazia
-            solicitacoesTable.setItems(solicitacoes);
+            haMaisSolicitacoes = haMais;
+            solicitacoesTable.setItems(FXCollections.observableArrayList(exibidas));
         });
     }
     
+    /**
+     * Aplica um lote de eventos (no thread da UI) às solicitações exibidas: novas entram no topo,
+     * as analisadas, canceladas ou removidas saem; eventos de solicitações fora da janela são ignorados.
+     * O lote é indexado por chave e a tabela percorrida uma vez; os cards são relidos do resumo em cache
+     */
+    private void aplicarEventos(List<DomainEvent> eventos) {
+        // Último evento de cada solicitação no lote
+        Map<String, DomainEvent> porChave = new LinkedHashMap<>();
+        for (DomainEvent evento : eventos) {
+            porChave.put(chaveDe(evento), evento);
+        }
+        
+        ObservableList<Object> solicitacoes = solicitacoesTable.getItems();
+        List<Object> janela = new ArrayList<>(solicitacoes.size() + porChave.size());
+        for (Object item : solicitacoes) {
+            DomainEvent evento = porChave.remove(chaveDe(item));
+            if (evento == null) {
+                janela.add(item);
+                continue;
+            }
+            switch (evento.getTipo()) {
+                case FERIAS_SOLICITADAS:
+                case HORAS_EXTRAS_REGISTRADAS:
+                    janela.add(item);
+                    break;
+                case FERIAS_EDITADAS:
+                case HORAS_EXTRAS_EDITADAS:
+                    janela.add(evento.getEntidade());
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        // Solicitações novas, que ainda não estavam na tabela
+        List<Object> novas = new ArrayList<>();
+        for (DomainEvent evento : porChave.values()) {
+            if (evento.getTipo() == DomainEvent.Tipo.FERIAS_SOLICITADAS
+                    || evento.getTipo() == DomainEvent.Tipo.HORAS_EXTRAS_REGISTRADAS) {
+                novas.add(evento.getEntidade());
+            }
+        }
+        novas.sort(MAIS_RECENTE_PRIMEIRO);
+        janela.addAll(0, novas);
+        
+        if (janela.size() > SOLICITACOES_PAGINA) {
+            haMaisSolicitacoes = true;
+            janela.subList(SOLICITACOES_PAGINA, janela.size()).clear();
+        }
+        solicitacoes.setAll(janela);
+        
+        // Saídas abriram espaço na janela e há pendentes não exibidas
+        if (haMaisSolicitacoes && janela.size() < SOLICITACOES_PAGINA) {
+            runInBackground(this::loadSolicitacoesPendentes);
+        }
+        runInBackground(this::loadStatusCards);
+    }
+    
+    /**
+     * Tipo e ID da solicitação: férias e horas extras têm sequências de ID próprias
+     */
+    private static String chaveDe(Object solicitacao) {
+        return solicitacao instanceof Ferias
+            ? "F" + ((Ferias) solicitacao).getId()
+            : "H" + ((HorasExtras) solicitacao).getId();
+    }
+    
+    /**
+     * Chave da solicitação do evento, pelo ID publicado (remoções podem vir sem a entidade)
+     */
+    private static String chaveDe(DomainEvent evento) {
+        return (evento.getTipo().name().startsWith("FERIAS") ? "F" : "H") + evento.getEntidadeId();
+    }
+    
+    private static LocalDateTime dataSolicitacaoDe(Object solicitacao) {
+        return solicitacao instanceof Ferias
+            ? ((Ferias) solicitacao).getDataSolicitacao()
+            : ((HorasExtras) solicitacao).getDataSolicitacao();
+    }
+    
     /**
      * Carrega atividade recente
      */
@@ -268,7 +378,7 @@ public class RhDashboardController extends BaseController {
     
     @FXML
     private void handleAprovarSolicitacoes() {
-        loadSolicitacoesPendentes();
+        runInBackground(this::loadSolicitacoesPendentes);
     }
     
     @FXML
@@ -295,11 +405,18 @@ public class RhDashboardController extends BaseController {
         
         if (!confirmed) return;
         
+        Long usuarioRhId = currentUser.getId();
         Task<Boolean> aprovarTask = new Task<Boolean>() {
             @Override
             protected Boolean call() throws Exception {
-                // Simulação de aprovação
-                Thread.sleep(1000); // Simula processamento
+                // A tabela e os cards são atualizados pelo evento publicado pelo service
+                if (solicitacao instanceof Ferias) {
+                    Ferias ferias = (Ferias) solicitacao;
+                    feriasService.aprovarFerias(ferias.getId(), ferias.getVersao(), usuarioRhId);
+                } else {
+                    HorasExtras horasExtras = (HorasExtras) solicitacao;
+                    horasExtrasService.aprovarHorasExtras(horasExtras.getId(), horasExtras.getVersao(), usuarioRhId);
+                }
                 return true;
             }
         };
@@ -307,8 +424,6 @@ public class RhDashboardController extends BaseController {
         aprovarTask.setOnSucceeded(e -> {
             if (aprovarTask.getValue()) {
                 showSuccess("Sucesso", "Solicitação aprovada com sucesso");
-                loadSolicitacoesPendentes();
-                loadStatusCards();
             } else {
                 showError("Erro", "Erro ao aprovar solicitação");
             }
@@ -334,11 +449,26 @@ public class RhDashboardController extends BaseController {
         
         if (!confirmed) return;
         
+        TextInputDialog motivoDialog = new TextInputDialog();
+        motivoDialog.setTitle("Motivo da Rejeição");
+        motivoDialog.setHeaderText(null);
+        motivoDialog.setContentText("Informe o motivo:");
+        Optional<String> motivo = motivoDialog.showAndWait().filter(this::isNotEmpty);
+        
+        if (motivo.isEmpty()) return;
+        
+        Long usuarioRhId = currentUser.getId();
         Task<Boolean> rejeitarTask = new Task<Boolean>() {
             @Override
             protected Boolean call() throws Exception {
-                // Simulação de rejeição
-                Thread.sleep(1000); // Simula processamento
+                // A tabela e os cards são atualizados pelo evento publicado pelo service
+                if (solicitacao instanceof Ferias) {
+                    Ferias ferias = (Ferias) solicitacao;
+                    feriasService.recusarFerias(ferias.getId(), ferias.getVersao(), motivo.get(), usuarioRhId);
+                } else {
+                    HorasExtras horasExtras = (HorasExtras) solicitacao;
+                    horasExtrasService.recusarHorasExtras(horasExtras.getId(), horasExtras.getVersao(), motivo.get(), usuarioRhId);
+                }
                 return true;
             }
         };
@@ -346,8 +476,6 @@ public class RhDashboardController extends BaseController {
         rejeitarTask.setOnSucceeded(e -> {
             if (rejeitarTask.getValue()) {
                 showSuccess("Sucesso", "Solicitação rejeitada com sucesso");
-                loadSolicitacoesPendentes();
-                loadStatusCards();
             } else {
                 showError("Erro", "Erro ao rejeitar solicitação");
             }
@@ -37,6 +37,9 @@ public class Ferias {
     private LocalDateTime dataSolicitacao;
     private LocalDateTime dataAtualizacao;
     
+    // Controle de concorrência: incrementada pelo banco a cada atualização
+    private Integer versao;
+    
     // Construtor padrão
     public Ferias() {
         this.status = StatusFerias.PENDENTE;
@@ -152,6 +155,14 @@ public class Ferias {
         this.dataAtualizacao = dataAtualizacao;
     }
     
+    public Integer getVersao() {
+        return versao;
+    }
+    
+    public void setVersao(Integer versao) {
+        this.versao = versao;
+    }
+    
     // Métodos utilitários
     public long getDuracaoDias() {
         if (dataInicio != null && dataFim != null) {
@@ -44,6 +44,9 @@ public class HorasExtras {
     private LocalDateTime dataSolicitacao;
     private LocalDateTime dataAtualizacao;
     
+    // Controle de concorrência: incrementada pelo banco a cada atualização
+    private Integer versao;
+    
     // Construtor padrão
     public HorasExtras() {
         this.status = StatusHorasExtras.PENDENTE;
@@ -197,6 +200,14 @@ public class HorasExtras {
         this.dataAtualizacao = dataAtualizacao;
     }
     
+    public Integer getVersao() {
+        return versao;
+    }
+    
+    public void setVersao(Integer versao) {
+        this.versao = versao;
+    }
+    
     // Métodos utilitários
     public boolean isPendente() {
         return StatusHorasExtras.PENDENTE.equals(status);
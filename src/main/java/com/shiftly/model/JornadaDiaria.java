@@ -0,0 +1,223 @@
+package com.shiftly.model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Classe que representa a jornada consolidada de um usuário em um dia
+ * Mantida a partir dos pontos do dia (tabela jornada_diaria)
+ */
+public class JornadaDiaria {
+    
+    // Jornada regular de 8 horas por dia
+    public static final int MINUTOS_JORNADA_PADRAO = 480;
+    
+    // Códigos de inconsistência
+    public static final String ENTRADA_SEM_SAIDA = "ENTRADA_SEM_SAIDA";
+    public static final String SAIDA_SEM_ENTRADA = "SAIDA_SEM_ENTRADA";
+    public static final String INTERVALO_CURTO = "INTERVALO_CURTO";
+    
+    private Long id;
+    private Long usuarioId;
+    private LocalDate data;
+    private int minutosTrabalhados;
+    private int minutosExtras;
+    private LocalDateTime primeiraEntrada;
+    private LocalDateTime ultimaSaida;
+    private int totalPontos;
+    private String inconsistencias;
+    private LocalDateTime dataAtualizacao;
+    
+    // Construtor padrão
+    public JornadaDiaria() {
+        this.dataAtualizacao = LocalDateTime.now();
+    }
+    
+    // Construtor com parâmetros principais
+    public JornadaDiaria(Long usuarioId, LocalDate data) {
+        this();
+        this.usuarioId = usuarioId;
+        this.data = data;
+    }
+    
+    /**
+     * Consolida a jornada a partir dos pontos do dia, ordenados por data/hora
+     * Entradas e saídas são pareadas como no cálculo de horas trabalhadas
+     */
+    public static JornadaDiaria calcular(Long usuarioId, LocalDate data, List<Ponto> pontosOrdenados) {
+        JornadaDiaria jornada = new JornadaDiaria(usuarioId, data);
+        List<String> flags = new ArrayList<>();
+        
+        long minutos = 0;
+        LocalDateTime entrada = null;
+        LocalDateTime anterior = null;
+        
+        for (Ponto ponto : pontosOrdenados) {
+            LocalDateTime dataHora = ponto.getDataHora();
+            
+            if (anterior != null && Duration.between(anterior, dataHora).toMinutes() < 1) {
+                adicionarFlag(flags, INTERVALO_CURTO);
+            }
+            anterior = dataHora;
+            
+            if (ponto.getTipoPonto().isEntrada()) {
+                if (entrada != null) {
+                    adicionarFlag(flags, ENTRADA_SEM_SAIDA);
+                }
+                if (jornada.primeiraEntrada == null) {
+                    jornada.primeiraEntrada = dataHora;
+                }
+                entrada = dataHora;
+            } else if (ponto.getTipoPonto().isSaida()) {
+                if (entrada == null) {
+                    adicionarFlag(flags, SAIDA_SEM_ENTRADA);
+                } else {
+                    minutos += Duration.between(entrada, dataHora).toMinutes();
+                    entrada = null;
+                }
+                jornada.ultimaSaida = dataHora;
+            }
+        }
+        
+        if (entrada != null) {
+            adicionarFlag(flags, ENTRADA_SEM_SAIDA);
+        }
+        
+        jornada.totalPontos = pontosOrdenados.size();
+        jornada.minutosTrabalhados = (int) minutos;
+        jornada.minutosExtras = (int) Math.max(0, minutos - MINUTOS_JORNADA_PADRAO);
+        jornada.inconsistencias = flags.isEmpty() ? null : String.join(",", flags);
+        return jornada;
+    }
+    
+    /**
+     * Adiciona um código de inconsistência sem repetir
+     */
+    private static void adicionarFlag(List<String> flags, String flag) {
+        if (!flags.contains(flag)) {
+            flags.add(flag);
+        }
+    }
+    
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+    
+    public LocalDate getData() {
+        return data;
+    }
+    
+    public void setData(LocalDate data) {
+        this.data = data;
+    }
+    
+    public int getMinutosTrabalhados() {
+        return minutosTrabalhados;
+    }
+    
+    public void setMinutosTrabalhados(int minutosTrabalhados) {
+        this.minutosTrabalhados = minutosTrabalhados;
+    }
+    
+    public int getMinutosExtras() {
+        return minutosExtras;
+    }
+    
+    public void setMinutosExtras(int minutosExtras) {
+        this.minutosExtras = minutosExtras;
+    }
+    
+    public LocalDateTime getPrimeiraEntrada() {
+        return primeiraEntrada;
+    }
+    
+    public void setPrimeiraEntrada(LocalDateTime primeiraEntrada) {
+        this.primeiraEntrada = primeiraEntrada;
+    }
+    
+    public LocalDateTime getUltimaSaida() {
+        return ultimaSaida;
+    }
+    
+    public void setUltimaSaida(LocalDateTime ultimaSaida) {
+        this.ultimaSaida = ultimaSaida;
+    }
+    
+    public int getTotalPontos() {
+        return totalPontos;
+    }
+    
+    public void setTotalPontos(int totalPontos) {
+        this.totalPontos = totalPontos;
+    }
+    
+    public String getInconsistencias() {
+        return inconsistencias;
+    }
+    
+    public void setInconsistencias(String inconsistencias) {
+        this.inconsistencias = inconsistencias;
+    }
+    
+    public LocalDateTime getDataAtualizacao() {
+        return dataAtualizacao;
+    }
+    
+    public void setDataAtualizacao(LocalDateTime dataAtualizacao) {
+        this.dataAtualizacao = dataAtualizacao;
+    }
+    
+    // Métodos utilitários
+    public double getHorasTrabalhadas() {
+        return minutosTrabalhados / 60.0;
+    }
+    
+    public double getHorasExtras() {
+        return minutosExtras / 60.0;
+    }
+    
+    public boolean isInconsistente() {
+        return inconsistencias != null && !inconsistencias.isEmpty();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JornadaDiaria that = (JornadaDiaria) o;
+        return Objects.equals(usuarioId, that.usuarioId) && Objects.equals(data, that.data);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(usuarioId, data);
+    }
+    
+    @Override
+    public String toString() {
+        return "JornadaDiaria{" +
+                "usuarioId=" + usuarioId +
+                ", data=" + data +
+                ", minutosTrabalhados=" + minutosTrabalhados +
+                ", minutosExtras=" + minutosExtras +
+                ", inconsistencias='" + inconsistencias + '\'' +
+                '}';
+    }
+}
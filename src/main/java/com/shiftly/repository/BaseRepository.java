@@ -1,5 +1,7 @@
 package com.shiftly.repository;
 
+import com.shiftly.util.ConfigUtil;
+import com.shiftly.util.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,8 +9,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface base para todos os repositories
@@ -17,6 +30,37 @@ public abstract class BaseRepository<T, ID> {
     
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     
+    // Limite de parâmetros por consulta IN (SQL Server aceita até 2100)
+    protected static final int MAX_IDS_POR_CONSULTA = 1000;
+    
+    // Linhas buscadas por ida ao banco nos cursores (streams)
+    protected static final int STREAM_FETCH_SIZE = ConfigUtil.getInt("database.stream.fetch.size", 500);
+    
+    // Tamanho máximo de página aceito nas consultas paginadas
+    protected static final int MAX_TAMANHO_PAGINA = 1000;
+    
+    // Timer de cada consulta, pela classe do lambda: cada ponto de chamada de executeWithConnection tem a sua,
+    // então o nome (Repository.método) é descoberto pela pilha só na primeira execução
+    private static final ClassValue<Metrics.Timer> timersPorConsulta = new ClassValue<>() {
+        @Override
+        protected Metrics.Timer computeValue(Class<?> tipoOperacao) {
+            return timerDeConsulta(nomeDoChamador());
+        }
+    };
+    
+    // Timers das operações genéricas desta classe, com o nome da subclasse; resolvidos uma vez por classe
+    private static final ClassValue<TimersGenericos> timersPorRepositorio = new ClassValue<>() {
+        @Override
+        protected TimersGenericos computeValue(Class<?> repositorio) {
+            return new TimersGenericos(repositorio.getSimpleName());
+        }
+    };
+    
+    private final TimersGenericos timersGenericos = timersPorRepositorio.get(getClass());
+    
+    private static final SqlRegistry.NamedSql SQL_REGISTRAR_EXCLUSAO = SqlRegistry.register("sync.registrarExclusao",
+        "INSERT INTO sync_exclusao (tabela, registro_id) VALUES (?, ?)");
+    
     /**
      * Busca uma entidade por ID
      */
@@ -47,6 +91,11 @@ public abstract class BaseRepository<T, ID> {
      */
     public abstract long count();
     
+    /**
+     * Busca várias entidades pelos IDs em poucas consultas (ordem não garantida)
+     */
+    public abstract List<T> findAllByIds(Collection<ID> ids);
+    
     /**
      * Obtém uma conexão com o banco
      */
@@ -54,6 +103,21 @@ public abstract class BaseRepository<T, ID> {
         return DatabaseConfig.getConnection();
     }
     
+    /**
+     * Prepara um comando do SqlRegistry no texto do banco da conexão
+     * Com a conexão do pool, o statement vem do cache da conexão quando já foi preparado antes
+     */
+    protected PreparedStatement prepare(Connection conn, SqlRegistry.NamedSql comando) throws SQLException {
+        return conn.prepareStatement(comando.getSql(conn));
+    }
+    
+    /**
+     * Prepara um comando do SqlRegistry informando se as chaves geradas devem ser devolvidas
+     */
+    protected PreparedStatement prepare(Connection conn, SqlRegistry.NamedSql comando, int autoGeneratedKeys) throws SQLException {
+        return conn.prepareStatement(comando.getSql(conn), autoGeneratedKeys);
+    }
+    
     /**
      * Fecha recursos de forma segura
      */
@@ -92,20 +156,286 @@ public abstract class BaseRepository<T, ID> {
     
     /**
      * Executa uma operação com tratamento de exceção
+     * O tempo e as falhas entram na métrica db.query.<Repository>.<método que chamou>
      */
     protected <R> R executeWithConnection(ConnectionOperation<R> operation) {
+        return executeWithConnection(timersPorConsulta.get(operation.getClass()), operation);
+    }
+    
+    /**
+     * Timer db.query.<consulta>, para guardar em campo e passar a executeWithConnection ou updateIfMatches
+     */
+    protected static Metrics.Timer timerDeConsulta(String consulta) {
+        return Metrics.timer("db.query." + consulta);
+    }
+    
+    /**
+     * Executa uma operação registrando o tempo no timer informado
+     * Para operações compartilhadas por vários métodos, em que o lambda não identifica a consulta
+     */
+    protected <R> R executeWithConnection(Metrics.Timer timer, ConnectionOperation<R> operation) {
+        long inicio = System.nanoTime();
+        boolean sucesso = false;
         Connection conn = null;
         try {
             conn = getConnection();
-            return operation.execute(conn);
+            R resultado = operation.execute(conn);
+            sucesso = true;
+            return resultado;
         } catch (SQLException e) {
             logger.error("Erro ao executar operação no banco: {}", e.getMessage(), e);
             throw new RuntimeException("Erro de banco de dados", e);
         } finally {
             DatabaseConfig.closeConnection(conn);
+            timer.registrar(System.nanoTime() - inicio, sucesso);
+        }
+    }
+    
+    /**
+     * Nome "Repository.método" de quem chamou executeWithConnection (primeiro método fora desta classe na pilha)
+     * Chamadas feitas de dentro de lambdas (ex.: lambda$findAll$2) são atribuídas ao método que as contém
+     */
+    private static String nomeDoChamador() {
+        String base = BaseRepository.class.getName();
+        Predicate<StackWalker.StackFrame> daBase = frame -> frame.getClassName().equals(base);
+        return StackWalker.getInstance().walk(frames -> frames
+            .dropWhile(frame -> !daBase.test(frame) || !frame.getMethodName().equals("executeWithConnection"))
+            .dropWhile(daBase)
+            .findFirst()
+            .map(frame -> {
+                String classe = frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1);
+                String metodo = frame.getMethodName();
+                if (metodo.startsWith("lambda$")) {
+                    metodo = metodo.substring("lambda$".length(), metodo.lastIndexOf('$'));
+                }
+                return classe + "." + metodo;
+            })
+            .orElse("desconhecida"));
+    }
+    
+    /**
+     * Executa um UPDATE condicional (ex.: WHERE id = ? AND status = ? AND versao = ?) e relê a linha na mesma conexão
+     * Vazio quando a condição não foi atendida e nada mudou; quem chama decide como explicar a falha
+     */
+    protected Optional<T> updateIfMatches(Metrics.Timer timer, SqlRegistry.NamedSql comando, ParameterSetter parametros,
+                                          SqlRegistry.NamedSql releitura, ID id, RowMapper<T> mapper) {
+        return executeWithConnection(timer, conn -> {
+            try (PreparedStatement stmt = prepare(conn, comando)) {
+                parametros.set(stmt);
+                if (stmt.executeUpdate() == 0) {
+                    return Optional.empty();
+                }
+            }
+            
+            try (PreparedStatement stmt = prepare(conn, releitura)) {
+                stmt.setObject(1, id);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? Optional.of(mapper.map(rs)) : Optional.empty();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Define a versão esperada de um UPDATE com versao = COALESCE(?, versao): nula, vale só o resto do WHERE
+     */
+    protected static void setVersao(PreparedStatement stmt, int index, Integer versao) throws SQLException {
+        if (versao != null) {
+            stmt.setInt(index, versao);
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+    
+    /**
+     * Remove uma linha pelo id (DELETE registrado pelo repositório) e registra a exclusão na mesma transação
+     * (ver registrarExclusao)
+     */
+    protected boolean deleteRegistrandoExclusao(String tabela, SqlRegistry.NamedSql delete, ID id) {
+        return executeWithConnection(timersGenericos.deleteById, conn -> {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                boolean deletado;
+                try (PreparedStatement stmt = prepare(conn, delete)) {
+                    stmt.setObject(1, id);
+                    deletado = stmt.executeUpdate() > 0;
+                }
+                if (deletado) {
+                    registrarExclusao(conn, tabela, id);
+                }
+                conn.commit();
+                return deletado;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        });
+    }
+    
+    /**
+     * No H2, anota a remoção em sync_exclusao para o DatabaseSynchronizer removê-la também do SQL Server
+     * Deve rodar na transação do DELETE; no SQL Server não faz nada
+     */
+    protected void registrarExclusao(Connection conn, String tabela, Object id) throws SQLException {
+        if (SqlRegistry.databaseTypeOf(conn) != DatabaseConfig.DatabaseType.H2) {
+            return;
+        }
+        
+        try (PreparedStatement stmt = prepare(conn, SQL_REGISTRAR_EXCLUSAO)) {
+            stmt.setString(1, tabela);
+            stmt.setObject(2, id);
+            stmt.executeUpdate();
         }
     }
     
+    /**
+     * Busca entidades por IDs com uma consulta IN por bloco de até MAX_IDS_POR_CONSULTA IDs
+     * O SQL deve ter %s no lugar da lista de parâmetros do IN
+     */
+    protected List<T> findAllByIdsInBatches(Collection<ID> ids, String sqlTemplate, RowMapper<T> mapper) {
+        if (ids == null || ids.isEmpty()) return new ArrayList<>();
+        
+        List<ID> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+        distintos.remove(null);
+        
+        return executeWithConnection(timersGenericos.findAllByIds, conn -> {
+            List<T> entidades = new ArrayList<>();
+            
+            for (int inicio = 0; inicio < distintos.size(); inicio += MAX_IDS_POR_CONSULTA) {
+                List<ID> bloco = distintos.subList(inicio, Math.min(inicio + MAX_IDS_POR_CONSULTA, distintos.size()));
+                String sql = sqlTemplate.formatted(String.join(", ", Collections.nCopies(bloco.size(), "?")));
+                
+                // O texto muda com o tamanho do bloco: SQL avulso, preparado fora do StatementCache
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (ID id : bloco) {
+                        stmt.setObject(index++, id);
+                    }
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            entidades.add(mapper.map(rs));
+                        }
+                    }
+                }
+            }
+            return entidades;
+        });
+    }
+    
+    /**
+     * Busca uma página ordenada por (coluna, id) a partir do cursor, sem OFFSET
+     * A coluna de ordenação precisa ser NOT NULL e estar no SELECT; o filtro é opcional
+     */
+    protected Page<T> findPageByKeyset(String selectSql, String filtro, List<Object> parametros,
+                                       String colunaOrdenacao, boolean decrescente,
+                                       Page.Cursor apos, int tamanho, RowMapper<T> mapper) {
+        if (tamanho < 1 || tamanho > MAX_TAMANHO_PAGINA) {
+            throw new IllegalArgumentException("Tamanho de página deve estar entre 1 e " + MAX_TAMANHO_PAGINA);
+        }
+        
+        String comparador = decrescente ? "<" : ">";
+        String direcao = decrescente ? "DESC" : "ASC";
+        
+        List<String> condicoes = new ArrayList<>();
+        if (filtro != null) {
+            condicoes.add("(" + filtro + ")");
+        }
+        if (apos != null) {
+            condicoes.add(String.format("(%1$s %2$s ? OR (%1$s = ? AND id %2$s ?))", colunaOrdenacao, comparador));
+        }
+        
+        String selectOrdenado = selectSql.strip()
+            + (condicoes.isEmpty() ? "" : " WHERE " + String.join(" AND ", condicoes))
+            + String.format(" ORDER BY %1$s %2$s, id %2$s", colunaOrdenacao, direcao);
+        
+        return executeWithConnection(timersGenericos.findPageByKeyset, conn -> {
+            // Limite pelo dialeto da conexão, como nas demais consultas limitadas
+            String sql = SqlDialect.of(conn).limitParameter(selectOrdenado);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                for (Object parametro : parametros) {
+                    stmt.setObject(index++, parametro);
+                }
+                if (apos != null) {
+                    stmt.setObject(index++, apos.getValor());
+                    stmt.setObject(index++, apos.getValor());
+                    stmt.setLong(index++, apos.getId());
+                }
+                // Uma linha a mais indica se existe próxima página
+                stmt.setInt(index, tamanho + 1);
+                
+                List<T> itens = new ArrayList<>(tamanho);
+                Page.Cursor ultimoLido = null;
+                Page.Cursor proximo = null;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (itens.size() == tamanho) {
+                            proximo = ultimoLido;
+                            break;
+                        }
+                        itens.add(mapper.map(rs));
+                        ultimoLido = new Page.Cursor(rs.getObject(colunaOrdenacao), rs.getLong("id"));
+                    }
+                }
+                return new Page<>(itens, proximo);
+            }
+        });
+    }
+    
+    /**
+     * Abre um cursor sobre a consulta como Stream, lendo STREAM_FETCH_SIZE linhas por vez
+     * A conexão fica aberta até o Stream ser fechado: use sempre try-with-resources
+     */
+    protected Stream<T> streamQuery(String sql, List<Object> parametros, RowMapper<T> mapper) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            
+            int index = 1;
+            for (Object parametro : parametros) {
+                stmt.setObject(index++, parametro);
+            }
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeResources(conn, stmt, rs);
+            logger.error("Erro ao abrir cursor: {}", e.getMessage(), e);
+            throw new RuntimeException("Erro de banco de dados", e);
+        }
+        
+        Connection cursorConn = conn;
+        PreparedStatement cursorStmt = stmt;
+        ResultSet cursorRs = rs;
+        
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursorRs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(cursorRs));
+                    return true;
+                } catch (SQLException e) {
+                    logger.error("Erro ao ler cursor: {}", e.getMessage(), e);
+                    throw new RuntimeException("Erro de banco de dados", e);
+                }
+            }
+        };
+        
+        return StreamSupport.stream(spliterator, false)
+            .onClose(() -> closeResources(cursorConn, cursorStmt, cursorRs));
+    }
+    
     /**
      * Interface funcional para operações com conexão
      */
@@ -113,4 +443,35 @@ public abstract class BaseRepository<T, ID> {
     protected interface ConnectionOperation<R> {
         R execute(Connection conn) throws SQLException;
     }
+    
+    /**
+     * Interface funcional para mapear uma linha do ResultSet
+     */
+    @FunctionalInterface
+    protected interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Interface funcional para definir os parâmetros de um PreparedStatement
+     */
+    @FunctionalInterface
+    protected interface ParameterSetter {
+        void set(PreparedStatement stmt) throws SQLException;
+    }
+    
+    /**
+     * Timers das operações implementadas aqui e chamadas por vários repositórios
+     */
+    private static final class TimersGenericos {
+        private final Metrics.Timer deleteById;
+        private final Metrics.Timer findAllByIds;
+        private final Metrics.Timer findPageByKeyset;
+        
+        TimersGenericos(String repositorio) {
+            this.deleteById = timerDeConsulta(repositorio + ".deleteById");
+            this.findAllByIds = timerDeConsulta(repositorio + ".findAllByIds");
+            this.findPageByKeyset = timerDeConsulta(repositorio + ".findPageByKeyset");
+        }
+    }
 }
@@ -7,28 +7,141 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository para gerenciar comprovantes de pagamento
  */
 public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
     
+    private static final SqlRegistry.NamedSql SQL_ULTIMOS = SqlRegistry.register("comprovante.findUltimosByUsuarioId",
+        dialeto -> dialeto.limitParameter("""
+            SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+                   valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+                   outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+                   caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+            FROM comprovantes WHERE usuario_id = ? ORDER BY data_emissao DESC
+            """));
+    
+    // Demais comandos de texto fixo, também preparados uma vez por conexão
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_ID = SqlRegistry.register("comprovante.findById", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE id = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL = SqlRegistry.register("comprovante.findAll", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes ORDER BY data_emissao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_BY_ID = SqlRegistry.register("comprovante.deleteById",
+        "DELETE FROM comprovantes WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_ID = SqlRegistry.register("comprovante.existsById",
+        "SELECT 1 FROM comprovantes WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_COUNT = SqlRegistry.register("comprovante.count",
+        "SELECT COUNT(*) FROM comprovantes");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID = SqlRegistry.register("comprovante.findByUsuarioId", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE usuario_id = ? ORDER BY data_emissao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_TIPO_COMPROVANTE = SqlRegistry.register("comprovante.findByTipoComprovante", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE tipo_comprovante = ? ORDER BY data_emissao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID_AND_TIPO = SqlRegistry.register("comprovante.findByUsuarioIdAndTipo", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE usuario_id = ? AND tipo_comprovante = ? ORDER BY data_emissao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_PERIODO = SqlRegistry.register("comprovante.findByPeriodo", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE data_emissao BETWEEN ? AND ? ORDER BY data_emissao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID_AND_PERIODO = SqlRegistry.register("comprovante.findByUsuarioIdAndPeriodo", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE usuario_id = ? AND data_emissao BETWEEN ? AND ? ORDER BY data_emissao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_REFERENCIA = SqlRegistry.register("comprovante.findByReferencia", """
+        SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+               valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+               outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+               caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+        FROM comprovantes WHERE LOWER(referencia) = LOWER(?)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_REFERENCIA = SqlRegistry.register("comprovante.existsByReferencia",
+        "SELECT 1 FROM comprovantes WHERE LOWER(referencia) = LOWER(?)");
+    
+    private static final SqlRegistry.NamedSql SQL_CALCULAR_VALOR_TOTAL_PAGO = SqlRegistry.register("comprovante.calcularValorTotalPago", """
+        SELECT COALESCE(SUM(valor_liquido), 0) as total_pago
+        FROM comprovantes 
+        WHERE usuario_id = ? AND data_emissao BETWEEN ? AND ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_RESUMIR_PAGAMENTOS_POR_DEPARTAMENTO_E_TIPO = SqlRegistry.register("comprovante.resumirPagamentosPorDepartamentoETipo", """
+        SELECT u.departamento, c.tipo_comprovante, COUNT(*) AS quantidade,
+               COALESCE(SUM(c.valor_liquido), 0) AS valor_liquido
+        FROM comprovantes c
+        LEFT JOIN usuarios u ON u.id = c.usuario_id
+        WHERE c.data_emissao BETWEEN ? AND ?
+        GROUP BY u.departamento, c.tipo_comprovante
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_INSERT = SqlRegistry.register("comprovante.insert", """
+        INSERT INTO comprovantes (usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+                                valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+                                outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+                                caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_UPDATE = SqlRegistry.register("comprovante.update", """
+        UPDATE comprovantes SET usuario_id = ?, tipo_comprovante = ?, referencia = ?, data_emissao = ?,
+                              periodo_inicio = ?, periodo_fim = ?, valor_bruto = ?, valor_descontos = ?,
+                              valor_liquido = ?, salario_base = ?, horas_extras = ?, adicional_noturno = ?,
+                              outros_proventos = ?, inss = ?, irrf = ?, vale_transporte = ?, vale_refeicao = ?,
+                              outros_descontos = ?, caminho_arquivo = ?, nome_arquivo = ?, tamanho_arquivo = ?,
+                              data_atualizacao = ?, criado_por_usuario_id = ?
+        WHERE id = ?
+        """);
+    
     @Override
     public Optional<Comprovante> findById(Long id) {
         if (id == null) return Optional.empty();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE id = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -44,16 +157,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
     @Override
     public List<Comprovante> findAll() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes ORDER BY data_emissao DESC
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL);
                  ResultSet rs = stmt.executeQuery()) {
                 
                 while (rs.next()) {
@@ -83,14 +188,7 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
     public boolean deleteById(Long id) {
         if (id == null) return false;
         
-        return executeWithConnection(conn -> {
-            String sql = "DELETE FROM comprovantes WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setLong(1, id);
-                return stmt.executeUpdate() > 0;
-            }
-        });
+        return deleteRegistrandoExclusao("comprovantes", SQL_DELETE_BY_ID, id);
     }
     
     @Override
@@ -98,9 +196,7 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (id == null) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM comprovantes WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -113,15 +209,51 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
     @Override
     public long count() {
         return executeWithConnection(conn -> {
-            String sql = "SELECT COUNT(*) FROM comprovantes";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_COUNT);
                  ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? rs.getLong(1) : 0L;
             }
         });
     }
     
+    @Override
+    public List<Comprovante> findAllByIds(Collection<Long> ids) {
+        return findAllByIdsInBatches(ids, """
+            SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+                   valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+                   outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+                   caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+            FROM comprovantes WHERE id IN (%s)
+            """, this::mapResultSetToComprovante);
+    }
+    
+    /**
+     * Busca uma página de comprovantes, do mais recente para o mais antigo
+     */
+    public Page<Comprovante> findPage(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+                   valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+                   outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+                   caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+            FROM comprovantes
+            """, null, List.of(), "data_emissao", true, apos, tamanho, this::mapResultSetToComprovante);
+    }
+    
+    /**
+     * Percorre todos os comprovantes com um cursor, do mais recente para o mais antigo
+     * O Stream mantém uma conexão aberta e deve ser fechado (try-with-resources)
+     */
+    public Stream<Comprovante> streamAll() {
+        return streamQuery("""
+            SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
+                   valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
+                   outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
+                   caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
+            FROM comprovantes ORDER BY data_emissao DESC, id DESC
+            """, List.of(), this::mapResultSetToComprovante);
+    }
+    
     /**
      * Busca comprovantes por usuário
      */
@@ -129,16 +261,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (usuarioId == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE usuario_id = ? ORDER BY data_emissao DESC
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID)) {
                 stmt.setLong(1, usuarioId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -158,16 +282,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (tipo == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE tipo_comprovante = ? ORDER BY data_emissao DESC
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_TIPO_COMPROVANTE)) {
                 stmt.setString(1, tipo.name());
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -187,16 +303,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (usuarioId == null || tipo == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE usuario_id = ? AND tipo_comprovante = ? ORDER BY data_emissao DESC
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID_AND_TIPO)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setString(2, tipo.name());
                 
@@ -217,16 +325,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (dataInicio == null || dataFim == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE data_emissao BETWEEN ? AND ? ORDER BY data_emissao DESC
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_PERIODO)) {
                 stmt.setDate(1, Date.valueOf(dataInicio));
                 stmt.setDate(2, Date.valueOf(dataFim));
                 
@@ -247,16 +347,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (usuarioId == null || dataInicio == null || dataFim == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE usuario_id = ? AND data_emissao BETWEEN ? AND ? ORDER BY data_emissao DESC
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID_AND_PERIODO)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setDate(2, Date.valueOf(dataInicio));
                 stmt.setDate(3, Date.valueOf(dataFim));
@@ -278,15 +370,7 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (referencia == null || referencia.trim().isEmpty()) return Optional.empty();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE LOWER(referencia) = LOWER(?)
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_REFERENCIA)) {
                 stmt.setString(1, referencia.trim());
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -306,9 +390,7 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (referencia == null || referencia.trim().isEmpty()) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM comprovantes WHERE LOWER(referencia) = LOWER(?)";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_REFERENCIA)) {
                 stmt.setString(1, referencia.trim());
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -325,16 +407,8 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (usuarioId == null || limite <= 0) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                       valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                       outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                       caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-                FROM comprovantes WHERE usuario_id = ? ORDER BY data_emissao DESC LIMIT ?
-                """;
-            
             List<Comprovante> comprovantes = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_ULTIMOS)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setInt(2, limite);
                 
@@ -355,13 +429,7 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         if (usuarioId == null || dataInicio == null || dataFim == null) return 0.0;
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT COALESCE(SUM(valor_liquido), 0) as total_pago
-                FROM comprovantes 
-                WHERE usuario_id = ? AND data_emissao BETWEEN ? AND ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_CALCULAR_VALOR_TOTAL_PAGO)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setDate(2, Date.valueOf(dataInicio));
                 stmt.setDate(3, Date.valueOf(dataFim));
@@ -373,19 +441,39 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
         });
     }
     
+    /**
+     * Resume os pagamentos do período por departamento e tipo com uma única consulta agregada
+     * Comprovantes de usuários sem departamento aparecem com departamento nulo
+     */
+    public List<ResumoPagamento> resumirPagamentosPorDepartamentoETipo(LocalDate dataInicio, LocalDate dataFim) {
+        if (dataInicio == null || dataFim == null) return new ArrayList<>();
+        
+        return executeWithConnection(conn -> {
+            List<ResumoPagamento> resumos = new ArrayList<>();
+            try (PreparedStatement stmt = prepare(conn, SQL_RESUMIR_PAGAMENTOS_POR_DEPARTAMENTO_E_TIPO)) {
+                stmt.setDate(1, Date.valueOf(dataInicio));
+                stmt.setDate(2, Date.valueOf(dataFim));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resumos.add(new ResumoPagamento(
+                            rs.getString("departamento"),
+                            TipoComprovante.valueOf(rs.getString("tipo_comprovante")),
+                            rs.getLong("quantidade"),
+                            rs.getDouble("valor_liquido")
+                        ));
+                    }
+                }
+            }
+            return resumos;
+        });
+    }
+    
     /**
      * Insere um novo comprovante
      */
     private Comprovante insert(Connection conn, Comprovante comprovante) throws SQLException {
-        String sql = """
-            INSERT INTO comprovantes (usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                                    valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                                    outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                                    caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             setComprovanteParameters(stmt, comprovante);
             
             int affectedRows = stmt.executeUpdate();
@@ -407,17 +495,7 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
      * Atualiza um comprovante existente
      */
     private Comprovante update(Connection conn, Comprovante comprovante) throws SQLException {
-        String sql = """
-            UPDATE comprovantes SET usuario_id = ?, tipo_comprovante = ?, referencia = ?, data_emissao = ?,
-                                  periodo_inicio = ?, periodo_fim = ?, valor_bruto = ?, valor_descontos = ?,
-                                  valor_liquido = ?, salario_base = ?, horas_extras = ?, adicional_noturno = ?,
-                                  outros_proventos = ?, inss = ?, irrf = ?, vale_transporte = ?, vale_refeicao = ?,
-                                  outros_descontos = ?, caminho_arquivo = ?, nome_arquivo = ?, tamanho_arquivo = ?,
-                                  data_atualizacao = ?, criado_por_usuario_id = ?
-            WHERE id = ?
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_UPDATE)) {
             setComprovanteParameters(stmt, comprovante);
             stmt.setLong(24, comprovante.getId());
             
@@ -549,4 +627,27 @@ public class ComprovanteRepository extends BaseRepository<Comprovante, Long> {
             setter.accept(value);
         }
     }
+    
+    /**
+     * Linha do resumo de pagamentos (departamento x tipo de comprovante)
+     */
+    public static class ResumoPagamento {
+        private final String departamento;
+        private final TipoComprovante tipoComprovante;
+        private final long quantidade;
+        private final double valorLiquido;
+        
+        ResumoPagamento(String departamento, TipoComprovante tipoComprovante, long quantidade, double valorLiquido) {
+            this.departamento = departamento;
+            this.tipoComprovante = tipoComprovante;
+            this.quantidade = quantidade;
+            this.valorLiquido = valorLiquido;
+        }
+        
+        // Getters
+        public String getDepartamento() { return departamento; }
+        public TipoComprovante getTipoComprovante() { return tipoComprovante; }
+        public long getQuantidade() { return quantidade; }
+        public double getValorLiquido() { return valorLiquido; }
+    }
 }
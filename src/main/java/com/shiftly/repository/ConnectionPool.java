@@ -0,0 +1,553 @@
+package com.shiftly.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de conexões JDBC usado pelo DatabaseConfig
+ * Mantém conexões físicas abertas e entrega proxies cujo close() devolve a conexão ao pool
+ * Cada conexão física guarda seus PreparedStatements em um StatementCache, reaproveitados entre empréstimos
+ */
+public class ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    // Conexões usadas há menos tempo que isso não são revalidadas no empréstimo
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+    private final boolean captureBorrowStack;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed = false;
+
+    // Métricas
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    /**
+     * Fábrica de conexões físicas
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    public ConnectionPool(String name, ConnectionFactory factory, int minSize, int maxSize,
+                          long connectionTimeoutMs, long idleTimeoutMs, long leakThresholdMs,
+                          int validationTimeoutSeconds, long maintenanceIntervalMs, int statementCacheSize,
+                          boolean captureBorrowStack) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tamanho de pool inválido: min=" + minSize + ", max=" + maxSize);
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Tamanho de cache de statements inválido: " + statementCacheSize);
+        }
+
+        this.name = name;
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.captureBorrowStack = captureBorrowStack;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shiftly-pool-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maintenance.scheduleWithFixedDelay(this::runMaintenance,
+            maintenanceIntervalMs, maintenanceIntervalMs, TimeUnit.MILLISECONDS);
+
+        logger.info("Pool de conexões {} criado (min={}, max={}, statements por conexão={})",
+                    name, minSize, maxSize, statementCacheSize);
+    }
+
+    /**
+     * Empresta uma conexão do pool
+     * Lança PoolExhaustedException se nenhuma conexão ficar livre dentro do timeout; as demais SQLException
+     * vêm da criação de conexões físicas (banco inacessível)
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool de conexões " + name + " está fechado");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new PoolExhaustedException(String.format(
+                    "Timeout ao obter conexão do pool %s após %d ms (ativas=%d, máximo=%d)",
+                    name, connectionTimeoutMs, borrowedConnections.size(), maxSize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PoolExhaustedException("Interrompido aguardando conexão do pool " + name, e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdleConnection();
+            if (pooled == null) {
+                pooled = createPooledConnection();
+            }
+
+            long waited = System.nanoTime() - start;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            borrowCount.incrementAndGet();
+
+            pooled.markBorrowed(captureBorrowStack && leakThresholdMs > 0);
+            borrowedConnections.add(pooled);
+            return pooled.newLease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Obtém a próxima conexão ociosa válida, descartando as inválidas
+     */
+    private PooledConnection takeValidIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            if (isValid(pooled)) {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            logger.debug("Conexão inválida descartada do pool {}", name);
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    /**
+     * Valida uma conexão antes do empréstimo
+     */
+    private boolean isValid(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastReturnedAt < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cria uma nova conexão física
+     */
+    private PooledConnection createPooledConnection() throws SQLException {
+        Connection physical = factory.create();
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        logger.debug("Nova conexão criada no pool {} (total={})", name, totalConnections.get());
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Devolve uma conexão ao pool
+     */
+    private void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        if (pooled.statements != null) {
+            pooled.statements.liberar();
+        }
+
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+
+            // Restaura o estado padrão antes de reutilizar a conexão
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (pooled.physical.isReadOnly()) {
+                pooled.physical.setReadOnly(false);
+            }
+            pooled.physical.clearWarnings();
+
+            pooled.lastReturnedAt = System.currentTimeMillis();
+            idleConnections.offerFirst(pooled);
+        } catch (SQLException e) {
+            logger.debug("Conexão descartada ao retornar ao pool {}: {}", name, e.getMessage());
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Fecha fisicamente uma conexão
+     */
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        if (pooled.statements != null) {
+            pooled.statements.fecharTodos();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.debug("Erro ao fechar conexão física do pool {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Executa tarefas periódicas: remoção de ociosas, detecção de vazamentos e tamanho mínimo
+     */
+    private void runMaintenance() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            evictIdleConnections();
+            detectLeaks();
+            fillToMinimum();
+        } catch (Exception e) {
+            logger.warn("Erro na manutenção do pool {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove conexões ociosas há mais tempo que o limite, respeitando o tamanho mínimo
+     */
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idleConnections) {
+            if (totalConnections.get() <= minSize) {
+                break;
+            }
+            if (now - pooled.lastReturnedAt > idleTimeoutMs && idleConnections.remove(pooled)) {
+                logger.debug("Conexão ociosa removida do pool {}", name);
+                destroy(pooled);
+            }
+        }
+    }
+
+    /**
+     * Registra conexões emprestadas há mais tempo que o limite de vazamento
+     */
+    private void detectLeaks() {
+        if (leakThresholdMs <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : borrowedConnections) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMs) {
+                pooled.leakReported = true;
+                leakCount.incrementAndGet();
+                // Sem a pilha do empréstimo (database.pool.leak.capture.stack=false) o log traz só a thread
+                logger.warn("Possível vazamento de conexão no pool {}: emprestada há {} ms pela thread {}",
+                           name, now - pooled.borrowedAt, pooled.borrowerThread, pooled.borrowSite);
+            }
+        }
+    }
+
+    /**
+     * Abre conexões até atingir o tamanho mínimo
+     */
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = createPooledConnection();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                logger.debug("Não foi possível completar tamanho mínimo do pool {}: {}", name, e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Fecha o pool e todas as conexões ociosas
+     * Conexões emprestadas são fechadas quando devolvidas
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        maintenance.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        logger.info("Pool de conexões {} fechado", name);
+    }
+
+    /**
+     * Verifica se o pool está fechado
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Obtém o nome do pool
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Obtém métricas atuais do pool
+     */
+    public PoolStats getStats() {
+        long borrows = borrowCount.get();
+        return new PoolStats(
+            name,
+            totalConnections.get(),
+            borrowedConnections.size(),
+            idleConnections.size(),
+            permits.getQueueLength(),
+            maxSize,
+            borrows,
+            createdCount.get(),
+            destroyedCount.get(),
+            validationFailures.get(),
+            timeoutCount.get(),
+            leakCount.get(),
+            borrows > 0 ? totalWaitNanos.get() / borrows / 1_000_000.0 : 0.0,
+            maxWaitNanos.get() / 1_000_000.0,
+            statementHits.get(),
+            statementMisses.get(),
+            statementEvictions.get()
+        );
+    }
+
+    /**
+     * Conexão física mantida pelo pool
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long borrowedAt;
+        private volatile long lastReturnedAt;
+        private volatile String borrowerThread;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                ? new StatementCache(physical, statementCacheSize, statementHits, statementMisses, statementEvictions)
+                : null;
+        }
+
+        /**
+         * Registra o empréstimo; a pilha (uma Exception por empréstimo) só é capturada para depurar vazamentos
+         */
+        void markBorrowed(boolean captureStack) {
+            borrowedAt = System.currentTimeMillis();
+            borrowerThread = Thread.currentThread().getName();
+            borrowSite = captureStack ? new Exception("Local do empréstimo da conexão") : null;
+            leakReported = false;
+        }
+
+        /**
+         * Cria um proxy válido apenas até o próximo close()
+         */
+        Connection newLease() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Intercepta close() para devolver a conexão ao pool
+     */
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicInteger released = new AtomicInteger();
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(0, 1)) {
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() == 1 || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + "]";
+                default:
+                    break;
+            }
+
+            if (released.get() == 1) {
+                throw new SQLException("Conexão já foi devolvida ao pool " + name);
+            }
+
+            // prepareStatement(sql) e prepareStatement(sql, autoGeneratedKeys) de comandos do SqlRegistry passam
+            // pelo cache da conexão; SQL avulso é preparado direto, sem ocupar nem despejar entradas do cache
+            if (pooled.statements != null && method.getName().equals("prepareStatement")
+                    && SqlRegistry.isRegistered((String) args[0])) {
+                Class<?>[] tipos = method.getParameterTypes();
+                if (tipos.length == 1) {
+                    return pooled.statements.prepare((Connection) proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (tipos.length == 2 && tipos[1] == int.class) {
+                    return pooled.statements.prepare((Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Métricas de um pool de conexões
+     */
+    public static class PoolStats {
+        private final String name;
+        private final int total;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final long validationFailures;
+        private final long timeoutCount;
+        private final long leakCount;
+        private final double averageWaitMs;
+        private final double maxWaitMs;
+        private final long statementHits;
+        private final long statementMisses;
+        private final long statementEvictions;
+
+        PoolStats(String name, int total, int active, int idle, int waiting, int maxSize,
+                  long borrowCount, long createdCount, long destroyedCount, long validationFailures,
+                  long timeoutCount, long leakCount, double averageWaitMs, double maxWaitMs,
+                  long statementHits, long statementMisses, long statementEvictions) {
+            this.name = name;
+            this.total = total;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.validationFailures = validationFailures;
+            this.timeoutCount = timeoutCount;
+            this.leakCount = leakCount;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+            this.statementEvictions = statementEvictions;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public int getTotal() { return total; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public int getMaxSize() { return maxSize; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getCreatedCount() { return createdCount; }
+        public long getDestroyedCount() { return destroyedCount; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getTimeoutCount() { return timeoutCount; }
+        public long getLeakCount() { return leakCount; }
+        public double getAverageWaitMs() { return averageWaitMs; }
+        public double getMaxWaitMs() { return maxWaitMs; }
+        public long getStatementHits() { return statementHits; }
+        public long getStatementMisses() { return statementMisses; }
+        public long getStatementEvictions() { return statementEvictions; }
+
+        /**
+         * Fração dos prepareStatement atendidos pelo cache
+         */
+        public double getStatementHitRate() {
+            long total = statementHits + statementMisses;
+            return total > 0 ? (double) statementHits / total : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Pool %s: total=%d, ativas=%d, ociosas=%d, aguardando=%d, máximo=%d, empréstimos=%d, " +
+                "criadas=%d, descartadas=%d, falhas de validação=%d, timeouts=%d, vazamentos=%d, " +
+                "espera média=%.2f ms, espera máxima=%.2f ms, " +
+                "statements: acertos=%d, faltas=%d (%.1f%% de acerto), descartados=%d",
+                name, total, active, idle, waiting, maxSize, borrowCount, createdCount, destroyedCount,
+                validationFailures, timeoutCount, leakCount, averageWaitMs, maxWaitMs,
+                statementHits, statementMisses, getStatementHitRate() * 100, statementEvictions);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.shiftly.repository;
 
 import com.shiftly.util.ConfigUtil;
+import com.shiftly.util.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.function.ToLongFunction;
 
 /**
  * Configuração e gerenciamento de conexões com banco de dados
@@ -23,14 +26,48 @@ public class DatabaseConfig {
     private static final String SQL_SERVER_DATABASE = "ShiftlyDB";
     private static final String SQL_SERVER_USERNAME = "guilherme";
     private static final String SQL_SERVER_PASSWORD = "teste123";
+    // URL completa opcional; quando informada, usa database.sqlserver.username/password em vez dos valores acima
+    private static final String SQL_SERVER_URL = ConfigUtil.getString("database.sqlserver.url");
     
     // Configurações H2 (lidas do arquivo properties)
     private static final String H2_URL = getConfigValue("database.h2.url", "jdbc:h2:mem:shiftly;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
     private static final String H2_USERNAME = getConfigValue("database.h2.username", "sa");
     private static final String H2_PASSWORD = getConfigValue("database.h2.password", "");
     
-    private static DatabaseType currentDatabaseType = DatabaseType.SQL_SERVER;
-    private static boolean sqlServerAvailable = false;
+    // Configurações dos pools de conexão
+    private static final int POOL_MIN_SIZE = ConfigUtil.getInt("database.pool.min.size", 2);
+    private static final int POOL_MAX_SIZE = ConfigUtil.getInt("database.pool.max.size", 10);
+    private static final long POOL_CONNECTION_TIMEOUT_MS = ConfigUtil.getLong("database.pool.connection.timeout.ms", 10000);
+    private static final long POOL_IDLE_TIMEOUT_MS = ConfigUtil.getLong("database.pool.idle.timeout.ms", 300000);
+    private static final long POOL_LEAK_THRESHOLD_MS = ConfigUtil.getLong("database.pool.leak.threshold.ms", 60000);
+    // Guarda a pilha de cada empréstimo para o log de vazamento (custo por empréstimo: ligar só para depurar)
+    private static final boolean POOL_LEAK_CAPTURE_STACK = ConfigUtil.getBoolean("database.pool.leak.capture.stack", false);
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = ConfigUtil.getInt("database.pool.validation.timeout.seconds", 2);
+    private static final long POOL_MAINTENANCE_INTERVAL_MS = ConfigUtil.getLong("database.pool.maintenance.interval.ms", 30000);
+    // PreparedStatements mantidos por conexão física (0 desliga o cache); cabe todo o SqlRegistry
+    private static final int POOL_STATEMENT_CACHE_SIZE = ConfigUtil.getInt("database.pool.statement.cache.size", 150);
+    
+    private static volatile DatabaseType currentDatabaseType = DatabaseType.SQL_SERVER;
+    
+    private static volatile ConnectionPool sqlServerPool;
+    private static volatile ConnectionPool h2Pool;
+    
+    // Tempo de espera por uma conexão de cada pool (inclui criação e validação) e trocas para o H2
+    private static final Metrics.Timer aquisicaoSqlServer = Metrics.timer("db.connection.acquire.sqlserver");
+    private static final Metrics.Timer aquisicaoH2 = Metrics.timer("db.connection.acquire.h2");
+    private static final Metrics.Counter failovers = Metrics.counter("db.connection.failover");
+    
+    static {
+        // Ocupação dos pools, lida a cada snapshot de métricas (0 enquanto o pool não foi criado)
+        for (DatabaseType tipo : DatabaseType.values()) {
+            String prefixo = "db.pool." + tipo.name().toLowerCase().replace("_", "") + ".";
+            Metrics.gauge(prefixo + "active", () -> lerPool(tipo, ConnectionPool.PoolStats::getActive));
+            Metrics.gauge(prefixo + "idle", () -> lerPool(tipo, ConnectionPool.PoolStats::getIdle));
+            Metrics.gauge(prefixo + "waiting", () -> lerPool(tipo, ConnectionPool.PoolStats::getWaiting));
+            Metrics.gauge(prefixo + "statement.hits", () -> lerPool(tipo, ConnectionPool.PoolStats::getStatementHits));
+            Metrics.gauge(prefixo + "statement.misses", () -> lerPool(tipo, ConnectionPool.PoolStats::getStatementMisses));
+        }
+    }
     
     public enum DatabaseType {
         SQL_SERVER, H2
@@ -47,59 +84,133 @@ public class DatabaseConfig {
     
     /**
      * Verifica se o SQL Server está disponível
+     * Usa o estado em cache do DatabaseHealthMonitor, sem abrir conexão
      */
     public static boolean isSqlServerAvailable() {
-        try (Connection conn = createSqlServerConnection()) {
-            sqlServerAvailable = true;
-            logger.info("SQL Server está disponível");
-            return true;
-        } catch (SQLException e) {
-            sqlServerAvailable = false;
-            logger.warn("SQL Server não está disponível: {}", e.getMessage());
-            return false;
-        }
+        return DatabaseHealthMonitor.isSqlServerUp();
     }
     
     /**
      * Obtém uma conexão com o banco principal (SQL Server) ou fallback (H2)
+     * As conexões vêm dos pools; o close() da conexão a devolve ao pool
+     * O roteamento usa o circuito do DatabaseHealthMonitor, sem sondar o servidor
+     * Pool do SQL Server saturado (PoolExhaustedException) é repassado a quem chamou: o servidor está no ar,
+     * e trocar para o H2 dividiria as escritas entre os dois bancos
      */
     public static Connection getConnection() throws SQLException {
-        if (currentDatabaseType == DatabaseType.SQL_SERVER && isSqlServerAvailable()) {
-            return createSqlServerConnection();
-        } else {
-            if (currentDatabaseType == DatabaseType.SQL_SERVER) {
-                logger.info("Mudando para H2 como fallback");
-                currentDatabaseType = DatabaseType.H2;
+        if (currentDatabaseType == DatabaseType.SQL_SERVER) {
+            if (DatabaseHealthMonitor.allowsSqlServer()) {
+                try {
+                    return getSqlServerConnection();
+                } catch (PoolExhaustedException e) {
+                    throw e;
+                } catch (SQLException e) {
+                    logger.warn("SQL Server não está disponível: {}", e.getMessage());
+                    DatabaseHealthMonitor.tripCircuit(e.getMessage());
+                }
             }
-            return createH2Connection();
+            logger.info("Mudando para H2 como fallback");
+            failovers.incrementar();
+            setCurrentDatabaseType(DatabaseType.H2);
         }
+        return getH2Connection();
     }
     
     /**
      * Força o uso do SQL Server
      */
     public static Connection getSqlServerConnection() throws SQLException {
-        return createSqlServerConnection();
+        return borrow(getSqlServerPool(), aquisicaoSqlServer);
     }
     
     /**
      * Força o uso do H2
      */
     public static Connection getH2Connection() throws SQLException {
-        return createH2Connection();
+        return borrow(getH2Pool(), aquisicaoH2);
+    }
+    
+    /**
+     * Empresta uma conexão do pool registrando o tempo de espera e as falhas na métrica informada
+     */
+    private static Connection borrow(ConnectionPool pool, Metrics.Timer timer) throws SQLException {
+        long inicio = System.nanoTime();
+        boolean sucesso = false;
+        try {
+            Connection connection = pool.borrow();
+            sucesso = true;
+            return connection;
+        } finally {
+            timer.registrar(System.nanoTime() - inicio, sucesso);
+        }
+    }
+    
+    /**
+     * Obtém (criando sob demanda) o pool do SQL Server
+     */
+    private static ConnectionPool getSqlServerPool() {
+        ConnectionPool pool = sqlServerPool;
+        if (pool == null) {
+            synchronized (DatabaseConfig.class) {
+                if (sqlServerPool == null) {
+                    sqlServerPool = createPool("sqlserver", DatabaseConfig::createSqlServerConnection);
+                }
+                pool = sqlServerPool;
+            }
+        }
+        return pool;
+    }
+    
+    /**
+     * Obtém (criando sob demanda) o pool do H2
+     */
+    private static ConnectionPool getH2Pool() {
+        ConnectionPool pool = h2Pool;
+        if (pool == null) {
+            synchronized (DatabaseConfig.class) {
+                if (h2Pool == null) {
+                    h2Pool = createPool("h2", DatabaseConfig::createH2Connection);
+                }
+                pool = h2Pool;
+            }
+        }
+        return pool;
+    }
+    
+    /**
+     * Cria um pool com as configurações da aplicação
+     */
+    private static ConnectionPool createPool(String name, ConnectionPool.ConnectionFactory factory) {
+        return new ConnectionPool(name, factory, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                                  POOL_CONNECTION_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS,
+                                  POOL_VALIDATION_TIMEOUT_SECONDS, POOL_MAINTENANCE_INTERVAL_MS, POOL_STATEMENT_CACHE_SIZE,
+                                  POOL_LEAK_CAPTURE_STACK);
     }
     
     /**
      * Cria conexão com SQL Server
      */
     private static Connection createSqlServerConnection() throws SQLException {
+        return openSqlServerConnection(5);
+    }
+    
+    /**
+     * Abre uma conexão física com o SQL Server, fora do pool, com o timeout de login informado
+     */
+    static Connection openSqlServerConnection(int loginTimeoutSeconds) throws SQLException {
         String url = String.format("jdbc:sqlserver://%s:%s;databaseName=%s;encrypt=false;trustServerCertificate=true", 
                                  SQL_SERVER_HOST, SQL_SERVER_PORT, SQL_SERVER_DATABASE);
         
         Properties props = new Properties();
         props.setProperty("user", SQL_SERVER_USERNAME);
         props.setProperty("password", SQL_SERVER_PASSWORD);
-        props.setProperty("loginTimeout", "5"); // 5 segundos de timeout
+        
+        if (SQL_SERVER_URL != null && !SQL_SERVER_URL.isBlank()) {
+            url = SQL_SERVER_URL;
+            props.setProperty("user", ConfigUtil.getString("database.sqlserver.username", SQL_SERVER_USERNAME));
+            props.setProperty("password", ConfigUtil.getString("database.sqlserver.password", SQL_SERVER_PASSWORD));
+        }
+        props.setProperty("loginTimeout", String.valueOf(loginTimeoutSeconds));
         
         return DriverManager.getConnection(url, props);
     }
@@ -122,15 +233,23 @@ public class DatabaseConfig {
      * Define o tipo de banco a ser usado
      */
     public static void setCurrentDatabaseType(DatabaseType databaseType) {
-        currentDatabaseType = databaseType;
-        logger.info("Tipo de banco alterado para: {}", databaseType);
+        DatabaseType previous;
+        synchronized (DatabaseConfig.class) {
+            previous = currentDatabaseType;
+            currentDatabaseType = databaseType;
+        }
+        
+        if (previous != databaseType) {
+            logger.info("Tipo de banco alterado para: {}", databaseType);
+            DatabaseHealthMonitor.notifyRoutingChange(previous, databaseType);
+        }
     }
     
     /**
      * Verifica se estamos usando SQL Server
      */
     public static boolean isUsingSqlServer() {
-        return currentDatabaseType == DatabaseType.SQL_SERVER && sqlServerAvailable;
+        return currentDatabaseType == DatabaseType.SQL_SERVER && DatabaseHealthMonitor.allowsSqlServer();
     }
     
     /**
@@ -140,12 +259,19 @@ public class DatabaseConfig {
         return currentDatabaseType == DatabaseType.H2;
     }
     
+    /**
+     * Verifica se o H2 roda em modo de compatibilidade com o SQL Server (MODE=MSSQLServer na URL)
+     */
+    public static boolean isH2InSqlServerMode() {
+        return H2_URL.toUpperCase(Locale.ROOT).contains(";MODE=MSSQLSERVER");
+    }
+    
     /**
      * Tenta reconectar com SQL Server
      */
     public static boolean tryReconnectSqlServer() {
-        if (isSqlServerAvailable()) {
-            currentDatabaseType = DatabaseType.SQL_SERVER;
+        if (DatabaseHealthMonitor.probeNow() && DatabaseHealthMonitor.allowsSqlServer()) {
+            setCurrentDatabaseType(DatabaseType.SQL_SERVER);
             logger.info("Reconectado com SQL Server");
             return true;
         }
@@ -165,6 +291,46 @@ public class DatabaseConfig {
         }
     }
     
+    /**
+     * Obtém estatísticas dos pools de conexão
+     */
+    public static String getPoolStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== ESTATÍSTICAS DOS POOLS DE CONEXÃO ===\n");
+        ConnectionPool sqlPool = sqlServerPool;
+        ConnectionPool memPool = h2Pool;
+        stats.append(sqlPool != null ? sqlPool.getStats() : "Pool sqlserver: não inicializado").append("\n");
+        stats.append(memPool != null ? memPool.getStats() : "Pool h2: não inicializado").append("\n");
+        return stats.toString();
+    }
+    
+    /**
+     * Obtém as métricas do pool do banco informado, ou null se o pool ainda não foi criado
+     */
+    public static ConnectionPool.PoolStats getPoolStats(DatabaseType databaseType) {
+        ConnectionPool pool = databaseType == DatabaseType.SQL_SERVER ? sqlServerPool : h2Pool;
+        return pool != null ? pool.getStats() : null;
+    }
+    
+    private static long lerPool(DatabaseType databaseType, ToLongFunction<ConnectionPool.PoolStats> valor) {
+        ConnectionPool.PoolStats stats = getPoolStats(databaseType);
+        return stats != null ? valor.applyAsLong(stats) : 0;
+    }
+    
+    /**
+     * Fecha os pools de conexão
+     */
+    public static synchronized void shutdownPools() {
+        if (sqlServerPool != null) {
+            sqlServerPool.close();
+            sqlServerPool = null;
+        }
+        if (h2Pool != null) {
+            h2Pool.close();
+            h2Pool = null;
+        }
+    }
+    
     /**
      * Executa um teste de conectividade
      */
@@ -174,10 +340,10 @@ public class DatabaseConfig {
         // Teste SQL Server
         try (Connection conn = createSqlServerConnection()) {
             logger.info("✓ SQL Server: Conectado com sucesso");
-            sqlServerAvailable = true;
         } catch (SQLException e) {
             logger.warn("✗ SQL Server: Falha na conexão - {}", e.getMessage());
-            sqlServerAvailable = false;
+            // Evita que o primeiro acesso dos repositories espere pelo timeout de login
+            DatabaseHealthMonitor.tripCircuit(e.getMessage());
         }
         
         // Teste H2
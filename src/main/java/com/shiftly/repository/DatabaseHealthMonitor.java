@@ -0,0 +1,360 @@
+package com.shiftly.repository;
+
+import com.shiftly.util.ConfigUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitor de saúde do SQL Server com circuit breaker
+ * Sonda o banco em segundo plano e publica um estado em cache, evitando round trips no caminho crítico
+ */
+public class DatabaseHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseHealthMonitor.class);
+
+    // Configurações do monitor
+    private static final long PROBE_INTERVAL_MS = ConfigUtil.getLong("database.health.interval.ms", 15000);
+    private static final long MAX_BACKOFF_MS = ConfigUtil.getLong("database.health.backoff.max.ms", 300000);
+    private static final int FAILURE_THRESHOLD = ConfigUtil.getInt("database.health.failure.threshold", 3);
+    private static final int RECOVERY_THRESHOLD = ConfigUtil.getInt("database.health.recovery.threshold", 2);
+    private static final long DEGRADED_LATENCY_MS = ConfigUtil.getLong("database.health.degraded.latency.ms", 1000);
+    private static final int PROBE_TIMEOUT_SECONDS = ConfigUtil.getInt("database.health.probe.timeout.seconds", 5);
+
+    private static final List<HealthListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static ScheduledExecutorService scheduler;
+    private static ScheduledFuture<?> nextProbe;
+
+    // Conexão física reservada às sondagens, fora do pool da aplicação (protegida por probeLock)
+    private static final Object probeLock = new Object();
+    private static Connection probeConnection;
+
+    // Estado publicado (leitura sem bloqueio no caminho crítico)
+    private static volatile HealthState state = HealthState.UP;
+    private static volatile boolean circuitOpen = false;
+    private static volatile long lastLatencyMs = -1;
+    private static volatile LocalDateTime lastProbeAt;
+    private static volatile String lastError;
+
+    // Contadores protegidos pelo lock da classe
+    private static int consecutiveFailures = 0;
+    private static int consecutiveSuccesses = 0;
+
+    public enum HealthState {
+        UP, DEGRADED, DOWN
+    }
+
+    public enum EventType {
+        STATE_CHANGED, FAILOVER, FAILBACK
+    }
+
+    /**
+     * Ouvinte de eventos de saúde e roteamento do banco
+     */
+    @FunctionalInterface
+    public interface HealthListener {
+        void onEvent(HealthEvent event);
+    }
+
+    /**
+     * Inicia as sondagens periódicas em segundo plano
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shiftly-health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNextProbe(nextDelayMs());
+
+        logger.info("Monitor de saúde do SQL Server iniciado (intervalo de {} ms)", PROBE_INTERVAL_MS);
+    }
+
+    /**
+     * Para as sondagens periódicas
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            nextProbe = null;
+            synchronized (probeLock) {
+                closeProbeConnection();
+            }
+            logger.info("Monitor de saúde do SQL Server parado");
+        }
+    }
+
+    /**
+     * Agenda a próxima sondagem
+     */
+    private static synchronized void scheduleNextProbe(long delayMs) {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+        nextProbe = scheduler.schedule(() -> {
+            probeNow();
+            scheduleNextProbe(nextDelayMs());
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Calcula o atraso até a próxima sondagem (backoff exponencial em falhas)
+     */
+    private static synchronized long nextDelayMs() {
+        if (consecutiveFailures == 0) {
+            return PROBE_INTERVAL_MS;
+        }
+        int exponent = Math.min(consecutiveFailures - 1, 20);
+        return Math.min(PROBE_INTERVAL_MS << exponent, MAX_BACKOFF_MS);
+    }
+
+    /**
+     * Executa uma sondagem imediata do SQL Server
+     * Usa uma conexão própria, aberta com timeout de login curto e mantida entre sondagens: pool saturado
+     * não é servidor fora do ar e não deve levar a troca para o H2
+     */
+    public static boolean probeNow() {
+        String error;
+        long latencyMs;
+        synchronized (probeLock) {
+            long start = System.nanoTime();
+            try {
+                if (probeConnection == null || probeConnection.isClosed()) {
+                    probeConnection = DatabaseConfig.openSqlServerConnection(PROBE_TIMEOUT_SECONDS);
+                }
+                if (!probeConnection.isValid(PROBE_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Conexão inválida");
+                }
+                latencyMs = (System.nanoTime() - start) / 1_000_000;
+                error = null;
+            } catch (SQLException e) {
+                closeProbeConnection();
+                latencyMs = -1;
+                error = e.getMessage();
+            }
+        }
+
+        if (error != null) {
+            recordProbeFailure(error);
+            return false;
+        }
+        recordSuccess(latencyMs);
+        return true;
+    }
+
+    /**
+     * Descarta a conexão de sondagem (chamado com probeLock)
+     */
+    private static void closeProbeConnection() {
+        if (probeConnection != null) {
+            try {
+                probeConnection.close();
+            } catch (SQLException e) {
+                logger.debug("Erro ao fechar conexão de sondagem: {}", e.getMessage());
+            }
+            probeConnection = null;
+        }
+    }
+
+    /**
+     * Registra uma sondagem bem-sucedida
+     */
+    private static void recordSuccess(long latencyMs) {
+        HealthState newState;
+        boolean closedCircuit = false;
+
+        synchronized (DatabaseHealthMonitor.class) {
+            consecutiveFailures = 0;
+            consecutiveSuccesses++;
+            lastLatencyMs = latencyMs;
+            lastProbeAt = LocalDateTime.now();
+            lastError = null;
+
+            if (circuitOpen && consecutiveSuccesses >= RECOVERY_THRESHOLD) {
+                circuitOpen = false;
+                closedCircuit = true;
+            }
+
+            if (circuitOpen) {
+                // Meio-aberto: respondendo, mas ainda sem sucessos suficientes
+                newState = HealthState.DEGRADED;
+            } else {
+                newState = latencyMs > DEGRADED_LATENCY_MS ? HealthState.DEGRADED : HealthState.UP;
+            }
+        }
+
+        if (closedCircuit) {
+            logger.info("Circuito do SQL Server fechado após {} sondagens bem-sucedidas", RECOVERY_THRESHOLD);
+        }
+        updateState(newState, "Sondagem bem-sucedida em " + latencyMs + " ms");
+    }
+
+    /**
+     * Registra uma falha de sondagem em segundo plano
+     */
+    private static void recordProbeFailure(String error) {
+        HealthState newState;
+
+        synchronized (DatabaseHealthMonitor.class) {
+            consecutiveSuccesses = 0;
+            consecutiveFailures++;
+            lastProbeAt = LocalDateTime.now();
+            lastError = error;
+
+            if (consecutiveFailures >= FAILURE_THRESHOLD) {
+                circuitOpen = true;
+            }
+            newState = circuitOpen ? HealthState.DOWN : HealthState.DEGRADED;
+        }
+
+        logger.debug("Falha na sondagem do SQL Server ({} consecutivas): {}", consecutiveFailures, error);
+        updateState(newState, error);
+    }
+
+    /**
+     * Abre o circuito imediatamente após uma falha de conexão real
+     * Usado quando o caminho crítico já pagou o timeout de login
+     */
+    public static void tripCircuit(String error) {
+        synchronized (DatabaseHealthMonitor.class) {
+            consecutiveSuccesses = 0;
+            consecutiveFailures = Math.max(consecutiveFailures + 1, FAILURE_THRESHOLD);
+            circuitOpen = true;
+            lastError = error;
+        }
+        updateState(HealthState.DOWN, error);
+    }
+
+    /**
+     * Atualiza o estado publicado e notifica ouvintes
+     */
+    private static void updateState(HealthState newState, String message) {
+        HealthState previous;
+        synchronized (DatabaseHealthMonitor.class) {
+            previous = state;
+            state = newState;
+        }
+
+        if (previous != newState) {
+            logger.info("Estado do SQL Server: {} → {} ({})", previous, newState, message);
+            fireEvent(new HealthEvent(EventType.STATE_CHANGED, previous, newState, message));
+        }
+
+        // Falha detectada em segundo plano: troca para H2 sem esperar uma consulta
+        if (newState == HealthState.DOWN && DatabaseConfig.getCurrentDatabaseType() == DatabaseConfig.DatabaseType.SQL_SERVER) {
+            DatabaseConfig.setCurrentDatabaseType(DatabaseConfig.DatabaseType.H2);
+        }
+    }
+
+    /**
+     * Notifica uma troca de banco (failover/failback)
+     */
+    static void notifyRoutingChange(DatabaseConfig.DatabaseType from, DatabaseConfig.DatabaseType to) {
+        EventType type = to == DatabaseConfig.DatabaseType.H2 ? EventType.FAILOVER : EventType.FAILBACK;
+        logger.info("{}: {} → {}", type, from, to);
+        fireEvent(new HealthEvent(type, state, state, from + " → " + to));
+    }
+
+    /**
+     * Envia evento a todos os ouvintes
+     */
+    private static void fireEvent(HealthEvent event) {
+        for (HealthListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (Exception e) {
+                logger.error("Erro em ouvinte de saúde do banco: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Registra um ouvinte de eventos
+     */
+    public static void addListener(HealthListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove um ouvinte de eventos
+     */
+    public static void removeListener(HealthListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Indica se o circuito permite enviar consultas ao SQL Server
+     */
+    public static boolean allowsSqlServer() {
+        return !circuitOpen;
+    }
+
+    /**
+     * Indica se o SQL Server está respondendo segundo o último estado conhecido
+     */
+    public static boolean isSqlServerUp() {
+        return state != HealthState.DOWN && !circuitOpen;
+    }
+
+    /**
+     * Retorna o estado atual em cache
+     */
+    public static HealthState getState() {
+        return state;
+    }
+
+    /**
+     * Obtém estatísticas do monitor
+     */
+    public static String getHealthStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== SAÚDE DO SQL SERVER ===\n");
+        stats.append("Estado: ").append(state).append("\n");
+        stats.append("Circuito: ").append(circuitOpen ? "Aberto" : "Fechado").append("\n");
+        stats.append("Última sondagem: ").append(lastProbeAt != null ? lastProbeAt : "Nunca").append("\n");
+        stats.append("Latência: ").append(lastLatencyMs >= 0 ? lastLatencyMs + " ms" : "N/A").append("\n");
+        stats.append("Último erro: ").append(lastError != null ? lastError : "Nenhum").append("\n");
+        return stats.toString();
+    }
+
+    /**
+     * Evento de saúde ou roteamento do banco
+     */
+    public static class HealthEvent {
+        private final EventType type;
+        private final HealthState previousState;
+        private final HealthState currentState;
+        private final String message;
+        private final LocalDateTime timestamp;
+
+        HealthEvent(EventType type, HealthState previousState, HealthState currentState, String message) {
+            this.type = type;
+            this.previousState = previousState;
+            this.currentState = currentState;
+            this.message = message;
+            this.timestamp = LocalDateTime.now();
+        }
+
+        // Getters
+        public EventType getType() { return type; }
+        public HealthState getPreviousState() { return previousState; }
+        public HealthState getCurrentState() { return currentState; }
+        public String getMessage() { return message; }
+        public LocalDateTime getTimestamp() { return timestamp; }
+    }
+}
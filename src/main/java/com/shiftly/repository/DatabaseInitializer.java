@@ -35,6 +35,7 @@ public class DatabaseInitializer {
                 logger.info("SQL Server não disponível - usando H2 como fallback...");
                 initializeH2();
             }
+            
             logger.info("=== BANCO DE DADOS INICIALIZADO COM SUCESSO ===");
         } catch (Exception e) {
             logger.error("=== ERRO NA INICIALIZAÇÃO DO BANCO ===");
@@ -102,21 +103,34 @@ public class DatabaseInitializer {
             String script = loadScriptFromResource("/database/create-database-simple.sql");
             executeScript(conn, script);
             logger.info("Script simplificado do SQL Server executado com sucesso");
+            consolidarJornadasExistentes(conn);
         } catch (Exception e) {
             logger.error("Erro ao executar script do SQL Server: {}", e.getMessage(), e);
             throw new RuntimeException("Falha ao executar script SQL Server", e);
         }
     }
     
+    /**
+     * Bancos anteriores à jornada diária recebem a tabela vazia, com os pontos já existentes
+     * Sem a consolidação única aqui, todo dia, período e saldo histórico seria lido como 0 h
+     */
+    private static void consolidarJornadasExistentes(Connection conn) throws SQLException {
+        JornadaDiariaRepository jornadaRepository = new JornadaDiariaRepository();
+        if (jornadaRepository.jornadaVaziaComPontos(conn)) {
+            logger.info("Jornada diária vazia com pontos existentes - consolidando histórico...");
+            jornadaRepository.reconstruir(conn);
+        }
+    }
+    
     /**
      * Inicializa H2 com script específico
+     * Público para os benchmarks, que medem sempre o H2 embarcado mesmo com SQL Server disponível
      */
-    private static void initializeH2() {
+    public static void initializeH2() {
         logger.info("Inicializando H2...");
         
         try (Connection conn = DatabaseConfig.getH2Connection()) {
-            String script = loadScriptFromResource("/database/create-database-h2.sql");
-            executeScript(conn, script);
+            executeH2Script(conn);
             logger.info("H2 inicializado com sucesso");
         } catch (Exception e) {
             logger.error("Erro ao inicializar H2: {}", e.getMessage(), e);
@@ -124,6 +138,15 @@ public class DatabaseInitializer {
         }
     }
     
+    /**
+     * Executa o script do H2 (estruturas e dados de exemplo) na conexão informada
+     * Os pontos de exemplo são inseridos pelo script; só os dias deles são consolidados na jornada
+     */
+    static void executeH2Script(Connection conn) throws SQLException {
+        executeScript(conn, loadScriptFromResource("/database/create-database-h2.sql"));
+        new JornadaDiariaRepository().reconciliar(conn);
+    }
+    
     /**
      * Carrega script SQL de um recurso
      */
@@ -207,7 +230,7 @@ public class DatabaseInitializer {
              Statement stmt = conn.createStatement()) {
             
             // Tenta fazer uma consulta simples na tabela usuarios
-            stmt.executeQuery("SELECT COUNT(*) FROM usuarios LIMIT 1");
+            stmt.executeQuery("SELECT COUNT(*) FROM usuarios");
             return true;
             
         } catch (Exception e) {
@@ -227,11 +250,16 @@ public class DatabaseInitializer {
             
             // Drop das tabelas principais (ordem reversa devido a FKs)
             String[] dropTables = {
+                "DROP TABLE IF EXISTS sync_controle",
+                "DROP TABLE IF EXISTS sync_mapa_id",
+                "DROP TABLE IF EXISTS sync_conflito",
+                "DROP TABLE IF EXISTS sync_exclusao",
                 "DROP TABLE IF EXISTS log_auditoria",
                 "DROP TABLE IF EXISTS notificacoes", 
                 "DROP TABLE IF EXISTS comprovantes",
                 "DROP TABLE IF EXISTS horas_extras",
                 "DROP TABLE IF EXISTS ferias",
+                "DROP TABLE IF EXISTS jornada_diaria",
                 "DROP TABLE IF EXISTS pontos",
                 "DROP TABLE IF EXISTS configuracoes_sistema",
                 "DROP TABLE IF EXISTS usuarios"
@@ -245,6 +273,7 @@ public class DatabaseInitializer {
                 }
             }
             
+            UsuarioCache.invalidateAll();
             logger.info("Tabelas removidas, reinicializando...");
             initializeDatabase();
             
@@ -262,8 +291,9 @@ public class DatabaseInitializer {
             StringBuilder stats = new StringBuilder();
             stats.append("=== ESTATÍSTICAS DO BANCO DE DADOS ===\n");
             stats.append("Tipo: ").append(DatabaseConfig.getCurrentDatabaseType()).append("\n");
+            stats.append("Dialeto SQL: ").append(SqlDialect.of(conn)).append("\n");
             
-            String[] tables = {"usuarios", "pontos", "ferias", "horas_extras", "comprovantes", "notificacoes"};
+            String[] tables = {"usuarios", "pontos", "jornada_diaria", "ferias", "horas_extras", "comprovantes", "notificacoes"};
             
             try (Statement stmt = conn.createStatement()) {
                 for (String table : tables) {
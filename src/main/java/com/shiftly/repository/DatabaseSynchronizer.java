@@ -1,41 +1,150 @@
 package com.shiftly.repository;
 
+import com.shiftly.util.AppExecutors;
+import com.shiftly.util.ConfigUtil;
+import com.shiftly.util.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Responsável pela sincronização de dados entre H2 e SQL Server
+ * Os dois bancos geram ids independentes: cada linha enviada fica associada ao id dela no SQL Server
+ * (sync_mapa_id), e as referências a usuários são traduzidas por esse mapa antes da gravação
  */
 public class DatabaseSynchronizer {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseSynchronizer.class);
-    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private static boolean synchronizationRunning = false;
+    // Verificação periódica no scheduler compartilhado; a sincronização em si roda no executor de IO
+    private static volatile ScheduledFuture<?> verificacao;
+    private static final AtomicBoolean synchronizationRunning = new AtomicBoolean(false);
+    // Escritas passaram para o SQL Server, mas o H2 ainda pode ter linhas confirmadas depois do último passe
+    private static final AtomicBoolean repescagemPendente = new AtomicBoolean(false);
+    private static final int BATCH_SIZE = ConfigUtil.getInt("sync.batch.size", 500);
+    // A marca de alteração é gravada antes do commit: cada execução relê esta janela atrás da marca d'água
+    // para pegar as transações confirmadas depois de uma linha mais recente já enviada
+    private static final long JANELA_RELEITURA_MS = ConfigUtil.getLong("sync.rescan.window.ms", 120000);
+    // Espera pelas escritas em andamento no H2 depois de rotear as novas para o SQL Server
+    private static final long DRENAGEM_H2_TIMEOUT_MS = ConfigUtil.getLong("sync.h2.drain.timeout.ms", 10000);
+    private static final Metrics.Timer syncTimer = Metrics.timer("sync.h2_to_sqlserver");
+    private static final Metrics.Counter linhasSincronizadas = Metrics.counter("sync.h2_to_sqlserver.linhas");
+    private static final Metrics.Counter conflitos = Metrics.counter("sync.h2_to_sqlserver.conflitos");
+    private static final JornadaDiariaRepository jornadaRepository = new JornadaDiariaRepository();
+    
+    // Colunas que referenciam usuarios e recebem o id correspondente no SQL Server
+    private static final Set<String> USER_REFERENCES = Set.of(
+        "usuario_id", "corrigido_por_usuario_id", "aprovado_por_usuario_id", "criado_por_usuario_id", "gerado_por_usuario_id");
+    
+    // Tabelas sincronizadas, na ordem exigida pelas chaves estrangeiras
+    // A chave natural encontra no SQL Server linhas ainda fora do mapa, como os usuários padrão dos dois bancos
+    private static final List<SyncTable> SYNC_TABLES = List.of(
+        new SyncTable("usuarios", "data_atualizacao", List.of("email"), List.of(
+            "nome", "email", "cpf", "senha", "tipo_usuario", "cargo", "departamento", "salario", "data_admissao",
+            "data_criacao", "data_atualizacao", "ativo", "face_encoding", "telefone", "endereco", "cep",
+            "data_nascimento", "rg", "foto_perfil")),
+        new SyncTable("pontos", "data_atualizacao", List.of("usuario_id", "data_hora", "tipo_ponto"), List.of(
+            "usuario_id", "data_hora", "tipo_ponto", "latitude", "longitude", "endereco", "precisao",
+            "face_match", "face_validada", "face_data", "observacoes", "manual", "corrigido_por_usuario_id",
+            "data_correcao", "motivo_correcao", "data_criacao", "data_atualizacao")),
+        new SyncTable("ferias", "data_atualizacao", List.of(), List.of(
+            "usuario_id", "data_inicio", "data_fim", "dias_solicitados", "status", "observacoes", "motivo_recusa",
+            "aprovado_por_usuario_id", "data_aprovacao", "data_solicitacao", "data_criacao", "data_atualizacao", "versao")),
+        new SyncTable("horas_extras", "data_atualizacao", List.of(), List.of(
+            "usuario_id", "data", "horas", "status", "descricao", "justificativa", "motivo_recusa",
+            "aprovado_por_usuario_id", "data_aprovacao", "pago", "data_pagamento", "valor_pago",
+            "data_solicitacao", "data_criacao", "data_atualizacao", "versao")),
+        new SyncTable("comprovantes", "data_atualizacao", List.of(), List.of(
+            "usuario_id", "tipo_comprovante", "referencia", "data_emissao", "periodo_inicio", "periodo_fim",
+            "valor_bruto", "valor_descontos", "valor_liquido", "salario_base", "horas_extras", "adicional_noturno",
+            "outros_proventos", "inss", "irrf", "fgts", "plano_saude", "vale_transporte", "vale_refeicao",
+            "outros_descontos", "arquivo_nome", "arquivo_caminho", "arquivo_tamanho", "caminho_arquivo",
+            "nome_arquivo", "tamanho_arquivo", "data_criacao", "data_atualizacao", "gerado_por_usuario_id",
+            "criado_por_usuario_id"))
+    );
+    
+    private static final SqlRegistry.NamedSql SQL_EXCLUSOES = SqlRegistry.register("sync.exclusoes", dialect -> dialect.limit("""
+        SELECT id, registro_id
+        FROM sync_exclusao
+        WHERE tabela = ?
+        ORDER BY id
+        """, BATCH_SIZE));
+    
+    private static final SqlRegistry.NamedSql SQL_REMOVER_EXCLUSAO = SqlRegistry.register("sync.removerExclusao",
+        "DELETE FROM sync_exclusao WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_DIA_PONTO = SqlRegistry.register("sync.diaPonto",
+        "SELECT usuario_id, data_hora FROM pontos WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_BUSCAR_MAPA = SqlRegistry.register("sync.buscarMapa",
+        "SELECT id_remoto FROM sync_mapa_id WHERE tabela = ? AND id_local = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_GRAVAR_MAPA = SqlRegistry.register("sync.gravarMapa", """
+        MERGE INTO sync_mapa_id (tabela, id_local, id_remoto, marca_alteracao)
+        KEY (tabela, id_local)
+        VALUES (?, ?, ?, ?)
+        """);
+    
+    // Linha relida na janela que já foi enviada (ou recusada) com a mesma marca de alteração
+    private static final SqlRegistry.NamedSql SQL_JA_PROCESSADA = SqlRegistry.register("sync.jaProcessada", """
+        SELECT 1 FROM sync_mapa_id WHERE tabela = ? AND id_local = ? AND marca_alteracao = ?
+        UNION ALL
+        SELECT 1 FROM sync_conflito WHERE tabela = ? AND registro_id = ? AND marca_alteracao = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_REMOVER_MAPA = SqlRegistry.register("sync.removerMapa",
+        "DELETE FROM sync_mapa_id WHERE tabela = ? AND id_local = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EMAIL_USUARIO = SqlRegistry.register("sync.emailUsuario",
+        "SELECT email FROM usuarios WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_REGISTRAR_CONFLITO = SqlRegistry.register("sync.registrarConflito",
+        "INSERT INTO sync_conflito (tabela, registro_id, operacao, erro, marca_alteracao) VALUES (?, ?, ?, ?, ?)");
+    
+    private static final SqlRegistry.NamedSql SQL_REMOVER_CONFLITO = SqlRegistry.register("sync.removerConflito",
+        "DELETE FROM sync_conflito WHERE tabela = ? AND registro_id = ?");
     
     /**
      * Inicia o processo de sincronização automática
      */
     public static void startAutoSync() {
         // Verifica a cada 30 segundos se o SQL Server voltou online
-        scheduler.scheduleAtFixedRate(() -> {
+        verificacao = AppExecutors.scheduler().scheduleAtFixedRate(() -> {
             try {
-                if (DatabaseConfig.isUsingH2() && DatabaseConfig.isSqlServerAvailable()) {
+                if ((DatabaseConfig.isUsingH2() || repescagemPendente.get()) && !isSynchronizationRunning()
+                        && DatabaseConfig.isSqlServerAvailable()) {
                     logger.info("SQL Server detectado online. Iniciando sincronização...");
-                    syncH2ToSqlServer();
+                    agendarSincronizacao();
                 }
             } catch (Exception e) {
                 logger.error("Erro na verificação de sincronização automática: {}", e.getMessage());
             }
         }, 30, 30, TimeUnit.SECONDS);
         
+        // Sincroniza assim que o monitor de saúde detectar o retorno do SQL Server
+        DatabaseHealthMonitor.addListener(event -> {
+            if (event.getType() == DatabaseHealthMonitor.EventType.STATE_CHANGED
+                    && event.getCurrentState() != DatabaseHealthMonitor.HealthState.DOWN
+                    && DatabaseConfig.isUsingH2() && DatabaseConfig.isSqlServerAvailable()) {
+                logger.info("SQL Server voltou a responder. Agendando sincronização...");
+                agendarSincronizacao();
+            }
+        });
+        
         logger.info("Sincronização automática iniciada (verificação a cada 30 segundos)");
     }
     
@@ -43,35 +152,55 @@ public class DatabaseSynchronizer {
      * Para o processo de sincronização automática
      */
     public static void stopAutoSync() {
-        scheduler.shutdown();
+        ScheduledFuture<?> atual = verificacao;
+        if (atual != null) {
+            atual.cancel(false);
+        }
         logger.info("Sincronização automática interrompida");
     }
     
     /**
-     * Sincroniza dados do H2 para o SQL Server de forma assíncrona
+     * Executa a sincronização no executor de IO, fora da thread do scheduler compartilhado
+     */
+    private static void agendarSincronizacao() {
+        try {
+            AppExecutors.io().execute(DatabaseSynchronizer::syncH2ToSqlServer);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Executor de IO saturado; sincronização fica para a próxima verificação");
+        }
+    }
+    
+    /**
+     * Sincroniza dados do H2 para o SQL Server de forma assíncrona, no executor de IO
      */
     public static CompletableFuture<Boolean> syncH2ToSqlServerAsync() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return syncH2ToSqlServer();
-            } catch (Exception e) {
-                logger.error("Erro na sincronização assíncrona: {}", e.getMessage());
-                return false;
-            }
-        });
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return syncH2ToSqlServer();
+                } catch (Exception e) {
+                    logger.error("Erro na sincronização assíncrona: {}", e.getMessage());
+                    return false;
+                }
+            }, AppExecutors.io());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Executor de IO saturado; sincronização assíncrona não iniciada");
+            return CompletableFuture.completedFuture(false);
+        }
     }
     
     /**
      * Sincroniza dados do H2 para o SQL Server
      */
     public static boolean syncH2ToSqlServer() {
-        if (synchronizationRunning) {
+        if (!synchronizationRunning.compareAndSet(false, true)) {
             logger.warn("Sincronização já está em execução");
             return false;
         }
         
-        synchronizationRunning = true;
         logger.info("=== Iniciando sincronização H2 → SQL Server ===");
+        long inicio = System.nanoTime();
+        boolean concluida = false;
         
         try {
             // Verifica se SQL Server está disponível
@@ -80,283 +209,802 @@ public class DatabaseSynchronizer {
                 return false;
             }
             
-            // Sincroniza cada tabela
-            boolean success = true;
-            success &= syncTable("usuarios");
-            success &= syncTable("pontos");
-            success &= syncTable("ferias");
-            success &= syncTable("horas_extras");
-            success &= syncTable("comprovantes");
-            
-            if (success) {
-                // Troca para SQL Server como banco principal
+            try (Connection h2Conn = DatabaseConfig.getH2Connection();
+                 Connection sqlConn = DatabaseConfig.getSqlServerConnection()) {
+                // Passe principal, com a aplicação ainda gravando no H2
+                sync(h2Conn, sqlConn);
+                
+                // Novas escritas vão para o SQL Server; a repescagem envia o que o H2 confirmou durante o passe
+                // Se ela falhar (ou o H2 não drenar), o agendador repete a sincronização enquanto estiver pendente
+                repescagemPendente.set(true);
                 DatabaseConfig.setCurrentDatabaseType(DatabaseConfig.DatabaseType.SQL_SERVER);
-                logger.info("✓ Sincronização concluída com sucesso. Mudando para SQL Server.");
-            } else {
-                logger.error("✗ Sincronização concluída com erros");
+                logger.info("Escritas roteadas para o SQL Server. Executando repescagem do H2...");
+                boolean drenado = aguardarEscritasNoH2();
+                sync(h2Conn, sqlConn);
+                repescagemPendente.set(!drenado);
+            }
+            
+            long pendentes = countConflicts();
+            if (pendentes > 0) {
+                logger.warn("{} registros do H2 ficaram em sync_conflito e não foram enviados ao SQL Server", pendentes);
             }
             
-            return success;
+            logger.info("✓ Sincronização concluída com sucesso. SQL Server é o banco principal.");
+            
+            concluida = true;
+            return true;
             
         } catch (Exception e) {
-            logger.error("Erro geral na sincronização: {}", e.getMessage(), e);
+            logger.error("✗ Sincronização interrompida: {}", e.getMessage(), e);
             return false;
         } finally {
-            synchronizationRunning = false;
+            syncTimer.registrar(System.nanoTime() - inicio, concluida);
+            synchronizationRunning.set(false);
             logger.info("=== Fim da sincronização ===");
         }
     }
     
     /**
-     * Sincroniza uma tabela específica do H2 para o SQL Server
+     * Aguarda a devolução das conexões do H2 emprestadas antes da troca de roteamento
+     * A conexão da própria sincronização continua emprestada; retorna false se o tempo limite passar
      */
-    private static boolean syncTable(String tableName) {
-        logger.info("Sincronizando tabela: {}", tableName);
+    private static boolean aguardarEscritasNoH2() {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRENAGEM_H2_TIMEOUT_MS);
+        ConnectionPool.PoolStats stats;
+        while ((stats = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2)) != null && stats.getActive() > 1) {
+            if (System.nanoTime() > limite) {
+                logger.warn("{} conexões do H2 ainda em uso após {} ms; nova repescagem agendada",
+                            stats.getActive() - 1, DRENAGEM_H2_TIMEOUT_MS);
+                return false;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Envia ao SQL Server as alterações e exclusões feitas no H2, tabela por tabela
+     * Linhas recusadas pelo SQL Server por violação de restrição vão para sync_conflito sem bloquear as demais;
+     * qualquer outro erro interrompe a sincronização, retomada depois a partir da última marca d'água gravada
+     */
+    static int sync(Connection h2Conn, Connection sqlConn) throws SQLException {
+        ensureControlTables(h2Conn);
+        IdMap ids = new IdMap(h2Conn, sqlConn);
         
-        try (Connection h2Conn = DatabaseConfig.getH2Connection();
-             Connection sqlConn = DatabaseConfig.getSqlServerConnection()) {
+        int total = 0;
+        for (SyncTable table : SYNC_TABLES) {
+            logger.info("Sincronizando tabela: {}", table.name);
+            
+            int alteradas = syncChangedRows(h2Conn, sqlConn, table, ids);
+            int removidas = syncDeletedRows(h2Conn, sqlConn, table, ids);
+            linhasSincronizadas.incrementar(alteradas + removidas);
+            total += alteradas + removidas;
             
-            // Conta registros no H2
-            int h2Count = getRecordCount(h2Conn, tableName);
-            if (h2Count == 0) {
-                logger.info("Tabela {} está vazia no H2, pulando sincronização", tableName);
-                return true;
+            if (alteradas + removidas == 0) {
+                logger.info("SQL Server já possui dados atualizados para tabela {}", table.name);
+            } else {
+                logger.info("✓ {} registros alterados e {} removidos sincronizados na tabela {}",
+                            alteradas, removidas, table.name);
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Lê as linhas alteradas desde a marca d'água em lotes de BATCH_SIZE e grava cada lote no SQL Server
+     * A leitura começa JANELA_RELEITURA_MS antes da marca d'água; linhas da janela já enviadas ou recusadas
+     * com a mesma marca de alteração são puladas
+     * A marca d'água avança na mesma transação do H2 que grava o mapa de ids do lote
+     */
+    private static int syncChangedRows(Connection h2Conn, Connection sqlConn, SyncTable table, IdMap ids) throws SQLException {
+        Watermark salva = loadWatermark(h2Conn, table.name);
+        Watermark watermark = new Watermark(
+            new Timestamp(salva.changedAt.getTime() - JANELA_RELEITURA_MS), 0L);
+        int total = 0;
+        
+        while (true) {
+            List<ChangedRow> rows = readChangedRows(h2Conn, table, watermark);
+            if (rows.isEmpty()) {
+                break;
             }
             
-            // Conta registros no SQL Server
-            int sqlCount = getRecordCount(sqlConn, tableName);
+            ChangedRow ultima = rows.get(rows.size() - 1);
+            Watermark proxima = new Watermark(ultima.changedAt, ultima.localId);
+            Watermark anterior = salva;
+            Watermark gravada = proxima.isAfter(anterior) ? proxima : anterior;
+            int[] enviadas = {0};
+            
+            executeInTransaction(h2Conn, sqlConn, () -> {
+                // Dias de ponto alterados, para recalcular a jornada diária no SQL Server no mesmo lote
+                Map<Long, Set<LocalDate>> diasAfetados = new HashMap<>();
+                for (ChangedRow row : rows) {
+                    if (!row.isAfter(anterior) && ids.jaProcessada(table.name, row.localId, row.changedAt)) {
+                        continue;
+                    }
+                    upsertRow(h2Conn, sqlConn, table, row, ids, diasAfetados);
+                    enviadas[0]++;
+                }
+                if (!diasAfetados.isEmpty()) {
+                    jornadaRepository.recalcular(sqlConn, diasAfetados);
+                }
+                saveWatermark(h2Conn, table.name, gravada.changedAt, gravada.lastId);
+            });
+            
+            logger.debug("Lote de {} confirmado até id {} ({})", table.name, proxima.lastId, proxima.changedAt);
+            total += enviadas[0];
+            watermark = proxima;
+            salva = gravada;
+            
+            if (rows.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Lê do H2 o próximo lote de linhas alteradas depois da marca d'água
+     * CLOBs são lidos como texto: o lote é gravado no SQL Server depois de o ResultSet ser fechado
+     */
+    private static List<ChangedRow> readChangedRows(Connection h2Conn, SyncTable table, Watermark watermark) throws SQLException {
+        List<ChangedRow> rows = new ArrayList<>();
+        
+        try (PreparedStatement stmt = h2Conn.prepareStatement(table.selectChanged.getSql(h2Conn))) {
+            stmt.setTimestamp(1, watermark.changedAt);
+            stmt.setTimestamp(2, watermark.changedAt);
+            stmt.setLong(3, watermark.lastId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                while (rs.next()) {
+                    Object[] values = new Object[table.columns.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        int coluna = i + 2;
+                        int tipo = metaData.getColumnType(coluna);
+                        values[i] = tipo == Types.CLOB || tipo == Types.NCLOB ? rs.getString(coluna) : rs.getObject(coluna);
+                    }
+                    rows.add(new ChangedRow(rs.getLong("id"), values, rs.getTimestamp("marca_alteracao")));
+                }
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Grava uma linha no SQL Server: atualiza a correspondente (pelo mapa de ids ou pela chave natural)
+     * ou insere uma nova e guarda o id gerado
+     * A atualização só é aplicada se a linha do SQL Server não tiver sido alterada depois da do H2
+     */
+    private static void upsertRow(Connection h2Conn, Connection sqlConn, SyncTable table, ChangedRow row,
+                                  IdMap ids, Map<Long, Set<LocalDate>> diasAfetados) throws SQLException {
+        Savepoint savepoint = sqlConn.setSavepoint();
+        try {
+            Object[] values = ids.translateReferences(table, row.values);
             
-            logger.info("Tabela {}: H2={} registros, SQL Server={} registros", tableName, h2Count, sqlCount);
+            Long remoteId = ids.find(table.name, row.localId);
+            if (remoteId == null) {
+                remoteId = findByNaturalKey(sqlConn, table, values);
+            }
             
-            // Se SQL Server tem mais ou igual registros, não sincroniza
-            if (sqlCount >= h2Count) {
-                logger.info("SQL Server já possui dados atualizados para tabela {}", tableName);
-                return true;
+            if (remoteId == null) {
+                remoteId = insert(sqlConn, table, values);
+            } else {
+                if (table.isPontos()) {
+                    registrarDiaRemoto(sqlConn, remoteId, diasAfetados);
+                }
+                if (!update(sqlConn, table, values, remoteId, row.changedAt) && !exists(sqlConn, table, remoteId)) {
+                    throw new SQLIntegrityConstraintViolationException(
+                        "Registro " + remoteId + " foi removido do SQL Server", "23000");
+                }
             }
             
-            // Executa a sincronização baseada na tabela
-            switch (tableName.toLowerCase()) {
-                case "usuarios":
-                    return syncUsuarios(h2Conn, sqlConn);
-                case "pontos":
-                    return syncPontos(h2Conn, sqlConn);
-                case "ferias":
-                    return syncFerias(h2Conn, sqlConn);
-                case "horas_extras":
-                    return syncHorasExtras(h2Conn, sqlConn);
-                case "comprovantes":
-                    return syncComprovantes(h2Conn, sqlConn);
-                default:
-                    logger.warn("Tabela {} não reconhecida para sincronização", tableName);
-                    return false;
+            ids.save(table.name, row.localId, remoteId, row.changedAt);
+            if (table.isPontos()) {
+                registrarDia(diasAfetados, (Long) values[table.columns.indexOf("usuario_id")],
+                             (Timestamp) values[table.columns.indexOf("data_hora")]);
             }
+            clearConflict(h2Conn, table.name, row.localId);
             
         } catch (SQLException e) {
-            logger.error("Erro ao sincronizar tabela {}: {}", tableName, e.getMessage());
-            return false;
+            if (!isConflict(e)) {
+                throw e;
+            }
+            sqlConn.rollback(savepoint);
+            recordConflict(h2Conn, table.name, row.localId, "UPSERT", row.changedAt, e);
         }
     }
     
     /**
-     * Conta registros em uma tabela
+     * Repassa ao SQL Server as exclusões anotadas em sync_exclusao (ver BaseRepository.registrarExclusao)
+     * Linhas que nunca chegaram ao SQL Server não têm id no mapa e só têm a anotação descartada
      */
-    private static int getRecordCount(Connection conn, String tableName) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM " + tableName;
-        try (PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            return rs.next() ? rs.getInt(1) : 0;
+    private static int syncDeletedRows(Connection h2Conn, Connection sqlConn, SyncTable table, IdMap ids) throws SQLException {
+        int total = 0;
+        
+        while (true) {
+            Map<Long, Long> exclusoes = new LinkedHashMap<>();
+            try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_EXCLUSOES.getSql(h2Conn))) {
+                stmt.setString(1, table.name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        exclusoes.put(rs.getLong("id"), rs.getLong("registro_id"));
+                    }
+                }
+            }
+            if (exclusoes.isEmpty()) {
+                break;
+            }
+            
+            executeInTransaction(h2Conn, sqlConn, () -> {
+                Map<Long, Set<LocalDate>> diasAfetados = new HashMap<>();
+                for (Map.Entry<Long, Long> exclusao : exclusoes.entrySet()) {
+                    deleteRow(h2Conn, sqlConn, table, exclusao.getValue(), ids, diasAfetados);
+                    
+                    try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_REMOVER_EXCLUSAO.getSql(h2Conn))) {
+                        stmt.setLong(1, exclusao.getKey());
+                        stmt.executeUpdate();
+                    }
+                }
+                if (!diasAfetados.isEmpty()) {
+                    jornadaRepository.recalcular(sqlConn, diasAfetados);
+                }
+            });
+            
+            total += exclusoes.size();
+            if (exclusoes.size() < BATCH_SIZE) {
+                break;
+            }
         }
+        return total;
     }
     
     /**
-     * Sincroniza tabela de usuários
+     * Remove do SQL Server a linha correspondente a uma linha removida no H2
      */
-    private static boolean syncUsuarios(Connection h2Conn, Connection sqlConn) throws SQLException {
-        String selectSql = """
-            SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                   salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-            FROM usuarios
-            """;
+    private static void deleteRow(Connection h2Conn, Connection sqlConn, SyncTable table, long localId,
+                                  IdMap ids, Map<Long, Set<LocalDate>> diasAfetados) throws SQLException {
+        Long remoteId = ids.find(table.name, localId);
+        if (remoteId == null) {
+            return;
+        }
         
-        String insertSql = """
-            INSERT INTO usuarios (nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                                salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
+        Savepoint savepoint = sqlConn.setSavepoint();
+        try {
+            if (table.isPontos()) {
+                registrarDiaRemoto(sqlConn, remoteId, diasAfetados);
+            }
+            try (PreparedStatement stmt = sqlConn.prepareStatement(table.delete.getSql(sqlConn))) {
+                stmt.setLong(1, remoteId);
+                stmt.executeUpdate();
+            }
+            ids.remove(table.name, localId);
+            clearConflict(h2Conn, table.name, localId);
+            
+        } catch (SQLException e) {
+            if (!isConflict(e)) {
+                throw e;
+            }
+            sqlConn.rollback(savepoint);
+            recordConflict(h2Conn, table.name, localId, "DELETE", null, e);
+        }
+    }
+    
+    /**
+     * Procura no SQL Server uma linha sem correspondência no mapa pela chave natural da tabela
+     */
+    private static Long findByNaturalKey(Connection sqlConn, SyncTable table, Object[] values) throws SQLException {
+        if (table.selectByNaturalKey == null) {
+            return null;
+        }
         
-        return syncTableData(h2Conn, sqlConn, selectSql, insertSql, "usuarios");
+        try (PreparedStatement stmt = sqlConn.prepareStatement(table.selectByNaturalKey.getSql(sqlConn))) {
+            int index = 1;
+            for (String column : table.naturalKey) {
+                stmt.setObject(index++, values[table.columns.indexOf(column)]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong("id") : null;
+            }
+        }
     }
     
     /**
-     * Sincroniza tabela de pontos
+     * Insere a linha no SQL Server, que gera o id
      */
-    private static boolean syncPontos(Connection h2Conn, Connection sqlConn) throws SQLException {
-        String selectSql = """
-            SELECT usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                   data_correcao, motivo_correcao, data_criacao
-            FROM pontos
-            """;
+    private static long insert(Connection sqlConn, SyncTable table, Object[] values) throws SQLException {
+        try (PreparedStatement stmt = sqlConn.prepareStatement(table.insert.getSql(sqlConn), Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < values.length; i++) {
+                stmt.setObject(i + 1, values[i]);
+            }
+            stmt.executeUpdate();
+            
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("SQL Server não devolveu o id gerado em " + table.name);
+                }
+                return keys.getLong(1);
+            }
+        }
+    }
+    
+    /**
+     * Atualiza a linha do SQL Server, incrementando a versão nas tabelas com controle otimista
+     * Retorna false se a linha não existe ou foi alterada no SQL Server depois da alteração no H2
+     */
+    private static boolean update(Connection sqlConn, SyncTable table, Object[] values, long remoteId,
+                                  Timestamp changedAt) throws SQLException {
+        try (PreparedStatement stmt = sqlConn.prepareStatement(table.update.getSql(sqlConn))) {
+            int index = 1;
+            for (int i = 0; i < values.length; i++) {
+                if (!table.columns.get(i).equals("versao")) {
+                    stmt.setObject(index++, values[i]);
+                }
+            }
+            stmt.setLong(index++, remoteId);
+            stmt.setTimestamp(index, changedAt);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    private static boolean exists(Connection sqlConn, SyncTable table, long remoteId) throws SQLException {
+        try (PreparedStatement stmt = sqlConn.prepareStatement(table.exists.getSql(sqlConn))) {
+            stmt.setLong(1, remoteId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Registra o dia em que o ponto está gravado hoje no SQL Server (antes de alterá-lo ou removê-lo)
+     */
+    private static void registrarDiaRemoto(Connection sqlConn, long remoteId, Map<Long, Set<LocalDate>> diasAfetados) throws SQLException {
+        try (PreparedStatement stmt = sqlConn.prepareStatement(SQL_DIA_PONTO.getSql(sqlConn))) {
+            stmt.setLong(1, remoteId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    registrarDia(diasAfetados, rs.getLong("usuario_id"), rs.getTimestamp("data_hora"));
+                }
+            }
+        }
+    }
+    
+    private static void registrarDia(Map<Long, Set<LocalDate>> diasAfetados, Long usuarioId, Timestamp dataHora) {
+        diasAfetados.computeIfAbsent(usuarioId, id -> new TreeSet<>()).add(dataHora.toLocalDateTime().toLocalDate());
+    }
+    
+    /**
+     * Violação de restrição ou dado inválido (SQLState 22xxx/23xxx): a linha falharia de novo em toda execução
+     * Falhas de conexão e de transação não entram aqui e interrompem a sincronização
+     */
+    private static boolean isConflict(SQLException e) {
+        String sqlState = e.getSQLState();
+        return sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23"));
+    }
+    
+    /**
+     * Anota em sync_conflito uma linha que o SQL Server recusou, para a marca d'água seguir adiante
+     * A linha é tentada de novo quando for alterada no H2 ou após resetWatermarks()
+     */
+    private static void recordConflict(Connection h2Conn, String tableName, long localId, String operacao,
+                                       Timestamp changedAt, SQLException e) throws SQLException {
+        logger.warn("Registro {} da tabela {} não sincronizado ({}): {}", localId, tableName, operacao, e.getMessage());
+        conflitos.incrementar();
         
-        String insertSql = """
-            INSERT INTO pontos (usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                              face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                              data_correcao, motivo_correcao, data_criacao)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        clearConflict(h2Conn, tableName, localId);
+        try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_REGISTRAR_CONFLITO.getSql(h2Conn))) {
+            String erro = String.valueOf(e.getMessage());
+            stmt.setString(1, tableName);
+            stmt.setLong(2, localId);
+            stmt.setString(3, operacao);
+            stmt.setString(4, erro.length() > 1000 ? erro.substring(0, 1000) : erro);
+            stmt.setTimestamp(5, changedAt);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static void clearConflict(Connection h2Conn, String tableName, long localId) throws SQLException {
+        try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_REMOVER_CONFLITO.getSql(h2Conn))) {
+            stmt.setString(1, tableName);
+            stmt.setLong(2, localId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Executa um lote em transação nos dois bancos
+     * O SQL Server confirma primeiro; se o commit do H2 falhar em seguida, o lote é reenviado e as linhas
+     * com chave natural são reencontradas em vez de duplicadas
+     */
+    private static void executeInTransaction(Connection h2Conn, Connection sqlConn, SyncWork work) throws SQLException {
+        h2Conn.setAutoCommit(false);
+        sqlConn.setAutoCommit(false);
+        try {
+            work.execute();
+            sqlConn.commit();
+            h2Conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            sqlConn.rollback();
+            h2Conn.rollback();
+            throw e;
+        } finally {
+            sqlConn.setAutoCommit(true);
+            h2Conn.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * Cria as tabelas de controle da sincronização no H2, se necessário
+     * sync_exclusao é criada pelo script do H2, pois os repositórios gravam nela fora da sincronização
+     */
+    private static void ensureControlTables(Connection h2Conn) throws SQLException {
+        String controle = """
+            CREATE TABLE IF NOT EXISTS sync_controle (
+                tabela VARCHAR(50) PRIMARY KEY,
+                ultima_alteracao TIMESTAMP NOT NULL,
+                ultimo_id BIGINT NOT NULL,
+                data_sincronizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+        String mapa = """
+            CREATE TABLE IF NOT EXISTS sync_mapa_id (
+                tabela VARCHAR(50) NOT NULL,
+                id_local BIGINT NOT NULL,
+                id_remoto BIGINT NOT NULL,
+                marca_alteracao TIMESTAMP,
+                PRIMARY KEY (tabela, id_local)
+            )
+            """;
+        String conflito = """
+            CREATE TABLE IF NOT EXISTS sync_conflito (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                tabela VARCHAR(50) NOT NULL,
+                registro_id BIGINT NOT NULL,
+                operacao VARCHAR(10) NOT NULL,
+                erro VARCHAR(1000),
+                marca_alteracao TIMESTAMP,
+                data_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
             """;
         
-        return syncTableData(h2Conn, sqlConn, selectSql, insertSql, "pontos");
+        try (Statement stmt = h2Conn.createStatement()) {
+            stmt.execute(controle);
+            stmt.execute(mapa);
+            stmt.execute(conflito);
+            // Tabelas criadas antes da releitura da janela
+            stmt.execute("ALTER TABLE sync_mapa_id ADD COLUMN IF NOT EXISTS marca_alteracao TIMESTAMP");
+            stmt.execute("ALTER TABLE sync_conflito ADD COLUMN IF NOT EXISTS marca_alteracao TIMESTAMP");
+        }
     }
     
     /**
-     * Sincroniza tabela de férias
+     * Carrega a marca d'água de uma tabela
      */
-    private static boolean syncFerias(Connection h2Conn, Connection sqlConn) throws SQLException {
-        String selectSql = """
-            SELECT usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                   aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-            FROM ferias
-            """;
+    private static Watermark loadWatermark(Connection h2Conn, String tableName) throws SQLException {
+        String sql = "SELECT ultima_alteracao, ultimo_id FROM sync_controle WHERE tabela = ?";
         
-        String insertSql = """
-            INSERT INTO ferias (usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                              aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        try (PreparedStatement stmt = h2Conn.prepareStatement(sql)) {
+            stmt.setString(1, tableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Watermark(rs.getTimestamp("ultima_alteracao"), rs.getLong("ultimo_id"));
+                }
+            }
+        }
+        return new Watermark(Timestamp.valueOf("1900-01-01 00:00:00"), 0L);
+    }
+    
+    /**
+     * Grava a marca d'água de uma tabela
+     */
+    private static void saveWatermark(Connection h2Conn, String tableName, Timestamp changedAt, long lastId) throws SQLException {
+        String sql = """
+            MERGE INTO sync_controle (tabela, ultima_alteracao, ultimo_id, data_sincronizacao)
+            KEY (tabela)
+            VALUES (?, ?, ?, CURRENT_TIMESTAMP)
             """;
         
-        return syncTableData(h2Conn, sqlConn, selectSql, insertSql, "ferias");
+        try (PreparedStatement stmt = h2Conn.prepareStatement(sql)) {
+            stmt.setString(1, tableName);
+            stmt.setTimestamp(2, changedAt);
+            stmt.setLong(3, lastId);
+            stmt.executeUpdate();
+        }
     }
     
     /**
-     * Sincroniza tabela de horas extras
+     * Conta as linhas do H2 que o SQL Server recusou e continuam fora da sincronização
      */
-    private static boolean syncHorasExtras(Connection h2Conn, Connection sqlConn) throws SQLException {
-        String selectSql = """
-            SELECT usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                   aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                   data_solicitacao, data_atualizacao
-            FROM horas_extras
-            """;
+    public static long countConflicts() {
+        try (Connection h2Conn = DatabaseConfig.getH2Connection();
+             Statement stmt = h2Conn.createStatement()) {
+            ensureControlTables(h2Conn);
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sync_conflito")) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            logger.error("Erro ao contar conflitos de sincronização: {}", e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Reinicia a marca d'água de todas as tabelas, forçando reenvio completo
+     */
+    public static void resetWatermarks() {
+        try (Connection h2Conn = DatabaseConfig.getH2Connection();
+             Statement stmt = h2Conn.createStatement()) {
+            ensureControlTables(h2Conn);
+            stmt.executeUpdate("DELETE FROM sync_controle");
+            logger.info("Marcas d'água de sincronização reiniciadas");
+        } catch (SQLException e) {
+            logger.error("Erro ao reiniciar marcas d'água: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Força uma sincronização manual completa
+     */
+    public static void forceSyncNow() {
+        logger.info("Forçando sincronização manual...");
+        syncH2ToSqlServerAsync().thenAccept(success -> {
+            if (success) {
+                logger.info("Sincronização manual concluída com sucesso");
+            } else {
+                logger.error("Sincronização manual falhou");
+            }
+        });
+    }
+    
+    /**
+     * Verifica se a sincronização está em execução
+     */
+    public static boolean isSynchronizationRunning() {
+        return synchronizationRunning.get();
+    }
+    
+    /**
+     * Marca d'água de uma tabela: última alteração e último id enviados
+     */
+    private static class Watermark {
+        private final Timestamp changedAt;
+        private final long lastId;
         
-        String insertSql = """
-            INSERT INTO horas_extras (usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                                    aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                                    data_solicitacao, data_atualizacao)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
+        Watermark(Timestamp changedAt, long lastId) {
+            this.changedAt = changedAt;
+            this.lastId = lastId;
+        }
         
-        return syncTableData(h2Conn, sqlConn, selectSql, insertSql, "horas_extras");
+        boolean isAfter(Watermark outra) {
+            int comparacao = changedAt.compareTo(outra.changedAt);
+            return comparacao > 0 || (comparacao == 0 && lastId > outra.lastId);
+        }
     }
     
+    
     /**
-     * Sincroniza tabela de comprovantes
+     * Linha alterada no H2: id local, valores das colunas sincronizadas e marca de alteração
      */
-    private static boolean syncComprovantes(Connection h2Conn, Connection sqlConn) throws SQLException {
-        String selectSql = """
-            SELECT usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                   valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                   outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                   caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id
-            FROM comprovantes
-            """;
+    private static class ChangedRow {
+        private final long localId;
+        private final Object[] values;
+        private final Timestamp changedAt;
         
-        String insertSql = """
-            INSERT INTO comprovantes (usuario_id, tipo_comprovante, referencia, data_emissao, periodo_inicio, periodo_fim,
-                                    valor_bruto, valor_descontos, valor_liquido, salario_base, horas_extras, adicional_noturno,
-                                    outros_proventos, inss, irrf, vale_transporte, vale_refeicao, outros_descontos,
-                                    caminho_arquivo, nome_arquivo, tamanho_arquivo, data_criacao, data_atualizacao, criado_por_usuario_id)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
+        ChangedRow(long localId, Object[] values, Timestamp changedAt) {
+            this.localId = localId;
+            this.values = values;
+            this.changedAt = changedAt;
+        }
         
-        return syncTableData(h2Conn, sqlConn, selectSql, insertSql, "comprovantes");
+        /**
+         * Indica se a linha está depois da marca d'água (fora da janela de releitura)
+         */
+        boolean isAfter(Watermark watermark) {
+            return new Watermark(changedAt, localId).isAfter(watermark);
+        }
     }
     
     /**
-     * Executa a sincronização de dados entre as duas conexões
+     * Correspondência entre ids do H2 e do SQL Server, gravada em sync_mapa_id na transação do lote
+     * Os ids de usuários ficam também em memória durante a sincronização, pois toda linha os referencia
      */
-    private static boolean syncTableData(Connection sourceConn, Connection targetConn, 
-                                       String selectSql, String insertSql, String tableName) throws SQLException {
+    private static class IdMap {
+        private final Connection h2Conn;
+        private final Connection sqlConn;
+        private final Map<Long, Long> usuarios = new HashMap<>();
         
-        List<Object[]> records = new ArrayList<>();
+        IdMap(Connection h2Conn, Connection sqlConn) {
+            this.h2Conn = h2Conn;
+            this.sqlConn = sqlConn;
+        }
         
-        // Lê dados do H2
-        try (PreparedStatement selectStmt = sourceConn.prepareStatement(selectSql);
-             ResultSet rs = selectStmt.executeQuery()) {
-            
-            ResultSetMetaData metadata = rs.getMetaData();
-            int columnCount = metadata.getColumnCount();
+        Long find(String tableName, long localId) throws SQLException {
+            boolean isUsuarios = tableName.equals("usuarios");
+            if (isUsuarios && usuarios.containsKey(localId)) {
+                return usuarios.get(localId);
+            }
             
-            while (rs.next()) {
-                Object[] record = new Object[columnCount];
-                for (int i = 1; i <= columnCount; i++) {
-                    record[i - 1] = rs.getObject(i);
+            try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_BUSCAR_MAPA.getSql(h2Conn))) {
+                stmt.setString(1, tableName);
+                stmt.setLong(2, localId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    long remoteId = rs.getLong("id_remoto");
+                    if (isUsuarios) {
+                        usuarios.put(localId, remoteId);
+                    }
+                    return remoteId;
                 }
-                records.add(record);
             }
         }
         
-        if (records.isEmpty()) {
-            logger.info("Nenhum registro encontrado em {} no H2", tableName);
-            return true;
+        /**
+         * Grava a correspondência e a marca de alteração enviada (null quando só foi encontrada, não enviada)
+         */
+        void save(String tableName, long localId, long remoteId, Timestamp changedAt) throws SQLException {
+            try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_GRAVAR_MAPA.getSql(h2Conn))) {
+                stmt.setString(1, tableName);
+                stmt.setLong(2, localId);
+                stmt.setLong(3, remoteId);
+                stmt.setTimestamp(4, changedAt);
+                stmt.executeUpdate();
+            }
+            if (tableName.equals("usuarios")) {
+                usuarios.put(localId, remoteId);
+            }
         }
         
-        // Limpa tabela no SQL Server antes de inserir
-        try (PreparedStatement deleteStmt = targetConn.prepareStatement("DELETE FROM " + tableName)) {
-            deleteStmt.executeUpdate();
-            logger.info("Tabela {} limpa no SQL Server", tableName);
+        /**
+         * Indica se a linha já foi enviada ou recusada com a marca de alteração informada
+         */
+        boolean jaProcessada(String tableName, long localId, Timestamp changedAt) throws SQLException {
+            try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_JA_PROCESSADA.getSql(h2Conn))) {
+                stmt.setString(1, tableName);
+                stmt.setLong(2, localId);
+                stmt.setTimestamp(3, changedAt);
+                stmt.setString(4, tableName);
+                stmt.setLong(5, localId);
+                stmt.setTimestamp(6, changedAt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
         }
         
-        // Insere dados no SQL Server
-        targetConn.setAutoCommit(false);
-        try (PreparedStatement insertStmt = targetConn.prepareStatement(insertSql)) {
-            
-            int batchSize = 0;
-            for (Object[] record : records) {
-                for (int i = 0; i < record.length; i++) {
-                    insertStmt.setObject(i + 1, record[i]);
+        void remove(String tableName, long localId) throws SQLException {
+            try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_REMOVER_MAPA.getSql(h2Conn))) {
+                stmt.setString(1, tableName);
+                stmt.setLong(2, localId);
+                stmt.executeUpdate();
+            }
+            if (tableName.equals("usuarios")) {
+                usuarios.remove(localId);
+            }
+        }
+        
+        /**
+         * Copia os valores trocando os ids de usuário do H2 pelos do SQL Server
+         * Usuário sem correspondência é conflito: a linha não pode ser gravada sem apontar para outra pessoa
+         */
+        Object[] translateReferences(SyncTable table, Object[] values) throws SQLException {
+            Object[] traduzidos = values.clone();
+            for (int i = 0; i < traduzidos.length; i++) {
+                if (traduzidos[i] == null || !USER_REFERENCES.contains(table.columns.get(i))) {
+                    continue;
                 }
-                insertStmt.addBatch();
                 
-                if (++batchSize % 100 == 0) {
-                    insertStmt.executeBatch();
-                    targetConn.commit();
+                long localId = ((Number) traduzidos[i]).longValue();
+                Long remoteId = findUsuario(localId);
+                if (remoteId == null) {
+                    throw new SQLIntegrityConstraintViolationException(
+                        "Usuário " + localId + " do H2 não tem correspondente no SQL Server", "23000");
                 }
+                traduzidos[i] = remoteId;
+            }
+            return traduzidos;
+        }
+        
+        /**
+         * Usuário fora do mapa (ex.: marca d'água de usuarios anterior ao mapa) é procurado pelo e-mail
+         */
+        private Long findUsuario(long localId) throws SQLException {
+            Long remoteId = find("usuarios", localId);
+            if (remoteId != null) {
+                return remoteId;
             }
             
-            // Executa o restante
-            insertStmt.executeBatch();
-            targetConn.commit();
-            
-            logger.info("✓ {} registros sincronizados na tabela {}", records.size(), tableName);
-            return true;
+            String email;
+            try (PreparedStatement stmt = h2Conn.prepareStatement(SQL_EMAIL_USUARIO.getSql(h2Conn))) {
+                stmt.setLong(1, localId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    email = rs.getString("email");
+                }
+            }
             
-        } catch (SQLException e) {
-            targetConn.rollback();
-            logger.error("Erro ao inserir dados na tabela {}: {}", tableName, e.getMessage());
-            throw e;
-        } finally {
-            targetConn.setAutoCommit(true);
+            remoteId = findByNaturalKey(sqlConn, SYNC_TABLES.get(0), usuarioComEmail(email));
+            if (remoteId != null) {
+                save("usuarios", localId, remoteId, null);
+            }
+            return remoteId;
+        }
+        
+        private static Object[] usuarioComEmail(String email) {
+            Object[] values = new Object[SYNC_TABLES.get(0).columns.size()];
+            values[SYNC_TABLES.get(0).columns.indexOf("email")] = email;
+            return values;
         }
     }
     
     /**
-     * Força uma sincronização manual completa
+     * Descrição de uma tabela sincronizada e dos comandos usados para gravá-la no SQL Server
      */
-    public static void forceSyncNow() {
-        logger.info("Forçando sincronização manual...");
-        syncH2ToSqlServerAsync().thenAccept(success -> {
-            if (success) {
-                logger.info("Sincronização manual concluída com sucesso");
-            } else {
-                logger.error("Sincronização manual falhou");
-            }
-        });
+    private static class SyncTable {
+        private final String name;
+        private final String changeColumn;
+        private final List<String> naturalKey;
+        private final List<String> columns;
+        private final SqlRegistry.NamedSql selectChanged;
+        private final SqlRegistry.NamedSql selectByNaturalKey;
+        private final SqlRegistry.NamedSql insert;
+        private final SqlRegistry.NamedSql update;
+        private final SqlRegistry.NamedSql exists;
+        private final SqlRegistry.NamedSql delete;
+        
+        SyncTable(String name, String changeColumn, List<String> naturalKey, List<String> columns) {
+            this.name = name;
+            this.changeColumn = changeColumn;
+            this.naturalKey = naturalKey;
+            this.columns = columns;
+            
+            // A faixa inicial em changeColumn percorre o índice (changeColumn, id) já na ordem do ORDER BY
+            String select = String.format("""
+                SELECT id, %2$s, %3$s AS marca_alteracao
+                FROM %1$s
+                WHERE %3$s >= ? AND (%3$s > ? OR id > ?)
+                ORDER BY %3$s, id
+                """, name, String.join(", ", columns), changeColumn);
+            this.selectChanged = SqlRegistry.register("sync." + name + ".alteradas", dialect -> dialect.limit(select, BATCH_SIZE));
+            
+            this.selectByNaturalKey = naturalKey.isEmpty() ? null : SqlRegistry.register("sync." + name + ".chaveNatural",
+                String.format("SELECT id FROM %s WHERE %s ORDER BY id", name,
+                    naturalKey.stream().map(column -> column + " = ?").collect(Collectors.joining(" AND "))));
+            
+            this.insert = SqlRegistry.register("sync." + name + ".insert", String.format(
+                "INSERT INTO %s (%s) VALUES (%s)", name, String.join(", ", columns),
+                columns.stream().map(column -> "?").collect(Collectors.joining(", "))));
+            
+            // A versão é incrementada, não copiada: quem leu a linha no SQL Server antes da sincronização
+            // não pode mais gravá-la com a versão antiga
+            String updates = columns.stream()
+                .map(column -> column.equals("versao") ? "versao = versao + 1" : column + " = ?")
+                .collect(Collectors.joining(", "));
+            this.update = SqlRegistry.register("sync." + name + ".update", String.format(
+                "UPDATE %s SET %s WHERE id = ? AND (%s IS NULL OR %s <= ?)", name, updates, changeColumn, changeColumn));
+            
+            this.exists = SqlRegistry.register("sync." + name + ".exists", "SELECT 1 FROM " + name + " WHERE id = ?");
+            this.delete = SqlRegistry.register("sync." + name + ".delete", "DELETE FROM " + name + " WHERE id = ?");
+        }
+        
+        boolean isPontos() {
+            return name.equals("pontos");
+        }
     }
     
     /**
-     * Verifica se a sincronização está em execução
+     * Trabalho executado dentro da transação de um lote
      */
-    public static boolean isSynchronizationRunning() {
-        return synchronizationRunning;
+    @FunctionalInterface
+    private interface SyncWork {
+        void execute() throws SQLException;
     }
 }
@@ -2,31 +2,156 @@ package com.shiftly.repository;
 
 import com.shiftly.model.Ferias;
 import com.shiftly.model.StatusFerias;
+import com.shiftly.util.Metrics;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository para gerenciar férias
  */
 public class FeriasRepository extends BaseRepository<Ferias, Long> {
     
+    // Intervalo no ano em vez de YEAR(data_inicio), para usar o índice IX_ferias_datas
+    private static final SqlRegistry.NamedSql SQL_DIAS_NO_ANO = SqlRegistry.register("ferias.contarDiasNoAno",
+        dialeto -> """
+            SELECT COALESCE(SUM(%s + 1), 0) as total_dias
+            FROM ferias 
+            WHERE usuario_id = ? AND status = 'APROVADA' 
+            AND data_inicio >= ? AND data_inicio < ?
+            """.formatted(dialeto.daysBetween("data_inicio", "data_fim")));
+    
+    private static final SqlRegistry.NamedSql SQL_VENCENDO_EM = SqlRegistry.register("ferias.findVencendoEm",
+        dialeto -> """
+            SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+            FROM ferias 
+            WHERE status = 'APROVADA' AND data_inicio BETWEEN %1$s AND %2$s
+            ORDER BY data_inicio
+            """.formatted(dialeto.currentDate(), dialeto.addDays(dialeto.currentDate(), "?")));
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_ID = SqlRegistry.register("ferias.findById", """
+        SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+        FROM ferias WHERE id = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_INSERT = SqlRegistry.register("ferias.insert", """
+        INSERT INTO ferias (usuario_id, data_inicio, data_fim, dias_solicitados, status, observacoes, motivo_recusa,
+                          aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+    
+    // versao = COALESCE(?, versao): sem versão informada, atualiza como antes (última escrita prevalece)
+    private static final SqlRegistry.NamedSql SQL_UPDATE = SqlRegistry.register("ferias.update", """
+        UPDATE ferias SET usuario_id = ?, data_inicio = ?, data_fim = ?, dias_solicitados = ?, status = ?, observacoes = ?,
+                        motivo_recusa = ?, aprovado_por_usuario_id = ?, data_aprovacao = ?, data_atualizacao = ?,
+                        versao = versao + 1
+        WHERE id = ? AND versao = COALESCE(?, versao)
+        """);
+    
+    // Timers das transições de status, que passam pelo mesmo updateIfMatches
+    private static final Metrics.Timer aprovarTimer = timerDeConsulta("FeriasRepository.aprovar");
+    private static final Metrics.Timer recusarTimer = timerDeConsulta("FeriasRepository.recusar");
+    private static final Metrics.Timer cancelarTimer = timerDeConsulta("FeriasRepository.cancelar");
+    
+    // Transições de status: só as colunas da transição, condicionadas ao status atual e à versão lida pela tela
+    private static final SqlRegistry.NamedSql SQL_APROVAR = SqlRegistry.register("ferias.aprovar", """
+        UPDATE ferias SET status = 'APROVADA', aprovado_por_usuario_id = ?, data_aprovacao = ?, motivo_recusa = NULL,
+                        data_atualizacao = ?, versao = versao + 1
+        WHERE id = ? AND status = 'PENDENTE' AND versao = COALESCE(?, versao)
+        AND NOT EXISTS (
+            SELECT 1 FROM ferias outras
+            WHERE outras.usuario_id = ferias.usuario_id AND outras.id <> ferias.id
+            AND outras.status IN ('PENDENTE', 'APROVADA')
+            AND outras.data_inicio <= ferias.data_fim AND outras.data_fim >= ferias.data_inicio
+        )
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_RECUSAR = SqlRegistry.register("ferias.recusar", """
+        UPDATE ferias SET status = 'RECUSADA', aprovado_por_usuario_id = ?, data_aprovacao = ?, motivo_recusa = ?,
+                        data_atualizacao = ?, versao = versao + 1
+        WHERE id = ? AND status = 'PENDENTE' AND versao = COALESCE(?, versao)
+        """);
+    
+    // usuario_id = COALESCE(?, usuario_id): o colaborador só cancela as próprias férias; o RH passa nulo
+    private static final SqlRegistry.NamedSql SQL_CANCELAR = SqlRegistry.register("ferias.cancelar", """
+        UPDATE ferias SET status = 'CANCELADA', data_atualizacao = ?, versao = versao + 1
+        WHERE id = ? AND status = ? AND usuario_id = COALESCE(?, usuario_id) AND versao = COALESCE(?, versao)
+        """);
+    
+    // Demais comandos de texto fixo, também preparados uma vez por conexão
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL = SqlRegistry.register("ferias.findAll", """
+        SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+        FROM ferias ORDER BY data_solicitacao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_BY_ID = SqlRegistry.register("ferias.deleteById",
+        "DELETE FROM ferias WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_ID = SqlRegistry.register("ferias.existsById",
+        "SELECT 1 FROM ferias WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_COUNT = SqlRegistry.register("ferias.count",
+        "SELECT COUNT(*) FROM ferias");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID = SqlRegistry.register("ferias.findByUsuarioId", """
+        SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+        FROM ferias WHERE usuario_id = ? ORDER BY data_solicitacao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_STATUS = SqlRegistry.register("ferias.findByStatus", """
+        SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+        FROM ferias WHERE status = ? ORDER BY data_solicitacao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID_AND_STATUS = SqlRegistry.register("ferias.findByUsuarioIdAndStatus", """
+        SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+        FROM ferias WHERE usuario_id = ? AND status = ? ORDER BY data_solicitacao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_FERIAS_NO_PERIODO = SqlRegistry.register("ferias.findFeriasNoPeriodo", """
+        SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+        FROM ferias 
+        WHERE (data_inicio BETWEEN ? AND ?) OR (data_fim BETWEEN ? AND ?) OR (data_inicio <= ? AND data_fim >= ?)
+        ORDER BY data_inicio
+        """);
+    
+    // id <> COALESCE(?, -1): sem férias a excluir, nenhuma linha é descartada (um texto só para os dois casos)
+    private static final SqlRegistry.NamedSql SQL_TEM_CONFLITO_FERIAS = SqlRegistry.register("ferias.temConflito", """
+        SELECT COUNT(*) FROM ferias 
+        WHERE usuario_id = ? AND status IN ('PENDENTE', 'APROVADA')
+        AND ((data_inicio BETWEEN ? AND ?) OR (data_fim BETWEEN ? AND ?) OR (data_inicio <= ? AND data_fim >= ?))
+        AND id <> COALESCE(?, -1)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_CONTAR_POR_DEPARTAMENTO = SqlRegistry.register("ferias.contarPorDepartamento", """
+        SELECT u.departamento, COUNT(*) AS total
+        FROM ferias f
+        INNER JOIN usuarios u ON u.id = f.usuario_id
+        WHERE u.departamento IS NOT NULL
+        GROUP BY u.departamento
+        """);
+    
     @Override
     public Optional<Ferias> findById(Long id) {
         if (id == null) return Optional.empty();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias WHERE id = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -42,14 +167,8 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
     @Override
     public List<Ferias> findAll() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias ORDER BY data_solicitacao DESC
-                """;
-            
             List<Ferias> feriasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL);
                  ResultSet rs = stmt.executeQuery()) {
                 
                 while (rs.next()) {
@@ -79,14 +198,7 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
     public boolean deleteById(Long id) {
         if (id == null) return false;
         
-        return executeWithConnection(conn -> {
-            String sql = "DELETE FROM ferias WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setLong(1, id);
-                return stmt.executeUpdate() > 0;
-            }
-        });
+        return deleteRegistrandoExclusao("ferias", SQL_DELETE_BY_ID, id);
     }
     
     @Override
@@ -94,9 +206,7 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (id == null) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM ferias WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -109,15 +219,57 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
     @Override
     public long count() {
         return executeWithConnection(conn -> {
-            String sql = "SELECT COUNT(*) FROM ferias";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_COUNT);
                  ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? rs.getLong(1) : 0L;
             }
         });
     }
     
+    @Override
+    public List<Ferias> findAllByIds(Collection<Long> ids) {
+        return findAllByIdsInBatches(ids, """
+            SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+            FROM ferias WHERE id IN (%s)
+            """, this::mapResultSetToFerias);
+    }
+    
+    /**
+     * Busca uma página de solicitações de férias, da mais recente para a mais antiga
+     */
+    public Page<Ferias> findPage(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+            FROM ferias
+            """, null, List.of(), "data_solicitacao", true, apos, tamanho, this::mapResultSetToFerias);
+    }
+    
+    /**
+     * Busca uma página de férias pendentes, da solicitação mais recente para a mais antiga
+     */
+    public Page<Ferias> findPagePendentes(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+            FROM ferias
+            """, "status = ?", List.of(StatusFerias.PENDENTE.name()), "data_solicitacao", true, apos, tamanho,
+            this::mapResultSetToFerias);
+    }
+    
+    /**
+     * Percorre todas as solicitações de férias com um cursor
+     * O Stream mantém uma conexão aberta e deve ser fechado (try-with-resources)
+     */
+    public Stream<Ferias> streamAll() {
+        return streamQuery("""
+            SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao, versao
+            FROM ferias ORDER BY data_solicitacao DESC, id DESC
+            """, List.of(), this::mapResultSetToFerias);
+    }
+    
     /**
      * Busca férias por usuário
      */
@@ -125,14 +277,8 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (usuarioId == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias WHERE usuario_id = ? ORDER BY data_solicitacao DESC
-                """;
-            
             List<Ferias> feriasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID)) {
                 stmt.setLong(1, usuarioId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -152,14 +298,8 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (status == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias WHERE status = ? ORDER BY data_solicitacao DESC
-                """;
-            
             List<Ferias> feriasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_STATUS)) {
                 stmt.setString(1, status.name());
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -193,14 +333,8 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (usuarioId == null || status == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias WHERE usuario_id = ? AND status = ? ORDER BY data_solicitacao DESC
-                """;
-            
             List<Ferias> feriasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID_AND_STATUS)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setString(2, status.name());
                 
@@ -221,16 +355,8 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (dataInicio == null || dataFim == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias 
-                WHERE (data_inicio BETWEEN ? AND ?) OR (data_fim BETWEEN ? AND ?) OR (data_inicio <= ? AND data_fim >= ?)
-                ORDER BY data_inicio
-                """;
-            
             List<Ferias> feriasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_FERIAS_NO_PERIODO)) {
                 stmt.setDate(1, Date.valueOf(dataInicio));
                 stmt.setDate(2, Date.valueOf(dataFim));
                 stmt.setDate(3, Date.valueOf(dataInicio));
@@ -255,13 +381,7 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (usuarioId == null || dataInicio == null || dataFim == null) return false;
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT COUNT(*) FROM ferias 
-                WHERE usuario_id = ? AND status IN ('PENDENTE', 'APROVADA')
-                AND ((data_inicio BETWEEN ? AND ?) OR (data_fim BETWEEN ? AND ?) OR (data_inicio <= ? AND data_fim >= ?))
-                """ + (feriasIdExcluir != null ? "AND id != ?" : "");
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_TEM_CONFLITO_FERIAS)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setDate(2, Date.valueOf(dataInicio));
                 stmt.setDate(3, Date.valueOf(dataFim));
@@ -269,9 +389,10 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
                 stmt.setDate(5, Date.valueOf(dataFim));
                 stmt.setDate(6, Date.valueOf(dataInicio));
                 stmt.setDate(7, Date.valueOf(dataFim));
-                
                 if (feriasIdExcluir != null) {
                     stmt.setLong(8, feriasIdExcluir);
+                } else {
+                    stmt.setNull(8, Types.BIGINT);
                 }
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -288,16 +409,10 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         if (usuarioId == null) return 0;
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT COALESCE(SUM(DATEDIFF(data_fim, data_inicio) + 1), 0) as total_dias
-                FROM ferias 
-                WHERE usuario_id = ? AND status = 'APROVADA' 
-                AND YEAR(data_inicio) = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_DIAS_NO_ANO)) {
                 stmt.setLong(1, usuarioId);
-                stmt.setInt(2, ano);
+                stmt.setDate(2, Date.valueOf(LocalDate.of(ano, 1, 1)));
+                stmt.setDate(3, Date.valueOf(LocalDate.of(ano + 1, 1, 1)));
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     return rs.next() ? rs.getInt("total_dias") : 0;
@@ -311,16 +426,8 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
      */
     public List<Ferias> findFeriasVencendoEm(int dias) {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao
-                FROM ferias 
-                WHERE status = 'APROVADA' AND data_inicio BETWEEN CURRENT_DATE AND DATE_ADD(CURRENT_DATE, INTERVAL ? DAY)
-                ORDER BY data_inicio
-                """;
-            
             List<Ferias> feriasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_VENCENDO_EM)) {
                 stmt.setInt(1, dias);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -333,18 +440,86 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         });
     }
     
+    /**
+     * Aprova férias pendentes com um único UPDATE condicional, sem ler a linha antes
+     * Só altera se ainda estiverem pendentes, na versão informada (nula: qualquer versão) e sem conflito
+     * com outras férias pendentes ou aprovadas do usuário; vazio quando nada foi alterado
+     */
+    public Optional<Ferias> aprovar(Long id, Integer versao, Long aprovadoPorUsuarioId) {
+        if (id == null || aprovadoPorUsuarioId == null) return Optional.empty();
+        
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        return updateIfMatches(aprovarTimer, SQL_APROVAR, stmt -> {
+            stmt.setLong(1, aprovadoPorUsuarioId);
+            stmt.setTimestamp(2, agora);
+            stmt.setTimestamp(3, agora);
+            stmt.setLong(4, id);
+            setVersao(stmt, 5, versao);
+        }, SQL_FIND_BY_ID, id, this::mapResultSetToFerias);
+    }
+    
+    /**
+     * Recusa férias pendentes com um único UPDATE condicional; vazio quando nada foi alterado
+     */
+    public Optional<Ferias> recusar(Long id, Integer versao, Long aprovadoPorUsuarioId, String motivo) {
+        if (id == null || aprovadoPorUsuarioId == null) return Optional.empty();
+        
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        return updateIfMatches(recusarTimer, SQL_RECUSAR, stmt -> {
+            stmt.setLong(1, aprovadoPorUsuarioId);
+            stmt.setTimestamp(2, agora);
+            stmt.setString(3, motivo);
+            stmt.setTimestamp(4, agora);
+            stmt.setLong(5, id);
+            setVersao(stmt, 6, versao);
+        }, SQL_FIND_BY_ID, id, this::mapResultSetToFerias);
+    }
+    
+    /**
+     * Cancela férias que estejam no status informado com um único UPDATE condicional
+     * Com usuarioId, só cancela se as férias forem desse usuário; vazio quando nada foi alterado
+     */
+    public Optional<Ferias> cancelar(Long id, StatusFerias statusAtual, Integer versao, Long usuarioId) {
+        if (id == null || statusAtual == null || !statusAtual.permiteCancelamento()) return Optional.empty();
+        
+        return updateIfMatches(cancelarTimer, SQL_CANCELAR, stmt -> {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(2, id);
+            stmt.setString(3, statusAtual.name());
+            if (usuarioId != null) {
+                stmt.setLong(4, usuarioId);
+            } else {
+                stmt.setNull(4, Types.BIGINT);
+            }
+            setVersao(stmt, 5, versao);
+        }, SQL_FIND_BY_ID, id, this::mapResultSetToFerias);
+    }
+    
+    /**
+     * Conta solicitações de férias por departamento com uma única consulta agregada
+     */
+    public Map<String, Long> contarPorDepartamento() {
+        return executeWithConnection(conn -> {
+            Map<String, Long> totais = new HashMap<>();
+            try (PreparedStatement stmt = prepare(conn, SQL_CONTAR_POR_DEPARTAMENTO);
+                 ResultSet rs = stmt.executeQuery()) {
+                
+                while (rs.next()) {
+                    totais.put(rs.getString("departamento"), rs.getLong("total"));
+                }
+            }
+            return totais;
+        });
+    }
+    
     /**
      * Insere novas férias
      */
     private Ferias insert(Connection conn, Ferias ferias) throws SQLException {
-        String sql = """
-            INSERT INTO ferias (usuario_id, data_inicio, data_fim, status, observacoes, motivo_recusa,
-                              aprovado_por_usuario_id, data_aprovacao, data_solicitacao, data_atualizacao)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             setFeriasParameters(stmt, ferias);
+            stmt.setTimestamp(10, Timestamp.valueOf(ferias.getDataSolicitacao()));
+            stmt.setTimestamp(11, Timestamp.valueOf(ferias.getDataAtualizacao()));
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -358,57 +533,60 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
             }
         }
         
+        ferias.setVersao(0);
         return ferias;
     }
     
     /**
      * Atualiza férias existentes
+     * Com versão (férias lidas do banco), falha se outra operação as alterou depois da leitura
      */
     private Ferias update(Connection conn, Ferias ferias) throws SQLException {
-        String sql = """
-            UPDATE ferias SET usuario_id = ?, data_inicio = ?, data_fim = ?, status = ?, observacoes = ?,
-                            motivo_recusa = ?, aprovado_por_usuario_id = ?, data_aprovacao = ?, data_atualizacao = ?
-            WHERE id = ?
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_UPDATE)) {
             setFeriasParameters(stmt, ferias);
-            stmt.setLong(10, ferias.getId());
+            stmt.setTimestamp(10, Timestamp.valueOf(ferias.getDataAtualizacao()));
+            stmt.setLong(11, ferias.getId());
+            setVersao(stmt, 12, ferias.getVersao());
             
             int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0 && ferias.getVersao() != null) {
+                throw new IllegalStateException("Férias alteradas por outra operação (versão " + ferias.getVersao()
+                    + " desatualizada); recarregue e tente novamente");
+            }
             if (affectedRows == 0) {
                 throw new SQLException("Férias não encontradas para atualização");
             }
         }
         
+        if (ferias.getVersao() != null) {
+            ferias.setVersao(ferias.getVersao() + 1);
+        }
         return ferias;
     }
     
     /**
-     * Define os parâmetros das férias no PreparedStatement
+     * Define os parâmetros comuns a insert e update (índices 1 a 9) no PreparedStatement
      */
     private void setFeriasParameters(PreparedStatement stmt, Ferias ferias) throws SQLException {
         stmt.setLong(1, ferias.getUsuarioId());
         stmt.setDate(2, Date.valueOf(ferias.getDataInicio()));
         stmt.setDate(3, Date.valueOf(ferias.getDataFim()));
-        stmt.setString(4, ferias.getStatus().name());
-        stmt.setString(5, ferias.getObservacoes());
-        stmt.setString(6, ferias.getMotivoRecusa());
+        stmt.setInt(4, (int) ferias.getDuracaoDias());
+        stmt.setString(5, ferias.getStatus().name());
+        stmt.setString(6, ferias.getObservacoes());
+        stmt.setString(7, ferias.getMotivoRecusa());
         
         if (ferias.getAprovadoPorUsuarioId() != null) {
-            stmt.setLong(7, ferias.getAprovadoPorUsuarioId());
+            stmt.setLong(8, ferias.getAprovadoPorUsuarioId());
         } else {
-            stmt.setNull(7, Types.BIGINT);
+            stmt.setNull(8, Types.BIGINT);
         }
         
         if (ferias.getDataAprovacao() != null) {
-            stmt.setTimestamp(8, Timestamp.valueOf(ferias.getDataAprovacao()));
+            stmt.setTimestamp(9, Timestamp.valueOf(ferias.getDataAprovacao()));
         } else {
-            stmt.setNull(8, Types.TIMESTAMP);
+            stmt.setNull(9, Types.TIMESTAMP);
         }
-        
-        stmt.setTimestamp(9, Timestamp.valueOf(ferias.getDataSolicitacao()));
-        stmt.setTimestamp(10, Timestamp.valueOf(ferias.getDataAtualizacao()));
     }
     
     /**
@@ -437,6 +615,7 @@ public class FeriasRepository extends BaseRepository<Ferias, Long> {
         
         ferias.setDataSolicitacao(rs.getTimestamp("data_solicitacao").toLocalDateTime());
         ferias.setDataAtualizacao(rs.getTimestamp("data_atualizacao").toLocalDateTime());
+        ferias.setVersao(rs.getInt("versao"));
         
         return ferias;
     }
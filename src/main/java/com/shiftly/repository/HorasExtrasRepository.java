@@ -2,32 +2,147 @@ package com.shiftly.repository;
 
 import com.shiftly.model.HorasExtras;
 import com.shiftly.model.StatusHorasExtras;
+import com.shiftly.util.Metrics;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository para gerenciar horas extras
  */
 public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
     
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_ID = SqlRegistry.register("horasExtras.findById", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE id = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_INSERT = SqlRegistry.register("horasExtras.insert", """
+        INSERT INTO horas_extras (usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+                                aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+                                data_solicitacao, data_atualizacao)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+    
+    // versao = COALESCE(?, versao): sem versão informada, atualiza como antes (última escrita prevalece)
+    private static final SqlRegistry.NamedSql SQL_UPDATE = SqlRegistry.register("horasExtras.update", """
+        UPDATE horas_extras SET usuario_id = ?, data = ?, horas = ?, status = ?, descricao = ?,
+                              justificativa = ?, motivo_recusa = ?, aprovado_por_usuario_id = ?,
+                              data_aprovacao = ?, pago = ?, data_pagamento = ?, valor_pago = ?, data_atualizacao = ?,
+                              versao = versao + 1
+        WHERE id = ? AND versao = COALESCE(?, versao)
+        """);
+    
+    // Timers das transições de status, que passam pelo mesmo updateIfMatches
+    private static final Metrics.Timer aprovarTimer = timerDeConsulta("HorasExtrasRepository.aprovar");
+    private static final Metrics.Timer recusarTimer = timerDeConsulta("HorasExtrasRepository.recusar");
+    private static final Metrics.Timer marcarComoPagoTimer = timerDeConsulta("HorasExtrasRepository.marcarComoPago");
+    
+    // Transições de status: só as colunas da transição, condicionadas ao status atual e à versão lida pela tela
+    private static final SqlRegistry.NamedSql SQL_APROVAR = SqlRegistry.register("horasExtras.aprovar", """
+        UPDATE horas_extras SET status = 'APROVADA', aprovado_por_usuario_id = ?, data_aprovacao = ?, motivo_recusa = NULL,
+                              data_atualizacao = ?, versao = versao + 1
+        WHERE id = ? AND status = 'PENDENTE' AND versao = COALESCE(?, versao)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_RECUSAR = SqlRegistry.register("horasExtras.recusar", """
+        UPDATE horas_extras SET status = 'RECUSADA', aprovado_por_usuario_id = ?, data_aprovacao = ?, motivo_recusa = ?,
+                              data_atualizacao = ?, versao = versao + 1
+        WHERE id = ? AND status = 'PENDENTE' AND versao = COALESCE(?, versao)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_MARCAR_PAGO = SqlRegistry.register("horasExtras.marcarComoPago", """
+        UPDATE horas_extras SET pago = ?, data_pagamento = ?, valor_pago = ?, data_atualizacao = ?, versao = versao + 1
+        WHERE id = ? AND status = 'APROVADA' AND pago = ? AND versao = COALESCE(?, versao)
+        """);
+    
+    // Demais comandos de texto fixo, também preparados uma vez por conexão
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL = SqlRegistry.register("horasExtras.findAll", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras ORDER BY data_solicitacao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_BY_ID = SqlRegistry.register("horasExtras.deleteById",
+        "DELETE FROM horas_extras WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_ID = SqlRegistry.register("horasExtras.existsById",
+        "SELECT 1 FROM horas_extras WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_COUNT = SqlRegistry.register("horasExtras.count",
+        "SELECT COUNT(*) FROM horas_extras");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID = SqlRegistry.register("horasExtras.findByUsuarioId", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE usuario_id = ? ORDER BY data DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_STATUS = SqlRegistry.register("horasExtras.findByStatus", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE status = ? ORDER BY data_solicitacao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID_AND_STATUS = SqlRegistry.register("horasExtras.findByUsuarioIdAndStatus", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE usuario_id = ? AND status = ? ORDER BY data DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_PERIODO = SqlRegistry.register("horasExtras.findByPeriodo", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE data BETWEEN ? AND ? ORDER BY data DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID_AND_PERIODO = SqlRegistry.register("horasExtras.findByUsuarioIdAndPeriodo", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE usuario_id = ? AND data BETWEEN ? AND ? ORDER BY data DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_CALCULAR_TOTAL_HORAS_EXTRAS_NO_MES = SqlRegistry.register("horasExtras.calcularTotalHorasExtrasNoMes", """
+        SELECT COALESCE(SUM(horas), 0) as total_horas
+        FROM horas_extras 
+        WHERE usuario_id = ? AND status = 'APROVADA' 
+        AND data >= ? AND data < ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_HORAS_EXTRAS_NAO_PAGAS = SqlRegistry.register("horasExtras.findHorasExtrasNaoPagas", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE status = 'APROVADA' AND pago = ? ORDER BY data
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_HORAS_EXTRAS_NAO_PAGAS_BY_USUARIO_ID = SqlRegistry.register("horasExtras.findHorasExtrasNaoPagasByUsuarioId", """
+        SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+               aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+               data_solicitacao, data_atualizacao, versao
+        FROM horas_extras WHERE usuario_id = ? AND status = 'APROVADA' AND pago = ? ORDER BY data
+        """);
+    
     @Override
     public Optional<HorasExtras> findById(Long id) {
         if (id == null) return Optional.empty();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE id = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -43,15 +158,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
     @Override
     public List<HorasExtras> findAll() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras ORDER BY data_solicitacao DESC
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL);
                  ResultSet rs = stmt.executeQuery()) {
                 
                 while (rs.next()) {
@@ -81,14 +189,7 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
     public boolean deleteById(Long id) {
         if (id == null) return false;
         
-        return executeWithConnection(conn -> {
-            String sql = "DELETE FROM horas_extras WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setLong(1, id);
-                return stmt.executeUpdate() > 0;
-            }
-        });
+        return deleteRegistrandoExclusao("horas_extras", SQL_DELETE_BY_ID, id);
     }
     
     @Override
@@ -96,9 +197,7 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (id == null) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM horas_extras WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -111,15 +210,61 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
     @Override
     public long count() {
         return executeWithConnection(conn -> {
-            String sql = "SELECT COUNT(*) FROM horas_extras";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_COUNT);
                  ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? rs.getLong(1) : 0L;
             }
         });
     }
     
+    @Override
+    public List<HorasExtras> findAllByIds(Collection<Long> ids) {
+        return findAllByIdsInBatches(ids, """
+            SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+                   data_solicitacao, data_atualizacao, versao
+            FROM horas_extras WHERE id IN (%s)
+            """, this::mapResultSetToHorasExtras);
+    }
+    
+    /**
+     * Busca uma página de solicitações de horas extras, da mais recente para a mais antiga
+     */
+    public Page<HorasExtras> findPage(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+                   data_solicitacao, data_atualizacao, versao
+            FROM horas_extras
+            """, null, List.of(), "data_solicitacao", true, apos, tamanho, this::mapResultSetToHorasExtras);
+    }
+    
+    /**
+     * Busca uma página de horas extras pendentes, da solicitação mais recente para a mais antiga
+     */
+    public Page<HorasExtras> findPagePendentes(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+                   data_solicitacao, data_atualizacao, versao
+            FROM horas_extras
+            """, "status = ?", List.of(StatusHorasExtras.PENDENTE.name()), "data_solicitacao", true, apos, tamanho,
+            this::mapResultSetToHorasExtras);
+    }
+    
+    /**
+     * Percorre todas as solicitações de horas extras com um cursor
+     * O Stream mantém uma conexão aberta e deve ser fechado (try-with-resources)
+     */
+    public Stream<HorasExtras> streamAll() {
+        return streamQuery("""
+            SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
+                   aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
+                   data_solicitacao, data_atualizacao, versao
+            FROM horas_extras ORDER BY data_solicitacao DESC, id DESC
+            """, List.of(), this::mapResultSetToHorasExtras);
+    }
+    
     /**
      * Busca horas extras por usuário
      */
@@ -127,15 +272,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (usuarioId == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE usuario_id = ? ORDER BY data DESC
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID)) {
                 stmt.setLong(1, usuarioId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -155,15 +293,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (status == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE status = ? ORDER BY data_solicitacao DESC
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_STATUS)) {
                 stmt.setString(1, status.name());
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -197,15 +328,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (usuarioId == null || status == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE usuario_id = ? AND status = ? ORDER BY data DESC
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID_AND_STATUS)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setString(2, status.name());
                 
@@ -226,15 +350,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (dataInicio == null || dataFim == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE data BETWEEN ? AND ? ORDER BY data DESC
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_PERIODO)) {
                 stmt.setDate(1, Date.valueOf(dataInicio));
                 stmt.setDate(2, Date.valueOf(dataFim));
                 
@@ -255,15 +372,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (usuarioId == null || dataInicio == null || dataFim == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE usuario_id = ? AND data BETWEEN ? AND ? ORDER BY data DESC
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID_AND_PERIODO)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setDate(2, Date.valueOf(dataInicio));
                 stmt.setDate(3, Date.valueOf(dataFim));
@@ -285,17 +395,12 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (usuarioId == null) return 0.0;
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT COALESCE(SUM(horas), 0) as total_horas
-                FROM horas_extras 
-                WHERE usuario_id = ? AND status = 'APROVADA' 
-                AND YEAR(data) = ? AND MONTH(data) = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            // Intervalo do mês em vez de YEAR/MONTH(data), para usar o índice IX_horas_extras_data
+            LocalDate inicioMes = LocalDate.of(ano, mes, 1);
+            try (PreparedStatement stmt = prepare(conn, SQL_CALCULAR_TOTAL_HORAS_EXTRAS_NO_MES)) {
                 stmt.setLong(1, usuarioId);
-                stmt.setInt(2, ano);
-                stmt.setInt(3, mes);
+                stmt.setDate(2, Date.valueOf(inicioMes));
+                stmt.setDate(3, Date.valueOf(inicioMes.plusMonths(1)));
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     return rs.next() ? rs.getDouble("total_horas") : 0.0;
@@ -309,15 +414,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
      */
     public List<HorasExtras> findHorasExtrasNaoPagas() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE status = 'APROVADA' AND pago = ? ORDER BY data
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_HORAS_EXTRAS_NAO_PAGAS)) {
                 stmt.setBoolean(1, false);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -337,15 +435,8 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         if (usuarioId == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                       aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                       data_solicitacao, data_atualizacao
-                FROM horas_extras WHERE usuario_id = ? AND status = 'APROVADA' AND pago = ? ORDER BY data
-                """;
-            
             List<HorasExtras> horasExtrasList = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_HORAS_EXTRAS_NAO_PAGAS_BY_USUARIO_ID)) {
                 stmt.setLong(1, usuarioId);
                 stmt.setBoolean(2, false);
                 
@@ -371,19 +462,70 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
                 .sum();
     }
     
+    /**
+     * Aprova horas extras pendentes com um único UPDATE condicional, sem ler a linha antes
+     * Só altera se ainda estiverem pendentes e na versão informada (nula: qualquer versão); vazio quando nada foi alterado
+     */
+    public Optional<HorasExtras> aprovar(Long id, Integer versao, Long aprovadoPorUsuarioId) {
+        if (id == null || aprovadoPorUsuarioId == null) return Optional.empty();
+        
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        return updateIfMatches(aprovarTimer, SQL_APROVAR, stmt -> {
+            stmt.setLong(1, aprovadoPorUsuarioId);
+            stmt.setTimestamp(2, agora);
+            stmt.setTimestamp(3, agora);
+            stmt.setLong(4, id);
+            setVersao(stmt, 5, versao);
+        }, SQL_FIND_BY_ID, id, this::mapResultSetToHorasExtras);
+    }
+    
+    /**
+     * Recusa horas extras pendentes com um único UPDATE condicional; vazio quando nada foi alterado
+     */
+    public Optional<HorasExtras> recusar(Long id, Integer versao, Long aprovadoPorUsuarioId, String motivo) {
+        if (id == null || aprovadoPorUsuarioId == null) return Optional.empty();
+        
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        return updateIfMatches(recusarTimer, SQL_RECUSAR, stmt -> {
+            stmt.setLong(1, aprovadoPorUsuarioId);
+            stmt.setTimestamp(2, agora);
+            stmt.setString(3, motivo);
+            stmt.setTimestamp(4, agora);
+            stmt.setLong(5, id);
+            setVersao(stmt, 6, versao);
+        }, SQL_FIND_BY_ID, id, this::mapResultSetToHorasExtras);
+    }
+    
+    /**
+     * Marca como pagas horas extras aprovadas e ainda não pagas com um único UPDATE condicional
+     * Dois pagamentos simultâneos da mesma hora extra não passam os dois; vazio quando nada foi alterado
+     */
+    public Optional<HorasExtras> marcarComoPago(Long id, Integer versao, Double valorPago) {
+        if (id == null) return Optional.empty();
+        
+        return updateIfMatches(marcarComoPagoTimer, SQL_MARCAR_PAGO, stmt -> {
+            stmt.setBoolean(1, true);
+            stmt.setDate(2, Date.valueOf(LocalDate.now()));
+            if (valorPago != null) {
+                stmt.setDouble(3, valorPago);
+            } else {
+                stmt.setNull(3, Types.DECIMAL);
+            }
+            stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(5, id);
+            stmt.setBoolean(6, false);
+            setVersao(stmt, 7, versao);
+        }, SQL_FIND_BY_ID, id, this::mapResultSetToHorasExtras);
+    }
+    
     /**
      * Insere novas horas extras
      */
     private HorasExtras insert(Connection conn, HorasExtras horasExtras) throws SQLException {
-        String sql = """
-            INSERT INTO horas_extras (usuario_id, data, horas, status, descricao, justificativa, motivo_recusa,
-                                    aprovado_por_usuario_id, data_aprovacao, pago, data_pagamento, valor_pago,
-                                    data_solicitacao, data_atualizacao)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             setHorasExtrasParameters(stmt, horasExtras);
+            stmt.setTimestamp(13, Timestamp.valueOf(horasExtras.getDataSolicitacao()));
+            stmt.setTimestamp(14, Timestamp.valueOf(horasExtras.getDataAtualizacao()));
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -397,35 +539,39 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
             }
         }
         
+        horasExtras.setVersao(0);
         return horasExtras;
     }
     
     /**
      * Atualiza horas extras existentes
+     * Com versão (horas extras lidas do banco), falha se outra operação as alterou depois da leitura
      */
     private HorasExtras update(Connection conn, HorasExtras horasExtras) throws SQLException {
-        String sql = """
-            UPDATE horas_extras SET usuario_id = ?, data = ?, horas = ?, status = ?, descricao = ?,
-                                  justificativa = ?, motivo_recusa = ?, aprovado_por_usuario_id = ?,
-                                  data_aprovacao = ?, pago = ?, data_pagamento = ?, valor_pago = ?, data_atualizacao = ?
-            WHERE id = ?
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_UPDATE)) {
             setHorasExtrasParameters(stmt, horasExtras);
+            stmt.setTimestamp(13, Timestamp.valueOf(horasExtras.getDataAtualizacao()));
             stmt.setLong(14, horasExtras.getId());
+            setVersao(stmt, 15, horasExtras.getVersao());
             
             int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0 && horasExtras.getVersao() != null) {
+                throw new IllegalStateException("Horas extras alteradas por outra operação (versão " + horasExtras.getVersao()
+                    + " desatualizada); recarregue e tente novamente");
+            }
             if (affectedRows == 0) {
                 throw new SQLException("Horas extras não encontradas para atualização");
             }
         }
         
+        if (horasExtras.getVersao() != null) {
+            horasExtras.setVersao(horasExtras.getVersao() + 1);
+        }
         return horasExtras;
     }
     
     /**
-     * Define os parâmetros das horas extras no PreparedStatement
+     * Define os parâmetros comuns a insert e update (índices 1 a 12) no PreparedStatement
      */
     private void setHorasExtrasParameters(PreparedStatement stmt, HorasExtras horasExtras) throws SQLException {
         stmt.setLong(1, horasExtras.getUsuarioId());
@@ -461,9 +607,6 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         } else {
             stmt.setNull(12, Types.DECIMAL);
         }
-        
-        stmt.setTimestamp(13, Timestamp.valueOf(horasExtras.getDataSolicitacao()));
-        stmt.setTimestamp(14, Timestamp.valueOf(horasExtras.getDataAtualizacao()));
     }
     
     /**
@@ -505,6 +648,7 @@ public class HorasExtrasRepository extends BaseRepository<HorasExtras, Long> {
         
         horasExtras.setDataSolicitacao(rs.getTimestamp("data_solicitacao").toLocalDateTime());
         horasExtras.setDataAtualizacao(rs.getTimestamp("data_atualizacao").toLocalDateTime());
+        horasExtras.setVersao(rs.getInt("versao"));
         
         return horasExtras;
     }
@@ -0,0 +1,587 @@
+package com.shiftly.repository;
+
+import com.shiftly.model.JornadaDiaria;
+import com.shiftly.model.Ponto;
+import com.shiftly.model.TipoPonto;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Repository da jornada diária consolidada (tabela jornada_diaria)
+ * Cada linha é recalculada a partir dos pontos do dia sempre que um ponto do dia é gravado ou removido
+ */
+public class JornadaDiariaRepository extends BaseRepository<JornadaDiaria, Long> {
+    
+    private static final int TAMANHO_LOTE_RECONSTRUCAO = 500;
+    
+    // Executados a cada ponto gravado: preparados uma vez por conexão (StatementCache)
+    private static final SqlRegistry.NamedSql SQL_PONTOS_DO_DIA = SqlRegistry.register("jornada.pontosDoDia", """
+        SELECT data_hora, tipo_ponto
+        FROM pontos
+        WHERE usuario_id = ? AND data_hora >= ? AND data_hora < ?
+        ORDER BY data_hora
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_UPDATE = SqlRegistry.register("jornada.update", """
+        UPDATE jornada_diaria SET minutos_trabalhados = ?, minutos_extras = ?, primeira_entrada = ?, ultima_saida = ?,
+                                  total_pontos = ?, inconsistente = ?, inconsistencias = ?, data_atualizacao = ?
+        WHERE usuario_id = ? AND data = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_INSERT = SqlRegistry.register("jornada.insert", """
+        INSERT INTO jornada_diaria (minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+                                    total_pontos, inconsistente, inconsistencias, data_atualizacao,
+                                    usuario_id, data)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_DIA = SqlRegistry.register(
+        "jornada.deleteByUsuarioIdAndData", "DELETE FROM jornada_diaria WHERE usuario_id = ? AND data = ?");
+    
+    // Consultas de texto fixo, também preparadas uma vez por conexão
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_ID = SqlRegistry.register("jornada.findById", """
+        SELECT id, usuario_id, data, minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+               total_pontos, inconsistencias, data_atualizacao
+        FROM jornada_diaria WHERE id = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL = SqlRegistry.register("jornada.findAll", """
+        SELECT id, usuario_id, data, minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+               total_pontos, inconsistencias, data_atualizacao
+        FROM jornada_diaria ORDER BY usuario_id, data
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_BY_ID = SqlRegistry.register("jornada.deleteById",
+        "DELETE FROM jornada_diaria WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_ID = SqlRegistry.register("jornada.existsById",
+        "SELECT 1 FROM jornada_diaria WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_COUNT = SqlRegistry.register("jornada.count",
+        "SELECT COUNT(*) FROM jornada_diaria");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID_AND_PERIODO = SqlRegistry.register("jornada.findByUsuarioIdAndPeriodo", """
+        SELECT id, usuario_id, data, minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+               total_pontos, inconsistencias, data_atualizacao
+        FROM jornada_diaria
+        WHERE usuario_id = ? AND data >= ? AND data <= ?
+        ORDER BY data
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_INCONSISTENTES_NO_PERIODO = SqlRegistry.register("jornada.findInconsistentesNoPeriodo", """
+        SELECT id, usuario_id, data, minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+               total_pontos, inconsistencias, data_atualizacao
+        FROM jornada_diaria
+        WHERE inconsistente = ? AND data >= ? AND data <= ?
+        ORDER BY data, usuario_id
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_RECONSTRUIR = SqlRegistry.register("jornada.reconstruir", """
+        SELECT usuario_id, data_hora, tipo_ponto
+        FROM pontos
+        ORDER BY usuario_id, data_hora
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_RECONCILIAR = SqlRegistry.register("jornada.reconciliar", """
+        SELECT c.usuario_id, c.dia
+        FROM (SELECT usuario_id, CAST(data_hora AS DATE) AS dia, COUNT(*) AS total
+              FROM pontos
+              GROUP BY usuario_id, CAST(data_hora AS DATE)) c
+        LEFT JOIN jornada_diaria j ON j.usuario_id = c.usuario_id AND j.data = c.dia
+        WHERE j.id IS NULL OR j.total_pontos <> c.total
+        UNION
+        SELECT j.usuario_id, j.data
+        FROM jornada_diaria j
+        WHERE NOT EXISTS (SELECT 1 FROM pontos p
+                          WHERE p.usuario_id = j.usuario_id AND CAST(p.data_hora AS DATE) = j.data)
+        """);
+    
+    @Override
+    public Optional<JornadaDiaria> findById(Long id) {
+        if (id == null) return Optional.empty();
+        
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_ID)) {
+                stmt.setLong(1, id);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(mapResultSetToJornada(rs));
+                    }
+                }
+            }
+            return Optional.empty();
+        });
+    }
+    
+    @Override
+    public List<JornadaDiaria> findAll() {
+        return executeWithConnection(conn -> {
+            List<JornadaDiaria> jornadas = new ArrayList<>();
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL);
+                 ResultSet rs = stmt.executeQuery()) {
+                
+                while (rs.next()) {
+                    jornadas.add(mapResultSetToJornada(rs));
+                }
+            }
+            return jornadas;
+        });
+    }
+    
+    /**
+     * Grava a jornada pela chave (usuário, data), inserindo ou atualizando
+     */
+    @Override
+    public JornadaDiaria save(JornadaDiaria jornada) {
+        if (jornada == null) {
+            throw new IllegalArgumentException("Jornada não pode ser nula");
+        }
+        
+        return executeWithConnection(conn -> {
+            upsert(conn, jornada);
+            return jornada;
+        });
+    }
+    
+    @Override
+    public boolean deleteById(Long id) {
+        if (id == null) return false;
+        
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_DELETE_BY_ID)) {
+                stmt.setLong(1, id);
+                return stmt.executeUpdate() > 0;
+            }
+        });
+    }
+    
+    @Override
+    public boolean existsById(Long id) {
+        if (id == null) return false;
+        
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_ID)) {
+                stmt.setLong(1, id);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+    }
+    
+    @Override
+    public long count() {
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_COUNT);
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        });
+    }
+    
+    @Override
+    public List<JornadaDiaria> findAllByIds(Collection<Long> ids) {
+        return findAllByIdsInBatches(ids, """
+            SELECT id, usuario_id, data, minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+                   total_pontos, inconsistencias, data_atualizacao
+            FROM jornada_diaria WHERE id IN (%s)
+            """, this::mapResultSetToJornada);
+    }
+    
+    /**
+     * Busca a jornada de um usuário em uma data
+     */
+    public Optional<JornadaDiaria> findByUsuarioIdAndData(Long usuarioId, LocalDate data) {
+        if (usuarioId == null || data == null) return Optional.empty();
+        
+        List<JornadaDiaria> jornadas = findByUsuarioIdAndPeriodo(usuarioId, data, data);
+        return jornadas.isEmpty() ? Optional.empty() : Optional.of(jornadas.get(0));
+    }
+    
+    /**
+     * Busca as jornadas de um usuário em um período (uma linha por dia com ponto)
+     */
+    public List<JornadaDiaria> findByUsuarioIdAndPeriodo(Long usuarioId, LocalDate dataInicio, LocalDate dataFim) {
+        if (usuarioId == null || dataInicio == null || dataFim == null) return new ArrayList<>();
+        
+        return executeWithConnection(conn -> {
+            List<JornadaDiaria> jornadas = new ArrayList<>();
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID_AND_PERIODO)) {
+                stmt.setLong(1, usuarioId);
+                stmt.setDate(2, Date.valueOf(dataInicio));
+                stmt.setDate(3, Date.valueOf(dataFim));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        jornadas.add(mapResultSetToJornada(rs));
+                    }
+                }
+            }
+            return jornadas;
+        });
+    }
+    
+    /**
+     * Busca as jornadas de vários usuários em um período com uma consulta por bloco de IDs
+     * Resultado ordenado por usuário e data
+     */
+    public List<JornadaDiaria> findByUsuarioIdsAndPeriodo(Collection<Long> usuarioIds, LocalDate dataInicio, LocalDate dataFim) {
+        if (usuarioIds == null || usuarioIds.isEmpty() || dataInicio == null || dataFim == null) return new ArrayList<>();
+        
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(usuarioIds));
+        
+        return executeWithConnection(conn -> {
+            List<JornadaDiaria> jornadas = new ArrayList<>();
+            
+            for (int inicio = 0; inicio < ids.size(); inicio += MAX_IDS_POR_CONSULTA) {
+                List<Long> bloco = ids.subList(inicio, Math.min(inicio + MAX_IDS_POR_CONSULTA, ids.size()));
+                String placeholders = String.join(", ", Collections.nCopies(bloco.size(), "?"));
+                
+                String sql = """
+                    SELECT id, usuario_id, data, minutos_trabalhados, minutos_extras, primeira_entrada, ultima_saida,
+                           total_pontos, inconsistencias, data_atualizacao
+                    FROM jornada_diaria
+                    WHERE usuario_id IN (%s) AND data >= ? AND data <= ?
+                    ORDER BY usuario_id, data
+                    """.formatted(placeholders);
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Long id : bloco) {
+                        stmt.setLong(index++, id);
+                    }
+                    stmt.setDate(index++, Date.valueOf(dataInicio));
+                    stmt.setDate(index, Date.valueOf(dataFim));
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            jornadas.add(mapResultSetToJornada(rs));
+                        }
+                    }
+                }
+            }
+            return jornadas;
+        });
+    }
+    
+    /**
+     * Busca as jornadas com inconsistência em um período
+     */
+    public List<JornadaDiaria> findInconsistentesNoPeriodo(LocalDate dataInicio, LocalDate dataFim) {
+        if (dataInicio == null || dataFim == null) return new ArrayList<>();
+        
+        return executeWithConnection(conn -> {
+            List<JornadaDiaria> jornadas = new ArrayList<>();
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_INCONSISTENTES_NO_PERIODO)) {
+                stmt.setBoolean(1, true);
+                stmt.setDate(2, Date.valueOf(dataInicio));
+                stmt.setDate(3, Date.valueOf(dataFim));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        jornadas.add(mapResultSetToJornada(rs));
+                    }
+                }
+            }
+            return jornadas;
+        });
+    }
+    
+    /**
+     * Recalcula a jornada de um usuário em uma data a partir dos pontos
+     */
+    public JornadaDiaria recalcular(Long usuarioId, LocalDate data) {
+        return executeWithConnection(conn -> recalcular(conn, usuarioId, data));
+    }
+    
+    /**
+     * Recalcula as jornadas afetadas na conexão (e transação) de quem gravou os pontos
+     */
+    void recalcular(Connection conn, Map<Long, Set<LocalDate>> diasPorUsuario) throws SQLException {
+        for (Map.Entry<Long, Set<LocalDate>> entry : diasPorUsuario.entrySet()) {
+            for (LocalDate data : entry.getValue()) {
+                recalcular(conn, entry.getKey(), data);
+            }
+        }
+    }
+    
+    /**
+     * Recalcula uma jornada na conexão informada
+     * Remove a linha quando o dia não tem mais pontos
+     */
+    JornadaDiaria recalcular(Connection conn, Long usuarioId, LocalDate data) throws SQLException {
+        List<Ponto> pontos = new ArrayList<>();
+        
+        try (PreparedStatement stmt = prepare(conn, SQL_PONTOS_DO_DIA)) {
+            stmt.setLong(1, usuarioId);
+            stmt.setTimestamp(2, Timestamp.valueOf(data.atStartOfDay()));
+            stmt.setTimestamp(3, Timestamp.valueOf(data.plusDays(1).atStartOfDay()));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pontos.add(mapResultSetToPontoResumido(rs, usuarioId));
+                }
+            }
+        }
+        
+        if (pontos.isEmpty()) {
+            try (PreparedStatement stmt = prepare(conn, SQL_DELETE_DIA)) {
+                stmt.setLong(1, usuarioId);
+                stmt.setDate(2, Date.valueOf(data));
+                stmt.executeUpdate();
+            }
+            return null;
+        }
+        
+        JornadaDiaria jornada = JornadaDiaria.calcular(usuarioId, data, pontos);
+        upsert(conn, jornada);
+        return jornada;
+    }
+    
+    /**
+     * Reconstrói toda a tabela a partir dos pontos, em uma única transação
+     * Os pontos são lidos em streaming, ordenados por usuário e data/hora
+     */
+    public int reconstruir() {
+        return executeWithConnection(conn -> reconstruir(conn));
+    }
+    
+    /**
+     * Reconstrução na conexão informada
+     */
+    int reconstruir(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement deleteStmt = conn.createStatement();
+             PreparedStatement selectStmt = prepare(conn, SQL_RECONSTRUIR);
+             PreparedStatement insertStmt = prepare(conn, SQL_INSERT)) {
+            
+            deleteStmt.executeUpdate("DELETE FROM jornada_diaria");
+            selectStmt.setFetchSize(TAMANHO_LOTE_RECONSTRUCAO);
+            
+            int total = 0;
+            int lote = 0;
+            Long usuarioAtual = null;
+            LocalDate diaAtual = null;
+            List<Ponto> pontosDoDia = new ArrayList<>();
+            
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                while (rs.next()) {
+                    Long usuarioId = rs.getLong("usuario_id");
+                    Ponto ponto = mapResultSetToPontoResumido(rs, usuarioId);
+                    LocalDate dia = ponto.getDataHora().toLocalDate();
+                    
+                    if (!usuarioId.equals(usuarioAtual) || !dia.equals(diaAtual)) {
+                        if (!pontosDoDia.isEmpty()) {
+                            adicionarAoLote(insertStmt, JornadaDiaria.calcular(usuarioAtual, diaAtual, pontosDoDia));
+                            total++;
+                            if (++lote == TAMANHO_LOTE_RECONSTRUCAO) {
+                                insertStmt.executeBatch();
+                                lote = 0;
+                            }
+                        }
+                        usuarioAtual = usuarioId;
+                        diaAtual = dia;
+                        pontosDoDia = new ArrayList<>();
+                    }
+                    pontosDoDia.add(ponto);
+                }
+            }
+            
+            if (!pontosDoDia.isEmpty()) {
+                adicionarAoLote(insertStmt, JornadaDiaria.calcular(usuarioAtual, diaAtual, pontosDoDia));
+                total++;
+                lote++;
+            }
+            if (lote > 0) {
+                insertStmt.executeBatch();
+            }
+            
+            conn.commit();
+            logger.info("Jornada diária reconstruída: {} dias consolidados", total);
+            return total;
+        
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+    
+    /**
+     * Indica se há pontos sem nenhuma jornada consolidada (tabela recém-criada em um banco existente)
+     */
+    boolean jornadaVaziaComPontos(Connection conn) throws SQLException {
+        String sql = """
+            SELECT CASE WHEN EXISTS (SELECT 1 FROM pontos)
+                         AND NOT EXISTS (SELECT 1 FROM jornada_diaria) THEN 1 ELSE 0 END
+            """;
+        
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+    
+    /**
+     * Recalcula só os dias em que a quantidade de pontos não bate com a jornada consolidada
+     * Operação de manutenção para bancos anteriores à jornada diária e pontos inseridos fora
+     * do repository (ex.: scripts). Retorna a quantidade de dias recalculados
+     */
+    public int reconciliar() {
+        return executeWithConnection(conn -> reconciliar(conn));
+    }
+    
+    /**
+     * Reconciliação na conexão informada
+     */
+    int reconciliar(Connection conn) throws SQLException {
+        Map<Long, Set<LocalDate>> divergentes = new LinkedHashMap<>();
+        int dias = 0;
+        try (PreparedStatement stmt = prepare(conn, SQL_RECONCILIAR);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                if (divergentes.computeIfAbsent(rs.getLong(1), id -> new LinkedHashSet<>()).add(rs.getDate(2).toLocalDate())) {
+                    dias++;
+                }
+            }
+        }
+        
+        if (dias > 0) {
+            recalcular(conn, divergentes);
+            logger.info("Jornada diária reconciliada: {} dias recalculados", dias);
+        }
+        return dias;
+    }
+    
+    /**
+     * Atualiza a linha da jornada ou insere, se ainda não existir
+     * Se outra transação inserir o mesmo (usuário, data) entre o UPDATE e o INSERT,
+     * a chave única recusa o INSERT e o UPDATE é repetido sobre a linha dela
+     */
+    private void upsert(Connection conn, JornadaDiaria jornada) throws SQLException {
+        jornada.setDataAtualizacao(LocalDateTime.now());
+        
+        if (atualizar(conn, jornada)) {
+            return;
+        }
+        
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT)) {
+            setJornadaParameters(stmt, jornada);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (!isViolacaoDeChave(e) || !atualizar(conn, jornada)) {
+                throw e;
+            }
+        }
+    }
+    
+    private boolean atualizar(Connection conn, JornadaDiaria jornada) throws SQLException {
+        try (PreparedStatement stmt = prepare(conn, SQL_UPDATE)) {
+            setJornadaParameters(stmt, jornada);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Violação de restrição de integridade (SQLState 23xxx: 23000 no SQL Server, 23505 no H2)
+     */
+    private static boolean isViolacaoDeChave(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+            || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+    
+    /**
+     * Adiciona uma jornada ao batch de inserção
+     */
+    private void adicionarAoLote(PreparedStatement insertStmt, JornadaDiaria jornada) throws SQLException {
+        setJornadaParameters(insertStmt, jornada);
+        insertStmt.addBatch();
+    }
+    
+    /**
+     * Define os parâmetros da jornada (mesma ordem no UPDATE e no INSERT)
+     */
+    private void setJornadaParameters(PreparedStatement stmt, JornadaDiaria jornada) throws SQLException {
+        stmt.setInt(1, jornada.getMinutosTrabalhados());
+        stmt.setInt(2, jornada.getMinutosExtras());
+        
+        if (jornada.getPrimeiraEntrada() != null) {
+            stmt.setTimestamp(3, Timestamp.valueOf(jornada.getPrimeiraEntrada()));
+        } else {
+            stmt.setNull(3, Types.TIMESTAMP);
+        }
+        
+        if (jornada.getUltimaSaida() != null) {
+            stmt.setTimestamp(4, Timestamp.valueOf(jornada.getUltimaSaida()));
+        } else {
+            stmt.setNull(4, Types.TIMESTAMP);
+        }
+        
+        stmt.setInt(5, jornada.getTotalPontos());
+        stmt.setBoolean(6, jornada.isInconsistente());
+        stmt.setString(7, jornada.getInconsistencias());
+        stmt.setTimestamp(8, Timestamp.valueOf(jornada.getDataAtualizacao()));
+        stmt.setLong(9, jornada.getUsuarioId());
+        stmt.setDate(10, Date.valueOf(jornada.getData()));
+    }
+    
+    /**
+     * Mapeia apenas data/hora e tipo do ponto, suficientes para consolidar a jornada
+     */
+    private Ponto mapResultSetToPontoResumido(ResultSet rs, Long usuarioId) throws SQLException {
+        Ponto ponto = new Ponto();
+        ponto.setUsuarioId(usuarioId);
+        ponto.setDataHora(rs.getTimestamp("data_hora").toLocalDateTime());
+        ponto.setTipoPonto(TipoPonto.valueOf(rs.getString("tipo_ponto")));
+        return ponto;
+    }
+    
+    /**
+     * Mapeia ResultSet para objeto JornadaDiaria
+     */
+    private JornadaDiaria mapResultSetToJornada(ResultSet rs) throws SQLException {
+        JornadaDiaria jornada = new JornadaDiaria();
+        
+        jornada.setId(rs.getLong("id"));
+        jornada.setUsuarioId(rs.getLong("usuario_id"));
+        jornada.setData(rs.getDate("data").toLocalDate());
+        jornada.setMinutosTrabalhados(rs.getInt("minutos_trabalhados"));
+        jornada.setMinutosExtras(rs.getInt("minutos_extras"));
+        
+        Timestamp primeiraEntrada = rs.getTimestamp("primeira_entrada");
+        if (primeiraEntrada != null) {
+            jornada.setPrimeiraEntrada(primeiraEntrada.toLocalDateTime());
+        }
+        
+        Timestamp ultimaSaida = rs.getTimestamp("ultima_saida");
+        if (ultimaSaida != null) {
+            jornada.setUltimaSaida(ultimaSaida.toLocalDateTime());
+        }
+        
+        jornada.setTotalPontos(rs.getInt("total_pontos"));
+        jornada.setInconsistencias(rs.getString("inconsistencias"));
+        
+        Timestamp dataAtualizacao = rs.getTimestamp("data_atualizacao");
+        if (dataAtualizacao != null) {
+            jornada.setDataAtualizacao(dataAtualizacao.toLocalDateTime());
+        }
+        
+        return jornada;
+    }
+}
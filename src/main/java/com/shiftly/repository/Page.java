@@ -0,0 +1,63 @@
+package com.shiftly.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados com paginação por chave (keyset)
+ * A próxima página é pedida com o cursor desta, sem OFFSET: o custo não cresce com o número da página
+ */
+public class Page<T> {
+    
+    private final List<T> itens;
+    private final Cursor proximoCursor;
+    
+    Page(List<T> itens, Cursor proximoCursor) {
+        this.itens = Collections.unmodifiableList(itens);
+        this.proximoCursor = proximoCursor;
+    }
+    
+    /**
+     * Itens da página, na ordem da consulta
+     */
+    public List<T> getItens() {
+        return itens;
+    }
+    
+    /**
+     * Cursor para buscar a próxima página (null na última)
+     */
+    public Cursor getProximoCursor() {
+        return proximoCursor;
+    }
+    
+    public boolean hasNext() {
+        return proximoCursor != null;
+    }
+    
+    /**
+     * Posição da última linha lida: valor da coluna de ordenação e ID (desempate)
+     */
+    public static class Cursor {
+        private final Object valor;
+        private final long id;
+        
+        Cursor(Object valor, long id) {
+            this.valor = valor;
+            this.id = id;
+        }
+        
+        Object getValor() {
+            return valor;
+        }
+        
+        long getId() {
+            return id;
+        }
+        
+        @Override
+        public String toString() {
+            return "Cursor{" + valor + ", id=" + id + '}';
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.shiftly.repository;
 
+import com.shiftly.model.JornadaDiaria;
 import com.shiftly.model.Ponto;
 import com.shiftly.model.TipoPonto;
 
@@ -8,27 +9,131 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 /**
  * Repository para gerenciar registros de ponto
  */
 public class PontoRepository extends BaseRepository<Ponto, Long> {
     
+    // Jornada diária mantida na mesma transação dos pontos
+    private final JornadaDiariaRepository jornadaRepository = new JornadaDiariaRepository();
+    
+    // Consulta por período com intervalo semiaberto em data_hora (sem CAST), usada pelos dashboards
+    static final String SQL_FIND_BY_USUARIO_E_PERIODO = """
+        SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+               face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+               data_correcao, motivo_correcao, data_criacao
+        FROM pontos 
+        WHERE usuario_id = ? AND data_hora >= ? AND data_hora < ?
+        ORDER BY data_hora
+        """;
+    
+    // Comandos do registro de ponto, preparados uma vez por conexão (StatementCache)
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_ID = SqlRegistry.register("ponto.findById", """
+        SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+               face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+               data_correcao, motivo_correcao, data_criacao
+        FROM pontos WHERE id = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_PERIODO = SqlRegistry.register(
+        "ponto.findByUsuarioIdAndPeriodo", SQL_FIND_BY_USUARIO_E_PERIODO);
+    
+    private static final SqlRegistry.NamedSql SQL_ULTIMO_PONTO = SqlRegistry.register("ponto.findUltimoByUsuarioId",
+        dialeto -> dialeto.limit("""
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos
+            WHERE usuario_id = ?
+            ORDER BY data_hora DESC
+            """, 1));
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_CHAVE_NATURAL = SqlRegistry.register(
+        "ponto.existsByUsuarioIdAndDataHoraAndTipo",
+        "SELECT 1 FROM pontos WHERE usuario_id = ? AND data_hora = ? AND tipo_ponto = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_MAX_ID_CHAVE_NATURAL = SqlRegistry.register(
+        "ponto.maxIdByChaveNatural",
+        "SELECT MAX(id) FROM pontos WHERE usuario_id = ? AND data_hora = ? AND tipo_ponto = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_DIA_ATUAL = SqlRegistry.register(
+        "ponto.diaAtual", "SELECT usuario_id, data_hora FROM pontos WHERE id = ?");
+    
+    // data_atualizacao é a marca de alteração lida pela sincronização H2 → SQL Server: toda gravação a renova
+    private static final SqlRegistry.NamedSql SQL_INSERT = SqlRegistry.register("ponto.insert", """
+        INSERT INTO pontos (usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                          face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                          data_correcao, motivo_correcao, data_criacao, data_atualizacao)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_UPDATE = SqlRegistry.register("ponto.update", """
+        UPDATE pontos SET usuario_id = ?, data_hora = ?, tipo_ponto = ?, latitude = ?, longitude = ?,
+                        endereco = ?, precisao = ?, face_match = ?, face_validada = ?, observacoes = ?,
+                        manual = ?, corrigido_por_usuario_id = ?, data_correcao = ?, motivo_correcao = ?,
+                        data_atualizacao = ?
+        WHERE id = ?
+        """);
+    
+    // Demais comandos de texto fixo, também preparados uma vez por conexão
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL = SqlRegistry.register("ponto.findAll", """
+        SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+               face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+               data_correcao, motivo_correcao, data_criacao
+        FROM pontos ORDER BY data_hora DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_BY_ID = SqlRegistry.register("ponto.deleteById",
+        "DELETE FROM pontos WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_ID = SqlRegistry.register("ponto.existsById",
+        "SELECT 1 FROM pontos WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_COUNT = SqlRegistry.register("ponto.count",
+        "SELECT COUNT(*) FROM pontos");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_USUARIO_ID = SqlRegistry.register("ponto.findByUsuarioId", """
+        SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+               face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+               data_correcao, motivo_correcao, data_criacao
+        FROM pontos WHERE usuario_id = ? ORDER BY data_hora DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_PONTOS_MANUAIS = SqlRegistry.register("ponto.findPontosManuais", """
+        SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+               face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+               data_correcao, motivo_correcao, data_criacao
+        FROM pontos 
+        WHERE manual = ? 
+        ORDER BY data_correcao DESC
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_PONTOS_SEM_VALIDACAO_FACIAL = SqlRegistry.register("ponto.findPontosSemValidacaoFacial", """
+        SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+               face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+               data_correcao, motivo_correcao, data_criacao
+        FROM pontos 
+        WHERE face_validada = ? 
+        ORDER BY data_hora DESC
+        """);
+    
     @Override
     public Optional<Ponto> findById(Long id) {
         if (id == null) return Optional.empty();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos WHERE id = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -44,15 +149,8 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
     @Override
     public List<Ponto> findAll() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos ORDER BY data_hora DESC
-                """;
-            
             List<Ponto> pontos = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL);
                  ResultSet rs = stmt.executeQuery()) {
                 
                 while (rs.next()) {
@@ -69,11 +167,69 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
             throw new IllegalArgumentException("Ponto não pode ser nulo");
         }
         
+        boolean novo = ponto.getId() == null;
         return executeWithConnection(conn -> {
-            if (ponto.getId() == null) {
-                return insert(conn, ponto);
-            } else {
-                return update(conn, ponto);
+            try {
+                return executeInTransaction(conn, () -> {
+                    Map<Long, Set<LocalDate>> diasAfetados = new HashMap<>();
+                    if (novo) {
+                        insert(conn, ponto);
+                    } else {
+                        // Uma correção pode mover o ponto de dia: recalcula o dia antigo também
+                        registrarDiaAtual(conn, ponto.getId(), diasAfetados);
+                        update(conn, ponto);
+                    }
+                    registrarDia(diasAfetados, ponto.getUsuarioId(), ponto.getDataHora());
+                    jornadaRepository.recalcular(conn, diasAfetados);
+                    return ponto;
+                });
+            } catch (SQLException e) {
+                // ID atribuído antes do rollback não é válido
+                if (novo) {
+                    ponto.setId(null);
+                }
+                throw e;
+            }
+        });
+    }
+    
+    /**
+     * Salva vários pontos em uma única transação usando batch JDBC
+     * Os pontos novos recebem os IDs gerados, na mesma ordem da lista
+     */
+    public List<Ponto> saveAll(List<Ponto> pontos) {
+        if (pontos == null || pontos.isEmpty()) return new ArrayList<>();
+        
+        return executeWithConnection(conn -> {
+            List<Ponto> novos = new ArrayList<>();
+            List<Ponto> existentes = new ArrayList<>();
+            for (Ponto ponto : pontos) {
+                if (ponto.getId() == null) {
+                    novos.add(ponto);
+                } else {
+                    existentes.add(ponto);
+                }
+            }
+            
+            try {
+                return executeInTransaction(conn, () -> {
+                    Map<Long, Set<LocalDate>> diasAfetados = new HashMap<>();
+                    insertBatch(conn, novos);
+                    for (Ponto ponto : existentes) {
+                        registrarDiaAtual(conn, ponto.getId(), diasAfetados);
+                        update(conn, ponto);
+                    }
+                    for (Ponto ponto : pontos) {
+                        registrarDia(diasAfetados, ponto.getUsuarioId(), ponto.getDataHora());
+                    }
+                    jornadaRepository.recalcular(conn, diasAfetados);
+                    return pontos;
+                });
+            } catch (SQLException | RuntimeException e) {
+                // IDs atribuídos antes do rollback não são válidos; sem limpá-los, a nova tentativa
+                // (ex.: divisão do lote na fila de ingestão) faria UPDATE em vez de INSERT
+                novos.forEach(ponto -> ponto.setId(null));
+                throw e;
             }
         });
     }
@@ -82,14 +238,22 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
     public boolean deleteById(Long id) {
         if (id == null) return false;
         
-        return executeWithConnection(conn -> {
-            String sql = "DELETE FROM pontos WHERE id = ?";
+        return executeWithConnection(conn -> executeInTransaction(conn, () -> {
+            Map<Long, Set<LocalDate>> diasAfetados = new HashMap<>();
+            registrarDiaAtual(conn, id, diasAfetados);
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            boolean deletado;
+            try (PreparedStatement stmt = prepare(conn, SQL_DELETE_BY_ID)) {
                 stmt.setLong(1, id);
-                return stmt.executeUpdate() > 0;
+                deletado = stmt.executeUpdate() > 0;
             }
-        });
+            if (deletado) {
+                registrarExclusao(conn, "pontos", id);
+            }
+            
+            jornadaRepository.recalcular(conn, diasAfetados);
+            return deletado;
+        }));
     }
     
     @Override
@@ -97,9 +261,7 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
         if (id == null) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM pontos WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -112,15 +274,110 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
     @Override
     public long count() {
         return executeWithConnection(conn -> {
-            String sql = "SELECT COUNT(*) FROM pontos";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_COUNT);
                  ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? rs.getLong(1) : 0L;
             }
         });
     }
     
+    @Override
+    public List<Ponto> findAllByIds(Collection<Long> ids) {
+        return findAllByIdsInBatches(ids, """
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos WHERE id IN (%s)
+            """, this::mapResultSetToPonto);
+    }
+    
+    /**
+     * Busca uma página de pontos, do mais recente para o mais antigo
+     */
+    public Page<Ponto> findPage(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos
+            """, null, List.of(), "data_hora", true, apos, tamanho, this::mapResultSetToPonto);
+    }
+    
+    /**
+     * Busca uma página do histórico de pontos do usuário, do mais recente para o mais antigo
+     */
+    public Page<Ponto> findPageByUsuarioId(Long usuarioId, Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos
+            """, "usuario_id = ?", List.of(usuarioId), "data_hora", true, apos, tamanho, this::mapResultSetToPonto);
+    }
+    
+    /**
+     * Busca uma página do histórico do usuário no período (datas inclusivas), do mais recente para o mais antigo
+     */
+    public Page<Ponto> findPageByUsuarioIdAndPeriodo(Long usuarioId, LocalDate dataInicio, LocalDate dataFim,
+                                                     Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos
+            """, "usuario_id = ? AND data_hora >= ? AND data_hora < ?",
+            List.of(usuarioId, inicioDoDia(dataInicio), inicioDoDia(dataFim.plusDays(1))),
+            "data_hora", true, apos, tamanho, this::mapResultSetToPonto);
+    }
+    
+    /**
+     * Percorre todos os pontos com um cursor, sem carregar a tabela em memória
+     * O Stream mantém uma conexão aberta e deve ser fechado (try-with-resources)
+     */
+    public Stream<Ponto> streamAll() {
+        return streamQuery("""
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos ORDER BY data_hora, id
+            """, List.of(), this::mapResultSetToPonto);
+    }
+    
+    /**
+     * Percorre os pontos de todos os usuários no período (datas inclusivas) com um cursor
+     * O Stream mantém uma conexão aberta e deve ser fechado (try-with-resources)
+     */
+    public Stream<Ponto> streamByPeriodo(LocalDate inicio, LocalDate fim) {
+        return streamQuery("""
+            SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                   face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                   data_correcao, motivo_correcao, data_criacao
+            FROM pontos WHERE data_hora >= ? AND data_hora < ?
+            ORDER BY data_hora, id
+            """, List.of(Timestamp.valueOf(inicio.atStartOfDay()), Timestamp.valueOf(fim.plusDays(1).atStartOfDay())),
+            this::mapResultSetToPonto);
+    }
+    
+    /**
+     * Verifica se já existe ponto do usuário com a mesma data/hora e tipo
+     * Usado para tornar idempotente o reenvio de pontos do cache offline
+     */
+    public boolean existsByUsuarioIdAndDataHoraAndTipo(Long usuarioId, LocalDateTime dataHora, TipoPonto tipoPonto) {
+        if (usuarioId == null || dataHora == null || tipoPonto == null) return false;
+        
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_CHAVE_NATURAL)) {
+                stmt.setLong(1, usuarioId);
+                stmt.setTimestamp(2, Timestamp.valueOf(dataHora));
+                stmt.setString(3, tipoPonto.name());
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
+                }
+            }
+        });
+    }
+    
     /**
      * Busca pontos por usuário
      */
@@ -128,15 +385,8 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
         if (usuarioId == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos WHERE usuario_id = ? ORDER BY data_hora DESC
-                """;
-            
             List<Ponto> pontos = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_USUARIO_ID)) {
                 stmt.setLong(1, usuarioId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -153,22 +403,22 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
      * Busca pontos por usuário e data
      */
     public List<Ponto> findByUsuarioIdAndData(Long usuarioId, LocalDate data) {
-        if (usuarioId == null || data == null) return new ArrayList<>();
+        return findByUsuarioIdAndPeriodo(usuarioId, data, data);
+    }
+    
+    /**
+     * Busca pontos por usuário em um período
+     * Usa intervalo semiaberto [início, fim + 1 dia) em data_hora para aproveitar o índice IX_pontos_usuario_data
+     */
+    public List<Ponto> findByUsuarioIdAndPeriodo(Long usuarioId, LocalDate dataInicio, LocalDate dataFim) {
+        if (usuarioId == null || dataInicio == null || dataFim == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos 
-                WHERE usuario_id = ? AND CAST(data_hora AS DATE) = ?
-                ORDER BY data_hora
-                """;
-            
             List<Ponto> pontos = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_PERIODO)) {
                 stmt.setLong(1, usuarioId);
-                stmt.setDate(2, Date.valueOf(data));
+                stmt.setTimestamp(2, inicioDoDia(dataInicio));
+                stmt.setTimestamp(3, inicioDoDia(dataFim.plusDays(1)));
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
@@ -181,30 +431,43 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
     }
     
     /**
-     * Busca pontos por usuário em um período
+     * Busca pontos de vários usuários em um período com uma consulta por bloco de IDs
+     * Resultado ordenado por usuário e data/hora
      */
-    public List<Ponto> findByUsuarioIdAndPeriodo(Long usuarioId, LocalDate dataInicio, LocalDate dataFim) {
-        if (usuarioId == null || dataInicio == null || dataFim == null) return new ArrayList<>();
+    public List<Ponto> findByUsuarioIdsAndPeriodo(Collection<Long> usuarioIds, LocalDate dataInicio, LocalDate dataFim) {
+        if (usuarioIds == null || usuarioIds.isEmpty() || dataInicio == null || dataFim == null) return new ArrayList<>();
+        
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(usuarioIds));
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos 
-                WHERE usuario_id = ? AND CAST(data_hora AS DATE) BETWEEN ? AND ?
-                ORDER BY data_hora
-                """;
-            
             List<Ponto> pontos = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setLong(1, usuarioId);
-                stmt.setDate(2, Date.valueOf(dataInicio));
-                stmt.setDate(3, Date.valueOf(dataFim));
+            
+            // Limita o número de parâmetros por consulta (SQL Server aceita até 2100)
+            for (int inicio = 0; inicio < ids.size(); inicio += MAX_IDS_POR_CONSULTA) {
+                List<Long> bloco = ids.subList(inicio, Math.min(inicio + MAX_IDS_POR_CONSULTA, ids.size()));
+                String placeholders = String.join(", ", Collections.nCopies(bloco.size(), "?"));
                 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        pontos.add(mapResultSetToPonto(rs));
+                String sql = """
+                    SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
+                           face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
+                           data_correcao, motivo_correcao, data_criacao
+                    FROM pontos 
+                    WHERE usuario_id IN (%s) AND data_hora >= ? AND data_hora < ?
+                    ORDER BY usuario_id, data_hora
+                    """.formatted(placeholders);
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Long id : bloco) {
+                        stmt.setLong(index++, id);
+                    }
+                    stmt.setTimestamp(index++, inicioDoDia(dataInicio));
+                    stmt.setTimestamp(index, inicioDoDia(dataFim.plusDays(1)));
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            pontos.add(mapResultSetToPonto(rs));
+                        }
                     }
                 }
             }
@@ -219,17 +482,7 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
         if (usuarioId == null) return Optional.empty();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos 
-                WHERE usuario_id = ? 
-                ORDER BY data_hora DESC 
-                LIMIT 1
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_ULTIMO_PONTO)) {
                 stmt.setLong(1, usuarioId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -254,17 +507,8 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
      */
     public List<Ponto> findPontosManuais() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos 
-                WHERE manual = ? 
-                ORDER BY data_correcao DESC
-                """;
-            
             List<Ponto> pontos = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_PONTOS_MANUAIS)) {
                 stmt.setBoolean(1, true);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -282,17 +526,8 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
      */
     public List<Ponto> findPontosSemValidacaoFacial() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                       face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                       data_correcao, motivo_correcao, data_criacao
-                FROM pontos 
-                WHERE face_validada = ? 
-                ORDER BY data_hora DESC
-                """;
-            
             List<Ponto> pontos = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_PONTOS_SEM_VALIDACAO_FACIAL)) {
                 stmt.setBoolean(1, false);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -307,41 +542,70 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
     
     /**
      * Conta horas trabalhadas de um usuário em uma data
+     * Lê a jornada diária consolidada em vez de parear os pontos
      */
     public double calcularHorasTrabalhadasNaData(Long usuarioId, LocalDate data) {
-        List<Ponto> pontos = findByUsuarioIdAndData(usuarioId, data);
-        
-        if (pontos.isEmpty()) return 0.0;
-        
-        double totalHoras = 0.0;
-        LocalDateTime entrada = null;
-        
-        for (Ponto ponto : pontos) {
-            if (ponto.getTipoPonto().isEntrada()) {
-                entrada = ponto.getDataHora();
-            } else if (ponto.getTipoPonto().isSaida() && entrada != null) {
-                long minutosTrabalho = java.time.Duration.between(entrada, ponto.getDataHora()).toMinutes();
-                totalHoras += minutosTrabalho / 60.0;
-                entrada = null;
+        return jornadaRepository.findByUsuarioIdAndData(usuarioId, data)
+            .map(JornadaDiaria::getHorasTrabalhadas)
+            .orElse(0.0);
+    }
+    
+    /**
+     * Executa uma operação em transação, desfazendo tudo em caso de erro
+     */
+    private <R> R executeInTransaction(Connection conn, TransactionWork<R> work) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            R result = work.execute();
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+    
+    /**
+     * Registra o dia em que o ponto está gravado hoje no banco (antes de alterá-lo ou removê-lo)
+     */
+    private void registrarDiaAtual(Connection conn, Long pontoId, Map<Long, Set<LocalDate>> diasAfetados) throws SQLException {
+        try (PreparedStatement stmt = prepare(conn, SQL_DIA_ATUAL)) {
+            stmt.setLong(1, pontoId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    registrarDia(diasAfetados, rs.getLong("usuario_id"), rs.getTimestamp("data_hora").toLocalDateTime());
+                }
             }
         }
-        
-        return totalHoras;
+    }
+    
+    /**
+     * Adiciona o dia de um ponto ao conjunto de jornadas a recalcular
+     */
+    private static void registrarDia(Map<Long, Set<LocalDate>> diasAfetados, Long usuarioId, LocalDateTime dataHora) {
+        diasAfetados.computeIfAbsent(usuarioId, id -> new TreeSet<>()).add(dataHora.toLocalDate());
+    }
+    
+    /**
+     * Bloco de trabalho executado dentro de uma transação já aberta
+     */
+    @FunctionalInterface
+    private interface TransactionWork<R> {
+        R execute() throws SQLException;
     }
     
     /**
      * Insere um novo ponto
      */
     private Ponto insert(Connection conn, Ponto ponto) throws SQLException {
-        String sql = """
-            INSERT INTO pontos (usuario_id, data_hora, tipo_ponto, latitude, longitude, endereco, precisao,
-                              face_match, face_validada, observacoes, manual, corrigido_por_usuario_id,
-                              data_correcao, motivo_correcao, data_criacao)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             setPontoParameters(stmt, ponto);
+            stmt.setTimestamp(15, Timestamp.valueOf(ponto.getDataCriacao()));
+            stmt.setTimestamp(16, Timestamp.valueOf(LocalDateTime.now()));
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -358,20 +622,64 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
         return ponto;
     }
     
+    /**
+     * Insere vários pontos com um único executeBatch
+     */
+    private void insertBatch(Connection conn, List<Ponto> pontos) throws SQLException {
+        if (pontos.isEmpty()) return;
+        
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+            for (Ponto ponto : pontos) {
+                setPontoParameters(stmt, ponto);
+                stmt.setTimestamp(15, Timestamp.valueOf(ponto.getDataCriacao()));
+                stmt.setTimestamp(16, agora);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            
+            int index = 0;
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                while (generatedKeys.next() && index < pontos.size()) {
+                    pontos.get(index++).setId(generatedKeys.getLong(1));
+                }
+            }
+            
+            // Alguns drivers (ex.: SQL Server) só devolvem a última chave de um batch
+            if (index < pontos.size()) {
+                resolveIdsByNaturalKey(conn, pontos);
+            }
+        }
+    }
+    
+    /**
+     * Obtém os IDs dos pontos recém-inseridos pela chave natural (usuário, data/hora, tipo)
+     */
+    private void resolveIdsByNaturalKey(Connection conn, List<Ponto> pontos) throws SQLException {
+        try (PreparedStatement stmt = prepare(conn, SQL_MAX_ID_CHAVE_NATURAL)) {
+            for (Ponto ponto : pontos) {
+                stmt.setLong(1, ponto.getUsuarioId());
+                stmt.setTimestamp(2, Timestamp.valueOf(ponto.getDataHora()));
+                stmt.setString(3, ponto.getTipoPonto().name());
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        long id = rs.getLong(1);
+                        ponto.setId(rs.wasNull() ? null : id);
+                    }
+                }
+            }
+        }
+    }
+    
     /**
      * Atualiza um ponto existente
      */
     private Ponto update(Connection conn, Ponto ponto) throws SQLException {
-        String sql = """
-            UPDATE pontos SET usuario_id = ?, data_hora = ?, tipo_ponto = ?, latitude = ?, longitude = ?,
-                            endereco = ?, precisao = ?, face_match = ?, face_validada = ?, observacoes = ?,
-                            manual = ?, corrigido_por_usuario_id = ?, data_correcao = ?, motivo_correcao = ?
-            WHERE id = ?
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_UPDATE)) {
             setPontoParameters(stmt, ponto);
-            stmt.setLong(15, ponto.getId());
+            stmt.setTimestamp(15, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.setLong(16, ponto.getId());
             
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
@@ -383,7 +691,7 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
     }
     
     /**
-     * Define os parâmetros do ponto no PreparedStatement
+     * Define os parâmetros de 1 a 14, comuns ao INSERT e ao UPDATE
      */
     private void setPontoParameters(PreparedStatement stmt, Ponto ponto) throws SQLException {
         stmt.setLong(1, ponto.getUsuarioId());
@@ -428,7 +736,13 @@ public class PontoRepository extends BaseRepository<Ponto, Long> {
         }
         
         stmt.setString(14, ponto.getMotivoCorrecao());
-        stmt.setTimestamp(15, Timestamp.valueOf(ponto.getDataCriacao()));
+    }
+    
+    /**
+     * Converte uma data no timestamp de início do dia
+     */
+    private static Timestamp inicioDoDia(LocalDate data) {
+        return Timestamp.valueOf(data.atStartOfDay());
     }
     
     /**
@@ -0,0 +1,18 @@
+package com.shiftly.repository;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Nenhuma conexão do pool ficou livre dentro do tempo de espera
+ * Indica pool saturado, não banco fora do ar: não deve acionar a troca para o H2
+ */
+public class PoolExhaustedException extends SQLTransientConnectionException {
+    
+    public PoolExhaustedException(String message) {
+        super(message);
+    }
+    
+    public PoolExhaustedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,94 @@
+package com.shiftly.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Diferenças de sintaxe entre SQL Server e H2 usadas pelos repositórios
+ * Os comandos são montados uma vez por dialeto no SqlRegistry; nenhum método aqui envolve colunas em funções
+ * no WHERE, para as consultas continuarem usando os índices
+ * H2 com MODE=MSSQLServer na URL usa o dialeto do SQL Server, o que permite testar os comandos do SQL Server
+ * sem o servidor
+ */
+public enum SqlDialect {
+    SQL_SERVER,
+    H2;
+    
+    /**
+     * Dialeto de um banco
+     */
+    public static SqlDialect of(DatabaseConfig.DatabaseType databaseType) {
+        if (databaseType == DatabaseConfig.DatabaseType.H2 && !DatabaseConfig.isH2InSqlServerMode()) {
+            return H2;
+        }
+        return SQL_SERVER;
+    }
+    
+    /**
+     * Dialeto da conexão (do pool ou física)
+     * Preferível a current() dentro de executeWithConnection: durante um failover o banco atual pode mudar
+     * entre a escolha da conexão e a montagem do comando
+     */
+    public static SqlDialect of(Connection conn) throws SQLException {
+        return of(SqlRegistry.databaseTypeOf(conn));
+    }
+    
+    /**
+     * Dialeto do banco em uso (DatabaseConfig.getCurrentDatabaseType())
+     */
+    public static SqlDialect current() {
+        return of(DatabaseConfig.getCurrentDatabaseType());
+    }
+    
+    /**
+     * Limita um SELECT às primeiras linhas: TOP n no SQL Server, LIMIT n no H2
+     */
+    public String limit(String select, int linhas) {
+        switch (this) {
+            case SQL_SERVER:
+                return select.stripLeading().replaceFirst("(?i)^SELECT\\s", "SELECT TOP " + linhas + " ");
+            default:
+                return select.stripTrailing() + "\nLIMIT " + linhas + "\n";
+        }
+    }
+    
+    /**
+     * Limita um SELECT ordenado ao número de linhas do último parâmetro
+     * No SQL Server usa OFFSET/FETCH (exige ORDER BY) em vez de TOP (?), para o parâmetro ficar na mesma
+     * posição nos dois bancos
+     */
+    public String limitParameter(String selectOrdenado) {
+        switch (this) {
+            case SQL_SERVER:
+                return selectOrdenado.stripTrailing() + "\nOFFSET 0 ROWS FETCH NEXT ? ROWS ONLY\n";
+            default:
+                return selectOrdenado.stripTrailing() + "\nLIMIT ?\n";
+        }
+    }
+    
+    /**
+     * Data atual do servidor, sem hora (SQL Server não tem CURRENT_DATE)
+     */
+    public String currentDate() {
+        switch (this) {
+            case SQL_SERVER:
+                return "CAST(GETDATE() AS DATE)";
+            default:
+                return "CURRENT_DATE";
+        }
+    }
+    
+    /**
+     * Soma dias a uma data; dias pode ser um parâmetro (?)
+     */
+    public String addDays(String data, String dias) {
+        return "DATEADD(DAY, " + dias + ", " + data + ")";
+    }
+    
+    /**
+     * Dias entre duas datas (fim - início)
+     */
+    public String daysBetween(String inicio, String fim) {
+        return "DATEDIFF(DAY, " + inicio + ", " + fim + ")";
+    }
+}
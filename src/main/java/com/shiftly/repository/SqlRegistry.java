@@ -0,0 +1,150 @@
+package com.shiftly.repository;
+
+import org.h2.jdbc.JdbcConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registro central dos comandos SQL nomeados dos repositórios
+ * Cada comando tem um texto por dialeto (SQL Server e H2), escolhido pela conexão em uso; o texto é sempre
+ * a mesma String, o que mantém estável a chave do StatementCache e permite reaproveitar o statement preparado.
+ * Só esses textos passam pelo StatementCache: SQL montado na hora (ex.: listas IN de tamanho variável)
+ * geraria uma chave nova por chamada e tiraria do cache os comandos frequentes
+ */
+public class SqlRegistry {
+    
+    private static final Map<String, NamedSql> comandos = new ConcurrentHashMap<>();
+    
+    // Textos de todos os dialetos dos comandos registrados
+    private static final Set<String> textos = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Registra um comando com o mesmo texto nos dois bancos
+     */
+    public static NamedSql register(String nome, String sql) {
+        return register(nome, sql, sql);
+    }
+    
+    /**
+     * Registra um comando montado para cada dialeto (ver SqlDialect)
+     */
+    public static NamedSql register(String nome, Function<SqlDialect, String> montador) {
+        return register(nome, montador.apply(SqlDialect.SQL_SERVER), montador.apply(SqlDialect.H2));
+    }
+    
+    /**
+     * Registra um comando com textos diferentes para SQL Server e H2
+     * Registrar de novo o mesmo nome com outro texto é erro (dois repositórios usando o mesmo nome)
+     */
+    public static NamedSql register(String nome, String sqlServer, String h2) {
+        NamedSql novo = new NamedSql(nome, sqlServer, h2);
+        NamedSql existente = comandos.putIfAbsent(nome, novo);
+        if (existente == null) {
+            textos.add(sqlServer);
+            textos.add(h2);
+            return novo;
+        }
+        if (!existente.sqlServer.equals(sqlServer) || !existente.h2.equals(h2)) {
+            throw new IllegalStateException("Comando SQL já registrado com outro texto: " + nome);
+        }
+        return existente;
+    }
+    
+    /**
+     * Obtém um comando pelo nome
+     */
+    public static NamedSql get(String nome) {
+        NamedSql comando = comandos.get(nome);
+        if (comando == null) {
+            throw new IllegalArgumentException("Comando SQL não registrado: " + nome);
+        }
+        return comando;
+    }
+    
+    /**
+     * Indica se o texto é de um comando registrado, ou seja, elegível para o StatementCache
+     */
+    static boolean isRegistered(String sql) {
+        return textos.contains(sql);
+    }
+    
+    /**
+     * Banco de uma conexão (do pool ou física), para escolher a variante do comando
+     */
+    public static DatabaseConfig.DatabaseType databaseTypeOf(Connection conn) throws SQLException {
+        return conn.isWrapperFor(JdbcConnection.class)
+            ? DatabaseConfig.DatabaseType.H2
+            : DatabaseConfig.DatabaseType.SQL_SERVER;
+    }
+    
+    /**
+     * Obtém estatísticas do registro
+     */
+    public static String getStats() {
+        Map<String, NamedSql> ordenados = new TreeMap<>(comandos);
+        long comVariantes = ordenados.values().stream().filter(NamedSql::hasVariants).count();
+        
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== COMANDOS SQL REGISTRADOS ===\n");
+        stats.append("Comandos: ").append(ordenados.size()).append("\n");
+        stats.append("Com variante por banco: ").append(comVariantes).append("\n");
+        ordenados.values().forEach(comando -> stats.append("  ").append(comando.getName())
+            .append(comando.hasVariants() ? " (SQL Server/H2)" : "").append("\n"));
+        return stats.toString();
+    }
+    
+    /**
+     * Comando SQL nomeado, com o texto de cada banco
+     */
+    public static class NamedSql {
+        private final String name;
+        private final String sqlServer;
+        private final String h2;
+        
+        private NamedSql(String name, String sqlServer, String h2) {
+            this.name = name;
+            this.sqlServer = sqlServer;
+            this.h2 = h2;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Texto do comando para o dialeto informado
+         */
+        public String getSql(SqlDialect dialect) {
+            return dialect == SqlDialect.H2 ? h2 : sqlServer;
+        }
+        
+        /**
+         * Texto do comando para o banco informado
+         */
+        public String getSql(DatabaseConfig.DatabaseType databaseType) {
+            return getSql(SqlDialect.of(databaseType));
+        }
+        
+        /**
+         * Texto do comando para o banco da conexão
+         */
+        public String getSql(Connection conn) throws SQLException {
+            return getSql(SqlDialect.of(conn));
+        }
+        
+        public boolean hasVariants() {
+            return !sqlServer.equals(h2);
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.shiftly.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de PreparedStatements de uma conexão física do pool
+ * prepareStatement(sql) devolve um statement já preparado para o mesmo SQL quando houver um livre,
+ * poupando o parse no H2 e o round trip de prepare no SQL Server; o close() do proxy o devolve ao cache
+ * Os statements mais antigos são fechados quando o cache passa do limite (LRU)
+ * O pool só envia para cá os textos do SqlRegistry; SQL avulso não entra no cache
+ */
+class StatementCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+    
+    // Alterar estas propriedades muda o comportamento das próximas execuções: o statement não volta ao cache
+    private static final Set<String> ALTERACOES_DE_ESTADO = Set.of(
+        "setMaxRows", "setLargeMaxRows", "setFetchSize", "setFetchDirection", "setQueryTimeout",
+        "setMaxFieldSize", "setEscapeProcessing", "setCursorName", "setPoolable", "closeOnCompletion");
+    
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    
+    // Ordem de acesso: o primeiro é o usado há mais tempo
+    private final LinkedHashMap<Chave, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    
+    /**
+     * Os contadores são do pool, compartilhados por todas as conexões dele
+     */
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+    
+    /**
+     * Obtém um statement para o SQL, reaproveitando um livre do cache
+     * Se o mesmo SQL já estiver em uso nesta conexão, prepara um avulso, fechado normalmente no close()
+     */
+    synchronized PreparedStatement prepare(Connection lease, String sql, int autoGeneratedKeys) throws SQLException {
+        Chave chave = new Chave(sql, autoGeneratedKeys);
+        Entrada entrada = entradas.get(chave);
+        
+        if (entrada != null && !entrada.emUso) {
+            hits.incrementAndGet();
+            entrada.emUso = true;
+            return entrada.novoProxy(lease);
+        }
+        
+        misses.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+            ? physical.prepareStatement(sql)
+            : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entrada != null) {
+            return statement;
+        }
+        
+        Entrada nova = new Entrada(chave, statement);
+        nova.emUso = true;
+        entradas.put(chave, nova);
+        removerExcedentes();
+        return nova.novoProxy(lease);
+    }
+    
+    /**
+     * Chamado quando a conexão volta ao pool: statements não fechados pelo código que a usou são descartados
+     */
+    synchronized void liberar() {
+        Iterator<Entrada> iterator = entradas.values().iterator();
+        while (iterator.hasNext()) {
+            Entrada entrada = iterator.next();
+            if (entrada.emUso) {
+                logger.debug("Statement não fechado descartado do cache: {}", entrada.chave.sql);
+                iterator.remove();
+                fechar(entrada.statement);
+            }
+        }
+    }
+    
+    /**
+     * Fecha todos os statements (conexão física sendo descartada)
+     */
+    synchronized void fecharTodos() {
+        for (Entrada entrada : entradas.values()) {
+            fechar(entrada.statement);
+        }
+        entradas.clear();
+    }
+    
+    synchronized int size() {
+        return entradas.size();
+    }
+    
+    /**
+     * Devolve o statement ao cache, pronto para a próxima execução
+     */
+    private synchronized void devolver(Entrada entrada, boolean alterado) {
+        entrada.emUso = false;
+        if (entradas.get(entrada.chave) != entrada) {
+            fechar(entrada.statement);
+            return;
+        }
+        
+        try {
+            if (alterado || entrada.statement.isClosed()) {
+                throw new SQLException("Statement com estado alterado");
+            }
+            entrada.statement.clearParameters();
+            if (entrada.usouBatch) {
+                entrada.statement.clearBatch();
+                entrada.usouBatch = false;
+            }
+        } catch (SQLException e) {
+            entradas.remove(entrada.chave);
+            fechar(entrada.statement);
+            return;
+        }
+        removerExcedentes();
+    }
+    
+    /**
+     * Fecha os statements livres mais antigos até o cache voltar ao limite
+     */
+    private void removerExcedentes() {
+        Iterator<Entrada> iterator = entradas.values().iterator();
+        while (entradas.size() > maxSize && iterator.hasNext()) {
+            Entrada entrada = iterator.next();
+            if (!entrada.emUso) {
+                iterator.remove();
+                evictions.incrementAndGet();
+                fechar(entrada.statement);
+            }
+        }
+    }
+    
+    private static void fechar(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Erro ao fechar statement do cache: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * SQL e modo de chaves geradas: o mesmo texto preparado com RETURN_GENERATED_KEYS é outro statement
+     */
+    private record Chave(String sql, int autoGeneratedKeys) {
+    }
+    
+    /**
+     * Statement físico mantido no cache
+     */
+    private class Entrada {
+        private final Chave chave;
+        private final PreparedStatement statement;
+        private boolean emUso;
+        private boolean usouBatch;
+        
+        Entrada(Chave chave, PreparedStatement statement) {
+            this.chave = chave;
+            this.statement = statement;
+        }
+        
+        /**
+         * Proxy válido até o próximo close(), que devolve o statement ao cache
+         */
+        PreparedStatement novoProxy(Connection lease) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandler(this, lease));
+        }
+    }
+    
+    /**
+     * Intercepta close() para devolver o statement ao cache
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Entrada entrada;
+        private final Connection lease;
+        private boolean fechado;
+        private boolean alterado;
+        
+        StatementHandler(Entrada entrada, Connection lease) {
+            this.entrada = entrada;
+            this.lease = lease;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            switch (nome) {
+                case "close":
+                    if (!fechado) {
+                        fechado = true;
+                        devolver(entrada, alterado);
+                    }
+                    return null;
+                case "isClosed":
+                    return fechado || entrada.statement.isClosed();
+                case "getConnection":
+                    return lease;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entrada.chave.sql.strip() + "]";
+                case "addBatch":
+                    entrada.usouBatch = true;
+                    break;
+                default:
+                    if (ALTERACOES_DE_ESTADO.contains(nome)) {
+                        alterado = true;
+                    }
+                    break;
+            }
+            
+            if (fechado) {
+                throw new SQLException("Statement já foi fechado");
+            }
+            
+            try {
+                return method.invoke(entrada.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
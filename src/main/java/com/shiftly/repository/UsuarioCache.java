@@ -0,0 +1,264 @@
+package com.shiftly.repository;
+
+import com.shiftly.model.Usuario;
+import com.shiftly.util.ConfigUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de usuários em memória (read-through) com limite de tamanho (LRU) e expiração (TTL)
+ * Indexado por ID, email e CPF; devolve sempre cópias para que alterações não vazem para o cache
+ */
+public class UsuarioCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioCache.class);
+    
+    private static final boolean ENABLED = ConfigUtil.getBoolean("cache.usuario.enabled", true);
+    private static final int MAX_SIZE = ConfigUtil.getInt("cache.usuario.max.size", 1000);
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(ConfigUtil.getLong("cache.usuario.ttl.ms", 60000));
+    
+    // Entradas por ID em ordem de acesso (LRU); índices secundários apontam para o ID
+    private static final LinkedHashMap<Long, CacheEntry> porId = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, Long> porEmail = new HashMap<>();
+    private static final Map<String, Long> porCpf = new HashMap<>();
+    
+    // Incrementada a cada invalidação; leituras iniciadas antes dela não são gravadas no cache
+    private static final AtomicLong geracao = new AtomicLong();
+    
+    // Métricas
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong expirations = new AtomicLong();
+    private static final AtomicLong invalidations = new AtomicLong();
+    
+    static {
+        // IDs e dados podem divergir entre SQL Server e H2: descarta tudo ao trocar de banco
+        DatabaseHealthMonitor.addListener(event -> {
+            if (event.getType() != DatabaseHealthMonitor.EventType.STATE_CHANGED) {
+                invalidateAll();
+            }
+        });
+    }
+    
+    /**
+     * Geração atual, capturada antes de consultar o banco
+     */
+    static long geracaoAtual() {
+        return geracao.get();
+    }
+    
+    /**
+     * Busca usuário pelo ID; retorna null em caso de miss
+     */
+    static Usuario getById(Long id) {
+        synchronized (UsuarioCache.class) {
+            return lookup(id);
+        }
+    }
+    
+    /**
+     * Busca usuário pelo email (sem diferenciar maiúsculas); retorna null em caso de miss
+     */
+    static Usuario getByEmail(String email) {
+        synchronized (UsuarioCache.class) {
+            return lookup(porEmail.get(normalizarEmail(email)));
+        }
+    }
+    
+    /**
+     * Busca usuário pelo CPF; retorna null em caso de miss
+     */
+    static Usuario getByCpf(String cpf) {
+        synchronized (UsuarioCache.class) {
+            return lookup(porCpf.get(cpf.trim()));
+        }
+    }
+    
+    /**
+     * Grava no cache um usuário lido do banco, se não houve invalidação desde o início da leitura
+     */
+    static void put(Usuario usuario, long geracaoLeitura) {
+        if (!ENABLED || usuario == null || usuario.getId() == null) {
+            return;
+        }
+        
+        synchronized (UsuarioCache.class) {
+            if (geracao.get() != geracaoLeitura) {
+                return;
+            }
+            
+            remover(usuario.getId());
+            porId.put(usuario.getId(), new CacheEntry(copiar(usuario), System.nanoTime() + TTL_NANOS));
+            if (usuario.getEmail() != null) {
+                porEmail.put(normalizarEmail(usuario.getEmail()), usuario.getId());
+            }
+            if (usuario.getCpf() != null) {
+                porCpf.put(usuario.getCpf().trim(), usuario.getId());
+            }
+            
+            // Remove os menos usados recentemente acima do limite
+            Iterator<Map.Entry<Long, CacheEntry>> iterator = porId.entrySet().iterator();
+            while (porId.size() > MAX_SIZE && iterator.hasNext()) {
+                Usuario antigo = iterator.next().getValue().usuario;
+                iterator.remove();
+                removerIndices(antigo);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Invalida um usuário (chamado após save/delete)
+     */
+    static void invalidate(Long id) {
+        synchronized (UsuarioCache.class) {
+            geracao.incrementAndGet();
+            if (id != null) {
+                remover(id);
+            }
+        }
+        invalidations.incrementAndGet();
+    }
+    
+    /**
+     * Invalida todo o cache
+     */
+    public static void invalidateAll() {
+        synchronized (UsuarioCache.class) {
+            geracao.incrementAndGet();
+            porId.clear();
+            porEmail.clear();
+            porCpf.clear();
+        }
+        invalidations.incrementAndGet();
+        logger.debug("Cache de usuários invalidado");
+    }
+    
+    /**
+     * Taxa de acertos desde o início (0 a 1)
+     */
+    public static double getHitRate() {
+        long totalHits = hits.get();
+        long total = totalHits + misses.get();
+        return total > 0 ? (double) totalHits / total : 0.0;
+    }
+    
+    /**
+     * Obtém estatísticas do cache
+     */
+    public static String getStats() {
+        int tamanho;
+        synchronized (UsuarioCache.class) {
+            tamanho = porId.size();
+        }
+        
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== CACHE DE USUÁRIOS ===\n");
+        stats.append("Habilitado: ").append(ENABLED ? "Sim" : "Não").append("\n");
+        stats.append("Entradas: ").append(tamanho).append("/").append(MAX_SIZE).append("\n");
+        stats.append("Acertos: ").append(hits.get()).append("\n");
+        stats.append("Falhas: ").append(misses.get()).append("\n");
+        stats.append(String.format("Taxa de acerto: %.1f%%%n", getHitRate() * 100));
+        stats.append("Removidos por LRU: ").append(evictions.get()).append("\n");
+        stats.append("Expirados: ").append(expirations.get()).append("\n");
+        stats.append("Invalidações: ").append(invalidations.get()).append("\n");
+        return stats.toString();
+    }
+    
+    /**
+     * Consulta uma entrada pelo ID, descartando se expirada (chamar com o lock da classe)
+     */
+    private static Usuario lookup(Long id) {
+        if (!ENABLED) {
+            return null;
+        }
+        
+        CacheEntry entry = id != null ? porId.get(id) : null;
+        if (entry != null && System.nanoTime() - entry.expiresAt > 0) {
+            remover(id);
+            expirations.incrementAndGet();
+            entry = null;
+        }
+        
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        hits.incrementAndGet();
+        return copiar(entry.usuario);
+    }
+    
+    /**
+     * Remove uma entrada e seus índices (chamar com o lock da classe)
+     */
+    private static void remover(Long id) {
+        CacheEntry entry = porId.remove(id);
+        if (entry != null) {
+            removerIndices(entry.usuario);
+        }
+    }
+    
+    /**
+     * Remove os índices secundários que ainda apontam para o usuário
+     */
+    private static void removerIndices(Usuario usuario) {
+        if (usuario.getEmail() != null) {
+            porEmail.remove(normalizarEmail(usuario.getEmail()), usuario.getId());
+        }
+        if (usuario.getCpf() != null) {
+            porCpf.remove(usuario.getCpf().trim(), usuario.getId());
+        }
+    }
+    
+    /**
+     * Normaliza o email como na consulta (LOWER/trim)
+     */
+    private static String normalizarEmail(String email) {
+        return email.trim().toLowerCase();
+    }
+    
+    /**
+     * Cria uma cópia independente do usuário
+     */
+    private static Usuario copiar(Usuario origem) {
+        Usuario copia = new Usuario();
+        copia.setId(origem.getId());
+        copia.setNome(origem.getNome());
+        copia.setEmail(origem.getEmail());
+        copia.setCpf(origem.getCpf());
+        copia.setSenha(origem.getSenha());
+        copia.setTipoUsuario(origem.getTipoUsuario());
+        copia.setCargo(origem.getCargo());
+        copia.setDepartamento(origem.getDepartamento());
+        copia.setSalario(origem.getSalario());
+        copia.setDataAdmissao(origem.getDataAdmissao());
+        copia.setAtivo(origem.getAtivo());
+        copia.setFaceEncoding(origem.getFaceEncoding());
+        copia.setDataCriacao(origem.getDataCriacao());
+        // Por último, pois os setters acima atualizam data_atualizacao
+        copia.setDataAtualizacao(origem.getDataAtualizacao());
+        return copia;
+    }
+    
+    /**
+     * Entrada do cache com instante de expiração
+     */
+    private static class CacheEntry {
+        private final Usuario usuario;
+        private final long expiresAt;
+        
+        CacheEntry(Usuario usuario, long expiresAt) {
+            this.usuario = usuario;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
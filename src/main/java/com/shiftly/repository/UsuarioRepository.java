@@ -4,28 +4,120 @@ import com.shiftly.model.TipoUsuario;
 import com.shiftly.model.Usuario;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository para gerenciar usuários
  */
 public class UsuarioRepository extends BaseRepository<Usuario, Long> {
     
+    // Consultas do login e da validação do ponto, preparadas uma vez por conexão (StatementCache)
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_ID = SqlRegistry.register("usuario.findById", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios WHERE id = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_EMAIL = SqlRegistry.register("usuario.findByEmail", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios WHERE LOWER(email) = LOWER(?) AND ativo = ?
+        """);
+    
+    // Demais comandos de texto fixo, também preparados uma vez por conexão
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL = SqlRegistry.register("usuario.findAll", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios ORDER BY nome
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_DELETE_BY_ID = SqlRegistry.register("usuario.deleteById",
+        "UPDATE usuarios SET ativo = ?, data_atualizacao = ? WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_UPDATE_SENHA = SqlRegistry.register("usuario.updateSenha",
+        "UPDATE usuarios SET senha = ?, data_atualizacao = ? WHERE id = ? AND senha = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_ID = SqlRegistry.register("usuario.existsById",
+        "SELECT 1 FROM usuarios WHERE id = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_COUNT = SqlRegistry.register("usuario.count",
+        "SELECT COUNT(*) FROM usuarios WHERE ativo = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_RESUMIR_PAINEL_RH = SqlRegistry.register("usuario.resumirPainelRh", """
+        SELECT
+            (SELECT COUNT(*) FROM usuarios WHERE ativo = ?) AS colaboradores_ativos,
+            (SELECT COUNT(*) FROM jornada_diaria WHERE data = ?) AS presentes_hoje,
+            (SELECT COUNT(*) FROM ferias WHERE status = 'PENDENTE') AS ferias_pendentes,
+            (SELECT COUNT(*) FROM horas_extras WHERE status = 'PENDENTE') AS horas_extras_pendentes,
+            (SELECT COALESCE(SUM(horas), 0) FROM horas_extras
+              WHERE status = 'APROVADA' AND data >= ? AND data < ?) AS horas_extras_mes
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_CPF = SqlRegistry.register("usuario.findByCpf", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios WHERE cpf = ? AND ativo = ?
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_TIPO_USUARIO = SqlRegistry.register("usuario.findByTipoUsuario", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios WHERE tipo_usuario = ? AND ativo = ? ORDER BY nome
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_BY_DEPARTAMENTO = SqlRegistry.register("usuario.findByDepartamento", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios WHERE LOWER(departamento) = LOWER(?) AND ativo = ? ORDER BY nome
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_EMAIL = SqlRegistry.register("usuario.existsByEmail",
+        "SELECT 1 FROM usuarios WHERE LOWER(email) = LOWER(?) AND ativo = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_ID_BY_EMAIL = SqlRegistry.register("usuario.findIdByEmail",
+        "SELECT id FROM usuarios WHERE LOWER(email) = LOWER(?) AND ativo = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_EXISTS_BY_CPF = SqlRegistry.register("usuario.existsByCpf",
+        "SELECT 1 FROM usuarios WHERE cpf = ? AND ativo = ?");
+    
+    private static final SqlRegistry.NamedSql SQL_FIND_ALL_ATIVOS = SqlRegistry.register("usuario.findAllAtivos", """
+        SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+               salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+        FROM usuarios WHERE ativo = ? ORDER BY nome
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_INSERT = SqlRegistry.register("usuario.insert", """
+        INSERT INTO usuarios (nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+                            salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """);
+    
+    private static final SqlRegistry.NamedSql SQL_UPDATE = SqlRegistry.register("usuario.update", """
+        UPDATE usuarios SET nome = ?, email = ?, cpf = ?, senha = ?, tipo_usuario = ?, 
+                          cargo = ?, departamento = ?, salario = ?, data_admissao = ?, 
+                          data_atualizacao = ?, ativo = ?, face_encoding = ?
+        WHERE id = ?
+        """);
+    
     @Override
     public Optional<Usuario> findById(Long id) {
         if (id == null) return Optional.empty();
         
-        return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios WHERE id = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Usuario cached = UsuarioCache.getById(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        long geracao = UsuarioCache.geracaoAtual();
+        Optional<Usuario> usuario = executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -36,19 +128,16 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
             }
             return Optional.empty();
         });
+        
+        usuario.ifPresent(u -> UsuarioCache.put(u, geracao));
+        return usuario;
     }
     
     @Override
     public List<Usuario> findAll() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios ORDER BY nome
-                """;
-            
             List<Usuario> usuarios = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL);
                  ResultSet rs = stmt.executeQuery()) {
                 
                 while (rs.next()) {
@@ -65,29 +154,60 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
             throw new IllegalArgumentException("Usuário não pode ser nulo");
         }
         
-        return executeWithConnection(conn -> {
-            if (usuario.getId() == null) {
-                return insert(conn, usuario);
-            } else {
-                return update(conn, usuario);
-            }
-        });
+        try {
+            return executeWithConnection(conn -> {
+                if (usuario.getId() == null) {
+                    return insert(conn, usuario);
+                } else {
+                    return update(conn, usuario);
+                }
+            });
+        } finally {
+            // Invalida mesmo em falha: o estado no banco pode ter mudado
+            UsuarioCache.invalidate(usuario.getId());
+        }
     }
     
     @Override
     public boolean deleteById(Long id) {
         if (id == null) return false;
         
-        return executeWithConnection(conn -> {
-            String sql = "UPDATE usuarios SET ativo = ? WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setBoolean(1, false);
-                stmt.setLong(2, id);
-                
-                return stmt.executeUpdate() > 0;
-            }
-        });
+        try {
+            return executeWithConnection(conn -> {
+                // data_atualizacao faz a desativação feita no H2 entrar na próxima sincronização
+                try (PreparedStatement stmt = prepare(conn, SQL_DELETE_BY_ID)) {
+                    stmt.setBoolean(1, false);
+                    stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setLong(3, id);
+                    
+                    return stmt.executeUpdate() > 0;
+                }
+            });
+        } finally {
+            UsuarioCache.invalidate(id);
+        }
+    }
+    
+    /**
+     * Troca o hash de senha somente se ele ainda for o esperado (usado no rehash transparente no login)
+     */
+    public boolean updateSenha(Long id, String senhaAtual, String novaSenha) {
+        if (id == null) return false;
+        
+        try {
+            return executeWithConnection(conn -> {
+                try (PreparedStatement stmt = prepare(conn, SQL_UPDATE_SENHA)) {
+                    stmt.setString(1, novaSenha);
+                    stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setLong(3, id);
+                    stmt.setString(4, senhaAtual);
+                    
+                    return stmt.executeUpdate() > 0;
+                }
+            });
+        } finally {
+            UsuarioCache.invalidate(id);
+        }
     }
     
     @Override
@@ -95,9 +215,7 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         if (id == null) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM usuarios WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_ID)) {
                 stmt.setLong(1, id);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -110,9 +228,7 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
     @Override
     public long count() {
         return executeWithConnection(conn -> {
-            String sql = "SELECT COUNT(*) FROM usuarios WHERE ativo = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_COUNT)) {
                 stmt.setBoolean(1, true);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -122,20 +238,105 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         });
     }
     
+    /**
+     * Busca usuários pelos IDs; os que estão no cache não vão ao banco
+     */
+    @Override
+    public List<Usuario> findAllByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return new ArrayList<>();
+        
+        List<Usuario> usuarios = new ArrayList<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Usuario cached = id != null ? UsuarioCache.getById(id) : null;
+            if (cached != null) {
+                usuarios.add(cached);
+            } else if (id != null) {
+                faltantes.add(id);
+            }
+        }
+        
+        long geracao = UsuarioCache.geracaoAtual();
+        List<Usuario> doBanco = findAllByIdsInBatches(faltantes, """
+            SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+                   salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+            FROM usuarios WHERE id IN (%s)
+            """, this::mapResultSetToUsuario);
+        
+        for (Usuario usuario : doBanco) {
+            UsuarioCache.put(usuario, geracao);
+        }
+        usuarios.addAll(doBanco);
+        return usuarios;
+    }
+    
+    /**
+     * Busca uma página de usuários em ordem alfabética
+     */
+    public Page<Usuario> findPage(Page.Cursor apos, int tamanho) {
+        return findPageByKeyset("""
+            SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+                   salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+            FROM usuarios
+            """, null, List.of(), "nome", false, apos, tamanho, this::mapResultSetToUsuario);
+    }
+    
+    /**
+     * Percorre todos os usuários com um cursor (não passa pelo cache)
+     * O Stream mantém uma conexão aberta e deve ser fechado (try-with-resources)
+     */
+    public Stream<Usuario> streamAll() {
+        return streamQuery("""
+            SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
+                   salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
+            FROM usuarios ORDER BY nome, id
+            """, List.of(), this::mapResultSetToUsuario);
+    }
+    
+    /**
+     * Resume os contadores do painel do RH em uma única consulta (subconsultas COUNT/SUM)
+     * Presentes: usuários com jornada no dia; horas extras: aprovadas no mês da data informada
+     */
+    public ResumoRh resumirPainelRh(LocalDate hoje) {
+        LocalDate inicioMes = hoje.withDayOfMonth(1);
+        
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_RESUMIR_PAINEL_RH)) {
+                stmt.setBoolean(1, true);
+                stmt.setDate(2, Date.valueOf(hoje));
+                stmt.setDate(3, Date.valueOf(inicioMes));
+                stmt.setDate(4, Date.valueOf(inicioMes.plusMonths(1)));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    return new ResumoRh(
+                        hoje,
+                        rs.getLong("colaboradores_ativos"),
+                        rs.getLong("presentes_hoje"),
+                        rs.getLong("ferias_pendentes"),
+                        rs.getLong("horas_extras_pendentes"),
+                        rs.getDouble("horas_extras_mes")
+                    );
+                }
+            }
+        });
+    }
+    
     /**
      * Busca usuário por email
      */
     public Optional<Usuario> findByEmail(String email) {
         if (email == null || email.trim().isEmpty()) return Optional.empty();
         
-        return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios WHERE LOWER(email) = LOWER(?) AND ativo = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Usuário inativo no cache vai ao banco: o email/CPF pode ter sido reutilizado por outro ativo
+        Usuario cached = UsuarioCache.getByEmail(email);
+        if (cached != null && Boolean.TRUE.equals(cached.getAtivo())) {
+            return Optional.of(cached);
+        }
+        
+        long geracao = UsuarioCache.geracaoAtual();
+        Optional<Usuario> usuario = executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_EMAIL)) {
                 stmt.setString(1, email.trim());
                 stmt.setBoolean(2, true);
                 
@@ -147,6 +348,9 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
             }
             return Optional.empty();
         });
+        
+        usuario.ifPresent(u -> UsuarioCache.put(u, geracao));
+        return usuario;
     }
     
     /**
@@ -155,14 +359,15 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
     public Optional<Usuario> findByCpf(String cpf) {
         if (cpf == null || cpf.trim().isEmpty()) return Optional.empty();
         
-        return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios WHERE cpf = ? AND ativo = ?
-                """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Usuário inativo no cache vai ao banco: o email/CPF pode ter sido reutilizado por outro ativo
+        Usuario cached = UsuarioCache.getByCpf(cpf);
+        if (cached != null && Boolean.TRUE.equals(cached.getAtivo())) {
+            return Optional.of(cached);
+        }
+        
+        long geracao = UsuarioCache.geracaoAtual();
+        Optional<Usuario> usuario = executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_CPF)) {
                 stmt.setString(1, cpf.trim());
                 stmt.setBoolean(2, true);
                 
@@ -174,6 +379,9 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
             }
             return Optional.empty();
         });
+        
+        usuario.ifPresent(u -> UsuarioCache.put(u, geracao));
+        return usuario;
     }
     
     /**
@@ -183,14 +391,8 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         if (tipoUsuario == null) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios WHERE tipo_usuario = ? AND ativo = ? ORDER BY nome
-                """;
-            
             List<Usuario> usuarios = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_TIPO_USUARIO)) {
                 stmt.setString(1, tipoUsuario.name());
                 stmt.setBoolean(2, true);
                 
@@ -211,14 +413,8 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         if (departamento == null || departamento.trim().isEmpty()) return new ArrayList<>();
         
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios WHERE LOWER(departamento) = LOWER(?) AND ativo = ? ORDER BY nome
-                """;
-            
             List<Usuario> usuarios = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_BY_DEPARTAMENTO)) {
                 stmt.setString(1, departamento.trim());
                 stmt.setBoolean(2, true);
                 
@@ -239,9 +435,7 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         if (email == null || email.trim().isEmpty()) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM usuarios WHERE LOWER(email) = LOWER(?) AND ativo = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_EMAIL)) {
                 stmt.setString(1, email.trim());
                 stmt.setBoolean(2, true);
                 
@@ -252,6 +446,24 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         });
     }
     
+    /**
+     * Busca o id do usuário ativo com o email direto no banco, sem passar pelo cache
+     */
+    public Optional<Long> findIdByEmail(String email) {
+        if (email == null || email.trim().isEmpty()) return Optional.empty();
+        
+        return executeWithConnection(conn -> {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ID_BY_EMAIL)) {
+                stmt.setString(1, email.trim());
+                stmt.setBoolean(2, true);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? Optional.of(rs.getLong(1)) : Optional.<Long>empty();
+                }
+            }
+        });
+    }
+    
     /**
      * Verifica se CPF já existe
      */
@@ -259,9 +471,7 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         if (cpf == null || cpf.trim().isEmpty()) return false;
         
         return executeWithConnection(conn -> {
-            String sql = "SELECT 1 FROM usuarios WHERE cpf = ? AND ativo = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_EXISTS_BY_CPF)) {
                 stmt.setString(1, cpf.trim());
                 stmt.setBoolean(2, true);
                 
@@ -277,14 +487,8 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
      */
     public List<Usuario> findAllAtivos() {
         return executeWithConnection(conn -> {
-            String sql = """
-                SELECT id, nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                       salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding
-                FROM usuarios WHERE ativo = ? ORDER BY nome
-                """;
-            
             List<Usuario> usuarios = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, SQL_FIND_ALL_ATIVOS)) {
                 stmt.setBoolean(1, true);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -301,13 +505,7 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
      * Insere um novo usuário
      */
     private Usuario insert(Connection conn, Usuario usuario) throws SQLException {
-        String sql = """
-            INSERT INTO usuarios (nome, email, cpf, senha, tipo_usuario, cargo, departamento, 
-                                salario, data_admissao, data_criacao, data_atualizacao, ativo, face_encoding)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             setUsuarioParameters(stmt, usuario);
             
             int affectedRows = stmt.executeUpdate();
@@ -329,14 +527,7 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
      * Atualiza um usuário existente
      */
     private Usuario update(Connection conn, Usuario usuario) throws SQLException {
-        String sql = """
-            UPDATE usuarios SET nome = ?, email = ?, cpf = ?, senha = ?, tipo_usuario = ?, 
-                              cargo = ?, departamento = ?, salario = ?, data_admissao = ?, 
-                              data_atualizacao = ?, ativo = ?, face_encoding = ?
-            WHERE id = ?
-            """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = prepare(conn, SQL_UPDATE)) {
             setUsuarioParameters(stmt, usuario);
             stmt.setLong(13, usuario.getId());
             
@@ -411,4 +602,38 @@ public class UsuarioRepository extends BaseRepository<Usuario, Long> {
         
         return usuario;
     }
+    
+    /**
+     * Contadores do painel do RH
+     */
+    public static class ResumoRh {
+        private final LocalDate data;
+        private final long colaboradoresAtivos;
+        private final long presentesHoje;
+        private final long feriasPendentes;
+        private final long horasExtrasPendentes;
+        private final double horasExtrasAprovadasMes;
+        
+        public ResumoRh(LocalDate data, long colaboradoresAtivos, long presentesHoje, long feriasPendentes,
+                        long horasExtrasPendentes, double horasExtrasAprovadasMes) {
+            this.data = data;
+            this.colaboradoresAtivos = colaboradoresAtivos;
+            this.presentesHoje = presentesHoje;
+            this.feriasPendentes = feriasPendentes;
+            this.horasExtrasPendentes = horasExtrasPendentes;
+            this.horasExtrasAprovadasMes = horasExtrasAprovadasMes;
+        }
+        
+        // Getters
+        public LocalDate getData() { return data; }
+        public long getColaboradoresAtivos() { return colaboradoresAtivos; }
+        public long getPresentesHoje() { return presentesHoje; }
+        public long getFeriasPendentes() { return feriasPendentes; }
+        public long getHorasExtrasPendentes() { return horasExtrasPendentes; }
+        public double getHorasExtrasAprovadasMes() { return horasExtrasAprovadasMes; }
+        
+        public long getSolicitacoesPendentes() {
+            return feriasPendentes + horasExtrasPendentes;
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.shiftly.service;
 
 import com.shiftly.model.Usuario;
+import com.shiftly.util.ConfigUtil;
 import com.shiftly.util.JwtUtil;
+import com.shiftly.util.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,6 +12,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service para gerenciar autenticação e autorização
@@ -30,6 +34,18 @@ public class AuthService {
     // Tracking de tentativas de login
     private final Map<String, LoginAttemptInfo> loginAttempts = new ConcurrentHashMap<>();
     
+    // Claims verificados guardados na própria sessão ativa (já indexada pelo token)
+    // Evita refazer parse/HMAC e consultar o usuário a cada verificação de permissão
+    private static final boolean TOKEN_CACHE_ENABLED = ConfigUtil.getBoolean("auth.token.cache.enabled", true);
+    private static final long USER_STATUS_TTL_MS = ConfigUtil.getLong("auth.token.cache.user.status.ttl.ms", 30000);
+    private final AtomicLong tokenCacheHits = new AtomicLong();
+    private final AtomicLong tokenCacheMisses = new AtomicLong();
+    
+    // Métricas de login: o timer conta como erro só exceções; credencial inválida entra em auth.login.falha
+    private static final Metrics.Timer loginTimer = Metrics.timer("auth.login");
+    private static final Metrics.Counter loginsSucesso = Metrics.counter("auth.login.sucesso");
+    private static final Metrics.Counter loginsFalha = Metrics.counter("auth.login.falha");
+    
     public AuthService() {
         this.usuarioService = new UsuarioService();
     }
@@ -38,7 +54,20 @@ public class AuthService {
      * Realiza o login do usuário
      */
     public AuthResult login(String email, String senha) {
-        logger.info("Tentativa de login para: {}", email);
+        long inicio = System.nanoTime();
+        boolean sucesso = false;
+        try {
+            AuthResult resultado = autenticar(email, senha);
+            (resultado.isSuccess() ? loginsSucesso : loginsFalha).incrementar();
+            sucesso = true;
+            return resultado;
+        } finally {
+            loginTimer.registrar(System.nanoTime() - inicio, sucesso);
+        }
+    }
+    
+    private AuthResult autenticar(String email, String senha) {
+        logger.debug("Tentativa de login para: {}", email);
         
         // Verifica se a conta está bloqueada
         if (isAccountLocked(email)) {
@@ -47,8 +76,13 @@ public class AuthService {
                                     LOCKOUT_DURATION_MINUTES + " minutos.");
         }
         
-        // Tenta autenticar
-        Optional<Usuario> usuarioOpt = usuarioService.autenticar(email, senha);
+        // Tenta autenticar (servidor saturado não conta como tentativa falhada)
+        Optional<Usuario> usuarioOpt;
+        try {
+            usuarioOpt = usuarioService.autenticar(email, senha);
+        } catch (RejectedExecutionException e) {
+            return AuthResult.failure("Muitos logins simultâneos. Tente novamente em alguns segundos.");
+        }
         
         if (usuarioOpt.isPresent()) {
             Usuario usuario = usuarioOpt.get();
@@ -86,7 +120,7 @@ public class AuthService {
             return false;
         }
         
-        // Remove sessão ativa
+        // Remove sessão ativa, junto com os claims verificados dela
         SessionInfo session = activeSessions.remove(accessToken);
         
         if (session != null) {
@@ -150,68 +184,113 @@ public class AuthService {
      * Valida se o token é válido e o usuário tem acesso
      */
     public boolean validateToken(String accessToken) {
-        if (accessToken == null || accessToken.trim().isEmpty()) {
-            return false;
-        }
-        
-        try {
-            // Verifica se o token é válido
-            if (!JwtUtil.isValidToken(accessToken)) {
-                return false;
-            }
-            
-            // Verifica se existe sessão ativa
-            SessionInfo session = activeSessions.get(accessToken);
-            if (session == null) {
-                return false;
-            }
-            
-            // Verifica se o usuário ainda está ativo
-            Long userId = JwtUtil.extractUserId(accessToken);
-            Optional<Usuario> usuarioOpt = usuarioService.buscarPorId(userId);
-            
-            return usuarioOpt.isPresent() && usuarioOpt.get().getAtivo();
-            
-        } catch (SecurityException e) {
-            logger.warn("Erro na validação do token: {}", e.getMessage());
-            return false;
-        }
+        return verify(accessToken) != null;
     }
     
     /**
      * Obtém informações do usuário a partir do token
      */
     public Optional<JwtUtil.UserInfo> getUserInfo(String accessToken) {
-        try {
-            if (validateToken(accessToken)) {
-                return Optional.of(JwtUtil.extractUserInfo(accessToken));
-            }
-        } catch (SecurityException e) {
-            logger.warn("Erro ao extrair informações do usuário: {}", e.getMessage());
-        }
-        
-        return Optional.empty();
+        VerifiedToken verified = verify(accessToken);
+        return verified != null ? Optional.of(copiar(verified.userInfo)) : Optional.empty();
     }
     
     /**
      * Verifica se o usuário tem permissão de RH
      */
     public boolean hasRhPermission(String accessToken) {
-        return validateToken(accessToken) && JwtUtil.hasRhPermission(accessToken);
+        VerifiedToken verified = verify(accessToken);
+        return verified != null && verified.userInfo.isRh();
     }
     
     /**
      * Verifica se o usuário tem permissão de Admin
      */
     public boolean hasAdminPermission(String accessToken) {
-        return validateToken(accessToken) && JwtUtil.hasAdminPermission(accessToken);
+        VerifiedToken verified = verify(accessToken);
+        return verified != null && verified.userInfo.isAdmin();
     }
     
     /**
      * Verifica se o token precisa ser renovado
      */
     public boolean tokenNeedsRefresh(String accessToken) {
-        return validateToken(accessToken) && JwtUtil.needsRefresh(accessToken);
+        VerifiedToken verified = verify(accessToken);
+        if (verified == null) {
+            return false;
+        }
+        
+        // Renova se faltam menos de 30 minutos (mesma regra de JwtUtil.needsRefresh)
+        long remainingMinutes = (verified.expiresAtMillis - System.currentTimeMillis()) / (60 * 1000);
+        return remainingMinutes > 0 && remainingMinutes < 30;
+    }
+    
+    /**
+     * Verifica o token usando os claims já verificados da sessão
+     * A sessão ativa é sempre consultada (revogação por logout); a assinatura é verificada uma vez
+     * por sessão e o status do usuário é reconsultado após USER_STATUS_TTL_MS
+     */
+    private VerifiedToken verify(String accessToken) {
+        if (accessToken == null || accessToken.trim().isEmpty()) {
+            return null;
+        }
+        
+        // Verifica se existe sessão ativa
+        SessionInfo session = activeSessions.get(accessToken);
+        if (session == null) {
+            return null;
+        }
+        
+        long now = System.currentTimeMillis();
+        VerifiedToken verified = TOKEN_CACHE_ENABLED ? session.verified : null;
+        
+        if (verified != null && verified.expiresAtMillis <= now) {
+            return null;
+        }
+        
+        if (verified != null && now - verified.userCheckedAtMillis <= USER_STATUS_TTL_MS) {
+            tokenCacheHits.incrementAndGet();
+            return verified.userAtivo ? verified : null;
+        }
+        
+        tokenCacheMisses.incrementAndGet();
+        
+        try {
+            // Verifica assinatura e expiração (um único parse, reaproveitado quando só o status venceu)
+            JwtUtil.UserInfo userInfo = verified != null ? verified.userInfo : JwtUtil.extractUserInfo(accessToken);
+            if (userInfo.getId() == null || userInfo.getExpiration() == null) {
+                return null;
+            }
+            
+            // Verifica se o usuário ainda está ativo
+            Optional<Usuario> usuarioOpt = usuarioService.buscarPorId(userInfo.getId());
+            boolean ativo = usuarioOpt.isPresent() && usuarioOpt.get().getAtivo();
+            
+            verified = new VerifiedToken(userInfo, userInfo.getExpiration().getTime(), ativo, now);
+            if (TOKEN_CACHE_ENABLED) {
+                session.verified = verified;
+            }
+            
+            return ativo ? verified : null;
+            
+        } catch (SecurityException e) {
+            logger.warn("Erro na validação do token: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Cria uma cópia do UserInfo para que o chamador não altere o cache
+     */
+    private static JwtUtil.UserInfo copiar(JwtUtil.UserInfo origem) {
+        JwtUtil.UserInfo copia = new JwtUtil.UserInfo();
+        copia.setId(origem.getId());
+        copia.setEmail(origem.getEmail());
+        copia.setNome(origem.getNome());
+        copia.setTipoUsuario(origem.getTipoUsuario());
+        copia.setDepartamento(origem.getDepartamento());
+        copia.setExpiration(origem.getExpiration());
+        return copia;
     }
     
     /**
@@ -246,6 +325,9 @@ public class AuthService {
         
         info.put("totalActiveSessions", totalSessions);
         info.put("sessionsByUserType", sessionsByUserType);
+        info.put("verifiedTokenCacheSize", activeSessions.values().stream().filter(s -> s.verified != null).count());
+        info.put("verifiedTokenCacheHits", tokenCacheHits.get());
+        info.put("verifiedTokenCacheMisses", tokenCacheMisses.get());
         
         return info;
     }
@@ -321,6 +403,8 @@ public class AuthService {
         private final String accessToken;
         private final String refreshToken;
         private final LocalDateTime createdAt;
+        // Claims e status do usuário verificados por último; null até a primeira verificação
+        private volatile VerifiedToken verified;
         
         public SessionInfo(Long userId, String accessToken, String refreshToken) {
             this.userId = userId;
@@ -346,6 +430,23 @@ public class AuthService {
         }
     }
     
+    /**
+     * Token já verificado: claims, expiração e status do usuário no momento da consulta
+     */
+    private static class VerifiedToken {
+        private final JwtUtil.UserInfo userInfo;
+        private final long expiresAtMillis;
+        private final boolean userAtivo;
+        private final long userCheckedAtMillis;
+        
+        public VerifiedToken(JwtUtil.UserInfo userInfo, long expiresAtMillis, boolean userAtivo, long userCheckedAtMillis) {
+            this.userInfo = userInfo;
+            this.expiresAtMillis = expiresAtMillis;
+            this.userAtivo = userAtivo;
+            this.userCheckedAtMillis = userCheckedAtMillis;
+        }
+    }
+    
     /**
      * Classe para tracking de tentativas de login
      */
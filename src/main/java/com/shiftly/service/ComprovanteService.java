@@ -4,6 +4,7 @@ import com.shiftly.model.Comprovante;
 import com.shiftly.model.TipoComprovante;
 import com.shiftly.model.Usuario;
 import com.shiftly.repository.ComprovanteRepository;
+import com.shiftly.repository.Page;
 import com.shiftly.repository.UsuarioRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -203,29 +204,31 @@ public class ComprovanteService {
      * Gera relatório de pagamentos
      */
     public java.util.Map<String, Object> relatorioPageamentos(LocalDate dataInicio, LocalDate dataFim) {
-        List<Comprovante> comprovantes = buscarComprovantesNoPeriodo(dataInicio, dataFim);
+        // Agregado no banco: uma linha por departamento e tipo, em vez de uma consulta de usuário por comprovante
+        List<ComprovanteRepository.ResumoPagamento> resumos =
+            comprovanteRepository.resumirPagamentosPorDepartamentoETipo(dataInicio, dataFim);
         
         java.util.Map<String, Object> relatorio = new java.util.HashMap<>();
         java.util.Map<TipoComprovante, Double> porTipo = new java.util.HashMap<>();
         java.util.Map<String, Double> porDepartamento = new java.util.HashMap<>();
         
+        long totalComprovantes = 0;
         double valorTotal = 0.0;
         
-        for (Comprovante comprovante : comprovantes) {
-            valorTotal += comprovante.getValorLiquido();
+        for (ComprovanteRepository.ResumoPagamento resumo : resumos) {
+            totalComprovantes += resumo.getQuantidade();
+            valorTotal += resumo.getValorLiquido();
             
             // Por tipo
-            porTipo.merge(comprovante.getTipoComprovante(), comprovante.getValorLiquido(), Double::sum);
+            porTipo.merge(resumo.getTipoComprovante(), resumo.getValorLiquido(), Double::sum);
             
             // Por departamento
-            Optional<Usuario> usuarioOpt = usuarioRepository.findById(comprovante.getUsuarioId());
-            if (usuarioOpt.isPresent() && usuarioOpt.get().getDepartamento() != null) {
-                String departamento = usuarioOpt.get().getDepartamento();
-                porDepartamento.merge(departamento, comprovante.getValorLiquido(), Double::sum);
+            if (resumo.getDepartamento() != null) {
+                porDepartamento.merge(resumo.getDepartamento(), resumo.getValorLiquido(), Double::sum);
             }
         }
         
-        relatorio.put("totalComprovantes", comprovantes.size());
+        relatorio.put("totalComprovantes", (int) totalComprovantes);
         relatorio.put("valorTotal", valorTotal);
         relatorio.put("porTipo", porTipo);
         relatorio.put("porDepartamento", porDepartamento);
@@ -410,4 +413,12 @@ public class ComprovanteService {
     public List<Comprovante> listarTodos() {
         return comprovanteRepository.findAll();
     }
+    
+    /**
+     * Lista comprovantes por página, do mais recente para o mais antigo
+     * Passe o cursor da página anterior (null para a primeira)
+     */
+    public Page<Comprovante> listarPagina(Page.Cursor apos, int tamanho) {
+        return comprovanteRepository.findPage(apos, tamanho);
+    }
 }
@@ -0,0 +1,94 @@
+package com.shiftly.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de domínio publicado pelos services depois que uma alteração foi gravada
+ * Carrega a entidade já salva (quando houver) para que as telas apliquem a mudança sem reconsultar o banco
+ */
+public class DomainEvent {
+    
+    /**
+     * Tipos de alteração publicados
+     */
+    public enum Tipo {
+        PONTO_REGISTRADO,
+        PONTO_CORRIGIDO,
+        PONTO_REMOVIDO,
+        FERIAS_SOLICITADAS,
+        FERIAS_EDITADAS,
+        FERIAS_APROVADAS,
+        FERIAS_RECUSADAS,
+        FERIAS_CANCELADAS,
+        HORAS_EXTRAS_REGISTRADAS,
+        HORAS_EXTRAS_EDITADAS,
+        HORAS_EXTRAS_APROVADAS,
+        HORAS_EXTRAS_RECUSADAS,
+        HORAS_EXTRAS_PAGAS,
+        HORAS_EXTRAS_REMOVIDAS
+    }
+    
+    private final Tipo tipo;
+    private final Long entidadeId;
+    private final Long usuarioId;
+    private final Object entidade;
+    private final Enum<?> statusAnterior;
+    private final LocalDateTime dataHora;
+    
+    public DomainEvent(Tipo tipo, Long entidadeId, Long usuarioId, Object entidade, Enum<?> statusAnterior) {
+        this.tipo = tipo;
+        this.entidadeId = entidadeId;
+        this.usuarioId = usuarioId;
+        this.entidade = entidade;
+        this.statusAnterior = statusAnterior;
+        this.dataHora = LocalDateTime.now();
+    }
+    
+    public Tipo getTipo() {
+        return tipo;
+    }
+    
+    /**
+     * ID do ponto, férias ou horas extras alterado
+     */
+    public Long getEntidadeId() {
+        return entidadeId;
+    }
+    
+    /**
+     * Colaborador dono do registro
+     */
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    /**
+     * Entidade como foi gravada (null em remoções sem o registro carregado)
+     */
+    public Object getEntidade() {
+        return entidade;
+    }
+    
+    /**
+     * Status antes da alteração (férias e horas extras), null quando não se aplica
+     */
+    public Enum<?> getStatusAnterior() {
+        return statusAnterior;
+    }
+    
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+    
+    /**
+     * Indica se o evento é de férias ou horas extras (solicitações analisadas pelo RH)
+     */
+    public boolean isSolicitacao() {
+        return tipo.name().startsWith("FERIAS_") || tipo.name().startsWith("HORAS_EXTRAS_");
+    }
+    
+    @Override
+    public String toString() {
+        return "DomainEvent{" + tipo + ", id=" + entidadeId + ", usuarioId=" + usuarioId + '}';
+    }
+}
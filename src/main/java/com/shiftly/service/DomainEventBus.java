@@ -0,0 +1,205 @@
+package com.shiftly.service;
+
+import com.shiftly.util.ConfigUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Barramento de eventos de domínio dentro do processo
+ * Os services publicam depois de gravar; cada assinante recebe os eventos em lotes no seu próprio executor
+ * (a UI recebe no thread do JavaFX), de modo que uma rajada de alterações vira uma única atualização de tela
+ */
+public class DomainEventBus {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+    
+    private static final int MAX_PENDENTES = ConfigUtil.getInt("events.subscriber.max.pending", 1000);
+    
+    private static final List<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+    
+    // Métricas
+    private static final AtomicLong publicados = new AtomicLong();
+    private static final AtomicLong entregues = new AtomicLong();
+    private static final AtomicLong descartados = new AtomicLong();
+    private static final AtomicLong falhas = new AtomicLong();
+    
+    /**
+     * Publica um evento para todos os assinantes interessados
+     * Não bloqueia: assinantes lentos acumulam eventos na própria fila
+     */
+    public static void publicar(DomainEvent evento) {
+        publicados.incrementAndGet();
+        for (Assinatura assinatura : assinaturas) {
+            assinatura.enfileirar(evento);
+        }
+    }
+    
+    /**
+     * Assina todos os eventos
+     */
+    public static Assinatura assinar(String nome, Executor executor, Consumer<List<DomainEvent>> aoReceber) {
+        return assinar(nome, evento -> true, executor, aoReceber, null);
+    }
+    
+    /**
+     * Assina os eventos aceitos pelo filtro
+     * aoReceber roda no executor informado com todos os eventos acumulados desde a última entrega;
+     * se a fila do assinante estourar, os eventos são descartados e aoPerderEventos é chamado no lugar
+     * (o assinante deve recarregar seus dados do banco)
+     */
+    public static Assinatura assinar(String nome, Predicate<DomainEvent> filtro, Executor executor,
+                                     Consumer<List<DomainEvent>> aoReceber, Runnable aoPerderEventos) {
+        Assinatura assinatura = new Assinatura(nome, filtro, executor, aoReceber, aoPerderEventos);
+        assinaturas.add(assinatura);
+        logger.debug("Assinatura de eventos '{}' registrada", nome);
+        return assinatura;
+    }
+    
+    /**
+     * Obtém estatísticas do barramento
+     */
+    public static String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== EVENTOS DE DOMÍNIO ===\n");
+        stats.append("Assinaturas: ").append(assinaturas.size()).append("\n");
+        stats.append("Publicados: ").append(publicados.get()).append("\n");
+        stats.append("Entregues: ").append(entregues.get()).append("\n");
+        stats.append("Descartados (fila cheia): ").append(descartados.get()).append("\n");
+        stats.append("Falhas em assinantes: ").append(falhas.get()).append("\n");
+        for (Assinatura assinatura : assinaturas) {
+            stats.append("  ").append(assinatura.nome).append(": ")
+                 .append(assinatura.tamanhoFila.get()).append(" pendentes\n");
+        }
+        return stats.toString();
+    }
+    
+    /**
+     * Assinatura de um ouvinte; cancelar() deixa de entregar eventos, inclusive os já enfileirados
+     */
+    public static class Assinatura {
+        private final String nome;
+        private final Predicate<DomainEvent> filtro;
+        private final Executor executor;
+        private final Consumer<List<DomainEvent>> aoReceber;
+        private final Runnable aoPerderEventos;
+        
+        private final Queue<DomainEvent> pendentes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger tamanhoFila = new AtomicInteger();
+        private final AtomicBoolean agendada = new AtomicBoolean();
+        private final AtomicBoolean perdeuEventos = new AtomicBoolean();
+        private volatile boolean ativa = true;
+        
+        private Assinatura(String nome, Predicate<DomainEvent> filtro, Executor executor,
+                           Consumer<List<DomainEvent>> aoReceber, Runnable aoPerderEventos) {
+            this.nome = nome;
+            this.filtro = filtro;
+            this.executor = executor;
+            this.aoReceber = aoReceber;
+            this.aoPerderEventos = aoPerderEventos;
+        }
+        
+        /**
+         * Cancela a assinatura
+         */
+        public void cancelar() {
+            ativa = false;
+            assinaturas.remove(this);
+            pendentes.clear();
+            tamanhoFila.set(0);
+        }
+        
+        public boolean isAtiva() {
+            return ativa;
+        }
+        
+        private void enfileirar(DomainEvent evento) {
+            if (!ativa || !aceita(evento)) {
+                return;
+            }
+            
+            if (tamanhoFila.incrementAndGet() > MAX_PENDENTES) {
+                tamanhoFila.decrementAndGet();
+                descartados.incrementAndGet();
+                if (perdeuEventos.compareAndSet(false, true)) {
+                    logger.warn("Fila de eventos de '{}' cheia ({}); eventos descartados", nome, MAX_PENDENTES);
+                }
+            } else {
+                pendentes.offer(evento);
+            }
+            agendar();
+        }
+        
+        private boolean aceita(DomainEvent evento) {
+            try {
+                return filtro.test(evento);
+            } catch (RuntimeException e) {
+                logger.warn("Filtro de eventos de '{}' falhou: {}", nome, e.getMessage());
+                return false;
+            }
+        }
+        
+        /**
+         * Agenda uma entrega se ainda não houver uma pendente
+         */
+        private void agendar() {
+            if (!agendada.compareAndSet(false, true)) {
+                return;
+            }
+            
+            try {
+                executor.execute(this::entregar);
+            } catch (RejectedExecutionException e) {
+                agendada.set(false);
+                logger.warn("Executor de '{}' recusou a entrega de eventos: {}", nome, e.getMessage());
+            }
+        }
+        
+        /**
+         * Entrega tudo o que estiver na fila em um único lote
+         */
+        private void entregar() {
+            try {
+                List<DomainEvent> lote = new ArrayList<>();
+                DomainEvent evento;
+                while ((evento = pendentes.poll()) != null) {
+                    tamanhoFila.decrementAndGet();
+                    lote.add(evento);
+                }
+                
+                if (!ativa) {
+                    return;
+                }
+                
+                // Com eventos perdidos o lote está incompleto: o assinante recarrega tudo
+                if (perdeuEventos.getAndSet(false) && aoPerderEventos != null) {
+                    aoPerderEventos.run();
+                } else if (!lote.isEmpty()) {
+                    aoReceber.accept(lote);
+                    entregues.addAndGet(lote.size());
+                }
+            } catch (RuntimeException e) {
+                falhas.incrementAndGet();
+                logger.error("Erro ao entregar eventos para '{}': {}", nome, e.getMessage(), e);
+            } finally {
+                agendada.set(false);
+                // Eventos que chegaram durante a entrega
+                if (ativa && (!pendentes.isEmpty() || perdeuEventos.get())) {
+                    agendar();
+                }
+            }
+        }
+    }
+}
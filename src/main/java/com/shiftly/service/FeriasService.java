@@ -4,6 +4,7 @@ import com.shiftly.model.Ferias;
 import com.shiftly.model.StatusFerias;
 import com.shiftly.model.Usuario;
 import com.shiftly.repository.FeriasRepository;
+import com.shiftly.repository.Page;
 import com.shiftly.repository.UsuarioRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,7 @@ public class FeriasService {
         Ferias ferias = new Ferias(usuarioId, dataInicio, dataFim, observacoes);
         
         Ferias feriasSalvas = feriasRepository.save(ferias);
+        publicar(DomainEvent.Tipo.FERIAS_SOLICITADAS, feriasSalvas, null);
         logger.info("Férias solicitadas com sucesso: ID {}", feriasSalvas.getId());
         
         return feriasSalvas;
@@ -60,6 +62,14 @@ public class FeriasService {
      * Aprova férias
      */
     public Ferias aprovarFerias(Long feriasId, Long usuarioRhId) {
+        return aprovarFerias(feriasId, null, usuarioRhId);
+    }
+    
+    /**
+     * Aprova férias na versão vista pelo RH (nula: qualquer versão)
+     * Um único UPDATE condicional; as férias só são lidas de novo para explicar uma falha
+     */
+    public Ferias aprovarFerias(Long feriasId, Integer versao, Long usuarioRhId) {
         logger.info("Aprovando férias ID {} por usuário RH ID {}", feriasId, usuarioRhId);
         
         // Verifica permissões
@@ -68,29 +78,19 @@ public class FeriasService {
             throw new SecurityException("Usuário não tem permissão para aprovar férias");
         }
         
-        // Busca as férias
-        Optional<Ferias> feriasOpt = feriasRepository.findById(feriasId);
+        // Aprova se ainda estiverem pendentes, na versão esperada e sem conflito de período
+        Optional<Ferias> feriasOpt = feriasRepository.aprovar(feriasId, versao, usuarioRhId);
         if (feriasOpt.isEmpty()) {
-            throw new IllegalArgumentException("Férias não encontradas");
-        }
-        
-        Ferias ferias = feriasOpt.get();
-        
-        // Verifica se pode ser aprovada
-        if (!ferias.isPendente()) {
-            throw new IllegalStateException("Apenas férias pendentes podem ser aprovadas");
-        }
-        
-        // Verifica conflitos
-        if (feriasRepository.temConflitoFerias(ferias.getUsuarioId(), ferias.getDataInicio(), 
-                                             ferias.getDataFim(), ferias.getId())) {
+            Ferias atuais = buscarParaExplicarFalha(feriasId);
+            if (!atuais.isPendente()) {
+                throw new IllegalStateException("Apenas férias pendentes podem ser aprovadas");
+            }
+            verificarVersao(atuais, versao);
             throw new IllegalStateException("Conflito com outras férias já aprovadas");
         }
         
-        // Aprova
-        ferias.aprovar(usuarioRhId);
-        
-        Ferias feriasAprovadas = feriasRepository.save(ferias);
+        Ferias feriasAprovadas = feriasOpt.get();
+        publicar(DomainEvent.Tipo.FERIAS_APROVADAS, feriasAprovadas, StatusFerias.PENDENTE);
         logger.info("Férias aprovadas com sucesso: ID {}", feriasAprovadas.getId());
         
         return feriasAprovadas;
@@ -100,6 +100,13 @@ public class FeriasService {
      * Recusa férias
      */
     public Ferias recusarFerias(Long feriasId, String motivo, Long usuarioRhId) {
+        return recusarFerias(feriasId, null, motivo, usuarioRhId);
+    }
+    
+    /**
+     * Recusa férias na versão vista pelo RH (nula: qualquer versão)
+     */
+    public Ferias recusarFerias(Long feriasId, Integer versao, String motivo, Long usuarioRhId) {
         logger.info("Recusando férias ID {} por usuário RH ID {}", feriasId, usuarioRhId);
         
         // Verifica permissões
@@ -108,27 +115,23 @@ public class FeriasService {
             throw new SecurityException("Usuário não tem permissão para recusar férias");
         }
         
-        // Busca as férias
-        Optional<Ferias> feriasOpt = feriasRepository.findById(feriasId);
-        if (feriasOpt.isEmpty()) {
-            throw new IllegalArgumentException("Férias não encontradas");
-        }
-        
-        Ferias ferias = feriasOpt.get();
-        
-        // Verifica se pode ser recusada
-        if (!ferias.isPendente()) {
-            throw new IllegalStateException("Apenas férias pendentes podem ser recusadas");
-        }
-        
         if (motivo == null || motivo.trim().isEmpty()) {
             throw new IllegalArgumentException("Motivo da recusa é obrigatório");
         }
         
-        // Recusa
-        ferias.recusar(usuarioRhId, motivo);
+        // Recusa se ainda estiverem pendentes e na versão esperada
+        Optional<Ferias> feriasOpt = feriasRepository.recusar(feriasId, versao, usuarioRhId, motivo);
+        if (feriasOpt.isEmpty()) {
+            Ferias atuais = buscarParaExplicarFalha(feriasId);
+            if (!atuais.isPendente()) {
+                throw new IllegalStateException("Apenas férias pendentes podem ser recusadas");
+            }
+            verificarVersao(atuais, versao);
+            throw new IllegalStateException("Férias alteradas por outra operação; recarregue e tente novamente");
+        }
         
-        Ferias feriasRecusadas = feriasRepository.save(ferias);
+        Ferias feriasRecusadas = feriasOpt.get();
+        publicar(DomainEvent.Tipo.FERIAS_RECUSADAS, feriasRecusadas, StatusFerias.PENDENTE);
         logger.info("Férias recusadas com sucesso: ID {}", feriasRecusadas.getId());
         
         return feriasRecusadas;
@@ -136,38 +139,50 @@ public class FeriasService {
     
     /**
      * Cancela férias
+     * Sem o status e a versão vistos pelo usuário, lê as férias antes para obtê-los
      */
     public Ferias cancelarFerias(Long feriasId, Long usuarioId) {
-        logger.info("Cancelando férias ID {} por usuário ID {}", feriasId, usuarioId);
-        
-        // Busca as férias
         Optional<Ferias> feriasOpt = feriasRepository.findById(feriasId);
         if (feriasOpt.isEmpty()) {
             throw new IllegalArgumentException("Férias não encontradas");
         }
         
         Ferias ferias = feriasOpt.get();
+        return cancelarFerias(feriasId, ferias.getStatus(), ferias.getVersao(), usuarioId);
+    }
+    
+    /**
+     * Cancela férias no status e na versão vistos pelo usuário (versão nula: qualquer versão)
+     * O status anterior vai no evento publicado (ex.: cancelar férias pendentes muda o total de pendências)
+     */
+    public Ferias cancelarFerias(Long feriasId, StatusFerias statusAtual, Integer versao, Long usuarioId) {
+        logger.info("Cancelando férias ID {} por usuário ID {}", feriasId, usuarioId);
         
-        // Verifica se é o próprio usuário ou RH
+        // Verifica se é o próprio usuário ou RH: o UPDATE filtra pelo dono quando não for RH
         Optional<Usuario> usuarioOpt = usuarioRepository.findById(usuarioId);
         if (usuarioOpt.isEmpty()) {
             throw new IllegalArgumentException("Usuário não encontrado");
         }
         
         Usuario usuario = usuarioOpt.get();
-        if (!ferias.getUsuarioId().equals(usuarioId) && !usuario.isRH()) {
-            throw new SecurityException("Usuário não tem permissão para cancelar estas férias");
-        }
+        Long dono = usuario.isRH() ? null : usuarioId;
         
-        // Verifica se pode ser cancelada
-        if (!ferias.getStatus().permiteCancelamento()) {
-            throw new IllegalStateException("Férias não podem ser canceladas neste status: " + ferias.getStatus());
+        // Cancela se ainda estiverem no status visto pelo usuário e na versão esperada
+        Optional<Ferias> feriasOpt = feriasRepository.cancelar(feriasId, statusAtual, versao, dono);
+        if (feriasOpt.isEmpty()) {
+            Ferias atuais = buscarParaExplicarFalha(feriasId);
+            if (dono != null && !atuais.getUsuarioId().equals(dono)) {
+                throw new SecurityException("Usuário não tem permissão para cancelar estas férias");
+            }
+            if (!atuais.getStatus().permiteCancelamento()) {
+                throw new IllegalStateException("Férias não podem ser canceladas neste status: " + atuais.getStatus());
+            }
+            verificarVersao(atuais, versao);
+            throw new IllegalStateException("Férias alteradas por outra operação; recarregue e tente novamente");
         }
         
-        // Cancela
-        ferias.cancelar();
-        
-        Ferias feriasCanceladas = feriasRepository.save(ferias);
+        Ferias feriasCanceladas = feriasOpt.get();
+        publicar(DomainEvent.Tipo.FERIAS_CANCELADAS, feriasCanceladas, statusAtual);
         logger.info("Férias canceladas com sucesso: ID {}", feriasCanceladas.getId());
         
         return feriasCanceladas;
@@ -207,6 +222,7 @@ public class FeriasService {
         ferias.setObservacoes(novasObservacoes);
         
         Ferias feriasEditadas = feriasRepository.save(ferias);
+        publicar(DomainEvent.Tipo.FERIAS_EDITADAS, feriasEditadas, feriasEditadas.getStatus());
         logger.info("Férias editadas com sucesso: ID {}", feriasEditadas.getId());
         
         return feriasEditadas;
@@ -226,6 +242,13 @@ public class FeriasService {
         return feriasRepository.findFeriasPendentes();
     }
     
+    /**
+     * Busca uma página de férias pendentes, da solicitação mais recente para a mais antiga
+     */
+    public Page<Ferias> buscarPaginaFeriasPendentes(Page.Cursor apos, int tamanho) {
+        return feriasRepository.findPagePendentes(apos, tamanho);
+    }
+    
     /**
      * Busca férias aprovadas
      */
@@ -307,20 +330,7 @@ public class FeriasService {
      * Relatório de férias por departamento
      */
     public java.util.Map<String, Long> relatorioFeriasPorDepartamento() {
-        List<Ferias> todasFerias = feriasRepository.findAll();
-        java.util.Map<String, Long> relatorio = new java.util.HashMap<>();
-        
-        for (Ferias ferias : todasFerias) {
-            Optional<Usuario> usuarioOpt = usuarioRepository.findById(ferias.getUsuarioId());
-            if (usuarioOpt.isPresent()) {
-                String departamento = usuarioOpt.get().getDepartamento();
-                if (departamento != null) {
-                    relatorio.merge(departamento, 1L, Long::sum);
-                }
-            }
-        }
-        
-        return relatorio;
+        return feriasRepository.contarPorDepartamento();
     }
     
     /**
@@ -371,7 +381,7 @@ public class FeriasService {
      * Conta total de solicitações pendentes
      */
     public long contarFeriasPendentes() {
-        return feriasRepository.findFeriasPendentes().size();
+        return ResumoRhService.obterResumo().getFeriasPendentes();
     }
     
     /**
@@ -380,4 +390,28 @@ public class FeriasService {
     public Optional<Ferias> buscarPorId(Long id) {
         return feriasRepository.findById(id);
     }
+    
+    /**
+     * Lê as férias depois de um UPDATE condicional que não alterou nada, para explicar o motivo
+     */
+    private Ferias buscarParaExplicarFalha(Long feriasId) {
+        return feriasRepository.findById(feriasId)
+            .orElseThrow(() -> new IllegalArgumentException("Férias não encontradas"));
+    }
+    
+    /**
+     * Falha se as férias mudaram desde a versão vista pelo usuário
+     */
+    private void verificarVersao(Ferias atuais, Integer versao) {
+        if (versao != null && !versao.equals(atuais.getVersao())) {
+            throw new IllegalStateException("Férias alteradas por outro usuário desde a última consulta; recarregue e tente novamente");
+        }
+    }
+    
+    /**
+     * Publica a alteração para os dashboards e o resumo do RH
+     */
+    private void publicar(DomainEvent.Tipo tipo, Ferias ferias, StatusFerias statusAnterior) {
+        DomainEventBus.publicar(new DomainEvent(tipo, ferias.getId(), ferias.getUsuarioId(), ferias, statusAnterior));
+    }
 }
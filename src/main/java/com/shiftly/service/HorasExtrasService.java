@@ -4,6 +4,7 @@ import com.shiftly.model.HorasExtras;
 import com.shiftly.model.StatusHorasExtras;
 import com.shiftly.model.Usuario;
 import com.shiftly.repository.HorasExtrasRepository;
+import com.shiftly.repository.Page;
 import com.shiftly.repository.UsuarioRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +54,7 @@ public class HorasExtrasService {
         HorasExtras horasExtras = new HorasExtras(usuarioId, data, horas, descricao, justificativa);
         
         HorasExtras horasExtrasSalvas = horasExtrasRepository.save(horasExtras);
+        publicar(DomainEvent.Tipo.HORAS_EXTRAS_REGISTRADAS, horasExtrasSalvas, null);
         logger.info("Horas extras registradas com sucesso: ID {}", horasExtrasSalvas.getId());
         
         return horasExtrasSalvas;
@@ -62,6 +64,14 @@ public class HorasExtrasService {
      * Aprova horas extras
      */
     public HorasExtras aprovarHorasExtras(Long horasExtrasId, Long usuarioRhId) {
+        return aprovarHorasExtras(horasExtrasId, null, usuarioRhId);
+    }
+    
+    /**
+     * Aprova horas extras na versão vista pelo RH (nula: qualquer versão)
+     * Um único UPDATE condicional; as horas extras só são lidas de novo para explicar uma falha
+     */
+    public HorasExtras aprovarHorasExtras(Long horasExtrasId, Integer versao, Long usuarioRhId) {
         logger.info("Aprovando horas extras ID {} por usuário RH ID {}", horasExtrasId, usuarioRhId);
         
         // Verifica permissões
@@ -70,23 +80,18 @@ public class HorasExtrasService {
             throw new SecurityException("Usuário não tem permissão para aprovar horas extras");
         }
         
-        // Busca as horas extras
-        Optional<HorasExtras> horasExtrasOpt = horasExtrasRepository.findById(horasExtrasId);
+        // Aprova se ainda estiverem pendentes e na versão esperada
+        Optional<HorasExtras> horasExtrasOpt = horasExtrasRepository.aprovar(horasExtrasId, versao, usuarioRhId);
         if (horasExtrasOpt.isEmpty()) {
-            throw new IllegalArgumentException("Horas extras não encontradas");
+            HorasExtras atuais = buscarParaExplicarFalha(horasExtrasId);
+            if (!atuais.isPendente()) {
+                throw new IllegalStateException("Apenas horas extras pendentes podem ser aprovadas");
+            }
+            throw alteradasPorOutraOperacao();
         }
         
-        HorasExtras horasExtras = horasExtrasOpt.get();
-        
-        // Verifica se pode ser aprovada
-        if (!horasExtras.isPendente()) {
-            throw new IllegalStateException("Apenas horas extras pendentes podem ser aprovadas");
-        }
-        
-        // Aprova
-        horasExtras.aprovar(usuarioRhId);
-        
-        HorasExtras horasExtrasAprovadas = horasExtrasRepository.save(horasExtras);
+        HorasExtras horasExtrasAprovadas = horasExtrasOpt.get();
+        publicar(DomainEvent.Tipo.HORAS_EXTRAS_APROVADAS, horasExtrasAprovadas, StatusHorasExtras.PENDENTE);
         logger.info("Horas extras aprovadas com sucesso: ID {}", horasExtrasAprovadas.getId());
         
         return horasExtrasAprovadas;
@@ -96,6 +101,13 @@ public class HorasExtrasService {
      * Recusa horas extras
      */
     public HorasExtras recusarHorasExtras(Long horasExtrasId, String motivo, Long usuarioRhId) {
+        return recusarHorasExtras(horasExtrasId, null, motivo, usuarioRhId);
+    }
+    
+    /**
+     * Recusa horas extras na versão vista pelo RH (nula: qualquer versão)
+     */
+    public HorasExtras recusarHorasExtras(Long horasExtrasId, Integer versao, String motivo, Long usuarioRhId) {
         logger.info("Recusando horas extras ID {} por usuário RH ID {}", horasExtrasId, usuarioRhId);
         
         // Verifica permissões
@@ -104,27 +116,22 @@ public class HorasExtrasService {
             throw new SecurityException("Usuário não tem permissão para recusar horas extras");
         }
         
-        // Busca as horas extras
-        Optional<HorasExtras> horasExtrasOpt = horasExtrasRepository.findById(horasExtrasId);
-        if (horasExtrasOpt.isEmpty()) {
-            throw new IllegalArgumentException("Horas extras não encontradas");
-        }
-        
-        HorasExtras horasExtras = horasExtrasOpt.get();
-        
-        // Verifica se pode ser recusada
-        if (!horasExtras.isPendente()) {
-            throw new IllegalStateException("Apenas horas extras pendentes podem ser recusadas");
-        }
-        
         if (motivo == null || motivo.trim().isEmpty()) {
             throw new IllegalArgumentException("Motivo da recusa é obrigatório");
         }
         
-        // Recusa
-        horasExtras.recusar(usuarioRhId, motivo);
+        // Recusa se ainda estiverem pendentes e na versão esperada
+        Optional<HorasExtras> horasExtrasOpt = horasExtrasRepository.recusar(horasExtrasId, versao, usuarioRhId, motivo);
+        if (horasExtrasOpt.isEmpty()) {
+            HorasExtras atuais = buscarParaExplicarFalha(horasExtrasId);
+            if (!atuais.isPendente()) {
+                throw new IllegalStateException("Apenas horas extras pendentes podem ser recusadas");
+            }
+            throw alteradasPorOutraOperacao();
+        }
         
-        HorasExtras horasExtrasRecusadas = horasExtrasRepository.save(horasExtras);
+        HorasExtras horasExtrasRecusadas = horasExtrasOpt.get();
+        publicar(DomainEvent.Tipo.HORAS_EXTRAS_RECUSADAS, horasExtrasRecusadas, StatusHorasExtras.PENDENTE);
         logger.info("Horas extras recusadas com sucesso: ID {}", horasExtrasRecusadas.getId());
         
         return horasExtrasRecusadas;
@@ -134,6 +141,14 @@ public class HorasExtrasService {
      * Marca horas extras como pagas
      */
     public HorasExtras marcarComoPago(Long horasExtrasId, Double valorPago, Long usuarioRhId) {
+        return marcarComoPago(horasExtrasId, null, valorPago, usuarioRhId);
+    }
+    
+    /**
+     * Marca horas extras como pagas na versão vista pelo RH (nula: qualquer versão)
+     * O UPDATE só passa uma vez: um segundo pagamento simultâneo falha em vez de sobrescrever o primeiro
+     */
+    public HorasExtras marcarComoPago(Long horasExtrasId, Integer versao, Double valorPago, Long usuarioRhId) {
         logger.info("Marcando horas extras ID {} como pagas por usuário RH ID {}", horasExtrasId, usuarioRhId);
         
         // Verifica permissões
@@ -142,27 +157,21 @@ public class HorasExtrasService {
             throw new SecurityException("Usuário não tem permissão para marcar pagamentos");
         }
         
-        // Busca as horas extras
-        Optional<HorasExtras> horasExtrasOpt = horasExtrasRepository.findById(horasExtrasId);
+        // Marca se estiverem aprovadas, ainda não pagas e na versão esperada
+        Optional<HorasExtras> horasExtrasOpt = horasExtrasRepository.marcarComoPago(horasExtrasId, versao, valorPago);
         if (horasExtrasOpt.isEmpty()) {
-            throw new IllegalArgumentException("Horas extras não encontradas");
+            HorasExtras atuais = buscarParaExplicarFalha(horasExtrasId);
+            if (!atuais.isAprovada()) {
+                throw new IllegalStateException("Apenas horas extras aprovadas podem ser marcadas como pagas");
+            }
+            if (atuais.isPaga()) {
+                throw new IllegalStateException("Horas extras já foram pagas");
+            }
+            throw alteradasPorOutraOperacao();
         }
         
-        HorasExtras horasExtras = horasExtrasOpt.get();
-        
-        // Verifica se pode ser marcada como paga
-        if (!horasExtras.isAprovada()) {
-            throw new IllegalStateException("Apenas horas extras aprovadas podem ser marcadas como pagas");
-        }
-        
-        if (horasExtras.isPaga()) {
-            throw new IllegalStateException("Horas extras já foram pagas");
-        }
-        
-        // Marca como paga
-        horasExtras.marcarComoPago(valorPago);
-        
-        HorasExtras horasExtrasPagas = horasExtrasRepository.save(horasExtras);
+        HorasExtras horasExtrasPagas = horasExtrasOpt.get();
+        publicar(DomainEvent.Tipo.HORAS_EXTRAS_PAGAS, horasExtrasPagas, StatusHorasExtras.APROVADA);
         logger.info("Horas extras marcadas como pagas: ID {}", horasExtrasPagas.getId());
         
         return horasExtrasPagas;
@@ -203,6 +212,7 @@ public class HorasExtrasService {
         horasExtras.setJustificativa(novaJustificativa);
         
         HorasExtras horasExtrasEditadas = horasExtrasRepository.save(horasExtras);
+        publicar(DomainEvent.Tipo.HORAS_EXTRAS_EDITADAS, horasExtrasEditadas, horasExtrasEditadas.getStatus());
         logger.info("Horas extras editadas com sucesso: ID {}", horasExtrasEditadas.getId());
         
         return horasExtrasEditadas;
@@ -222,6 +232,13 @@ public class HorasExtrasService {
         return horasExtrasRepository.findHorasExtrasPendentes();
     }
     
+    /**
+     * Busca uma página de horas extras pendentes, da solicitação mais recente para a mais antiga
+     */
+    public Page<HorasExtras> buscarPaginaHorasExtrasPendentes(Page.Cursor apos, int tamanho) {
+        return horasExtrasRepository.findPagePendentes(apos, tamanho);
+    }
+    
     /**
      * Busca horas extras aprovadas
      */
@@ -364,7 +381,7 @@ public class HorasExtrasService {
      * Conta horas extras pendentes
      */
     public long contarHorasExtrasPendentes() {
-        return buscarHorasExtrasPendentes().size();
+        return ResumoRhService.obterResumo().getHorasExtrasPendentes();
     }
     
     /**
@@ -406,6 +423,7 @@ public class HorasExtrasService {
         
         boolean deletado = horasExtrasRepository.deleteById(horasExtrasId);
         if (deletado) {
+            publicar(DomainEvent.Tipo.HORAS_EXTRAS_REMOVIDAS, horasExtras, horasExtras.getStatus());
             logger.info("Horas extras deletadas com sucesso: ID {}", horasExtrasId);
         } else {
             logger.warn("Horas extras não encontradas para deleção: ID {}", horasExtrasId);
@@ -413,4 +431,24 @@ public class HorasExtrasService {
         
         return deletado;
     }
+    
+    /**
+     * Lê as horas extras depois de um UPDATE condicional que não alterou nada, para explicar o motivo
+     */
+    private HorasExtras buscarParaExplicarFalha(Long horasExtrasId) {
+        return horasExtrasRepository.findById(horasExtrasId)
+            .orElseThrow(() -> new IllegalArgumentException("Horas extras não encontradas"));
+    }
+    
+    private IllegalStateException alteradasPorOutraOperacao() {
+        return new IllegalStateException("Horas extras alteradas por outro usuário desde a última consulta; recarregue e tente novamente");
+    }
+    
+    /**
+     * Publica a alteração para os dashboards e o resumo do RH
+     */
+    private void publicar(DomainEvent.Tipo tipo, HorasExtras horasExtras, StatusHorasExtras statusAnterior) {
+        DomainEventBus.publicar(new DomainEvent(tipo, horasExtras.getId(), horasExtras.getUsuarioId(),
+            horasExtras, statusAnterior));
+    }
 }
@@ -0,0 +1,256 @@
+package com.shiftly.service;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.repository.PontoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila de ingestão de pontos com group commit
+ * Agrupa pontos enviados por várias threads e grava cada grupo com um único batch/transação.
+ * Se o banco recusa o lote, ele é dividido ao meio até isolar os pontos problemáticos,
+ * para que só eles falhem; falha de conexão falha o lote inteiro sem novas tentativas
+ */
+public class PontoIngestionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(PontoIngestionQueue.class);
+
+    private final PontoRepository pontoRepository;
+    private final int maxBatch;
+    private final long maxLingerNanos;
+    private final BlockingQueue<PendingPonto> queue;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Métricas
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong pontoCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private final AtomicLong rejectedPontoCount = new AtomicLong();
+
+    public PontoIngestionQueue(PontoRepository pontoRepository, int maxBatch, long maxLingerMs, int capacity) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Tamanho máximo do lote deve ser positivo");
+        }
+
+        this.pontoRepository = pontoRepository;
+        this.maxBatch = maxBatch;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        this.queue = new LinkedBlockingQueue<>(capacity);
+
+        this.worker = new Thread(this::run, "shiftly-ponto-ingestion");
+        this.worker.setDaemon(true);
+        this.worker.start();
+
+        logger.info("Fila de ingestão de pontos iniciada (lote máximo={}, espera máxima={} ms)", maxBatch, maxLingerMs);
+    }
+
+    /**
+     * Enfileira um ponto para gravação
+     * O futuro é completado com o ponto já com ID gerado, ou com a falha do lote
+     */
+    public CompletableFuture<Ponto> submit(Ponto ponto) {
+        if (!running) {
+            throw new RejectedExecutionException("Fila de ingestão de pontos encerrada");
+        }
+
+        PendingPonto pending = new PendingPonto(ponto);
+        if (!queue.offer(pending)) {
+            throw new RejectedExecutionException("Fila de ingestão de pontos cheia");
+        }
+
+        // Encerrada entre a verificação e o offer: o worker pode já ter feito a última drenagem
+        if (!running && queue.remove(pending)) {
+            throw new RejectedExecutionException("Fila de ingestão de pontos encerrada");
+        }
+        return pending.future;
+    }
+
+    /**
+     * Retira da fila um ponto que ainda não entrou em lote
+     * Retorna false se a gravação já começou (ou terminou) e o resultado ainda vai sair pelo futuro
+     */
+    public boolean withdraw(CompletableFuture<Ponto> future) {
+        boolean removed = future != null && queue.removeIf(pending -> pending.future == future);
+        if (removed) {
+            future.cancel(false);
+        }
+        return removed;
+    }
+
+    /**
+     * Laço da thread de gravação
+     */
+    private void run() {
+        List<PendingPonto> batch = new ArrayList<>(maxBatch);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPonto first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Aguarda mais pontos até completar o lote ou estourar o tempo de espera
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingPonto next = remaining > 0
+                        ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                        : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+
+            } catch (InterruptedException e) {
+                // Pontos já retirados da fila e ainda não gravados
+                for (PendingPonto pending : batch) {
+                    pending.future.completeExceptionally(new RejectedExecutionException("Fila de ingestão de pontos encerrada"));
+                }
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+
+        failPending();
+    }
+
+    /**
+     * Falha os pontos que sobraram na fila após o encerramento
+     * Chamado pelo worker ao sair e de novo no shutdown, para o que entrou depois da saída do worker
+     */
+    private void failPending() {
+        PendingPonto leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.future.completeExceptionally(new RejectedExecutionException("Fila de ingestão de pontos encerrada"));
+        }
+    }
+
+    /**
+     * Grava um lote e completa os futuros
+     * Lote recusado pelo banco é dividido ao meio e cada metade é gravada de novo
+     */
+    private void flush(List<PendingPonto> batch) {
+        List<Ponto> pontos = new ArrayList<>(batch.size());
+        for (PendingPonto pending : batch) {
+            pontos.add(pending.ponto);
+        }
+
+        try {
+            pontoRepository.saveAll(pontos);
+            batchCount.incrementAndGet();
+            pontoCount.addAndGet(pontos.size());
+            logger.debug("Lote de {} pontos gravado", pontos.size());
+
+            for (PendingPonto pending : batch) {
+                pending.future.complete(pending.ponto);
+            }
+        } catch (RuntimeException e) {
+            failedBatchCount.incrementAndGet();
+
+            if (batch.size() > 1 && !isConnectionFailure(e)) {
+                logger.warn("Lote de {} pontos recusado ({}); dividindo para isolar os pontos inválidos",
+                           pontos.size(), e.getMessage());
+                int middle = batch.size() / 2;
+                flush(batch.subList(0, middle));
+                flush(batch.subList(middle, batch.size()));
+                return;
+            }
+
+            if (batch.size() == 1) {
+                rejectedPontoCount.incrementAndGet();
+                logger.error("Ponto do usuário {} recusado: {}", batch.get(0).ponto.getUsuarioId(), e.getMessage());
+            } else {
+                logger.error("Erro ao gravar lote de {} pontos: {}", pontos.size(), e.getMessage());
+            }
+
+            for (PendingPonto pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Falha de conexão ou transitória: dividir o lote só multiplicaria as tentativas
+     * Usada também pelo PontoService para decidir o que vai para o journal offline
+     */
+    static boolean isConnectionFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                return state != null && state.startsWith("08");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encerra a fila, gravando os pontos já enfileirados
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        failPending();
+        logger.info("Fila de ingestão de pontos encerrada");
+    }
+
+    /**
+     * Obtém estatísticas da fila
+     */
+    public String getStats() {
+        long batches = batchCount.get();
+        long total = pontoCount.get();
+        return String.format("Fila de pontos: enfileirados=%d, lotes=%d, pontos gravados=%d, média por lote=%.1f, lotes com falha=%d, pontos recusados=%d",
+                             queue.size(), batches, total, batches > 0 ? (double) total / batches : 0.0,
+                             failedBatchCount.get(), rejectedPontoCount.get());
+    }
+
+    /**
+     * Ponto aguardando gravação
+     */
+    private static class PendingPonto {
+        private final Ponto ponto;
+        private final CompletableFuture<Ponto> future = new CompletableFuture<>();
+
+        PendingPonto(Ponto ponto) {
+            this.ponto = ponto;
+        }
+    }
+}
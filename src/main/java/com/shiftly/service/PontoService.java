@@ -1,10 +1,15 @@
 package com.shiftly.service;
 
+import com.shiftly.model.JornadaDiaria;
 import com.shiftly.model.Ponto;
 import com.shiftly.model.TipoPonto;
 import com.shiftly.model.Usuario;
+import com.shiftly.repository.JornadaDiariaRepository;
+import com.shiftly.repository.Page;
 import com.shiftly.repository.PontoRepository;
 import com.shiftly.repository.UsuarioRepository;
+import com.shiftly.util.ConfigUtil;
+import com.shiftly.util.OfflineCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,8 +17,17 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service para gerenciar registros de ponto
@@ -24,6 +38,18 @@ public class PontoService {
     
     private final PontoRepository pontoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final JornadaDiariaRepository jornadaRepository;
+    
+    // Fila compartilhada para que pontos de várias telas/threads sejam gravados em lote
+    private static final PontoIngestionQueue ingestionQueue = new PontoIngestionQueue(
+        new PontoRepository(),
+        ConfigUtil.getInt("ponto.ingestion.max.batch", 100),
+        ConfigUtil.getLong("ponto.ingestion.max.linger.ms", 10),
+        ConfigUtil.getInt("ponto.ingestion.queue.capacity", 10000)
+    );
+    
+    // Espera máxima de registrarPonto pela confirmação do lote (acima do timeout de conexão do pool)
+    private static final long TIMEOUT_REGISTRO_MS = ConfigUtil.getLong("ponto.ingestion.register.timeout.ms", 15000);
     
     // Configurações de horário
     private static final LocalTime HORARIO_ENTRADA_PADRAO = LocalTime.of(8, 0);
@@ -33,13 +59,14 @@ public class PontoService {
     public PontoService() {
         this.pontoRepository = new PontoRepository();
         this.usuarioRepository = new UsuarioRepository();
+        this.jornadaRepository = new JornadaDiariaRepository();
     }
     
     /**
      * Salva um ponto completo
      */
     public Ponto salvarPonto(Ponto ponto) {
-        logger.info("Salvando ponto para usuário ID {} - Tipo: {}", ponto.getUsuarioId(), ponto.getTipoPonto());
+        logger.debug("Salvando ponto para usuário ID {} - Tipo: {}", ponto.getUsuarioId(), ponto.getTipoPonto());
         
         // Validações básicas
         if (ponto.getUsuarioId() == null) {
@@ -56,16 +83,98 @@ public class PontoService {
         
         // Salvar no repositório
         Ponto pontoSalvo = pontoRepository.save(ponto);
+        publicar(DomainEvent.Tipo.PONTO_REGISTRADO, pontoSalvo);
         
-        logger.info("Ponto salvo com sucesso - ID: {}", pontoSalvo.getId());
+        logger.debug("Ponto salvo com sucesso - ID: {}", pontoSalvo.getId());
         return pontoSalvo;
     }
     
     /**
      * Registra um ponto
+     * A gravação passa pela fila de ingestão, que agrupa pontos simultâneos em um único batch
      */
     public Ponto registrarPonto(Long usuarioId, TipoPonto tipoPonto, Double latitude, Double longitude, String faceMatch) {
-        logger.info("Registrando ponto para usuário ID {} - Tipo: {}", usuarioId, tipoPonto);
+        Ponto ponto = criarPontoValidado(usuarioId, tipoPonto, latitude, longitude, faceMatch);
+        
+        CompletableFuture<Ponto> gravacao = null;
+        try {
+            gravacao = ingestionQueue.submit(ponto);
+            Ponto pontoSalvo = gravacao.get(TIMEOUT_REGISTRO_MS, TimeUnit.MILLISECONDS);
+            publicar(DomainEvent.Tipo.PONTO_REGISTRADO, pontoSalvo);
+            logger.debug("Ponto registrado com sucesso: ID {}", pontoSalvo.getId());
+            
+            return pontoSalvo;
+            
+        } catch (RejectedExecutionException e) {
+            return guardarOffline(ponto, e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            
+            // Restrição ou dado inválido: o reenvio seria recusado de novo e o ponto iria para a quarentena
+            if (!(causa instanceof RejectedExecutionException) && !PontoIngestionQueue.isConnectionFailure(causa)) {
+                logger.warn("Ponto do usuário {} recusado pelo banco: {}", usuarioId, causa.getMessage());
+                throw new IllegalStateException("Ponto não registrado: " + mensagemDoBanco(causa), causa);
+            }
+            return guardarOffline(ponto, causa);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            
+            // Já em um lote sendo gravado: o resultado ainda vai sair, e o journal poderia duplicar o ponto
+            if (!ingestionQueue.withdraw(gravacao)) {
+                throw new IllegalStateException(
+                    "Gravação do ponto ainda em andamento; confira o histórico antes de registrar de novo", e);
+            }
+            return guardarOffline(ponto, e);
+        }
+    }
+    
+    /**
+     * Grava no journal offline para reenvio pelo SyncService; o ponto recebe um ID temporário negativo
+     */
+    private Ponto guardarOffline(Ponto ponto, Throwable causa) {
+        logger.warn("Erro ao registrar ponto no banco, adicionando ao cache offline: {}", causa.getMessage());
+        OfflineCache.addPontoPendente(ponto);
+        return ponto;
+    }
+    
+    /**
+     * Mensagem do erro de banco mais interno, em vez da do invólucro "Erro de banco de dados"
+     */
+    private static String mensagemDoBanco(Throwable erro) {
+        Throwable raiz = erro;
+        while (raiz.getCause() != null) {
+            raiz = raiz.getCause();
+        }
+        return raiz.getMessage();
+    }
+    
+    /**
+     * Registra um ponto de forma assíncrona
+     * O futuro é completado com o ponto e seu ID gerado quando o lote for confirmado
+     */
+    public CompletableFuture<Ponto> registrarPontoAsync(Long usuarioId, TipoPonto tipoPonto, Double latitude,
+                                                        Double longitude, String faceMatch) {
+        Ponto ponto = criarPontoValidado(usuarioId, tipoPonto, latitude, longitude, faceMatch);
+        return submeter(ponto);
+    }
+    
+    /**
+     * Envia o ponto à fila de ingestão e publica o evento quando o lote for confirmado
+     */
+    private CompletableFuture<Ponto> submeter(Ponto ponto) {
+        return ingestionQueue.submit(ponto).thenApply(pontoSalvo -> {
+            publicar(DomainEvent.Tipo.PONTO_REGISTRADO, pontoSalvo);
+            return pontoSalvo;
+        });
+    }
+    
+    /**
+     * Valida o usuário e o tipo de ponto e monta o registro
+     */
+    private Ponto criarPontoValidado(Long usuarioId, TipoPonto tipoPonto, Double latitude, Double longitude, String faceMatch) {
+        logger.debug("Registrando ponto para usuário ID {} - Tipo: {}", usuarioId, tipoPonto);
         
         // Verifica se o usuário existe e está ativo
         Optional<Usuario> usuarioOpt = usuarioRepository.findById(usuarioId);
@@ -93,10 +202,14 @@ public class PontoService {
             ponto.setEndereco(obterEnderecoDeLatLong(latitude, longitude));
         }
         
-        Ponto pontoSalvo = pontoRepository.save(ponto);
-        logger.info("Ponto registrado com sucesso: ID {}", pontoSalvo.getId());
-        
-        return pontoSalvo;
+        return ponto;
+    }
+    
+    /**
+     * Encerra a fila de ingestão, gravando os pontos pendentes
+     */
+    public static void shutdownIngestion() {
+        ingestionQueue.shutdown();
     }
     
     /**
@@ -129,6 +242,7 @@ public class PontoService {
         ponto.setMotivoCorrecao("Registro manual pelo RH");
         
         Ponto pontoSalvo = pontoRepository.save(ponto);
+        publicar(DomainEvent.Tipo.PONTO_REGISTRADO, pontoSalvo);
         logger.info("Ponto manual registrado com sucesso: ID {}", pontoSalvo.getId());
         
         return pontoSalvo;
@@ -156,7 +270,9 @@ public class PontoService {
         ponto.setDataHora(novaDataHora);
         ponto.corrigir(usuarioRhId, motivo);
         
+        // O save recalcula a jornada do dia original e do novo dia na mesma transação
         Ponto pontoCorrigido = pontoRepository.save(ponto);
+        publicar(DomainEvent.Tipo.PONTO_CORRIGIDO, pontoCorrigido);
         logger.info("Ponto corrigido com sucesso: ID {}", pontoCorrigido.getId());
         
         return pontoCorrigido;
@@ -183,6 +299,18 @@ public class PontoService {
         return pontoRepository.findByUsuarioId(usuarioId);
     }
     
+    /**
+     * Busca uma página do histórico de pontos, do mais recente para o mais antigo
+     * Sem período informado percorre todo o histórico; a próxima página é pedida com o cursor desta
+     */
+    public Page<Ponto> buscarPaginaHistorico(Long usuarioId, LocalDate dataInicio, LocalDate dataFim,
+                                             Page.Cursor apos, int tamanho) {
+        if (dataInicio == null || dataFim == null) {
+            return pontoRepository.findPageByUsuarioId(usuarioId, apos, tamanho);
+        }
+        return pontoRepository.findPageByUsuarioIdAndPeriodo(usuarioId, dataInicio, dataFim, apos, tamanho);
+    }
+    
     /**
      * Busca o último ponto de um usuário
      */
@@ -233,27 +361,79 @@ public class PontoService {
     
     /**
      * Calcula horas trabalhadas em um período
+     * Soma as linhas da jornada diária (uma por dia) em vez de percorrer os pontos
      */
     public double calcularHorasTrabalhadasNoPeriodo(Long usuarioId, LocalDate dataInicio, LocalDate dataFim) {
-        double totalHoras = 0.0;
+        return jornadaRepository.findByUsuarioIdAndPeriodo(usuarioId, dataInicio, dataFim).stream()
+            .mapToDouble(JornadaDiaria::getHorasTrabalhadas)
+            .sum();
+    }
+    
+    /**
+     * Calcula horas trabalhadas por dia em um período (dias sem ponto ficam com zero)
+     */
+    public Map<LocalDate, Double> calcularHorasTrabalhadasPorDia(Long usuarioId, LocalDate dataInicio, LocalDate dataFim) {
+        Map<LocalDate, Double> horasPorDia = new TreeMap<>();
+        for (LocalDate data = dataInicio; !data.isAfter(dataFim); data = data.plusDays(1)) {
+            horasPorDia.put(data, 0.0);
+        }
         
-        LocalDate dataAtual = dataInicio;
-        while (!dataAtual.isAfter(dataFim)) {
-            totalHoras += calcularHorasTrabalhadas(usuarioId, dataAtual);
-            dataAtual = dataAtual.plusDays(1);
+        for (JornadaDiaria jornada : jornadaRepository.findByUsuarioIdAndPeriodo(usuarioId, dataInicio, dataFim)) {
+            horasPorDia.put(jornada.getData(), jornada.getHorasTrabalhadas());
+        }
+        
+        return horasPorDia;
+    }
+    
+    /**
+     * Calcula horas trabalhadas no período para vários usuários de uma vez
+     */
+    public Map<Long, Double> calcularHorasTrabalhadasNoPeriodo(Collection<Long> usuarioIds, LocalDate dataInicio, LocalDate dataFim) {
+        Map<Long, Double> horasPorUsuario = new HashMap<>();
+        if (usuarioIds == null || usuarioIds.isEmpty()) {
+            return horasPorUsuario;
+        }
+        
+        for (Long usuarioId : usuarioIds) {
+            horasPorUsuario.put(usuarioId, 0.0);
+        }
+        for (JornadaDiaria jornada : jornadaRepository.findByUsuarioIdsAndPeriodo(usuarioIds, dataInicio, dataFim)) {
+            horasPorUsuario.merge(jornada.getUsuarioId(), jornada.getHorasTrabalhadas(), Double::sum);
         }
         
-        return totalHoras;
+        return horasPorUsuario;
+    }
+    
+    /**
+     * Busca as jornadas consolidadas de um usuário em um período
+     */
+    public List<JornadaDiaria> buscarJornadas(Long usuarioId, LocalDate dataInicio, LocalDate dataFim) {
+        return jornadaRepository.findByUsuarioIdAndPeriodo(usuarioId, dataInicio, dataFim);
+    }
+    
+    /**
+     * Reconstrói a jornada diária de todos os usuários a partir dos pontos
+     */
+    public int reconstruirJornadas() {
+        logger.info("Reconstruindo jornada diária a partir dos pontos");
+        return jornadaRepository.reconstruir();
+    }
+    
+    /**
+     * Recalcula apenas os dias cuja jornada consolidada diverge dos pontos (manutenção)
+     */
+    public int reconciliarJornadas() {
+        logger.info("Reconciliando jornada diária com os pontos");
+        return jornadaRepository.reconciliar();
     }
     
     /**
      * Calcula horas extras em uma data
      */
     public double calcularHorasExtras(Long usuarioId, LocalDate data) {
-        double horasTrabalhadas = calcularHorasTrabalhadas(usuarioId, data);
-        double horasRegulares = 8.0; // 8 horas por dia padrão
-        
-        return Math.max(0, horasTrabalhadas - horasRegulares);
+        return jornadaRepository.findByUsuarioIdAndData(usuarioId, data)
+            .map(JornadaDiaria::getHorasExtras)
+            .orElse(0.0);
     }
     
     /**
@@ -264,19 +444,37 @@ public class PontoService {
         LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
         
         double horasTrabalhadas = calcularHorasTrabalhadasNoPeriodo(usuarioId, inicioMes, fimMes);
+        return horasTrabalhadas - calcularHorasEsperadas(inicioMes, fimMes);
+    }
+    
+    /**
+     * Calcula saldo de horas do mês para vários usuários com uma única consulta
+     */
+    public Map<Long, Double> calcularSaldoHorasMes(Collection<Long> usuarioIds, int ano, int mes) {
+        LocalDate inicioMes = LocalDate.of(ano, mes, 1);
+        LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
+        double horasEsperadas = calcularHorasEsperadas(inicioMes, fimMes);
         
-        // Calcula dias úteis do mês (segunda a sexta)
+        Map<Long, Double> saldos = new HashMap<>();
+        calcularHorasTrabalhadasNoPeriodo(usuarioIds, inicioMes, fimMes)
+            .forEach((usuarioId, horas) -> saldos.put(usuarioId, horas - horasEsperadas));
+        return saldos;
+    }
+    
+    /**
+     * Calcula horas esperadas no período (8h por dia útil, segunda a sexta)
+     */
+    private double calcularHorasEsperadas(LocalDate dataInicio, LocalDate dataFim) {
         int diasUteis = 0;
-        LocalDate dataAtual = inicioMes;
-        while (!dataAtual.isAfter(fimMes)) {
+        LocalDate dataAtual = dataInicio;
+        while (!dataAtual.isAfter(dataFim)) {
             if (dataAtual.getDayOfWeek().getValue() <= 5) { // 1=segunda, 5=sexta
                 diasUteis++;
             }
             dataAtual = dataAtual.plusDays(1);
         }
         
-        double horasEsperadas = diasUteis * 8.0;
-        return horasTrabalhadas - horasEsperadas;
+        return diasUteis * 8.0;
     }
     
     /**
@@ -387,6 +585,7 @@ public class PontoService {
         
         boolean deletado = pontoRepository.deleteById(pontoId);
         if (deletado) {
+            DomainEventBus.publicar(new DomainEvent(DomainEvent.Tipo.PONTO_REMOVIDO, pontoId, null, null, null));
             logger.info("Ponto deletado com sucesso: ID {}", pontoId);
         } else {
             logger.warn("Ponto não encontrado para deleção: ID {}", pontoId);
@@ -394,4 +593,11 @@ public class PontoService {
         
         return deletado;
     }
+    
+    /**
+     * Publica a alteração do ponto para os dashboards
+     */
+    static void publicar(DomainEvent.Tipo tipo, Ponto ponto) {
+        DomainEventBus.publicar(new DomainEvent(tipo, ponto.getId(), ponto.getUsuarioId(), ponto, null));
+    }
 }
@@ -0,0 +1,142 @@
+package com.shiftly.service;
+
+import com.shiftly.model.HorasExtras;
+import com.shiftly.model.StatusFerias;
+import com.shiftly.model.StatusHorasExtras;
+import com.shiftly.repository.UsuarioRepository;
+import com.shiftly.repository.UsuarioRepository.ResumoRh;
+import com.shiftly.util.ConfigUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service com os contadores do painel do RH
+ * O resumo vem de uma única consulta e fica em cache por pouco tempo; enquanto isso,
+ * os eventos de férias e horas extras ajustam os contadores em memória.
+ * Colaboradores ativos e presentes hoje não recebem ajustes (um ponto só muda a presença
+ * na primeira marcação do dia do colaborador): valem pelo TTL do cache
+ */
+public class ResumoRhService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ResumoRhService.class);
+    
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(ConfigUtil.getLong("rh.resumo.cache.ttl.ms", 30000));
+    
+    private static final UsuarioRepository usuarioRepository = new UsuarioRepository();
+    
+    // Último resumo lido e instante de expiração (protegidos pelo lock da classe)
+    private static ResumoRh resumo;
+    private static long expiraEm;
+    
+    // Incrementada a cada ajuste ou invalidação: leitura iniciada antes de um evento não é guardada,
+    // senão o resultado dela (que pode não conter a alteração) sobrescreveria o ajuste
+    private static long geracao;
+    
+    static {
+        // Entrega síncrona: o contador já está ajustado quando o service retorna
+        DomainEventBus.assinar("resumo-rh", DomainEvent::isSolicitacao, Runnable::run,
+            eventos -> eventos.forEach(ResumoRhService::aoEvento), ResumoRhService::invalidar);
+    }
+    
+    /**
+     * Obtém o resumo do painel do RH, consultando o banco apenas se o cache expirou ou o dia mudou
+     */
+    public static ResumoRh obterResumo() {
+        LocalDate hoje = LocalDate.now();
+        
+        long geracaoLeitura;
+        synchronized (ResumoRhService.class) {
+            if (resumo != null && resumo.getData().equals(hoje) && System.nanoTime() - expiraEm < 0) {
+                return resumo;
+            }
+            geracaoLeitura = geracao;
+        }
+        
+        ResumoRh atual = usuarioRepository.resumirPainelRh(hoje);
+        synchronized (ResumoRhService.class) {
+            if (geracao != geracaoLeitura) {
+                // Evento durante a leitura: o resultado vale para esta chamada, e a próxima relê o banco
+                logger.debug("Resumo do RH alterado durante a leitura; não guardado em cache");
+                return atual;
+            }
+            resumo = atual;
+            expiraEm = System.nanoTime() + TTL_NANOS;
+        }
+        logger.debug("Resumo do RH atualizado: {} solicitações pendentes", atual.getSolicitacoesPendentes());
+        return atual;
+    }
+    
+    /**
+     * Aplica ao resumo em cache a alteração descrita pelo evento
+     */
+    private static void aoEvento(DomainEvent evento) {
+        switch (evento.getTipo()) {
+            case FERIAS_SOLICITADAS:
+                ajustar(1, 0, 0.0);
+                break;
+            case FERIAS_APROVADAS:
+            case FERIAS_RECUSADAS:
+                ajustar(-1, 0, 0.0);
+                break;
+            case FERIAS_CANCELADAS:
+                if (evento.getStatusAnterior() == StatusFerias.PENDENTE) {
+                    ajustar(-1, 0, 0.0);
+                }
+                break;
+            case HORAS_EXTRAS_REGISTRADAS:
+                ajustar(0, 1, 0.0);
+                break;
+            case HORAS_EXTRAS_RECUSADAS:
+                ajustar(0, -1, 0.0);
+                break;
+            case HORAS_EXTRAS_APROVADAS:
+                // Sai uma pendente e soma as horas se forem do mês corrente
+                HorasExtras horasExtras = (HorasExtras) evento.getEntidade();
+                LocalDate hoje = LocalDate.now();
+                LocalDate data = horasExtras.getData();
+                boolean mesCorrente = data != null && data.getYear() == hoje.getYear() && data.getMonth() == hoje.getMonth();
+                ajustar(0, -1, mesCorrente ? horasExtras.getHoras() : 0.0);
+                break;
+            case HORAS_EXTRAS_REMOVIDAS:
+                if (evento.getStatusAnterior() == StatusHorasExtras.PENDENTE) {
+                    ajustar(0, -1, 0.0);
+                } else {
+                    invalidar();
+                }
+                break;
+            default:
+                // Edições não mudam os contadores de solicitações; pontos nem chegam aqui (presença vale pelo TTL)
+                break;
+        }
+    }
+    
+    /**
+     * Descarta o resumo em cache (próxima leitura vai ao banco)
+     */
+    public static synchronized void invalidar() {
+        geracao++;
+        resumo = null;
+    }
+    
+    /**
+     * Aplica a variação ao resumo em cache, se houver
+     */
+    private static synchronized void ajustar(int deltaFerias, int deltaHorasExtras, double deltaHorasMes) {
+        geracao++;
+        if (resumo == null) {
+            return;
+        }
+        
+        resumo = new ResumoRh(
+            resumo.getData(),
+            resumo.getColaboradoresAtivos(),
+            resumo.getPresentesHoje(),
+            Math.max(0, resumo.getFeriasPendentes() + deltaFerias),
+            Math.max(0, resumo.getHorasExtrasPendentes() + deltaHorasExtras),
+            resumo.getHorasExtrasAprovadasMes() + deltaHorasMes
+        );
+    }
+}
@@ -1,17 +1,27 @@
 package com.shiftly.service;
 
+import com.shiftly.model.Ponto;
 import com.shiftly.model.Usuario;
 import com.shiftly.repository.DatabaseConfig;
+import com.shiftly.repository.DatabaseHealthMonitor;
+import com.shiftly.repository.PontoRepository;
+import com.shiftly.repository.UsuarioRepository;
+import com.shiftly.util.AppExecutors;
+import com.shiftly.util.Metrics;
 import com.shiftly.util.OfflineCache;
+import com.shiftly.util.OfflineJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Serviço para sincronizar dados do cache offline com o SQL Server
@@ -19,138 +29,234 @@ import java.util.concurrent.TimeUnit;
 public class SyncService {
     
     private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+    private static final Metrics.Timer syncTimer = Metrics.timer("sync.offline_journal");
+    private static final Metrics.Counter itensSincronizados = Metrics.counter("sync.offline_journal.itens");
+    private static final Metrics.Counter itensEmQuarentena = Metrics.counter("sync.offline_journal.quarentena");
     
-    private final ScheduledExecutorService scheduler;
-    private final UsuarioService usuarioService;
+    // Verificação periódica no scheduler compartilhado; a reprodução do journal roda no executor de IO
+    private final ScheduledFuture<?> verificacao;
+    private final AtomicBoolean autoSyncEmAndamento = new AtomicBoolean(false);
+    private final UsuarioRepository usuarioRepository;
+    private final PontoRepository pontoRepository;
     
     public SyncService() {
-        this.scheduler = Executors.newScheduledThreadPool(1);
-        this.usuarioService = new UsuarioService();
+        // O journal só existe porque o SQL Server falhou: reproduzir pelo roteamento normal
+        // poderia gravar de novo no H2, então os repositórios usam o SQL Server diretamente
+        this.usuarioRepository = new UsuarioRepository() {
+            @Override
+            protected Connection getConnection() throws SQLException {
+                return DatabaseConfig.getSqlServerConnection();
+            }
+        };
+        this.pontoRepository = new PontoRepository() {
+            @Override
+            protected Connection getConnection() throws SQLException {
+                return DatabaseConfig.getSqlServerConnection();
+            }
+        };
         
         // Inicia sincronização automática a cada 5 minutos
-        startAutoSync();
+        this.verificacao = startAutoSync();
     }
     
     /**
      * Inicia sincronização automática
      */
-    private void startAutoSync() {
-        scheduler.scheduleAtFixedRate(() -> {
+    private ScheduledFuture<?> startAutoSync() {
+        return AppExecutors.scheduler().scheduleAtFixedRate(() -> {
             try {
-                if (isSqlServerOnline() && OfflineCache.hasPendingData()) {
+                if (isSqlServerOnline() && OfflineCache.hasPendingData() && autoSyncEmAndamento.compareAndSet(false, true)) {
                     logger.info("SQL Server online, iniciando sincronização automática...");
-                    syncAllPendingData();
+                    AppExecutors.io().execute(this::syncAutomatico);
                 }
+            } catch (RejectedExecutionException e) {
+                autoSyncEmAndamento.set(false);
+                logger.warn("Executor de IO saturado; sincronização automática fica para a próxima verificação");
             } catch (Exception e) {
-                logger.error("Erro na sincronização automática: {}", e.getMessage(), e);
+                logger.error("Erro na verificação de sincronização automática: {}", e.getMessage(), e);
             }
         }, 1, 5, TimeUnit.MINUTES);
     }
     
-    /**
-     * Verifica se SQL Server está online
-     */
-    private boolean isSqlServerOnline() {
-        try (Connection conn = DatabaseConfig.getSqlServerConnection()) {
-            return conn != null && !conn.isClosed();
+    private void syncAutomatico() {
+        try {
+            syncAllPendingData();
         } catch (Exception e) {
-            logger.debug("SQL Server offline: {}", e.getMessage());
-            return false;
+            logger.error("Erro na sincronização automática: {}", e.getMessage(), e);
+        } finally {
+            autoSyncEmAndamento.set(false);
         }
     }
     
     /**
-     * Sincroniza todos os dados pendentes
+     * Verifica se SQL Server está online (estado em cache do monitor de saúde)
      */
-    public void syncAllPendingData() {
-        logger.info("Iniciando sincronização de todos os dados pendentes...");
-        
-        try {
-            // Sincroniza usuários
-            syncUsuariosPendentes();
-            
-            // Sincroniza pontos
-            syncPontosPendentes();
-            
-            // Sincroniza outras entidades
-            syncOutrasEntidadesPendentes();
-            
-            logger.info("Sincronização concluída com sucesso");
-            
-        } catch (Exception e) {
-            logger.error("Erro durante sincronização: {}", e.getMessage(), e);
-        }
+    private boolean isSqlServerOnline() {
+        return DatabaseHealthMonitor.isSqlServerUp();
     }
     
     /**
-     * Sincroniza usuários pendentes
+     * Sincroniza todos os dados pendentes
+     * Reproduz o journal offline na ordem de gravação (ex.: usuário antes dos seus pontos).
+     * Itens recusados pelo banco vão para a quarentena e a reprodução segue; falhas de conexão
+     * interrompem a reprodução, que é retomada do mesmo ponto na próxima execução
      */
-    private void syncUsuariosPendentes() {
-        List<Usuario> usuariosPendentes = OfflineCache.getUsuariosPendentes();
+    public synchronized void syncAllPendingData() {
+        List<OfflineJournal.Entry> pendentes = OfflineCache.getEntradasPendentes();
         
-        if (usuariosPendentes.isEmpty()) {
-            logger.debug("Nenhum usuário pendente para sincronizar");
+        if (pendentes.isEmpty()) {
+            logger.debug("Nenhum dado pendente para sincronizar");
             return;
         }
         
-        logger.info("Sincronizando {} usuários pendentes...", usuariosPendentes.size());
+        logger.info("Iniciando sincronização de {} itens pendentes...", pendentes.size());
         
-        for (Usuario usuario : usuariosPendentes) {
+        long inicio = System.nanoTime();
+        boolean interrompida = false;
+        int sincronizados = 0;
+        int quarentena = 0;
+        for (OfflineJournal.Entry entrada : pendentes) {
             try {
-                // Remove ID temporário
-                usuario.setId(null);
+                if (!replay(entrada)) {
+                    logger.warn("Item {} ({}) sem tratamento de sincronização; mantido no journal",
+                               entrada.getKey(), entrada.getSubtype());
+                    continue;
+                }
                 
-                // Tenta criar no banco
-                Usuario usuarioSalvo = usuarioService.criarUsuario(usuario);
+                OfflineCache.confirmarSincronizacao(entrada.getKey());
+                sincronizados++;
                 
-                if (usuarioSalvo.getId() != null && usuarioSalvo.getId() > 0) {
-                    // Remove do cache após sucesso
-                    OfflineCache.removeUsuarioPendente(usuario.getEmail());
-                    logger.info("Usuário sincronizado com sucesso: {}", usuario.getEmail());
+            } catch (Exception e) {
+                if (isFalhaDefinitiva(e)) {
+                    OfflineCache.colocarEmQuarentena(entrada.getKey(), e.getClass().getSimpleName() + ": " + mensagem(e));
+                    quarentena++;
+                    continue;
                 }
                 
-            } catch (Exception e) {
-                logger.error("Erro ao sincronizar usuário {}: {}", usuario.getEmail(), e.getMessage());
+                logger.error("Erro ao sincronizar item {}: {}. Sincronização interrompida para manter a ordem",
+                            entrada.getKey(), e.getMessage());
+                interrompida = true;
+                break;
             }
         }
+        
+        itensSincronizados.incrementar(sincronizados);
+        itensEmQuarentena.incrementar(quarentena);
+        syncTimer.registrar(System.nanoTime() - inicio, !interrompida);
+        logger.info("Sincronização concluída: {} de {} itens sincronizados, {} em quarentena",
+                   sincronizados, pendentes.size(), quarentena);
     }
     
     /**
-     * Sincroniza pontos pendentes
+     * Falha que se repetiria em toda tentativa: dado recusado pelo banco (SQLState 22/23) ou entrada inválida
+     * Falhas de conexão e pool saturado não entram aqui
      */
-    private void syncPontosPendentes() {
-        List<Object> pontosPendentes = OfflineCache.getPontosPendentes();
-        
-        if (pontosPendentes.isEmpty()) {
-            logger.debug("Nenhum ponto pendente para sincronizar");
-            return;
+    private static boolean isFalhaDefinitiva(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLTransientException || causa instanceof SQLRecoverableException) {
+                return false;
+            }
+            if (causa instanceof SQLException) {
+                String estado = ((SQLException) causa).getSQLState();
+                if (estado != null && (estado.startsWith("22") || estado.startsWith("23"))) {
+                    return true;
+                }
+            }
+            if (causa instanceof IllegalArgumentException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String mensagem(Throwable erro) {
+        Throwable raiz = erro;
+        while (raiz.getCause() != null) {
+            raiz = raiz.getCause();
+        }
+        return raiz.getMessage();
+    }
+    
+    /**
+     * Reenvia uma entrada do journal ao banco
+     * Retorna false se o tipo de entrada não tem tratamento
+     */
+    private boolean replay(OfflineJournal.Entry entrada) {
+        switch (entrada.getType()) {
+            case USUARIO:
+                syncUsuario(entidade(entrada, Usuario.class));
+                return true;
+            case PONTO:
+                syncPonto(entidade(entrada, Ponto.class));
+                return true;
+            default:
+                return false;
         }
+    }
+    
+    /**
+     * Entidade da entrada no tipo esperado; entrada que não pôde ser lida do journal vai para a quarentena
+     */
+    private static <T> T entidade(OfflineJournal.Entry entrada, Class<T> tipo) {
+        if (!tipo.isInstance(entrada.getEntity())) {
+            throw new IllegalArgumentException("Entrada do journal não pôde ser lida como " + tipo.getSimpleName());
+        }
+        return tipo.cast(entrada.getEntity());
+    }
+    
+    /**
+     * Sincroniza um usuário pendente
+     * Idempotente: se o email já existe no banco, considera sincronizado. Em ambos os casos
+     * os pontos pendentes que apontam para o id temporário passam a apontar para o id definitivo
+     */
+    private void syncUsuario(Usuario usuario) {
+        Long idTemporario = usuario.getId();
+        Long idDefinitivo = usuarioRepository.findIdByEmail(usuario.getEmail()).orElse(null);
         
-        logger.info("Sincronizando {} pontos pendentes...", pontosPendentes.size());
+        if (idDefinitivo != null) {
+            logger.info("Usuário {} já existe no banco, ignorando reenvio", usuario.getEmail());
+        } else {
+            // O journal guarda o hash BCrypt da senha; entradas gravadas sem ele vão para a quarentena
+            // em vez de criar uma conta com senha desconhecida
+            if (usuario.getSenha() == null) {
+                throw new IllegalArgumentException("Cadastro offline de " + usuario.getEmail()
+                    + " sem senha gravada; o cadastro precisa ser refeito");
+            }
+            
+            usuario.setId(null);
+            try {
+                idDefinitivo = usuarioRepository.save(usuario).getId();
+            } catch (RuntimeException e) {
+                // Mantém o id temporário para o remapeamento na próxima tentativa
+                usuario.setId(idTemporario);
+                throw e;
+            }
+            logger.info("Usuário sincronizado com sucesso: {}", usuario.getEmail());
+        }
         
-        // TODO: Implementar sincronização de pontos
-        // Por enquanto, apenas remove do cache
-        OfflineCache.clearCache();
-        logger.info("Pontos pendentes removidos do cache (implementação pendente)");
+        if (idTemporario != null && idTemporario < 0) {
+            OfflineCache.substituirUsuarioTemporario(idTemporario, idDefinitivo);
+        }
     }
     
     /**
-     * Sincroniza outras entidades pendentes
+     * Sincroniza um ponto pendente
+     * Idempotente: se já existe ponto com mesmo usuário, data/hora e tipo, considera sincronizado
      */
-    private void syncOutrasEntidadesPendentes() {
-        List<Object> outrasEntidades = OfflineCache.getOutrasEntidadesPendentes();
+    private void syncPonto(Ponto ponto) {
+        if (ponto.getUsuarioId() == null || ponto.getUsuarioId() < 0) {
+            throw new IllegalArgumentException("Ponto aponta para o usuário temporário " + ponto.getUsuarioId()
+                                               + ", que não foi sincronizado");
+        }
         
-        if (outrasEntidades.isEmpty()) {
-            logger.debug("Nenhuma outra entidade pendente para sincronizar");
+        if (pontoRepository.existsByUsuarioIdAndDataHoraAndTipo(ponto.getUsuarioId(), ponto.getDataHora(), ponto.getTipoPonto())) {
+            logger.info("Ponto de {} já existe no banco, ignorando reenvio", ponto.getDataHora());
             return;
         }
         
-        logger.info("Sincronizando {} outras entidades pendentes...", outrasEntidades.size());
-        
-        // TODO: Implementar sincronização de outras entidades
-        // Por enquanto, apenas remove do cache
-        OfflineCache.clearCache();
-        logger.info("Outras entidades removidas do cache (implementação pendente)");
+        ponto.setId(null);
+        PontoService.publicar(DomainEvent.Tipo.PONTO_REGISTRADO, pontoRepository.save(ponto));
+        logger.info("Ponto sincronizado com sucesso: usuário {} - {}", ponto.getUsuarioId(), ponto.getDataHora());
     }
     
     /**
@@ -165,13 +271,13 @@ public class SyncService {
         }
         
         // Executa em thread separada para não bloquear a UI
-        new Thread(() -> {
+        AppExecutors.io().execute(() -> {
             try {
                 syncAllPendingData();
             } catch (Exception e) {
                 logger.error("Erro na sincronização forçada: {}", e.getMessage(), e);
             }
-        }).start();
+        });
     }
     
     /**
@@ -185,6 +291,7 @@ public class SyncService {
         stats.append("Usuários pendentes: ").append(OfflineCache.getUsuariosPendentes().size()).append("\n");
         stats.append("Pontos pendentes: ").append(OfflineCache.getPontosPendentes().size()).append("\n");
         stats.append("Outras entidades pendentes: ").append(OfflineCache.getOutrasEntidadesPendentes().size()).append("\n");
+        stats.append("Itens em quarentena: ").append(OfflineCache.getEntradasEmQuarentena().size()).append("\n");
         return stats.toString();
     }
     
@@ -193,16 +300,7 @@ public class SyncService {
      */
     public void shutdown() {
         logger.info("Parando serviço de sincronização...");
-        scheduler.shutdown();
-        
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        verificacao.cancel(false);
         
         logger.info("Serviço de sincronização parado");
     }
@@ -4,13 +4,14 @@ import com.shiftly.model.TipoUsuario;
 import com.shiftly.model.Usuario;
 import com.shiftly.repository.UsuarioRepository;
 import com.shiftly.util.OfflineCache;
+import com.shiftly.util.PasswordHasher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service para gerenciar usuários
@@ -20,18 +21,18 @@ public class UsuarioService {
     private static final Logger logger = LoggerFactory.getLogger(UsuarioService.class);
     
     private final UsuarioRepository usuarioRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
     
     public UsuarioService() {
         this.usuarioRepository = new UsuarioRepository();
-        this.passwordEncoder = new BCryptPasswordEncoder();
     }
     
     /**
      * Autentica um usuário
+     * Lança RejectedExecutionException se o executor de senhas estiver saturado (não é senha incorreta)
      */
     public Optional<Usuario> autenticar(String email, String senha) {
-        logger.info("Tentativa de autenticação para email: {}", email);
+        logger.debug("Tentativa de autenticação para email: {}", email);
+        long inicio = System.nanoTime();
         
         try {
             Optional<Usuario> usuarioOpt = usuarioRepository.findByEmail(email);
@@ -44,8 +45,12 @@ public class UsuarioService {
                     return Optional.empty();
                 }
                 
-                if (passwordEncoder.matches(senha, usuario.getSenha())) {
-                    logger.info("Autenticação bem-sucedida para: {}", email);
+                if (PasswordHasher.matches(senha, usuario.getSenha())) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Autenticação bem-sucedida para: {} ({} ms)", email,
+                            (System.nanoTime() - inicio) / 1_000_000);
+                    }
+                    rehashSeNecessario(usuario, senha);
                     return Optional.of(usuario);
                 } else {
                     logger.warn("Senha incorreta para: {}", email);
@@ -54,6 +59,9 @@ public class UsuarioService {
                 logger.warn("Usuário não encontrado: {}", email);
             }
             
+        } catch (RejectedExecutionException e) {
+            logger.warn("Autenticação de {} rejeitada: {}", email, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Erro ao autenticar usuário {}: {}", email, e.getMessage(), e);
         }
@@ -61,6 +69,27 @@ public class UsuarioService {
         return Optional.empty();
     }
     
+    /**
+     * Refaz o hash da senha com o custo alvo quando o atual é menor (a senha em texto só existe no login)
+     * Falhas aqui não impedem o login
+     */
+    private void rehashSeNecessario(Usuario usuario, String senha) {
+        if (!PasswordHasher.needsRehash(usuario.getSenha())) {
+            return;
+        }
+        
+        try {
+            String novoHash = PasswordHasher.encode(senha);
+            if (usuarioRepository.updateSenha(usuario.getId(), usuario.getSenha(), novoHash)) {
+                usuario.setSenha(novoHash);
+                logger.info("Senha do usuário ID {} atualizada para custo BCrypt {}", usuario.getId(),
+                    PasswordHasher.getTargetCost());
+            }
+        } catch (Exception e) {
+            logger.warn("Não foi possível refazer o hash da senha do usuário ID {}: {}", usuario.getId(), e.getMessage());
+        }
+    }
+    
     /**
      * Cria um novo usuário
      */
@@ -82,7 +111,7 @@ public class UsuarioService {
             }
             
             // Criptografa a senha
-            usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
+            usuario.setSenha(PasswordHasher.encode(usuario.getSenha()));
             
             // Define dados padrão
             usuario.setAtivo(true);
@@ -97,16 +126,17 @@ public class UsuarioService {
         } catch (Exception e) {
             logger.warn("Erro ao criar usuário no banco, adicionando ao cache offline: {}", e.getMessage());
             
-            // Adiciona ao cache offline
-            OfflineCache.addUsuarioPendente(usuario);
-            
-            // Retorna o usuário com ID temporário
-            usuario.setId(-1L); // ID negativo indica que está no cache
-            usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
+            // O journal guarda só o hash BCrypt da senha, usado no cadastro sincronizado
+            if (!isSenhaCriptografada(usuario.getSenha())) {
+                usuario.setSenha(PasswordHasher.encode(usuario.getSenha()));
+            }
             usuario.setAtivo(true);
             usuario.setDataCriacao(LocalDateTime.now());
             usuario.setDataAtualizacao(LocalDateTime.now());
             
+            // Adiciona ao cache offline; o usuário recebe um ID temporário negativo
+            OfflineCache.addUsuarioPendente(usuario);
+            
             logger.info("Usuário adicionado ao cache offline: {}", usuario.getEmail());
             return usuario;
         }
@@ -240,7 +270,7 @@ public class UsuarioService {
             Usuario usuario = usuarioOpt.get();
             
             // Verifica senha atual
-            if (!passwordEncoder.matches(senhaAtual, usuario.getSenha())) {
+            if (!PasswordHasher.matches(senhaAtual, usuario.getSenha())) {
                 logger.warn("Senha atual incorreta para usuário: ID {}", id);
                 return false;
             }
@@ -251,7 +281,7 @@ public class UsuarioService {
             }
             
             // Atualiza senha
-            usuario.setSenha(passwordEncoder.encode(novaSenha));
+            usuario.setSenha(PasswordHasher.encode(novaSenha));
             usuario.setDataAtualizacao(LocalDateTime.now());
             usuarioRepository.save(usuario);
             
@@ -283,7 +313,7 @@ public class UsuarioService {
             String novaSenha = gerarSenhaTemporaria();
             
             // Atualiza senha
-            usuario.setSenha(passwordEncoder.encode(novaSenha));
+            usuario.setSenha(PasswordHasher.encode(novaSenha));
             usuario.setDataAtualizacao(LocalDateTime.now());
             usuarioRepository.save(usuario);
             
@@ -315,6 +345,13 @@ public class UsuarioService {
         return false;
     }
     
+    /**
+     * Verifica se a senha já está no formato BCrypt
+     */
+    private boolean isSenhaCriptografada(String senha) {
+        return senha != null && senha.length() == 60 && senha.matches("^\\$2[aby]\\$\\d{2}\\$.*");
+    }
+    
     /**
      * Valida dados do usuário
      */
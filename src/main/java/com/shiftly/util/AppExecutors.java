@@ -0,0 +1,191 @@
+package com.shiftly.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executores compartilhados da aplicação
+ * IO: tarefas que bloqueiam em JDBC/rede; CPU: processamento, limitado aos núcleos; scheduler: atrasos e timeouts
+ * Todas as threads são nomeadas (shiftly-io-N, shiftly-cpu-N) e daemon
+ */
+public class AppExecutors {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AppExecutors.class);
+    
+    private static final int IO_THREADS = ConfigUtil.getInt("executor.io.threads", 16);
+    private static final int IO_QUEUE_CAPACITY = ConfigUtil.getInt("executor.io.queue.capacity", 256);
+    private static final int CPU_THREADS = ConfigUtil.getInt("executor.cpu.threads",
+        Runtime.getRuntime().availableProcessors());
+    private static final int CPU_QUEUE_CAPACITY = ConfigUtil.getInt("executor.cpu.queue.capacity", 64);
+    private static final long SLOW_TASK_MS = ConfigUtil.getLong("executor.slow.task.ms", 5000);
+    
+    private static final MonitoredExecutor ioExecutor = new MonitoredExecutor("io", IO_THREADS, IO_QUEUE_CAPACITY);
+    private static final MonitoredExecutor cpuExecutor = new MonitoredExecutor("cpu", CPU_THREADS, CPU_QUEUE_CAPACITY);
+    private static final ScheduledThreadPoolExecutor scheduler = criarScheduler();
+    
+    /**
+     * Executor para tarefas bloqueantes (consultas ao banco, arquivos)
+     */
+    public static ExecutorService io() {
+        return ioExecutor;
+    }
+    
+    /**
+     * Executor para tarefas de CPU (cálculos, geração de relatórios)
+     */
+    public static ExecutorService cpu() {
+        return cpuExecutor;
+    }
+    
+    /**
+     * Scheduler para atrasos e timeouts; as tarefas agendadas devem ser curtas
+     */
+    public static ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+    
+    /**
+     * Obtém estatísticas dos executores
+     */
+    public static String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== EXECUTORES ===\n");
+        ioExecutor.appendStats(stats);
+        cpuExecutor.appendStats(stats);
+        stats.append("Agendadas: ").append(scheduler.getQueue().size()).append("\n");
+        return stats.toString();
+    }
+    
+    /**
+     * Encerra os executores, interrompendo tarefas em andamento
+     */
+    public static void shutdown() {
+        scheduler.shutdownNow();
+        ioExecutor.shutdownNow();
+        cpuExecutor.shutdownNow();
+        logger.info("Executores da aplicação encerrados");
+    }
+    
+    private static ScheduledThreadPoolExecutor criarScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, threadFactory("scheduler"));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+    
+    /**
+     * Fábrica de threads nomeadas, daemon, com log de exceções não tratadas
+     */
+    private static ThreadFactory threadFactory(String nome) {
+        AtomicInteger contador = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "shiftly-" + nome + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) ->
+                logger.error("Exceção não tratada na thread {}: {}", t.getName(), e.getMessage(), e));
+            return thread;
+        };
+    }
+    
+    /**
+     * Pool limitado que registra tarefas concluídas, falhas, canceladas e lentas
+     */
+    private static class MonitoredExecutor extends ThreadPoolExecutor {
+        private final String nome;
+        private final ThreadLocal<Long> inicio = new ThreadLocal<>();
+        private final AtomicLong concluidas = new AtomicLong();
+        private final AtomicLong falhas = new AtomicLong();
+        private final AtomicLong canceladas = new AtomicLong();
+        private final AtomicLong lentas = new AtomicLong();
+        private final AtomicLong rejeitadas = new AtomicLong();
+        private final AtomicLong tempoTotalNanos = new AtomicLong();
+        
+        MonitoredExecutor(String nome, int threads, int capacidadeFila) {
+            super(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(capacidadeFila),
+                threadFactory(nome), (runnable, executor) -> {
+                    throw new RejectedExecutionException("Executor " + nome + " saturado");
+                });
+            this.nome = nome;
+            allowCoreThreadTimeOut(true);
+        }
+        
+        @Override
+        public void execute(Runnable command) {
+            try {
+                super.execute(command);
+            } catch (RejectedExecutionException e) {
+                rejeitadas.incrementAndGet();
+                logger.warn("Tarefa rejeitada: executor {} saturado ({} na fila)", nome, getQueue().size());
+                throw e;
+            }
+        }
+        
+        @Override
+        protected void beforeExecute(Thread thread, Runnable runnable) {
+            super.beforeExecute(thread, runnable);
+            inicio.set(System.nanoTime());
+        }
+        
+        @Override
+        protected void afterExecute(Runnable runnable, Throwable erro) {
+            super.afterExecute(runnable, erro);
+            long duracao = System.nanoTime() - inicio.get();
+            inicio.remove();
+            tempoTotalNanos.addAndGet(duracao);
+            
+            // Futures (inclusive javafx.concurrent.Task) guardam a exceção em vez de lançá-la
+            if (erro == null && runnable instanceof Future<?> && ((Future<?>) runnable).isDone()) {
+                try {
+                    ((Future<?>) runnable).get();
+                } catch (CancellationException e) {
+                    canceladas.incrementAndGet();
+                    return;
+                } catch (ExecutionException e) {
+                    erro = e.getCause();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            
+            if (erro != null) {
+                falhas.incrementAndGet();
+            } else {
+                concluidas.incrementAndGet();
+            }
+            
+            long duracaoMs = TimeUnit.NANOSECONDS.toMillis(duracao);
+            if (duracaoMs > SLOW_TASK_MS) {
+                lentas.incrementAndGet();
+                logger.warn("Tarefa lenta no executor {}: {} ms", nome, duracaoMs);
+            }
+        }
+        
+        void appendStats(StringBuilder stats) {
+            long total = concluidas.get() + falhas.get();
+            stats.append("[").append(nome).append("] threads ").append(getPoolSize()).append("/").append(getMaximumPoolSize())
+                 .append(", ativas ").append(getActiveCount())
+                 .append(", fila ").append(getQueue().size()).append("\n");
+            stats.append("  Concluídas: ").append(concluidas.get())
+                 .append(", falhas: ").append(falhas.get())
+                 .append(", canceladas: ").append(canceladas.get())
+                 .append(", rejeitadas: ").append(rejeitadas.get())
+                 .append(", lentas: ").append(lentas.get()).append("\n");
+            if (total > 0) {
+                stats.append(String.format("  Tempo médio: %.1f ms%n", tempoTotalNanos.get() / 1_000_000.0 / total));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.shiftly.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Carregador assíncrono que dispara várias consultas independentes em paralelo no executor de IO
+ * Cada consulta tem seu próprio timeout; os resultados são aplicados juntos, em uma única tarefa no executor de UI
+ * O tempo total passa a ser o da consulta mais lenta (limitado pelo timeout), e não a soma de todas
+ */
+public class AsyncLoader {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLoader.class);
+    
+    private final long timeoutMs;
+    private final List<Parte<?>> partes = new ArrayList<>();
+    
+    public AsyncLoader(long timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("Timeout deve ser positivo");
+        }
+        this.timeoutMs = timeoutMs;
+    }
+    
+    /**
+     * Adiciona uma consulta; aoCarregar e aoFalhar rodam no executor de UI
+     * Em caso de falha ou timeout, aoFalhar recebe a exceção (TimeoutException no timeout)
+     */
+    public <T> AsyncLoader add(String nome, Callable<T> consulta, Consumer<T> aoCarregar, Consumer<Throwable> aoFalhar) {
+        partes.add(new Parte<>(nome, consulta, aoCarregar, aoFalhar));
+        return this;
+    }
+    
+    /**
+     * Dispara todas as consultas e aplica os resultados em uma única chamada ao executor de UI
+     * Cancelar o futuro devolvido interrompe as consultas pendentes e descarta os resultados
+     */
+    public CompletableFuture<Void> start(Executor uiExecutor) {
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        long inicio = System.nanoTime();
+        
+        List<CompletableFuture<?>> futuros = new ArrayList<>(partes.size());
+        for (Parte<?> parte : partes) {
+            futuros.add(parte.disparar());
+        }
+        
+        // Cancelamento do resultado (ex.: ao sair da tela) cancela as consultas
+        resultado.whenComplete((r, e) -> {
+            if (resultado.isCancelled()) {
+                partes.forEach(Parte::cancelar);
+            }
+        });
+        
+        CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0])).whenComplete((r, e) -> {
+            if (resultado.isDone()) {
+                return;
+            }
+            
+            try {
+                uiExecutor.execute(() -> {
+                    if (resultado.isDone()) {
+                        return;
+                    }
+                    try {
+                        partes.forEach(Parte::aplicar);
+                        logger.debug("{} consultas carregadas em {} ms", partes.size(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                        resultado.complete(null);
+                    } catch (RuntimeException erro) {
+                        resultado.completeExceptionally(erro);
+                    }
+                });
+            } catch (RejectedExecutionException erro) {
+                resultado.completeExceptionally(erro);
+            }
+        });
+        
+        return resultado;
+    }
+    
+    /**
+     * Uma consulta com seus callbacks e estado
+     */
+    private class Parte<T> {
+        private final String nome;
+        private final Callable<T> consulta;
+        private final Consumer<T> aoCarregar;
+        private final Consumer<Throwable> aoFalhar;
+        private final CompletableFuture<T> futuro = new CompletableFuture<>();
+        private volatile Future<?> tarefa;
+        
+        Parte(String nome, Callable<T> consulta, Consumer<T> aoCarregar, Consumer<Throwable> aoFalhar) {
+            this.nome = nome;
+            this.consulta = consulta;
+            this.aoCarregar = aoCarregar;
+            this.aoFalhar = aoFalhar;
+        }
+        
+        CompletableFuture<T> disparar() {
+            try {
+                tarefa = AppExecutors.io().submit(() -> {
+                    try {
+                        futuro.complete(consulta.call());
+                    } catch (Throwable e) {
+                        futuro.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                futuro.completeExceptionally(e);
+                return futuro;
+            }
+            
+            // Timeout individual: a consulta atrasada é interrompida sem segurar as demais
+            ScheduledFuture<?> timeout = AppExecutors.scheduler().schedule(() -> {
+                if (futuro.completeExceptionally(new TimeoutException(nome + " excedeu " + timeoutMs + " ms"))) {
+                    logger.warn("Consulta '{}' excedeu {} ms", nome, timeoutMs);
+                    tarefa.cancel(true);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+            futuro.whenComplete((r, e) -> timeout.cancel(false));
+            
+            return futuro;
+        }
+        
+        void cancelar() {
+            Future<?> atual = tarefa;
+            if (atual != null) {
+                atual.cancel(true);
+            }
+            futuro.cancel(false);
+        }
+        
+        void aplicar() {
+            T valor;
+            try {
+                valor = futuro.getNow(null);
+            } catch (RuntimeException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                logger.warn("Falha ao carregar '{}': {}", nome, causa.getMessage());
+                aoFalhar.accept(causa);
+                return;
+            }
+            aoCarregar.accept(valor);
+        }
+    }
+}
@@ -13,6 +13,10 @@ import java.util.Properties;
 public class ConfigUtil {
     
     private static final Logger logger = LoggerFactory.getLogger(ConfigUtil.class);
+    
+    // Propriedades de sistema com este prefixo sobrescrevem o arquivo (ex.: -Dshiftly.database.h2.url=...)
+    private static final String PREFIXO_SOBRESCRITA = "shiftly.";
+    
     private static Properties properties;
     
     static {
@@ -51,6 +55,22 @@ public class ConfigUtil {
         } catch (IOException e) {
             logger.error("Erro ao carregar configurações: {}", e.getMessage(), e);
         }
+        
+        aplicarSobrescritas();
+    }
+    
+    /**
+     * Aplica as propriedades de sistema "shiftly.<chave>" sobre as do arquivo
+     * Permite apontar ferramentas (benchmarks, testes de carga) para outro banco sem editar o arquivo
+     */
+    private static void aplicarSobrescritas() {
+        for (String nome : System.getProperties().stringPropertyNames()) {
+            if (nome.startsWith(PREFIXO_SOBRESCRITA)) {
+                String key = nome.substring(PREFIXO_SOBRESCRITA.length());
+                properties.setProperty(key, System.getProperty(nome));
+                logger.info("Configuração {} sobrescrita por propriedade de sistema", key);
+            }
+        }
     }
     
     /**
@@ -39,7 +39,7 @@ public class JwtUtil {
      * Gera token JWT para um usuário
      */
     public static String generateToken(Usuario usuario) {
-        logger.info("Gerando token JWT para usuário: {}", usuario.getEmail());
+        logger.debug("Gerando token JWT para usuário: {}", usuario.getEmail());
         
         Map<String, Object> claims = new HashMap<>();
         claims.put(CLAIM_USER_ID, usuario.getId());
@@ -54,7 +54,7 @@ public class JwtUtil {
      * Gera refresh token para um usuário
      */
     public static String generateRefreshToken(Usuario usuario) {
-        logger.info("Gerando refresh token para usuário: {}", usuario.getEmail());
+        logger.debug("Gerando refresh token para usuário: {}", usuario.getEmail());
         
         Map<String, Object> claims = new HashMap<>();
         claims.put(CLAIM_USER_ID, usuario.getId());
@@ -91,7 +91,13 @@ public class JwtUtil {
      * Extrai o ID do usuário do token
      */
     public static Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
+        return toUserId(extractAllClaims(token));
+    }
+    
+    /**
+     * Lê o ID do usuário das claims (o parser devolve Integer ou Long)
+     */
+    private static Long toUserId(Claims claims) {
         Object userIdObj = claims.get(CLAIM_USER_ID);
         
         if (userIdObj instanceof Integer) {
@@ -107,12 +113,18 @@ public class JwtUtil {
      * Extrai o tipo de usuário do token
      */
     public static TipoUsuario extractUserType(String token) {
-        Claims claims = extractAllClaims(token);
+        return toUserType(extractAllClaims(token));
+    }
+    
+    /**
+     * Lê o tipo de usuário das claims
+     */
+    private static TipoUsuario toUserType(Claims claims) {
         String userType = (String) claims.get(CLAIM_USER_TYPE);
         
         try {
             return TipoUsuario.valueOf(userType);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | NullPointerException e) {
             logger.warn("Tipo de usuário inválido no token: {}", userType);
             return null;
         }
@@ -272,17 +284,19 @@ public class JwtUtil {
     
     /**
      * Cria objeto UserInfo a partir do token
+     * Verifica assinatura e expiração e lê todas as claims em um único parse
      */
     public static UserInfo extractUserInfo(String token) {
         try {
             Claims claims = extractAllClaims(token);
             
             UserInfo userInfo = new UserInfo();
-            userInfo.setId(extractUserId(token));
-            userInfo.setEmail(extractEmail(token));
-            userInfo.setNome(extractUserName(token));
-            userInfo.setTipoUsuario(extractUserType(token));
-            userInfo.setDepartamento(extractDepartment(token));
+            userInfo.setId(toUserId(claims));
+            userInfo.setEmail(claims.getSubject());
+            userInfo.setNome((String) claims.get(CLAIM_USER_NAME));
+            userInfo.setTipoUsuario(toUserType(claims));
+            userInfo.setDepartamento((String) claims.get(CLAIM_DEPARTMENT));
+            userInfo.setExpiration(claims.getExpiration());
             
             return userInfo;
         } catch (SecurityException e) {
@@ -299,6 +313,7 @@ public class JwtUtil {
         private String nome;
         private TipoUsuario tipoUsuario;
         private String departamento;
+        private Date expiration;
         
         // Getters e Setters
         public Long getId() {
@@ -341,6 +356,14 @@ public class JwtUtil {
             this.departamento = departamento;
         }
         
+        public Date getExpiration() {
+            return expiration;
+        }
+        
+        public void setExpiration(Date expiration) {
+            this.expiration = expiration;
+        }
+        
         public boolean isRh() {
             return tipoUsuario == TipoUsuario.RH || tipoUsuario == TipoUsuario.ADMIN;
         }
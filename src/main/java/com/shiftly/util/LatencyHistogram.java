@@ -0,0 +1,148 @@
+package com.shiftly.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências com memória fixa e gravação sem lock
+ * Os baldes são log-lineares em microssegundos: cada potência de 2 é dividida em 16 faixas,
+ * o que limita o erro dos percentis a cerca de 6% em qualquer escala (de microssegundos a horas)
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BALDES_BITS = 4;
+    private static final int SUB_BALDES = 1 << SUB_BALDES_BITS;
+    // Potências de 2 até ~2^42 us (mais de 50 dias)
+    private static final int MAIOR_POTENCIA = 42;
+    private static final int TOTAL_BALDES = SUB_BALDES + (MAIOR_POTENCIA - SUB_BALDES_BITS + 1) * SUB_BALDES;
+    
+    private final AtomicLongArray baldes = new AtomicLongArray(TOTAL_BALDES);
+    private final AtomicLong contagem = new AtomicLong();
+    private final AtomicLong somaMicros = new AtomicLong();
+    private final AtomicLong minimoMicros = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maximoMicros = new AtomicLong();
+    
+    /**
+     * Registra uma latência medida com System.nanoTime()
+     */
+    public void registrar(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        
+        baldes.incrementAndGet(indice(micros));
+        contagem.incrementAndGet();
+        somaMicros.addAndGet(micros);
+        minimoMicros.accumulateAndGet(micros, Math::min);
+        maximoMicros.accumulateAndGet(micros, Math::max);
+    }
+    
+    public long getContagem() {
+        return contagem.get();
+    }
+    
+    public long getMinimoMicros() {
+        return contagem.get() > 0 ? minimoMicros.get() : 0;
+    }
+    
+    public long getMaximoMicros() {
+        return maximoMicros.get();
+    }
+    
+    public double getMediaMicros() {
+        long total = contagem.get();
+        return total > 0 ? (double) somaMicros.get() / total : 0.0;
+    }
+    
+    /**
+     * Latência abaixo da qual estão as amostras do percentil informado (0 a 100)
+     * Devolve o limite superior do balde, nunca acima do máximo registrado
+     */
+    public long percentilMicros(double percentil) {
+        long total = contagem.get();
+        if (total == 0) {
+            return 0;
+        }
+        
+        long alvo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_BALDES; i++) {
+            acumulado += baldes.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximoMicros.get());
+            }
+        }
+        return maximoMicros.get();
+    }
+    
+    /**
+     * Resumo com percentis e a distribuição em faixas de potências de 2 em milissegundos
+     */
+    public String formatar(String titulo) {
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== ").append(titulo).append(" ===\n");
+        stats.append("Amostras: ").append(getContagem()).append("\n");
+        if (getContagem() == 0) {
+            return stats.toString();
+        }
+        
+        stats.append(String.format("Mínimo: %.2f ms | Média: %.2f ms | Máximo: %.2f ms%n",
+            getMinimoMicros() / 1000.0, getMediaMicros() / 1000.0, getMaximoMicros() / 1000.0));
+        stats.append(String.format("p50: %.2f ms | p90: %.2f ms | p99: %.2f ms | p99.9: %.2f ms%n",
+            percentilMicros(50) / 1000.0, percentilMicros(90) / 1000.0,
+            percentilMicros(99) / 1000.0, percentilMicros(99.9) / 1000.0));
+        
+        // Agrupa os baldes em faixas [2^k, 2^(k+1)) ms para exibição
+        long[] faixas = new long[MAIOR_POTENCIA];
+        for (int i = 0; i < TOTAL_BALDES; i++) {
+            long quantidade = baldes.get(i);
+            if (quantidade > 0) {
+                long millis = limiteInferior(i) / 1000;
+                int faixa = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+                faixas[faixa] += quantidade;
+            }
+        }
+        
+        long maiorFaixa = 0;
+        for (long quantidade : faixas) {
+            maiorFaixa = Math.max(maiorFaixa, quantidade);
+        }
+        for (int faixa = 0; faixa < faixas.length; faixa++) {
+            if (faixas[faixa] == 0) {
+                continue;
+            }
+            String rotulo = faixa == 0 ? "< 1 ms" : (1L << (faixa - 1)) + "-" + (1L << faixa) + " ms";
+            int barra = (int) Math.max(1, faixas[faixa] * 40 / maiorFaixa);
+            stats.append(String.format("  %14s %8d %s%n", rotulo, faixas[faixa], "#".repeat(barra)));
+        }
+        return stats.toString();
+    }
+    
+    /**
+     * Balde do valor: exato abaixo de 16 us; acima, potência de 2 e uma das 16 faixas dentro dela
+     */
+    static int indice(long micros) {
+        if (micros < SUB_BALDES) {
+            return (int) micros;
+        }
+        int potencia = Math.min(63 - Long.numberOfLeadingZeros(micros), MAIOR_POTENCIA);
+        int subBalde = (int) ((micros >>> (potencia - SUB_BALDES_BITS)) & (SUB_BALDES - 1));
+        return SUB_BALDES + (potencia - SUB_BALDES_BITS) * SUB_BALDES + subBalde;
+    }
+    
+    static long limiteInferior(int indice) {
+        if (indice < SUB_BALDES) {
+            return indice;
+        }
+        int potencia = (indice - SUB_BALDES) / SUB_BALDES + SUB_BALDES_BITS;
+        int subBalde = (indice - SUB_BALDES) % SUB_BALDES;
+        return (long) (SUB_BALDES + subBalde) << (potencia - SUB_BALDES_BITS);
+    }
+    
+    static long limiteSuperior(int indice) {
+        if (indice < SUB_BALDES) {
+            return indice;
+        }
+        int potencia = (indice - SUB_BALDES) / SUB_BALDES + SUB_BALDES_BITS;
+        return limiteInferior(indice) + (1L << (potencia - SUB_BALDES_BITS)) - 1;
+    }
+}
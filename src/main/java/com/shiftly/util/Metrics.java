@@ -0,0 +1,180 @@
+package com.shiftly.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro de métricas em processo: contadores, timers com histograma de latência e gauges
+ * A gravação é sem lock e de custo constante, para ficar nos caminhos críticos (consultas, conexões, login);
+ * os valores são lidos sob demanda por getStats/snapshot (endpoint HTTP local e JMX)
+ */
+public class Metrics {
+    
+    private static final boolean ENABLED = ConfigUtil.getBoolean("metrics.enabled", true);
+    
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    
+    /**
+     * Obtém (criando na primeira vez) o contador com o nome informado
+     * Guarde a referência em um campo estático quando o nome for fixo
+     */
+    public static Counter counter(String nome) {
+        return counters.computeIfAbsent(nome, n -> new Counter());
+    }
+    
+    /**
+     * Obtém (criando na primeira vez) o timer com o nome informado
+     */
+    public static Timer timer(String nome) {
+        return timers.computeIfAbsent(nome, n -> new Timer());
+    }
+    
+    /**
+     * Registra um valor lido no momento do snapshot (ex.: conexões ativas); substitui o anterior de mesmo nome
+     */
+    public static void gauge(String nome, LongSupplier valor) {
+        gauges.put(nome, valor);
+    }
+    
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    
+    /**
+     * Fotografia de todas as métricas, ordenada por nome (latências em milissegundos)
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        
+        Map<String, Object> timersSnapshot = new TreeMap<>();
+        timers.forEach((nome, timer) -> timersSnapshot.put(nome, timer.snapshot()));
+        snapshot.put("timers", timersSnapshot);
+        
+        Map<String, Long> countersSnapshot = new TreeMap<>();
+        counters.forEach((nome, counter) -> countersSnapshot.put(nome, counter.getValor()));
+        snapshot.put("counters", countersSnapshot);
+        
+        Map<String, Long> gaugesSnapshot = new TreeMap<>();
+        gauges.forEach((nome, gauge) -> {
+            try {
+                gaugesSnapshot.put(nome, gauge.getAsLong());
+            } catch (RuntimeException e) {
+                // Gauge de um componente já encerrado: fica fora do snapshot
+            }
+        });
+        snapshot.put("gauges", gaugesSnapshot);
+        
+        return snapshot;
+    }
+    
+    /**
+     * Obtém estatísticas de todas as métricas
+     */
+    public static String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== MÉTRICAS ===\n");
+        stats.append("Habilitadas: ").append(ENABLED ? "Sim" : "Não").append("\n");
+        
+        new TreeMap<>(timers).forEach((nome, timer) -> {
+            LatencyHistogram histograma = timer.histograma;
+            stats.append(String.format("%s: %d chamadas, %d erros (%.2f%%), p50=%.2f ms, p99=%.2f ms, p99.9=%.2f ms, máx=%.2f ms%n",
+                nome, histograma.getContagem(), timer.getErros(), timer.getTaxaErros() * 100,
+                histograma.percentilMicros(50) / 1000.0, histograma.percentilMicros(99) / 1000.0,
+                histograma.percentilMicros(99.9) / 1000.0, histograma.getMaximoMicros() / 1000.0));
+        });
+        new TreeMap<>(counters).forEach((nome, counter) ->
+            stats.append(nome).append(": ").append(counter.getValor()).append("\n"));
+        new TreeMap<>(gauges).forEach((nome, gauge) -> {
+            try {
+                stats.append(nome).append(": ").append(gauge.getAsLong()).append("\n");
+            } catch (RuntimeException e) {
+                stats.append(nome).append(": indisponível\n");
+            }
+        });
+        return stats.toString();
+    }
+    
+    /**
+     * Contador monotônico
+     */
+    public static class Counter {
+        private final LongAdder valor = new LongAdder();
+        
+        private Counter() {
+        }
+        
+        public void incrementar() {
+            if (ENABLED) {
+                valor.increment();
+            }
+        }
+        
+        public void incrementar(long quantidade) {
+            if (ENABLED) {
+                valor.add(quantidade);
+            }
+        }
+        
+        public long getValor() {
+            return valor.sum();
+        }
+    }
+    
+    /**
+     * Timer: histograma de latência de todas as execuções e contagem das que falharam
+     */
+    public static class Timer {
+        private final LatencyHistogram histograma = new LatencyHistogram();
+        private final LongAdder erros = new LongAdder();
+        
+        private Timer() {
+        }
+        
+        /**
+         * Registra uma execução que levou os nanossegundos informados
+         */
+        public void registrar(long nanos, boolean sucesso) {
+            if (!ENABLED) {
+                return;
+            }
+            histograma.registrar(nanos);
+            if (!sucesso) {
+                erros.increment();
+            }
+        }
+        
+        public LatencyHistogram getHistograma() {
+            return histograma;
+        }
+        
+        public long getErros() {
+            return erros.sum();
+        }
+        
+        public double getTaxaErros() {
+            long total = histograma.getContagem();
+            return total > 0 ? (double) erros.sum() / total : 0.0;
+        }
+        
+        private Map<String, Object> snapshot() {
+            Map<String, Object> valores = new LinkedHashMap<>();
+            valores.put("count", histograma.getContagem());
+            valores.put("errors", getErros());
+            valores.put("errorRate", getTaxaErros());
+            valores.put("minMs", histograma.getMinimoMicros() / 1000.0);
+            valores.put("meanMs", histograma.getMediaMicros() / 1000.0);
+            valores.put("p50Ms", histograma.percentilMicros(50) / 1000.0);
+            valores.put("p90Ms", histograma.percentilMicros(90) / 1000.0);
+            valores.put("p99Ms", histograma.percentilMicros(99) / 1000.0);
+            valores.put("p999Ms", histograma.percentilMicros(99.9) / 1000.0);
+            valores.put("maxMs", histograma.getMaximoMicros() / 1000.0);
+            return valores;
+        }
+    }
+}
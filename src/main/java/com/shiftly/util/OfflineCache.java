@@ -1,161 +1,243 @@
 package com.shiftly.util;
 
+import com.shiftly.model.Ponto;
 import com.shiftly.model.Usuario;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Sistema de cache offline para armazenar dados quando SQL Server não estiver disponível
+ * Os dados pendentes são gravados no OfflineJournal e sobrevivem a reinícios da aplicação
  */
 public class OfflineCache {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(OfflineCache.class);
-    
-    // Cache de usuários pendentes de sincronização
-    private static final Map<String, Usuario> usuariosPendentes = new ConcurrentHashMap<>();
-    
-    // Cache de pontos pendentes de sincronização
-    private static final Map<String, Object> pontosPendentes = new ConcurrentHashMap<>();
-    
-    // Cache de outras entidades pendentes
-    private static final Map<String, Object> outrasEntidadesPendentes = new ConcurrentHashMap<>();
-    
-    // Flag para indicar se há dados pendentes
-    private static volatile boolean hasPendingData = false;
-    
-    /**
-     * Adiciona usuário ao cache offline
-     */
-    public static void addUsuarioPendente(Usuario usuario) {
-        String key = "usuario_" + usuario.getEmail() + "_" + System.currentTimeMillis();
-        usuariosPendentes.put(key, usuario);
-        hasPendingData = true;
-        logger.info("Usuário adicionado ao cache offline: {}", usuario.getEmail());
-    }
-    
-    /**
-     * Adiciona ponto ao cache offline
-     */
-    public static void addPontoPendente(Object ponto) {
-        String key = "ponto_" + System.currentTimeMillis() + "_" + System.nanoTime();
-        pontosPendentes.put(key, ponto);
-        hasPendingData = true;
-        logger.info("Ponto adicionado ao cache offline");
-    }
-    
+
+    // Journal em disco com as escritas pendentes de sincronização
+    private static final OfflineJournal journal = new OfflineJournal(
+        Paths.get(ConfigUtil.getString("offline.journal.directory", "offline-journal")),
+        ConfigUtil.getLong("offline.journal.segment.max.bytes", 1048576),
+        ConfigUtil.getLong("offline.journal.max.bytes", 67108864),
+        ConfigUtil.getInt("offline.journal.compaction.threshold", 500)
+    );
+
+    // A senha vai para o disco só como hash BCrypt, para o usuário entrar com ela após a sincronização;
+    // a biometria não é gravada e o rosto é cadastrado de novo
+    private static final String[] CAMPOS_SENSIVEIS_USUARIO = { "faceEncoding" };
+
+    // Ids temporários negativos e únicos entre execuções, para os pontos apontarem para o usuário certo
+    private static final AtomicLong proximoIdTemporario = new AtomicLong(-System.currentTimeMillis() * 1000);
+
+    /**
+     * Adiciona usuário ao cache offline, atribuindo um id temporário negativo
+     */
+    public static String addUsuarioPendente(Usuario usuario) {
+        usuario.setId(proximoIdTemporario.getAndDecrement());
+        String key = journal.append(OfflineJournal.EntryType.USUARIO, null, usuario, CAMPOS_SENSIVEIS_USUARIO);
+        logger.debug("Usuário adicionado ao cache offline: {} (id temporário {})", usuario.getEmail(), usuario.getId());
+        return key;
+    }
+
+    /**
+     * Adiciona ponto ao cache offline, atribuindo um id temporário negativo
+     */
+    public static String addPontoPendente(Ponto ponto) {
+        ponto.setId(proximoIdTemporario.getAndDecrement());
+        String key = journal.append(OfflineJournal.EntryType.PONTO, null, ponto);
+        logger.debug("Ponto adicionado ao cache offline");
+        return key;
+    }
+
     /**
      * Adiciona outra entidade ao cache offline
      */
-    public static void addOutraEntidadePendente(String tipo, Object entidade) {
-        String key = tipo + "_" + System.currentTimeMillis() + "_" + System.nanoTime();
-        outrasEntidadesPendentes.put(key, entidade);
-        hasPendingData = true;
-        logger.info("Entidade {} adicionada ao cache offline", tipo);
+    public static String addOutraEntidadePendente(String tipo, Object entidade) {
+        String key = journal.append(OfflineJournal.EntryType.OUTRA, tipo, entidade);
+        logger.debug("Entidade {} adicionada ao cache offline", tipo);
+        return key;
     }
-    
+
     /**
      * Verifica se há dados pendentes
      */
     public static boolean hasPendingData() {
-        return hasPendingData;
+        return journal.size() > 0;
     }
-    
+
+    /**
+     * Obtém todas as entradas pendentes, na ordem em que foram gravadas
+     */
+    public static List<OfflineJournal.Entry> getEntradasPendentes() {
+        return journal.getPendingEntries();
+    }
+
     /**
      * Obtém todos os usuários pendentes
      */
     public static List<Usuario> getUsuariosPendentes() {
-        return new ArrayList<>(usuariosPendentes.values());
+        return journal.getPendingEntries(OfflineJournal.EntryType.USUARIO).stream()
+            .map(OfflineJournal.Entry::getEntity)
+            .filter(Usuario.class::isInstance)
+            .map(Usuario.class::cast)
+            .collect(Collectors.toList());
     }
-    
+
     /**
      * Obtém todos os pontos pendentes
      */
-    public static List<Object> getPontosPendentes() {
-        return new ArrayList<>(pontosPendentes.values());
+    public static List<Ponto> getPontosPendentes() {
+        return journal.getPendingEntries(OfflineJournal.EntryType.PONTO).stream()
+            .map(OfflineJournal.Entry::getEntity)
+            .filter(Ponto.class::isInstance)
+            .map(Ponto.class::cast)
+            .collect(Collectors.toList());
     }
-    
+
     /**
      * Obtém todas as outras entidades pendentes
      */
     public static List<Object> getOutrasEntidadesPendentes() {
-        return new ArrayList<>(outrasEntidadesPendentes.values());
+        return journal.getPendingEntries(OfflineJournal.EntryType.OUTRA).stream()
+            .map(OfflineJournal.Entry::getEntity)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Obtém as entradas recusadas pelo banco e mantidas em quarentena
+     */
+    public static List<OfflineJournal.Entry> getEntradasEmQuarentena() {
+        return journal.getQuarantinedEntries();
     }
-    
+
+    /**
+     * Tira uma entrada da fila de reenvio por ter sido recusada de forma definitiva
+     */
+    public static void colocarEmQuarentena(String key, String motivo) {
+        journal.quarantine(key, motivo);
+        logger.warn("Entrada {} do cache offline em quarentena: {}", key, motivo);
+    }
+
+    /**
+     * Devolve uma entrada em quarentena para a fila de reenvio, depois de corrigida a causa
+     */
+    public static void reenviarQuarentena(String key) {
+        journal.requeue(key);
+        logger.info("Entrada {} devolvida à fila do cache offline", key);
+    }
+
+    /**
+     * Troca o id temporário de um usuário criado offline pelo id definitivo nos pontos pendentes
+     * Retorna a quantidade de pontos atualizados
+     */
+    public static int substituirUsuarioTemporario(Long idTemporario, Long idDefinitivo) {
+        int atualizados = 0;
+        for (OfflineJournal.Entry entry : journal.getPendingEntries(OfflineJournal.EntryType.PONTO)) {
+            if (entry.getEntity() instanceof Ponto
+                    && idTemporario.equals(((Ponto) entry.getEntity()).getUsuarioId())) {
+                Ponto ponto = (Ponto) entry.getEntity();
+                ponto.setUsuarioId(idDefinitivo);
+                journal.update(entry.getKey(), ponto);
+                atualizados++;
+            }
+        }
+        if (atualizados > 0) {
+            logger.info("{} pontos pendentes remapeados do usuário temporário {} para {}",
+                       atualizados, idTemporario, idDefinitivo);
+        }
+        return atualizados;
+    }
+
+    /**
+     * Confirma a sincronização de uma entrada pela chave de reenvio
+     */
+    public static void confirmarSincronizacao(String key) {
+        journal.acknowledge(key);
+    }
+
     /**
      * Remove usuário do cache após sincronização
      */
     public static void removeUsuarioPendente(String email) {
-        usuariosPendentes.entrySet().removeIf(entry -> 
-            entry.getValue().getEmail().equals(email));
-        updatePendingDataFlag();
-        logger.info("Usuário removido do cache offline: {}", email);
+        for (OfflineJournal.Entry entry : journal.getPendingEntries(OfflineJournal.EntryType.USUARIO)) {
+            if (entry.getEntity() instanceof Usuario
+                    && ((Usuario) entry.getEntity()).getEmail().equals(email)) {
+                journal.acknowledge(entry.getKey());
+            }
+        }
+        logger.debug("Usuário removido do cache offline: {}", email);
     }
-    
+
     /**
      * Remove ponto do cache após sincronização
      */
     public static void removePontoPendente(String key) {
-        pontosPendentes.remove(key);
-        updatePendingDataFlag();
-        logger.info("Ponto removido do cache offline");
+        journal.acknowledge(key);
+        logger.debug("Ponto removido do cache offline");
     }
-    
+
     /**
      * Remove outra entidade do cache após sincronização
      */
     public static void removeOutraEntidadePendente(String key) {
-        outrasEntidadesPendentes.remove(key);
-        updatePendingDataFlag();
-        logger.info("Entidade removida do cache offline");
+        journal.acknowledge(key);
+        logger.debug("Entidade removida do cache offline");
     }
-    
+
     /**
      * Limpa todo o cache offline
+     * Descarta definitivamente os dados pendentes e em quarentena, inclusive do disco
      */
     public static void clearCache() {
-        usuariosPendentes.clear();
-        pontosPendentes.clear();
-        outrasEntidadesPendentes.clear();
-        hasPendingData = false;
+        for (OfflineJournal.Entry entry : journal.getPendingEntries()) {
+            journal.acknowledge(entry.getKey());
+        }
+        for (OfflineJournal.Entry entry : journal.getQuarantinedEntries()) {
+            journal.acknowledge(entry.getKey());
+        }
         logger.info("Cache offline limpo");
     }
-    
+
     /**
      * Obtém estatísticas do cache
      */
     public static String getCacheStats() {
+        int usuarios = journal.getPendingEntries(OfflineJournal.EntryType.USUARIO).size();
+        int pontos = journal.getPendingEntries(OfflineJournal.EntryType.PONTO).size();
+        int outras = journal.getPendingEntries(OfflineJournal.EntryType.OUTRA).size();
+
         StringBuilder stats = new StringBuilder();
         stats.append("=== ESTATÍSTICAS DO CACHE OFFLINE ===\n");
-        stats.append("Usuários pendentes: ").append(usuariosPendentes.size()).append("\n");
-        stats.append("Pontos pendentes: ").append(pontosPendentes.size()).append("\n");
-        stats.append("Outras entidades pendentes: ").append(outrasEntidadesPendentes.size()).append("\n");
-        stats.append("Total de itens: ").append(usuariosPendentes.size() + pontosPendentes.size() + outrasEntidadesPendentes.size()).append("\n");
-        stats.append("Dados pendentes: ").append(hasPendingData ? "Sim" : "Não").append("\n");
+        stats.append("Usuários pendentes: ").append(usuarios).append("\n");
+        stats.append("Pontos pendentes: ").append(pontos).append("\n");
+        stats.append("Outras entidades pendentes: ").append(outras).append("\n");
+        stats.append("Total de itens: ").append(usuarios + pontos + outras).append("\n");
+        stats.append("Itens em quarentena: ").append(journal.getQuarantinedEntries().size()).append("\n");
+        stats.append("Dados pendentes: ").append(hasPendingData() ? "Sim" : "Não").append("\n");
+        stats.append("Journal em disco: ").append(journal.diskUsage()).append(" bytes\n");
         return stats.toString();
     }
-    
+
     /**
-     * Atualiza flag de dados pendentes
+     * Força compactação do journal em disco
      */
-    private static void updatePendingDataFlag() {
-        hasPendingData = !usuariosPendentes.isEmpty() || 
-                        !pontosPendentes.isEmpty() || 
-                        !outrasEntidadesPendentes.isEmpty();
+    public static void compactar() {
+        journal.compact();
     }
-    
+
     /**
      * Força sincronização de todos os dados pendentes
+     * A reprodução do journal é feita pelo SyncService; aqui apenas compacta o journal
      */
     public static void forceSync() {
         logger.info("Forçando sincronização de dados pendentes...");
-        
-        // Aqui você implementaria a lógica de sincronização
-        // Por enquanto, apenas limpa o cache
-        clearCache();
-        
-        logger.info("Sincronização forçada concluída");
+
+        compactar();
+
+        logger.info("Sincronização forçada concluída ({} itens aguardando o SyncService)", journal.size());
     }
 }
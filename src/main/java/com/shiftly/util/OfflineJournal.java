@@ -0,0 +1,556 @@
+package com.shiftly.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal append-only em disco para escritas pendentes do cache offline
+ *
+ * Cada registro tem o formato [tamanho:int][crc32:int][tipo:byte][payload JSON UTF-8].
+ * Registros do tipo APPEND guardam uma entidade pendente com chave única de reenvio;
+ * registros ACK confirmam a sincronização de uma chave e registros QUARANTINE tiram da fila
+ * uma chave que o banco recusou, preservando-a para análise. Um novo APPEND com a mesma chave
+ * substitui o conteúdo da entrada sem mudar sua posição. Registros corrompidos no fim
+ * de um segmento (escrita interrompida) são descartados na recuperação.
+ */
+public class OfflineJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineJournal.class);
+
+    private static final byte RECORD_APPEND = 1;
+    private static final byte RECORD_ACK = 2;
+    private static final byte RECORD_QUARANTINE = 3;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + 1;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final long maxTotalBytes;
+    private final int compactionThreshold;
+    private final ObjectMapper objectMapper;
+
+    // Entradas pendentes na ordem de gravação
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+    // Entradas recusadas de forma definitiva; não voltam à fila sozinhas
+    private final Map<String, Entry> quarantined = new LinkedHashMap<>();
+    private final List<Path> segments = new ArrayList<>();
+    private FileChannel activeChannel;
+    private long activeSegmentNumber;
+    private int acknowledgedSinceCompaction = 0;
+
+    public enum EntryType {
+        USUARIO, PONTO, OUTRA
+    }
+
+    public OfflineJournal(Path directory, long segmentMaxBytes, long maxTotalBytes, int compactionThreshold) {
+        this.directory = directory;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.compactionThreshold = compactionThreshold;
+
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+            openActiveSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir journal offline em " + directory, e);
+        }
+    }
+
+    /**
+     * Grava uma entidade pendente e retorna sua chave de reenvio
+     * O registro é forçado para o disco antes do retorno. Os campos omitidos não são gravados
+     * e a entrada em memória é lida de volta do payload, para ficar igual à que a recuperação produz
+     */
+    public synchronized String append(EntryType type, String subtype, Object entity, String... omittedFields) {
+        String key = type.name().toLowerCase() + "_" + UUID.randomUUID();
+
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("chave", key);
+        payload.put("tipo", type.name());
+        payload.put("subtipo", subtype);
+        payload.put("classe", entity.getClass().getName());
+        payload.put("criadoEm", LocalDateTime.now().toString());
+        if (omittedFields.length > 0) {
+            ArrayNode omitidos = payload.putArray("omitidos");
+            for (String field : omittedFields) {
+                omitidos.add(field);
+            }
+        }
+        payload.set("dados", toData(entity, payload));
+
+        writeAppend(payload);
+        pending.put(key, omittedFields.length == 0 ? toEntry(payload, entity) : toEntry(payload));
+        return key;
+    }
+
+    /**
+     * Substitui o conteúdo de uma entrada pendente, mantendo chave e posição na fila
+     * Usado para corrigir referências, como o id temporário de um usuário criado offline
+     */
+    public synchronized void update(String key, Object entity) {
+        Entry current = pending.get(key);
+        if (current == null) {
+            throw new IllegalArgumentException("Entrada não pendente no journal: " + key);
+        }
+
+        ObjectNode payload = current.raw.deepCopy();
+        payload.put("classe", entity.getClass().getName());
+        payload.set("dados", toData(entity, payload));
+
+        writeAppend(payload);
+        pending.put(key, payload.has("omitidos") ? toEntry(payload) : toEntry(payload, entity));
+    }
+
+    /**
+     * Tira uma entrada da fila de reenvio, guardando o motivo
+     * A entrada continua em disco até ser confirmada ou devolvida à fila
+     */
+    public synchronized void quarantine(String key, String reason) {
+        Entry entry = pending.remove(key);
+        if (entry == null) {
+            return;
+        }
+
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("chave", key);
+        payload.put("motivo", reason);
+        try {
+            writeRecord(RECORD_QUARANTINE, objectMapper.writeValueAsBytes(payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar quarentena no journal offline", e);
+        }
+
+        quarantined.put(key, entry.withQuarantineReason(reason));
+    }
+
+    /**
+     * Devolve uma entrada da quarentena para o fim da fila de reenvio
+     */
+    public synchronized void requeue(String key) {
+        Entry entry = quarantined.remove(key);
+        if (entry == null) {
+            return;
+        }
+
+        writeAppend((ObjectNode) entry.raw);
+        pending.put(key, entry.withQuarantineReason(null));
+    }
+
+    /**
+     * Confirma a sincronização de uma entrada, ou descarta uma entrada em quarentena
+     */
+    public synchronized void acknowledge(String key) {
+        if (pending.remove(key) == null && quarantined.remove(key) == null) {
+            return;
+        }
+
+        try {
+            writeRecord(RECORD_ACK, key.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar confirmação no journal offline", e);
+        }
+
+        if (pending.isEmpty() || ++acknowledgedSinceCompaction >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Retorna as entradas pendentes na ordem de gravação
+     */
+    public synchronized List<Entry> getPendingEntries() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Retorna as entradas pendentes de um tipo
+     */
+    public synchronized List<Entry> getPendingEntries(EntryType type) {
+        return pending.values().stream()
+            .filter(entry -> entry.getType() == type)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Retorna as entradas em quarentena na ordem em que foram recusadas
+     */
+    public synchronized List<Entry> getQuarantinedEntries() {
+        return new ArrayList<>(quarantined.values());
+    }
+
+    /**
+     * Quantidade de entradas pendentes
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Espaço ocupado em disco pelos segmentos
+     */
+    public synchronized long diskUsage() {
+        long total = 0;
+        for (Path segment : segments) {
+            try {
+                total += Files.size(segment);
+            } catch (IOException e) {
+                logger.debug("Erro ao obter tamanho de {}: {}", segment, e.getMessage());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reescreve apenas as entradas pendentes e em quarentena em um novo segmento e remove os antigos
+     */
+    public synchronized void compact() {
+        try {
+            closeActiveChannel();
+
+            List<Path> oldSegments = new ArrayList<>(segments);
+            segments.clear();
+
+            if (!pending.isEmpty() || !quarantined.isEmpty()) {
+                // Grava em arquivo temporário e renomeia para não perder dados se falhar no meio
+                long number = activeSegmentNumber + 1;
+                Path temp = directory.resolve(SEGMENT_PREFIX + number + ".tmp");
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    for (Entry entry : pending.values()) {
+                        channel.write(encodeRecord(RECORD_APPEND, objectMapper.writeValueAsBytes(entry.raw)));
+                    }
+                    for (Entry entry : quarantined.values()) {
+                        ObjectNode quarantine = objectMapper.createObjectNode();
+                        quarantine.put("chave", entry.key);
+                        quarantine.put("motivo", entry.quarantineReason);
+                        channel.write(encodeRecord(RECORD_APPEND, objectMapper.writeValueAsBytes(entry.raw)));
+                        channel.write(encodeRecord(RECORD_QUARANTINE, objectMapper.writeValueAsBytes(quarantine)));
+                    }
+                    channel.force(true);
+                }
+                Path compacted = segmentPath(number);
+                Files.move(temp, compacted, StandardCopyOption.ATOMIC_MOVE);
+                segments.add(compacted);
+                activeSegmentNumber = number;
+            }
+
+            for (Path segment : oldSegments) {
+                Files.deleteIfExists(segment);
+            }
+
+            acknowledgedSinceCompaction = 0;
+            openActiveSegment();
+            logger.debug("Journal offline compactado: {} entradas pendentes, {} em quarentena",
+                        pending.size(), quarantined.size());
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao compactar journal offline", e);
+        }
+    }
+
+    /**
+     * Fecha o journal
+     */
+    public synchronized void close() {
+        try {
+            closeActiveChannel();
+        } catch (IOException e) {
+            logger.warn("Erro ao fechar journal offline: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Grava um registro APPEND
+     */
+    private void writeAppend(ObjectNode payload) {
+        try {
+            writeRecord(RECORD_APPEND, objectMapper.writeValueAsBytes(payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar no journal offline", e);
+        }
+    }
+
+    /**
+     * Serializa a entidade sem os campos omitidos declarados no payload
+     */
+    private ObjectNode toData(Object entity, JsonNode payload) {
+        ObjectNode data = objectMapper.valueToTree(entity);
+        if (payload.has("omitidos")) {
+            for (JsonNode field : payload.get("omitidos")) {
+                data.remove(field.asText());
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Grava um registro no segmento ativo, trocando de segmento quando necessário
+     */
+    private void writeRecord(byte recordType, byte[] payload) throws IOException {
+        ByteBuffer record = encodeRecord(recordType, payload);
+
+        if (activeChannel.size() > 0 && activeChannel.size() + record.remaining() > segmentMaxBytes) {
+            rollSegment();
+        }
+
+        if (recordType == RECORD_APPEND && diskUsage() + record.remaining() > maxTotalBytes) {
+            compact();
+            if (diskUsage() + record.remaining() > maxTotalBytes) {
+                throw new IOException("Limite de espaço do journal offline atingido (" + maxTotalBytes + " bytes)");
+            }
+        }
+
+        while (record.hasRemaining()) {
+            activeChannel.write(record);
+        }
+        activeChannel.force(false);
+    }
+
+    /**
+     * Codifica um registro com cabeçalho e CRC
+     */
+    private static ByteBuffer encodeRecord(byte recordType, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(recordType);
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(recordType);
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Lê todos os segmentos existentes e reconstrói as entradas pendentes
+     */
+    private void recover() throws IOException {
+        List<Path> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                .collect(Collectors.toList());
+        }
+
+        int records = 0;
+        for (Path segment : existing) {
+            records += readSegment(segment);
+            segments.add(segment);
+            activeSegmentNumber = Math.max(activeSegmentNumber, segmentNumber(segment));
+        }
+
+        if (records > 0) {
+            logger.info("Journal offline recuperado: {} registros lidos, {} entradas pendentes", records, pending.size());
+        }
+    }
+
+    /**
+     * Lê um segmento; descarta e trunca a cauda corrompida
+     */
+    private int readSegment(Path segment) throws IOException {
+        int records = 0;
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+
+                int length = header.getInt();
+                int expectedCrc = header.getInt();
+                byte recordType = header.get();
+
+                if (length < 0 || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + HEADER_SIZE);
+                byte[] bytes = payload.array();
+
+                CRC32 crc = new CRC32();
+                crc.update(recordType);
+                crc.update(bytes);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+
+                applyRecord(recordType, bytes);
+                records++;
+                position += HEADER_SIZE + length;
+            }
+
+            if (position < size) {
+                logger.warn("Registro incompleto ou corrompido em {} na posição {}; descartando {} bytes",
+                           segment.getFileName(), position, size - position);
+                channel.truncate(position);
+                channel.force(true);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Aplica um registro lido na recuperação
+     */
+    private void applyRecord(byte recordType, byte[] bytes) throws IOException {
+        if (recordType == RECORD_APPEND) {
+            JsonNode payload = objectMapper.readTree(bytes);
+            Entry entry = toEntry(payload);
+            quarantined.remove(entry.getKey());
+            pending.put(entry.getKey(), entry);
+        } else if (recordType == RECORD_ACK) {
+            String key = new String(bytes, StandardCharsets.UTF_8);
+            pending.remove(key);
+            quarantined.remove(key);
+        } else if (recordType == RECORD_QUARANTINE) {
+            JsonNode payload = objectMapper.readTree(bytes);
+            String reason = payload.hasNonNull("motivo") ? payload.get("motivo").asText() : null;
+            Entry entry = pending.remove(payload.get("chave").asText());
+            if (entry != null) {
+                quarantined.put(entry.getKey(), entry.withQuarantineReason(reason));
+            }
+        }
+    }
+
+    /**
+     * Converte o payload gravado em entrada tipada
+     */
+    private Entry toEntry(JsonNode payload) {
+        Object entity = payload.get("dados");
+
+        try {
+            Class<?> entityClass = Class.forName(payload.get("classe").asText());
+            entity = objectMapper.treeToValue(payload.get("dados"), entityClass);
+        } catch (ClassNotFoundException | IOException e) {
+            logger.warn("Não foi possível desserializar entrada {} do journal: {}", payload.get("chave").asText(), e.getMessage());
+        }
+
+        return toEntry(payload, entity);
+    }
+
+    private static Entry toEntry(JsonNode payload, Object entity) {
+        EntryType type = EntryType.valueOf(payload.get("tipo").asText());
+        String subtype = payload.hasNonNull("subtipo") ? payload.get("subtipo").asText() : null;
+        return new Entry(payload.get("chave").asText(), type, subtype,
+                         LocalDateTime.parse(payload.get("criadoEm").asText()), entity, payload, null);
+    }
+
+    /**
+     * Abre o segmento ativo para escrita
+     */
+    private void openActiveSegment() throws IOException {
+        if (segments.isEmpty()) {
+            activeSegmentNumber++;
+            segments.add(segmentPath(activeSegmentNumber));
+        }
+        Path active = segments.get(segments.size() - 1);
+        activeChannel = FileChannel.open(active, StandardOpenOption.CREATE,
+                                         StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Fecha o segmento atual e inicia um novo
+     */
+    private void rollSegment() throws IOException {
+        closeActiveChannel();
+        activeSegmentNumber++;
+        segments.add(segmentPath(activeSegmentNumber));
+        openActiveSegment();
+    }
+
+    private void closeActiveChannel() throws IOException {
+        if (activeChannel != null && activeChannel.isOpen()) {
+            activeChannel.force(true);
+            activeChannel.close();
+        }
+        activeChannel = null;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Entrada pendente ou em quarentena do journal
+     */
+    public static class Entry {
+        private final String key;
+        private final EntryType type;
+        private final String subtype;
+        private final LocalDateTime createdAt;
+        private final Object entity;
+        private final JsonNode raw;
+        private final String quarantineReason;
+
+        Entry(String key, EntryType type, String subtype, LocalDateTime createdAt, Object entity, JsonNode raw,
+              String quarantineReason) {
+            this.key = key;
+            this.type = type;
+            this.subtype = subtype;
+            this.createdAt = createdAt;
+            this.entity = entity;
+            this.raw = raw;
+            this.quarantineReason = quarantineReason;
+        }
+
+        Entry withQuarantineReason(String reason) {
+            return new Entry(key, type, subtype, createdAt, entity, raw, reason);
+        }
+
+        // Getters
+        public String getKey() { return key; }
+        public EntryType getType() { return type; }
+        public String getSubtype() { return subtype; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public Object getEntity() { return entity; }
+        public String getQuarantineReason() { return quarantineReason; }
+    }
+}
@@ -0,0 +1,244 @@
+package com.shiftly.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executor dedicado e limitado para hashing de senhas com BCrypt
+ * Limita as threads e a fila para que rajadas de login não saturem a CPU; acima do limite rejeita na hora
+ */
+public class PasswordHasher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+    
+    // Custo mínimo aceito (padrão do BCryptPasswordEncoder)
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+    
+    private static final int THREADS = ConfigUtil.getInt("security.password.threads",
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_CAPACITY = ConfigUtil.getInt("security.password.queue.capacity", 32);
+    private static final long TIMEOUT_MS = ConfigUtil.getLong("security.password.timeout.ms", 10000);
+    private static final boolean CALIBRATE = ConfigUtil.getBoolean("security.password.bcrypt.calibrate", false);
+    private static final long CALIBRATION_TARGET_MS = ConfigUtil.getLong("security.password.bcrypt.target.ms", 250);
+    
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+    
+    private static final ThreadPoolExecutor executor = criarExecutor();
+    
+    // Custo usado em novos hashes e como alvo do rehash
+    private static volatile int targetCost = limitarCusto(ConfigUtil.getInt("security.password.bcrypt.cost", MIN_COST));
+    private static volatile BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(targetCost);
+    
+    // Métricas
+    private static final AtomicLong verifications = new AtomicLong();
+    private static final AtomicLong encodings = new AtomicLong();
+    private static final AtomicLong rejections = new AtomicLong();
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong totalHashNanos = new AtomicLong();
+    private static final AtomicLong maxLatencyNanos = new AtomicLong();
+    
+    static {
+        if (CALIBRATE) {
+            // Calibra em segundo plano no executor de CPU; até terminar vale o custo configurado
+            try {
+                AppExecutors.cpu().execute(() -> calibrar(CALIBRATION_TARGET_MS));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Calibração do BCrypt não iniciada (executor de CPU saturado); mantido custo {}", targetCost);
+            }
+        }
+    }
+    
+    /**
+     * Verifica a senha contra o hash no executor de senhas
+     * Lança RejectedExecutionException se o executor estiver saturado ou a verificação exceder o tempo limite
+     */
+    public static boolean matches(String senha, String hash) {
+        if (senha == null || hash == null) {
+            return false;
+        }
+        
+        boolean resultado = executar(() -> encoder.matches(senha, hash));
+        verifications.incrementAndGet();
+        return resultado;
+    }
+    
+    /**
+     * Gera o hash da senha com o custo alvo, no executor de senhas
+     */
+    public static String encode(String senha) {
+        String hash = executar(() -> encoder.encode(senha));
+        encodings.incrementAndGet();
+        return hash;
+    }
+    
+    /**
+     * Verifica se o hash foi gerado com custo abaixo do alvo e deve ser refeito no próximo login
+     */
+    public static boolean needsRehash(String hash) {
+        int custo = extrairCusto(hash);
+        return custo > 0 && custo < targetCost;
+    }
+    
+    /**
+     * Custo BCrypt usado em novos hashes
+     */
+    public static int getTargetCost() {
+        return targetCost;
+    }
+    
+    /**
+     * Mede o tempo de hash neste host e ajusta o custo alvo para o maior custo dentro do tempo desejado
+     * Nunca reduz abaixo de 10; cada ponto de custo dobra o tempo
+     */
+    public static synchronized int calibrar(long targetMs) {
+        BCryptPasswordEncoder base = new BCryptPasswordEncoder(MIN_COST);
+        
+        // Aquecimento e mediana de algumas medições no custo mínimo
+        base.encode("calibracao");
+        long[] amostras = new long[5];
+        for (int i = 0; i < amostras.length; i++) {
+            long inicio = System.nanoTime();
+            base.encode("calibracao");
+            amostras[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(amostras);
+        double mediaMs = amostras[amostras.length / 2] / 1_000_000.0;
+        
+        int custo = MIN_COST;
+        double estimadoMs = mediaMs;
+        while (custo < MAX_COST && estimadoMs * 2 <= targetMs) {
+            custo++;
+            estimadoMs *= 2;
+        }
+        
+        targetCost = custo;
+        encoder = new BCryptPasswordEncoder(custo);
+        logger.info("Calibração BCrypt: custo {} em {} ms; custo alvo {} (~{} ms, alvo {} ms)",
+            MIN_COST, String.format("%.1f", mediaMs), custo, String.format("%.0f", estimadoMs), targetMs);
+        return custo;
+    }
+    
+    /**
+     * Obtém estatísticas do executor de senhas
+     */
+    public static String getStats() {
+        long total = verifications.get() + encodings.get();
+        
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== HASHING DE SENHAS ===\n");
+        stats.append("Threads: ").append(THREADS).append("\n");
+        stats.append("Ativas: ").append(executor.getActiveCount()).append("\n");
+        stats.append("Fila: ").append(executor.getQueue().size()).append("/").append(QUEUE_CAPACITY).append("\n");
+        stats.append("Custo alvo: ").append(targetCost).append("\n");
+        stats.append("Verificações: ").append(verifications.get()).append("\n");
+        stats.append("Hashes gerados: ").append(encodings.get()).append("\n");
+        stats.append("Rejeitadas (saturado): ").append(rejections.get()).append("\n");
+        stats.append("Tempo limite excedido: ").append(timeouts.get()).append("\n");
+        if (total > 0) {
+            stats.append(String.format("Espera média na fila: %.1f ms%n", totalWaitNanos.get() / 1_000_000.0 / total));
+            stats.append(String.format("Tempo médio de hash: %.1f ms%n", totalHashNanos.get() / 1_000_000.0 / total));
+        }
+        stats.append(String.format("Latência máxima: %.1f ms%n", maxLatencyNanos.get() / 1_000_000.0));
+        return stats.toString();
+    }
+    
+    /**
+     * Encerra o executor de senhas
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Executa uma operação de hash no executor, medindo espera na fila e tempo de CPU
+     */
+    private static <T> T executar(Callable<T> operacao) {
+        long enfileirado = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                totalWaitNanos.addAndGet(inicio - enfileirado);
+                try {
+                    return operacao.call();
+                } finally {
+                    totalHashNanos.addAndGet(System.nanoTime() - inicio);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.incrementAndGet();
+            logger.warn("Executor de senhas saturado ({} na fila)", executor.getQueue().size());
+            throw new RejectedExecutionException("Servidor ocupado processando logins");
+        }
+        
+        try {
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.incrementAndGet();
+            logger.warn("Hash de senha excedeu {} ms", TIMEOUT_MS);
+            throw new RejectedExecutionException("Tempo limite excedido ao verificar senha");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Verificação de senha interrompida");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IllegalStateException("Erro ao processar senha", causa);
+        } finally {
+            maxLatencyNanos.accumulateAndGet(System.nanoTime() - enfileirado, Math::max);
+        }
+    }
+    
+    /**
+     * Lê o custo de um hash BCrypt ($2a$10$...); retorna 0 se não for BCrypt
+     */
+    private static int extrairCusto(String hash) {
+        if (hash == null) {
+            return 0;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(hash);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+    
+    private static int limitarCusto(int custo) {
+        return Math.max(MIN_COST, Math.min(MAX_COST, custo));
+    }
+    
+    /**
+     * Cria o pool com fila limitada e threads nomeadas; fila cheia rejeita imediatamente
+     */
+    private static ThreadPoolExecutor criarExecutor() {
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "shiftly-password-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
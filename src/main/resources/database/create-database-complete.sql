@@ -81,6 +81,7 @@ BEGIN
         data_correcao DATETIME2,
         motivo_correcao NVARCHAR(500),
         data_criacao DATETIME2 DEFAULT GETDATE(),
+        data_atualizacao DATETIME2 DEFAULT GETDATE(), -- marca de alteração lida pela sincronização
         
         -- Relacionamentos
         FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
@@ -95,6 +96,37 @@ BEGIN
     PRINT 'Tabela pontos criada com sucesso!';
 END;
 
+-- =====================================================================================
+-- TABELA: JORNADA_DIARIA
+-- Consolidação diária dos pontos, recalculada a cada gravação/remoção de ponto
+-- =====================================================================================
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='jornada_diaria' AND xtype='U')
+BEGIN
+    CREATE TABLE jornada_diaria (
+        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+        usuario_id BIGINT NOT NULL,
+        data DATE NOT NULL,
+        minutos_trabalhados INT NOT NULL DEFAULT 0,
+        minutos_extras INT NOT NULL DEFAULT 0,
+        primeira_entrada DATETIME2,
+        ultima_saida DATETIME2,
+        total_pontos INT NOT NULL DEFAULT 0,
+        inconsistente BIT NOT NULL DEFAULT 0,
+        inconsistencias NVARCHAR(200),
+        data_atualizacao DATETIME2 DEFAULT GETDATE(),
+        
+        -- Relacionamentos
+        FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+        
+        -- Uma linha por usuário e dia
+        CONSTRAINT UQ_jornada_diaria_usuario_data UNIQUE (usuario_id, data),
+        
+        -- Índices
+        INDEX IX_jornada_diaria_data (data)
+    );
+    PRINT 'Tabela jornada_diaria criada com sucesso!';
+END;
+
 -- =====================================================================================
 -- TABELA: FERIAS
 -- =====================================================================================
@@ -106,7 +138,7 @@ BEGIN
         data_inicio DATE NOT NULL,
         data_fim DATE NOT NULL,
         dias_solicitados INT NOT NULL,
-        status NVARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'REJEITADA', 'CANCELADA')),
+        status NVARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA', 'CANCELADA')),
         observacoes NVARCHAR(1000),
         motivo_recusa NVARCHAR(500),
         
@@ -116,6 +148,7 @@ BEGIN
         data_solicitacao DATETIME2 DEFAULT GETDATE(),
         data_criacao DATETIME2 DEFAULT GETDATE(),
         data_atualizacao DATETIME2 DEFAULT GETDATE(),
+        versao INT NOT NULL DEFAULT 0,
         
         -- Relacionamentos
         FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
@@ -143,7 +176,7 @@ BEGIN
         usuario_id BIGINT NOT NULL,
         data DATE NOT NULL,
         horas DECIMAL(4,2) NOT NULL,
-        status NVARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'REJEITADA')),
+        status NVARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA')),
         descricao NVARCHAR(500) NOT NULL,
         justificativa NVARCHAR(1000),
         motivo_recusa NVARCHAR(500),
@@ -154,6 +187,7 @@ BEGIN
         data_solicitacao DATETIME2 DEFAULT GETDATE(),
         data_criacao DATETIME2 DEFAULT GETDATE(),
         data_atualizacao DATETIME2 DEFAULT GETDATE(),
+        versao INT NOT NULL DEFAULT 0,
         
         -- Relacionamentos
         FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
@@ -528,6 +562,30 @@ BEGIN
     PRINT 'Índice IX_ferias_usuario_status_data criado com sucesso!';
 END;
 
+-- Marca de alteração dos pontos em bancos criados antes dela
+IF COL_LENGTH('pontos', 'data_atualizacao') IS NULL
+BEGIN
+    ALTER TABLE pontos ADD data_atualizacao DATETIME2 DEFAULT GETDATE();
+    EXEC('UPDATE pontos SET data_atualizacao = COALESCE(data_correcao, data_criacao)');
+    PRINT 'Coluna data_atualizacao adicionada em pontos!';
+END;
+
+-- Índices da sincronização (marca de alteração, id)
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_usuarios_alteracao')
+    EXEC('CREATE INDEX IX_usuarios_alteracao ON usuarios (data_atualizacao, id)');
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_pontos_alteracao')
+    EXEC('CREATE INDEX IX_pontos_alteracao ON pontos (data_atualizacao, id)');
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_ferias_alteracao')
+    EXEC('CREATE INDEX IX_ferias_alteracao ON ferias (data_atualizacao, id)');
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_horas_extras_alteracao')
+    EXEC('CREATE INDEX IX_horas_extras_alteracao ON horas_extras (data_atualizacao, id)');
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_comprovantes_alteracao')
+    EXEC('CREATE INDEX IX_comprovantes_alteracao ON comprovantes (data_atualizacao, id)');
+
 -- =====================================================================================
 -- FUNCÕES AUXILIARES
 -- =====================================================================================
@@ -1,14 +1,14 @@
 -- =====================================================================================
 -- SCRIPT COMPLETO DO BANCO DE DADOS SHIFTLY PARA H2
 -- Sistema de Controle de Ponto Eletrônico com Reconhecimento Facial e Geolocalização
--- Compatível com H2 Database (In-Memory)
+-- Compatível com H2 Database (In-Memory), no modo padrão e com MODE=MSSQLServer
 -- =====================================================================================
 
 -- =====================================================================================
 -- TABELA: USUARIOS
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS usuarios (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     nome VARCHAR(100) NOT NULL,
     email VARCHAR(100) NOT NULL UNIQUE,
     senha VARCHAR(255) NOT NULL,
@@ -34,12 +34,13 @@ CREATE TABLE IF NOT EXISTS usuarios (
 CREATE INDEX IF NOT EXISTS IX_usuarios_email ON usuarios (email);
 CREATE INDEX IF NOT EXISTS IX_usuarios_tipo ON usuarios (tipo_usuario);
 CREATE INDEX IF NOT EXISTS IX_usuarios_ativo ON usuarios (ativo);
+CREATE INDEX IF NOT EXISTS IX_usuarios_alteracao ON usuarios (data_atualizacao, id);
 
 -- =====================================================================================
 -- TABELA: PONTOS
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS pontos (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     usuario_id BIGINT NOT NULL,
     data_hora TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     tipo_ponto VARCHAR(10) NOT NULL CHECK (tipo_ponto IN ('ENTRADA', 'SAIDA')),
@@ -62,6 +63,7 @@ CREATE TABLE IF NOT EXISTS pontos (
     data_correcao TIMESTAMP,
     motivo_correcao VARCHAR(500),
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP, -- marca de alteração lida pela sincronização
     
     -- Relacionamentos
     FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
@@ -73,17 +75,45 @@ CREATE INDEX IF NOT EXISTS IX_pontos_usuario_data ON pontos (usuario_id, data_ho
 CREATE INDEX IF NOT EXISTS IX_pontos_data ON pontos (data_hora);
 CREATE INDEX IF NOT EXISTS IX_pontos_tipo ON pontos (tipo_ponto);
 CREATE INDEX IF NOT EXISTS IX_pontos_validacao ON pontos (face_validada);
+CREATE INDEX IF NOT EXISTS IX_pontos_alteracao ON pontos (data_atualizacao, id);
+
+-- =====================================================================================
+-- TABELA: JORNADA_DIARIA
+-- Consolidação diária dos pontos, recalculada a cada gravação/remoção de ponto
+-- =====================================================================================
+CREATE TABLE IF NOT EXISTS jornada_diaria (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    data DATE NOT NULL,
+    minutos_trabalhados INT NOT NULL DEFAULT 0,
+    minutos_extras INT NOT NULL DEFAULT 0,
+    primeira_entrada TIMESTAMP,
+    ultima_saida TIMESTAMP,
+    total_pontos INT NOT NULL DEFAULT 0,
+    inconsistente BOOLEAN DEFAULT FALSE,
+    inconsistencias VARCHAR(200), -- códigos separados por vírgula
+    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    -- Relacionamentos
+    FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    
+    -- Uma linha por usuário e dia
+    UNIQUE (usuario_id, data)
+);
+
+-- Índices para jornada_diaria
+CREATE INDEX IF NOT EXISTS IX_jornada_diaria_data ON jornada_diaria (data);
 
 -- =====================================================================================
 -- TABELA: FERIAS
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS ferias (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     usuario_id BIGINT NOT NULL,
     data_inicio DATE NOT NULL,
     data_fim DATE NOT NULL,
     dias_solicitados INT NOT NULL,
-    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'REJEITADA', 'CANCELADA')),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA', 'CANCELADA')),
     observacoes VARCHAR(1000),
     motivo_recusa VARCHAR(500),
     
@@ -93,6 +123,7 @@ CREATE TABLE IF NOT EXISTS ferias (
     data_solicitacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    versao INT NOT NULL DEFAULT 0,
     
     -- Relacionamentos
     FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
@@ -107,26 +138,33 @@ CREATE TABLE IF NOT EXISTS ferias (
 CREATE INDEX IF NOT EXISTS IX_ferias_usuario ON ferias (usuario_id);
 CREATE INDEX IF NOT EXISTS IX_ferias_status ON ferias (status);
 CREATE INDEX IF NOT EXISTS IX_ferias_datas ON ferias (data_inicio, data_fim);
+CREATE INDEX IF NOT EXISTS IX_ferias_alteracao ON ferias (data_atualizacao, id);
 
 -- =====================================================================================
 -- TABELA: HORAS_EXTRAS
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS horas_extras (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     usuario_id BIGINT NOT NULL,
     data DATE NOT NULL,
     horas DECIMAL(4,2) NOT NULL,
-    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'REJEITADA')),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE' CHECK (status IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA')),
     descricao VARCHAR(500) NOT NULL,
     justificativa VARCHAR(1000),
     motivo_recusa VARCHAR(500),
     
+    -- Pagamento
+    pago BOOLEAN DEFAULT FALSE,
+    data_pagamento TIMESTAMP,
+    valor_pago DECIMAL(10,2),
+    
     -- Auditoria
     aprovado_por_usuario_id BIGINT,
     data_aprovacao TIMESTAMP,
     data_solicitacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    versao INT NOT NULL DEFAULT 0,
     
     -- Relacionamentos
     FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
@@ -140,12 +178,13 @@ CREATE TABLE IF NOT EXISTS horas_extras (
 CREATE INDEX IF NOT EXISTS IX_horas_extras_usuario ON horas_extras (usuario_id);
 CREATE INDEX IF NOT EXISTS IX_horas_extras_status ON horas_extras (status);
 CREATE INDEX IF NOT EXISTS IX_horas_extras_data ON horas_extras (data);
+CREATE INDEX IF NOT EXISTS IX_horas_extras_alteracao ON horas_extras (data_atualizacao, id);
 
 -- =====================================================================================
 -- TABELA: COMPROVANTES
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS comprovantes (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     usuario_id BIGINT NOT NULL,
     tipo_comprovante VARCHAR(20) NOT NULL CHECK (tipo_comprovante IN ('SALARIO', 'FERIAS', 'RESCISAO', 'ADIANTAMENTO')),
     referencia VARCHAR(50) NOT NULL, -- ano/mês ou período
@@ -168,14 +207,20 @@ CREATE TABLE IF NOT EXISTS comprovantes (
     inss DECIMAL(10,2) DEFAULT 0,
     irrf DECIMAL(10,2) DEFAULT 0,
     fgts DECIMAL(10,2) DEFAULT 0,
+    outros_proventos DECIMAL(10,2) DEFAULT 0,
+    outros_descontos DECIMAL(10,2) DEFAULT 0,
     
     -- Arquivo
     arquivo_nome VARCHAR(255),
     arquivo_caminho VARCHAR(500),
     arquivo_tamanho BIGINT,
+    nome_arquivo VARCHAR(255),
+    caminho_arquivo VARCHAR(500),
+    tamanho_arquivo BIGINT,
     
     -- Auditoria
     gerado_por_usuario_id BIGINT,
+    criado_por_usuario_id BIGINT,
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
@@ -189,12 +234,13 @@ CREATE INDEX IF NOT EXISTS IX_comprovantes_usuario ON comprovantes (usuario_id);
 CREATE INDEX IF NOT EXISTS IX_comprovantes_tipo ON comprovantes (tipo_comprovante);
 CREATE INDEX IF NOT EXISTS IX_comprovantes_referencia ON comprovantes (referencia);
 CREATE INDEX IF NOT EXISTS IX_comprovantes_emissao ON comprovantes (data_emissao);
+CREATE INDEX IF NOT EXISTS IX_comprovantes_alteracao ON comprovantes (data_atualizacao, id);
 
 -- =====================================================================================
 -- TABELA: CONFIGURACOES_SISTEMA
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS configuracoes_sistema (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     chave VARCHAR(100) NOT NULL UNIQUE,
     valor VARCHAR(1000) NOT NULL,
     descricao VARCHAR(500),
@@ -212,7 +258,7 @@ CREATE INDEX IF NOT EXISTS IX_configuracoes_categoria ON configuracoes_sistema (
 -- TABELA: NOTIFICACOES
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS notificacoes (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     usuario_id BIGINT NOT NULL,
     titulo VARCHAR(100) NOT NULL,
     mensagem VARCHAR(500) NOT NULL,
@@ -235,7 +281,7 @@ CREATE INDEX IF NOT EXISTS IX_notificacoes_data ON notificacoes (data_criacao);
 -- TABELA: LOG_AUDITORIA
 -- =====================================================================================
 CREATE TABLE IF NOT EXISTS log_auditoria (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     usuario_id BIGINT,
     acao VARCHAR(100) NOT NULL,
     tabela_afetada VARCHAR(50),
@@ -256,6 +302,19 @@ CREATE INDEX IF NOT EXISTS IX_auditoria_acao ON log_auditoria (acao);
 CREATE INDEX IF NOT EXISTS IX_auditoria_tabela ON log_auditoria (tabela_afetada);
 CREATE INDEX IF NOT EXISTS IX_auditoria_data ON log_auditoria (data_criacao);
 
+-- =====================================================================================
+-- TABELA: SYNC_EXCLUSAO
+-- Linhas removidas enquanto o H2 era o banco principal, repassadas ao SQL Server na sincronização
+-- =====================================================================================
+CREATE TABLE IF NOT EXISTS sync_exclusao (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tabela VARCHAR(50) NOT NULL,
+    registro_id BIGINT NOT NULL,
+    data_exclusao TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS IX_sync_exclusao_tabela ON sync_exclusao (tabela, id);
+
 -- =====================================================================================
 -- INSERIR CONFIGURAÇÕES PADRÃO DO SISTEMA
 -- =====================================================================================
@@ -61,6 +61,7 @@ BEGIN
         [data_correcao] [datetime] NULL,
         [motivo_correcao] [varchar](500) NULL,
         [data_criacao] [datetime] NOT NULL DEFAULT GETDATE(),
+        [data_atualizacao] [datetime] NOT NULL DEFAULT GETDATE(),
         CONSTRAINT [PK_pontos] PRIMARY KEY CLUSTERED ([id] ASC)
     )
     
@@ -70,6 +71,30 @@ BEGIN
     PRINT 'Tabela pontos criada com sucesso!'
 END
 
+-- =====================================================================================
+-- TABELA: JORNADA_DIARIA
+-- =====================================================================================
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[jornada_diaria]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE [dbo].[jornada_diaria](
+        [id] [bigint] IDENTITY(1,1) NOT NULL,
+        [usuario_id] [bigint] NOT NULL,
+        [data] [date] NOT NULL,
+        [minutos_trabalhados] [int] NOT NULL DEFAULT 0,
+        [minutos_extras] [int] NOT NULL DEFAULT 0,
+        [primeira_entrada] [datetime] NULL,
+        [ultima_saida] [datetime] NULL,
+        [total_pontos] [int] NOT NULL DEFAULT 0,
+        [inconsistente] [bit] NOT NULL DEFAULT 0,
+        [inconsistencias] [varchar](200) NULL,
+        [data_atualizacao] [datetime] NOT NULL DEFAULT GETDATE(),
+        CONSTRAINT [PK_jornada_diaria] PRIMARY KEY CLUSTERED ([id] ASC),
+        CONSTRAINT [UQ_jornada_diaria_usuario_data] UNIQUE ([usuario_id], [data])
+    )
+    
+    PRINT 'Tabela jornada_diaria criada com sucesso!'
+END
+
 -- =====================================================================================
 -- TABELA: FERIAS
 -- =====================================================================================
@@ -89,11 +114,12 @@ BEGIN
         [data_solicitacao] [datetime] NOT NULL DEFAULT GETDATE(),
         [data_criacao] [datetime] NOT NULL DEFAULT GETDATE(),
         [data_atualizacao] [datetime] NOT NULL DEFAULT GETDATE(),
+        [versao] [int] NOT NULL DEFAULT 0,
         CONSTRAINT [PK_ferias] PRIMARY KEY CLUSTERED ([id] ASC)
     )
     
     -- Constraint para status
-    ALTER TABLE [dbo].[ferias] ADD CONSTRAINT [CK_ferias_status] CHECK ([status] IN ('PENDENTE', 'APROVADA', 'REJEITADA', 'CANCELADA'))
+    ALTER TABLE [dbo].[ferias] ADD CONSTRAINT [CK_ferias_status] CHECK ([status] IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA', 'CANCELADA'))
     
     PRINT 'Tabela ferias criada com sucesso!'
 END
@@ -117,11 +143,12 @@ BEGIN
         [data_solicitacao] [datetime] NOT NULL DEFAULT GETDATE(),
         [data_criacao] [datetime] NOT NULL DEFAULT GETDATE(),
         [data_atualizacao] [datetime] NOT NULL DEFAULT GETDATE(),
+        [versao] [int] NOT NULL DEFAULT 0,
         CONSTRAINT [PK_horas_extras] PRIMARY KEY CLUSTERED ([id] ASC)
     )
     
     -- Constraint para status
-    ALTER TABLE [dbo].[horas_extras] ADD CONSTRAINT [CK_horas_extras_status] CHECK ([status] IN ('PENDENTE', 'APROVADA', 'REJEITADA'))
+    ALTER TABLE [dbo].[horas_extras] ADD CONSTRAINT [CK_horas_extras_status] CHECK ([status] IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA'))
     
     PRINT 'Tabela horas_extras criada com sucesso!'
 END
@@ -235,6 +262,78 @@ BEGIN
     PRINT 'Tabela log_auditoria criada com sucesso!'
 END
 
+-- =====================================================================================
+-- COLUNAS LIDAS PELOS REPOSITÓRIOS (bancos criados antes delas)
+-- =====================================================================================
+
+IF COL_LENGTH('dbo.horas_extras', 'pago') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[horas_extras] ADD [pago] [bit] NOT NULL DEFAULT 0, [data_pagamento] [datetime] NULL, [valor_pago] [decimal](10,2) NULL
+    PRINT 'Colunas de pagamento adicionadas em horas_extras!'
+END
+
+IF COL_LENGTH('dbo.comprovantes', 'outros_proventos') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[comprovantes] ADD [outros_proventos] [decimal](10,2) NOT NULL DEFAULT 0, [outros_descontos] [decimal](10,2) NOT NULL DEFAULT 0,
+        [nome_arquivo] [varchar](255) NULL, [caminho_arquivo] [varchar](500) NULL, [tamanho_arquivo] [bigint] NULL, [criado_por_usuario_id] [bigint] NULL
+    PRINT 'Colunas de proventos e arquivo adicionadas em comprovantes!'
+END
+
+IF COL_LENGTH('dbo.ferias', 'versao') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[ferias] ADD [versao] [int] NOT NULL DEFAULT 0
+    PRINT 'Coluna versao adicionada em ferias!'
+END
+
+IF COL_LENGTH('dbo.horas_extras', 'versao') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[horas_extras] ADD [versao] [int] NOT NULL DEFAULT 0
+    PRINT 'Coluna versao adicionada em horas_extras!'
+END
+
+-- Status RECUSADA gravado pelos serviços (as constraints antigas só aceitavam REJEITADA)
+IF EXISTS (SELECT * FROM sys.check_constraints WHERE name = 'CK_ferias_status' AND definition NOT LIKE '%RECUSADA%')
+BEGIN
+    ALTER TABLE [dbo].[ferias] DROP CONSTRAINT [CK_ferias_status]
+    ALTER TABLE [dbo].[ferias] ADD CONSTRAINT [CK_ferias_status] CHECK ([status] IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA', 'CANCELADA'))
+    PRINT 'Constraint de status de ferias atualizada!'
+END
+
+IF EXISTS (SELECT * FROM sys.check_constraints WHERE name = 'CK_horas_extras_status' AND definition NOT LIKE '%RECUSADA%')
+BEGIN
+    ALTER TABLE [dbo].[horas_extras] DROP CONSTRAINT [CK_horas_extras_status]
+    ALTER TABLE [dbo].[horas_extras] ADD CONSTRAINT [CK_horas_extras_status] CHECK ([status] IN ('PENDENTE', 'APROVADA', 'RECUSADA', 'REJEITADA'))
+    PRINT 'Constraint de status de horas_extras atualizada!'
+END
+
+-- Marca de alteração dos pontos: a última gravação conhecida (correção ou criação)
+-- O script roda em um único lote: comandos sobre a coluna nova vão por EXEC, compilados depois do ALTER
+IF COL_LENGTH('dbo.pontos', 'data_atualizacao') IS NULL
+BEGIN
+    ALTER TABLE [dbo].[pontos] ADD [data_atualizacao] [datetime] NOT NULL DEFAULT GETDATE()
+    EXEC('UPDATE [dbo].[pontos] SET [data_atualizacao] = COALESCE([data_correcao], [data_criacao])')
+    PRINT 'Coluna data_atualizacao adicionada em pontos!'
+END
+
+-- =====================================================================================
+-- ÍNDICES DA SINCRONIZAÇÃO (marca de alteração, id)
+-- =====================================================================================
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_usuarios_alteracao')
+    EXEC('CREATE INDEX [IX_usuarios_alteracao] ON [dbo].[usuarios] ([data_atualizacao], [id])')
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_pontos_alteracao')
+    EXEC('CREATE INDEX [IX_pontos_alteracao] ON [dbo].[pontos] ([data_atualizacao], [id])')
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_ferias_alteracao')
+    EXEC('CREATE INDEX [IX_ferias_alteracao] ON [dbo].[ferias] ([data_atualizacao], [id])')
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_horas_extras_alteracao')
+    EXEC('CREATE INDEX [IX_horas_extras_alteracao] ON [dbo].[horas_extras] ([data_atualizacao], [id])')
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_comprovantes_alteracao')
+    EXEC('CREATE INDEX [IX_comprovantes_alteracao] ON [dbo].[comprovantes] ([data_atualizacao], [id])')
+
 -- =====================================================================================
 -- CHAVES ESTRANGEIRAS
 -- =====================================================================================
@@ -0,0 +1,53 @@
+package com.shiftly.repository;
+
+import com.shiftly.util.Metrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que as consultas dos repositórios entram nas métricas com o nome Repository.método
+ */
+public class BaseRepositoryMetricsTest {
+    
+    @BeforeAll
+    public static void setUp() {
+        DatabaseHealthMonitor.tripCircuit("Teste de métricas no H2");
+        DatabaseInitializer.initializeDatabase();
+    }
+    
+    @Test
+    public void testConsultaRegistradaPeloNomeDoMetodo() {
+        PontoRepository repository = new PontoRepository();
+        repository.findByUsuarioIdAndPeriodo(1L, LocalDate.now().minusDays(7), LocalDate.now());
+        repository.findByUsuarioIdAndPeriodo(1L, LocalDate.now().minusDays(7), LocalDate.now());
+        
+        Map<String, Object> consulta = timer("db.query.PontoRepository.findByUsuarioIdAndPeriodo");
+        assertNotNull(consulta, "Consulta sem métrica: " + Metrics.snapshot().get("timers"));
+        assertTrue((Long) consulta.get("count") >= 2);
+        assertEquals(0L, consulta.get("errors"));
+        
+        Map<String, Object> aquisicao = timer("db.connection.acquire.h2");
+        assertNotNull(aquisicao);
+        assertTrue((Long) aquisicao.get("count") >= 2);
+    }
+    
+    @Test
+    public void testOperacaoDaBaseRegistradaPeloRepositorio() {
+        new FeriasRepository().findPage(null, 10);
+        new HorasExtrasRepository().findPage(null, 10);
+        
+        assertNotNull(timer("db.query.FeriasRepository.findPageByKeyset"));
+        assertNotNull(timer("db.query.HorasExtrasRepository.findPageByKeyset"));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> timer(String nome) {
+        Map<String, Object> timers = (Map<String, Object>) Metrics.snapshot().get("timers");
+        return (Map<String, Object>) timers.get(nome);
+    }
+}
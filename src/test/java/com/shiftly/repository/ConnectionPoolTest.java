@@ -0,0 +1,162 @@
+package com.shiftly.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Empréstimo, devolução, timeout, validação e manutenção do pool, com conexões físicas simuladas
+ */
+public class ConnectionPoolTest {
+    
+    private final List<FakeConnection> criadas = new ArrayList<>();
+    private final AtomicBoolean conexoesValidas = new AtomicBoolean(true);
+    private final AtomicInteger validacoes = new AtomicInteger();
+    private ConnectionPool pool;
+    
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+    
+    @Test
+    public void testDevolucaoReaproveitaConexaoFisica() throws Exception {
+        pool = novoPool(2, 1000, 60000, 0, 60000);
+        
+        Connection primeira = pool.borrow();
+        assertEquals(1, pool.getStats().getActive());
+        primeira.close();
+        assertEquals(0, pool.getStats().getActive());
+        assertEquals(1, pool.getStats().getIdle());
+        
+        // O proxy devolvido não pode mais ser usado
+        assertTrue(primeira.isClosed());
+        assertThrows(SQLException.class, primeira::getAutoCommit);
+        
+        try (Connection segunda = pool.borrow()) {
+            assertFalse(segunda.isClosed());
+        }
+        assertEquals(1, pool.getStats().getCreatedCount());
+        assertEquals(2, pool.getStats().getBorrowCount());
+    }
+    
+    @Test
+    public void testPoolSaturadoLancaPoolExhausted() throws Exception {
+        pool = novoPool(1, 100, 60000, 0, 60000);
+        
+        try (Connection emUso = pool.borrow()) {
+            assertThrows(PoolExhaustedException.class, pool::borrow);
+            assertEquals(1, pool.getStats().getTimeoutCount());
+        }
+        
+        // A permissão volta com a devolução
+        try (Connection conn = pool.borrow()) {
+            assertNotNull(conn);
+        }
+    }
+    
+    @Test
+    public void testValidacaoDispensadaLogoAposDevolucao() throws Exception {
+        pool = novoPool(1, 1000, 60000, 0, 60000);
+        
+        pool.borrow().close();
+        pool.borrow().close();
+        assertEquals(0, validacoes.get());
+        
+        Thread.sleep(600);
+        pool.borrow().close();
+        assertEquals(1, validacoes.get());
+    }
+    
+    @Test
+    public void testConexaoInvalidaDescartadaNoEmprestimo() throws Exception {
+        pool = novoPool(1, 1000, 60000, 0, 60000);
+        pool.borrow().close();
+        
+        conexoesValidas.set(false);
+        Thread.sleep(600);
+        try (Connection conn = pool.borrow()) {
+            assertNotNull(conn);
+        }
+        
+        assertEquals(1, pool.getStats().getValidationFailures());
+        assertEquals(2, pool.getStats().getCreatedCount());
+        assertTrue(criadas.get(0).fechada);
+    }
+    
+    @Test
+    public void testConexaoOciosaRemovidaPelaManutencao() throws Exception {
+        pool = novoPool(1, 1000, 50, 0, 20);
+        pool.borrow().close();
+        
+        aguardar(() -> pool.getStats().getTotal() == 0);
+        assertEquals(1, pool.getStats().getDestroyedCount());
+        assertTrue(criadas.get(0).fechada);
+    }
+    
+    @Test
+    public void testEmprestimoLongoRegistradoComoVazamento() throws Exception {
+        pool = novoPool(1, 1000, 60000, 50, 20);
+        
+        try (Connection conn = pool.borrow()) {
+            aguardar(() -> pool.getStats().getLeakCount() == 1);
+        }
+    }
+    
+    private ConnectionPool novoPool(int maxSize, long timeoutMs, long idleTimeoutMs, long leakThresholdMs,
+                                    long maintenanceIntervalMs) {
+        return new ConnectionPool("teste", this::criarConexao, 0, maxSize, timeoutMs, idleTimeoutMs,
+                                  leakThresholdMs, 1, maintenanceIntervalMs, 0, false);
+    }
+    
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < limite, "Condição não atingida em 5 s");
+            Thread.sleep(10);
+        }
+    }
+    
+    private Connection criarConexao() {
+        FakeConnection fake = new FakeConnection();
+        criadas.add(fake);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "isValid":
+                        validacoes.incrementAndGet();
+                        return conexoesValidas.get();
+                    case "close":
+                        fake.fechada = true;
+                        return null;
+                    case "isClosed":
+                        return fake.fechada;
+                    case "getAutoCommit":
+                        return true;
+                    case "isReadOnly":
+                        return false;
+                    default:
+                        return null;
+                }
+            });
+    }
+    
+    /**
+     * Estado de uma conexão física simulada
+     */
+    private static class FakeConnection {
+        private volatile boolean fechada;
+    }
+}
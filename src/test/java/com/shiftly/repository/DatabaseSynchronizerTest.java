@@ -0,0 +1,265 @@
+package com.shiftly.repository;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.model.TipoPonto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sincronização H2 → SQL Server entre dois bancos H2 independentes, com sequências de id diferentes
+ * O destino faz o papel do SQL Server
+ */
+public class DatabaseSynchronizerTest {
+    
+    private static final AtomicInteger bancos = new AtomicInteger();
+    private static final Timestamp ONTEM = Timestamp.valueOf(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS));
+    private static final Timestamp HOJE = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    
+    private Connection origem;
+    private Connection destino;
+    
+    @BeforeEach
+    public void setUp() throws SQLException {
+        int numero = bancos.incrementAndGet();
+        origem = DriverManager.getConnection("jdbc:h2:mem:sync_origem_" + numero, "sa", "");
+        destino = DriverManager.getConnection("jdbc:h2:mem:sync_destino_" + numero, "sa", "");
+        DatabaseInitializer.executeH2Script(origem);
+        DatabaseInitializer.executeH2Script(destino);
+        
+        // Usuário criado só no destino: a partir daqui os ids dos dois bancos divergem
+        inserir(destino, "INSERT INTO usuarios (nome, email, senha, tipo_usuario) VALUES (?, ?, ?, ?)",
+                "Externo", "externo@empresa.com", "x", "COLABORADOR");
+    }
+    
+    @AfterEach
+    public void tearDown() throws SQLException {
+        origem.close();
+        destino.close();
+    }
+    
+    @Test
+    public void testLinhaNovaRecebeIdDoDestinoComUsuarioTraduzido() throws SQLException {
+        long usuarioLocal = novoUsuario("novo@empresa.com");
+        long pontoLocal = inserir(origem, "INSERT INTO pontos (usuario_id, data_hora, tipo_ponto) VALUES (?, ?, ?)",
+                                  usuarioLocal, HOJE, "ENTRADA");
+        inserir(origem, """
+            INSERT INTO ferias (usuario_id, data_inicio, data_fim, dias_solicitados, status, data_atualizacao)
+            VALUES (?, CURRENT_DATE, CURRENT_DATE, 1, 'PENDENTE', ?)
+            """, usuarioLocal, HOJE);
+        
+        DatabaseSynchronizer.sync(origem, destino);
+        
+        long usuarioRemoto = consultarLong(destino, "SELECT id FROM usuarios WHERE email = ?", "novo@empresa.com");
+        assertNotEquals(usuarioLocal, usuarioRemoto);
+        assertEquals("Externo", consultar(destino, "SELECT nome FROM usuarios WHERE email = ?", "externo@empresa.com"));
+        
+        long pontoRemoto = idRemoto("pontos", pontoLocal);
+        assertEquals(usuarioRemoto, consultarLong(destino, "SELECT usuario_id FROM pontos WHERE id = ?", pontoRemoto));
+        assertEquals(1L, consultarLong(destino, "SELECT COUNT(*) FROM ferias WHERE usuario_id = ? AND dias_solicitados = 1",
+                                       usuarioRemoto));
+        assertEquals(1L, consultarLong(destino, "SELECT total_pontos FROM jornada_diaria WHERE usuario_id = ?", usuarioRemoto));
+        
+        // Os usuários padrão existem nos dois bancos e são encontrados pelo e-mail, sem duplicar
+        assertEquals(1L, consultarLong(destino, "SELECT COUNT(*) FROM usuarios WHERE email = ?", "admin@shiftly.com"));
+    }
+    
+    @Test
+    public void testAtualizacaoIncrementaVersao() throws SQLException {
+        long usuarioLocal = novoUsuario("versao@empresa.com");
+        long feriasLocal = inserir(origem, """
+            INSERT INTO ferias (usuario_id, data_inicio, data_fim, dias_solicitados, status, data_atualizacao)
+            VALUES (?, CURRENT_DATE, CURRENT_DATE, 1, 'PENDENTE', ?)
+            """, usuarioLocal, ONTEM);
+        DatabaseSynchronizer.sync(origem, destino);
+        long feriasRemota = idRemoto("ferias", feriasLocal);
+        int versaoInicial = (int) consultarLong(destino, "SELECT versao FROM ferias WHERE id = ?", feriasRemota);
+        
+        executar(origem, "UPDATE ferias SET status = 'APROVADA', data_atualizacao = ? WHERE id = ?", agora(), feriasLocal);
+        DatabaseSynchronizer.sync(origem, destino);
+        
+        assertEquals("APROVADA", consultar(destino, "SELECT status FROM ferias WHERE id = ?", feriasRemota));
+        assertEquals(versaoInicial + 1, consultarLong(destino, "SELECT versao FROM ferias WHERE id = ?", feriasRemota));
+    }
+    
+    @Test
+    public void testLinhaMaisRecenteNoDestinoNaoESobrescrita() throws SQLException {
+        long usuarioLocal = novoUsuario("recente@empresa.com");
+        long feriasLocal = inserir(origem, """
+            INSERT INTO ferias (usuario_id, data_inicio, data_fim, dias_solicitados, status, data_atualizacao)
+            VALUES (?, CURRENT_DATE, CURRENT_DATE, 1, 'PENDENTE', ?)
+            """, usuarioLocal, ONTEM);
+        DatabaseSynchronizer.sync(origem, destino);
+        long feriasRemota = idRemoto("ferias", feriasLocal);
+        
+        executar(destino, "UPDATE ferias SET status = 'RECUSADA', data_atualizacao = ? WHERE id = ?",
+                 Timestamp.valueOf(LocalDateTime.now().plusDays(1)), feriasRemota);
+        executar(origem, "UPDATE ferias SET status = 'APROVADA', data_atualizacao = ? WHERE id = ?", agora(), feriasLocal);
+        DatabaseSynchronizer.sync(origem, destino);
+        
+        assertEquals("RECUSADA", consultar(destino, "SELECT status FROM ferias WHERE id = ?", feriasRemota));
+        assertEquals(0L, consultarLong(origem, "SELECT COUNT(*) FROM sync_conflito"));
+    }
+    
+    @Test
+    public void testLinhaConfirmadaDepoisDeOutraMaisRecenteEEnviada() throws SQLException {
+        long usuarioLocal = novoUsuario("atrasada@empresa.com");
+        long recente = inserir(origem, """
+            INSERT INTO ferias (usuario_id, data_inicio, data_fim, dias_solicitados, status, data_atualizacao)
+            VALUES (?, CURRENT_DATE, CURRENT_DATE, 1, 'PENDENTE', ?)
+            """, usuarioLocal, agora());
+        DatabaseSynchronizer.sync(origem, destino);
+        long recenteRemota = idRemoto("ferias", recente);
+        int versao = (int) consultarLong(destino, "SELECT versao FROM ferias WHERE id = ?", recenteRemota);
+        
+        // Marca gravada antes da linha já enviada, mas confirmada depois: fica atrás da marca d'água
+        long atrasada = inserir(origem, """
+            INSERT INTO ferias (usuario_id, data_inicio, data_fim, dias_solicitados, status, data_atualizacao)
+            VALUES (?, CURRENT_DATE, CURRENT_DATE, 2, 'PENDENTE', ?)
+            """, usuarioLocal, Timestamp.valueOf(LocalDateTime.now().minusSeconds(30)));
+        DatabaseSynchronizer.sync(origem, destino);
+        
+        assertNotNull(idRemotoOuNull("ferias", atrasada));
+        // A janela relida não reenvia o que já foi enviado com a mesma marca
+        assertEquals(versao, consultarLong(destino, "SELECT versao FROM ferias WHERE id = ?", recenteRemota));
+        assertEquals(0, DatabaseSynchronizer.sync(origem, destino));
+    }
+    
+    @Test
+    public void testLinhaRecusadaVaiParaConflitoSemBloquearAsDemais() throws SQLException {
+        // Restrição que só o destino tem: a linha com 6 horas falha em toda tentativa
+        executar(destino, "ALTER TABLE horas_extras ADD CONSTRAINT CK_teste_horas CHECK (horas <= 4)");
+        long usuarioLocal = novoUsuario("conflito@empresa.com");
+        long recusada = inserir(origem, """
+            INSERT INTO horas_extras (usuario_id, data, horas, descricao, data_atualizacao) VALUES (?, CURRENT_DATE, 6, 'Longa', ?)
+            """, usuarioLocal, ONTEM);
+        long aceita = inserir(origem, """
+            INSERT INTO horas_extras (usuario_id, data, horas, descricao, data_atualizacao) VALUES (?, CURRENT_DATE, 2, 'Curta', ?)
+            """, usuarioLocal, HOJE);
+        
+        DatabaseSynchronizer.sync(origem, destino);
+        
+        assertNotNull(idRemotoOuNull("horas_extras", aceita));
+        assertNull(idRemotoOuNull("horas_extras", recusada));
+        assertEquals(recusada, consultarLong(origem, "SELECT registro_id FROM sync_conflito WHERE tabela = 'horas_extras'"));
+        
+        // A marca d'água passou da linha recusada: a próxima execução não a reenvia
+        assertEquals(0, DatabaseSynchronizer.sync(origem, destino));
+        
+        // Corrigida no H2, a linha volta a ser enviada e sai dos conflitos
+        executar(origem, "UPDATE horas_extras SET horas = 3, data_atualizacao = ? WHERE id = ?", agora(), recusada);
+        DatabaseSynchronizer.sync(origem, destino);
+        assertNotNull(idRemotoOuNull("horas_extras", recusada));
+        assertEquals(0L, consultarLong(origem, "SELECT COUNT(*) FROM sync_conflito"));
+    }
+    
+    @Test
+    public void testExclusaoNoH2RemoveLinhaDoDestino() throws SQLException {
+        long usuarioLocal = novoUsuario("exclusao@empresa.com");
+        long pontoLocal = inserir(origem, "INSERT INTO pontos (usuario_id, data_hora, tipo_ponto) VALUES (?, ?, ?)",
+                                  usuarioLocal, HOJE, "ENTRADA");
+        DatabaseSynchronizer.sync(origem, destino);
+        long pontoRemoto = idRemoto("pontos", pontoLocal);
+        long usuarioRemoto = idRemoto("usuarios", usuarioLocal);
+        
+        executar(origem, "DELETE FROM pontos WHERE id = ?", pontoLocal);
+        executar(origem, "INSERT INTO sync_exclusao (tabela, registro_id) VALUES ('pontos', ?)", pontoLocal);
+        DatabaseSynchronizer.sync(origem, destino);
+        
+        assertEquals(0L, consultarLong(destino, "SELECT COUNT(*) FROM pontos WHERE id = ?", pontoRemoto));
+        assertEquals(0L, consultarLong(destino, "SELECT COUNT(*) FROM jornada_diaria WHERE usuario_id = ?", usuarioRemoto));
+        assertNull(idRemotoOuNull("pontos", pontoLocal));
+        assertEquals(0L, consultarLong(origem, "SELECT COUNT(*) FROM sync_exclusao"));
+    }
+    
+    @Test
+    public void testRepositorioRegistraExclusaoNoH2() throws SQLException {
+        DatabaseHealthMonitor.tripCircuit("Teste de exclusão no H2");
+        DatabaseInitializer.initializeDatabase();
+        PontoRepository repository = new PontoRepository();
+        
+        Ponto ponto = new Ponto(4L, LocalDateTime.now().minusDays(400), TipoPonto.ENTRADA);
+        repository.save(ponto);
+        assertTrue(repository.deleteById(ponto.getId()));
+        
+        try (Connection conn = DatabaseConfig.getH2Connection()) {
+            assertEquals(1L, consultarLong(conn, "SELECT COUNT(*) FROM sync_exclusao WHERE tabela = 'pontos' AND registro_id = ?",
+                                           ponto.getId()));
+        }
+    }
+    
+    private long novoUsuario(String email) throws SQLException {
+        return inserir(origem, "INSERT INTO usuarios (nome, email, senha, tipo_usuario, data_atualizacao) VALUES (?, ?, ?, ?, ?)",
+                       "Usuário " + email, email, "x", "COLABORADOR", ONTEM);
+    }
+    
+    /**
+     * Marca de alteração posterior às linhas já sincronizadas, inclusive as dos dados de exemplo
+     */
+    private static Timestamp agora() {
+        return Timestamp.valueOf(LocalDateTime.now().plusSeconds(1));
+    }
+    
+    private long idRemoto(String tabela, long idLocal) throws SQLException {
+        Long id = idRemotoOuNull(tabela, idLocal);
+        assertNotNull(id, "Sem id no destino para " + tabela + " " + idLocal);
+        return id;
+    }
+    
+    private Long idRemotoOuNull(String tabela, long idLocal) throws SQLException {
+        Object id = consultar(origem, "SELECT id_remoto FROM sync_mapa_id WHERE tabela = ? AND id_local = ?", tabela, idLocal);
+        return id == null ? null : ((Number) id).longValue();
+    }
+    
+    private static long inserir(Connection conn, String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            definir(stmt, parametros);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                assertTrue(keys.next());
+                return keys.getLong(1);
+            }
+        }
+    }
+    
+    private static void executar(Connection conn, String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            definir(stmt, parametros);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static Object consultar(Connection conn, String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            definir(stmt, parametros);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getObject(1) : null;
+            }
+        }
+    }
+    
+    private static long consultarLong(Connection conn, String sql, Object... parametros) throws SQLException {
+        Object valor = consultar(conn, sql, parametros);
+        assertNotNull(valor, "Consulta sem resultado: " + sql);
+        return ((Number) valor).longValue();
+    }
+    
+    private static void definir(PreparedStatement stmt, Object... parametros) throws SQLException {
+        for (int i = 0; i < parametros.length; i++) {
+            stmt.setObject(i + 1, parametros[i]);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.shiftly.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica no H2 que as consultas de pontos por período usam o índice IX_pontos_usuario_data
+ */
+public class PontoRepositoryIndexTest {
+    
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        // Força o uso do H2 com o mesmo script de criação da aplicação
+        DatabaseHealthMonitor.tripCircuit("Teste de índices no H2");
+        DatabaseInitializer.initializeDatabase();
+        
+        try (Connection conn = DatabaseConfig.getH2Connection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+    
+    @Test
+    public void testConsultaPorPeriodoUsaIndice() throws SQLException {
+        String plano = explain(PontoRepository.SQL_FIND_BY_USUARIO_E_PERIODO,
+                               LocalDate.now().minusDays(30), LocalDate.now());
+        
+        assertTrue(plano.contains("IX_PONTOS_USUARIO_DATA"), "Plano sem o índice esperado: " + plano);
+        assertTrue(plano.contains("DATA_HORA >="), "Faixa de data_hora não usada no índice: " + plano);
+        assertFalse(plano.contains("CAST("), "Predicado não sargável no plano: " + plano);
+    }
+    
+    @Test
+    public void testConsultaPorDiaUsaIndice() throws SQLException {
+        LocalDate hoje = LocalDate.now();
+        String plano = explain(PontoRepository.SQL_FIND_BY_USUARIO_E_PERIODO, hoje, hoje);
+        
+        assertTrue(plano.contains("IX_PONTOS_USUARIO_DATA"), "Plano sem o índice esperado: " + plano);
+    }
+    
+    /**
+     * Executa EXPLAIN da consulta com os parâmetros de um período
+     */
+    private String explain(String sql, LocalDate inicio, LocalDate fim) throws SQLException {
+        try (Connection conn = DatabaseConfig.getH2Connection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            stmt.setLong(1, 1L);
+            stmt.setTimestamp(2, Timestamp.valueOf(inicio.atStartOfDay()));
+            stmt.setTimestamp(3, Timestamp.valueOf(fim.plusDays(1).atStartOfDay()));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1).toUpperCase();
+            }
+        }
+    }
+}
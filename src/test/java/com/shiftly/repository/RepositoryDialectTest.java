@@ -0,0 +1,227 @@
+package com.shiftly.repository;
+
+import com.shiftly.model.Ferias;
+import com.shiftly.model.HorasExtras;
+import com.shiftly.model.Ponto;
+import com.shiftly.model.StatusFerias;
+import com.shiftly.model.StatusHorasExtras;
+import com.shiftly.model.TipoPonto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Executa as consultas de todos os repositórios no H2
+ * O Maven roda esta classe duas vezes: no modo padrão do H2 (dialeto H2) e com MODE=MSSQLServer na URL
+ * (execução h2-mssqlserver do surefire), em que os comandos gerados são os do SQL Server
+ */
+public class RepositoryDialectTest {
+    
+    // Métodos que alteram dados; a escrita é coberta pelos testes de ida e volta e de transição de status
+    private static final Set<String> ESCRITAS = Set.of(
+        "save", "saveAll", "deleteById", "updateSenha", "recalcular", "reconstruir", "reconciliar",
+        "aprovar", "recusar", "cancelar", "marcarComoPago");
+    
+    // Usuário com ponto, férias aprovadas, horas extras e comprovante nos dados de exemplo do H2
+    private static final Long USUARIO_EXEMPLO = 5L;
+    
+    // Maria Silva, do RH
+    private static final Long USUARIO_RH = 2L;
+    
+    @BeforeAll
+    public static void setUp() {
+        DatabaseHealthMonitor.tripCircuit("Teste de dialeto no H2");
+        DatabaseInitializer.initializeDatabase();
+    }
+    
+    static Stream<Arguments> consultas() {
+        List<BaseRepository<?, ?>> repositorios = List.of(new UsuarioRepository(), new PontoRepository(),
+            new JornadaDiariaRepository(), new FeriasRepository(), new HorasExtrasRepository(), new ComprovanteRepository());
+        
+        return repositorios.stream().flatMap(repositorio -> Arrays.stream(repositorio.getClass().getDeclaredMethods())
+            .filter(metodo -> Modifier.isPublic(metodo.getModifiers()) && !Modifier.isStatic(metodo.getModifiers()))
+            .filter(metodo -> !metodo.isSynthetic() && !metodo.isBridge() && !ESCRITAS.contains(metodo.getName()))
+            .sorted(Comparator.comparing(Method::getName).thenComparing(Method::getParameterCount))
+            .map(metodo -> Arguments.of(repositorio.getClass().getSimpleName() + "." + metodo.getName(), repositorio, metodo)));
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    public void testConsultaExecutaNoDialeto(String nome, BaseRepository<?, ?> repositorio, Method metodo) throws Exception {
+        try {
+            Object resultado = metodo.invoke(repositorio, argumentos(metodo));
+            if (resultado instanceof Stream<?> stream) {
+                try (stream) {
+                    stream.count();
+                }
+            }
+        } catch (InvocationTargetException e) {
+            fail(nome + " falhou no dialeto " + SqlDialect.current(), e.getCause());
+        }
+    }
+    
+    @Test
+    public void testPontoIdaEVolta() {
+        PontoRepository repository = new PontoRepository();
+        Ponto ponto = new Ponto();
+        ponto.setUsuarioId(USUARIO_EXEMPLO);
+        ponto.setDataHora(LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.SECONDS));
+        ponto.setTipoPonto(TipoPonto.ENTRADA);
+        
+        Ponto salvo = repository.save(ponto);
+        try {
+            assertNotNull(salvo.getId());
+            Optional<Ponto> ultimo = repository.findUltimoPontoByUsuarioId(USUARIO_EXEMPLO);
+            assertTrue(ultimo.isPresent());
+            assertEquals(salvo.getId(), ultimo.get().getId());
+        } finally {
+            assertTrue(repository.deleteById(salvo.getId()));
+        }
+    }
+    
+    @Test
+    public void testTransicoesDeFeriasComVersao() {
+        FeriasRepository repository = new FeriasRepository();
+        Ferias ferias = repository.save(new Ferias(USUARIO_EXEMPLO, LocalDate.now().plusDays(400), LocalDate.now().plusDays(409)));
+        try {
+            assertEquals(0, ferias.getVersao());
+            
+            // Versão diferente da lida: nada muda
+            assertTrue(repository.aprovar(ferias.getId(), 1, USUARIO_RH).isEmpty());
+            
+            Ferias aprovadas = repository.aprovar(ferias.getId(), 0, USUARIO_RH).orElseThrow();
+            assertEquals(StatusFerias.APROVADA, aprovadas.getStatus());
+            assertEquals(USUARIO_RH, aprovadas.getAprovadoPorUsuarioId());
+            assertEquals(1, aprovadas.getVersao());
+            
+            // Segunda aprovação com a mesma leitura (ex.: dois analistas de RH) e save da cópia desatualizada
+            assertTrue(repository.aprovar(ferias.getId(), 0, USUARIO_RH).isEmpty());
+            ferias.setObservacoes("Alteração sobre a versão 0");
+            assertThrows(IllegalStateException.class, () -> repository.save(ferias));
+            
+            // Só o dono cancela sem ser RH
+            assertTrue(repository.cancelar(ferias.getId(), StatusFerias.APROVADA, 1, 3L).isEmpty());
+            Ferias canceladas = repository.cancelar(ferias.getId(), StatusFerias.APROVADA, 1, USUARIO_EXEMPLO).orElseThrow();
+            assertEquals(StatusFerias.CANCELADA, canceladas.getStatus());
+            assertEquals(2, canceladas.getVersao());
+        } finally {
+            assertTrue(repository.deleteById(ferias.getId()));
+        }
+    }
+    
+    @Test
+    public void testHorasExtrasPagasUmaVez() {
+        HorasExtrasRepository repository = new HorasExtrasRepository();
+        HorasExtras horasExtras = repository.save(new HorasExtras(USUARIO_EXEMPLO, LocalDate.now().minusDays(3), 2.0,
+            "Fechamento do mês", null));
+        try {
+            assertTrue(repository.marcarComoPago(horasExtras.getId(), null, 50.0).isEmpty());
+            assertEquals(StatusHorasExtras.APROVADA,
+                repository.aprovar(horasExtras.getId(), 0, USUARIO_RH).orElseThrow().getStatus());
+            
+            HorasExtras pagas = repository.marcarComoPago(horasExtras.getId(), 1, 50.0).orElseThrow();
+            assertTrue(pagas.isPaga());
+            assertEquals(50.0, pagas.getValorPago());
+            assertEquals(2, pagas.getVersao());
+            
+            // Sem versão vale só a condição de status: o segundo pagamento não passa
+            assertTrue(repository.marcarComoPago(horasExtras.getId(), null, 80.0).isEmpty());
+            assertEquals(50.0, repository.findById(horasExtras.getId()).orElseThrow().getValorPago());
+        } finally {
+            assertTrue(repository.deleteById(horasExtras.getId()));
+        }
+    }
+    
+    @Test
+    public void testConsultasDeDataDasFerias() {
+        FeriasRepository repository = new FeriasRepository();
+        
+        // Férias aprovadas de exemplo: 15 dias a partir de hoje + 90
+        List<Ferias> vencendo = repository.findFeriasVencendoEm(100);
+        assertTrue(vencendo.stream().anyMatch(f -> USUARIO_EXEMPLO.equals(f.getUsuarioId())));
+        assertTrue(repository.findFeriasVencendoEm(10).stream().noneMatch(f -> USUARIO_EXEMPLO.equals(f.getUsuarioId())));
+        
+        // O script de exemplo roda uma vez por classe de teste: a soma é comparada com a das férias carregadas
+        int ano = LocalDate.now().plusDays(90).getYear();
+        long esperado = repository.findByUsuarioIdAndStatus(USUARIO_EXEMPLO, StatusFerias.APROVADA).stream()
+            .filter(f -> f.getDataInicio().getYear() == ano)
+            .mapToLong(f -> ChronoUnit.DAYS.between(f.getDataInicio(), f.getDataFim()) + 1)
+            .sum();
+        assertTrue(esperado >= 15);
+        assertEquals(esperado, repository.contarDiasFeriasNoAno(USUARIO_EXEMPLO, ano));
+        assertEquals(0, repository.contarDiasFeriasNoAno(USUARIO_EXEMPLO, ano - 1));
+    }
+    
+    @Test
+    public void testConsolidaJornadaDeBancoAnterior() throws Exception {
+        JornadaDiariaRepository repository = new JornadaDiariaRepository();
+        
+        // Banco existente atualizado: a tabela jornada_diaria chega vazia, com os pontos já gravados
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM jornada_diaria");
+            }
+            assertTrue(repository.jornadaVaziaComPontos(conn));
+            
+            assertTrue(repository.reconstruir(conn) > 0);
+            assertFalse(repository.jornadaVaziaComPontos(conn));
+            assertEquals(0, repository.reconciliar(conn));
+        }
+    }
+    
+    /**
+     * Argumentos válidos para qualquer consulta dos repositórios
+     * Inteiros valem 10 (tamanho de página, limite, dias, ano ou mês): o teste verifica o SQL, não o resultado
+     */
+    private static Object[] argumentos(Method metodo) {
+        Class<?>[] tipos = metodo.getParameterTypes();
+        Object[] argumentos = new Object[tipos.length];
+        int datas = 0;
+        
+        for (int i = 0; i < tipos.length; i++) {
+            Class<?> tipo = tipos[i];
+            if (tipo == Long.class) {
+                argumentos[i] = USUARIO_EXEMPLO;
+            } else if (tipo == int.class) {
+                argumentos[i] = 10;
+            } else if (tipo == Double.class) {
+                argumentos[i] = 25.0;
+            } else if (tipo == String.class) {
+                argumentos[i] = "pedro.costa@empresa.com";
+            } else if (tipo == LocalDate.class) {
+                argumentos[i] = datas++ == 0 ? LocalDate.now().minusDays(30) : LocalDate.now().plusDays(120);
+            } else if (tipo == LocalDateTime.class) {
+                argumentos[i] = LocalDateTime.now();
+            } else if (tipo.isEnum()) {
+                argumentos[i] = tipo.getEnumConstants()[0];
+            } else if (tipo == Collection.class) {
+                argumentos[i] = List.of(3L, 4L, USUARIO_EXEMPLO);
+            } else if (tipo == Page.Cursor.class) {
+                argumentos[i] = null;
+            } else {
+                fail("Tipo de parâmetro sem valor de teste em " + metodo + ": " + tipo.getName());
+            }
+        }
+        return argumentos;
+    }
+}
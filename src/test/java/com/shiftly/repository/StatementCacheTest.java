@@ -0,0 +1,85 @@
+package com.shiftly.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica o reaproveitamento de statements preparados pelo pool e a variante por banco do SqlRegistry
+ */
+public class StatementCacheTest {
+    
+    @BeforeAll
+    public static void setUp() {
+        DatabaseHealthMonitor.tripCircuit("Teste de cache de statements no H2");
+        DatabaseInitializer.initializeDatabase();
+    }
+    
+    @Test
+    public void testMesmaConsultaReaproveitaStatement() {
+        PontoRepository repository = new PontoRepository();
+        repository.findByUsuarioIdAndPeriodo(1L, LocalDate.now().minusDays(7), LocalDate.now());
+        long acertosAntes = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2).getStatementHits();
+        
+        repository.findByUsuarioIdAndPeriodo(1L, LocalDate.now().minusDays(7), LocalDate.now());
+        
+        ConnectionPool.PoolStats stats = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2);
+        assertTrue(stats.getStatementHits() > acertosAntes, stats.toString());
+    }
+    
+    @Test
+    public void testStatementEmUsoNaoECompartilhado() throws Exception {
+        String sql = SqlRegistry.register("teste.selectUm", "SELECT 1").getSql(DatabaseConfig.DatabaseType.H2);
+        
+        try (Connection conn = DatabaseConfig.getH2Connection();
+             PreparedStatement primeiro = conn.prepareStatement(sql);
+             PreparedStatement segundo = conn.prepareStatement(sql)) {
+            assertNotSame(primeiro, segundo);
+            assertTrue(primeiro.executeQuery().next());
+            assertTrue(segundo.executeQuery().next());
+            assertSame(conn, primeiro.getConnection());
+        }
+    }
+    
+    @Test
+    public void testSqlAvulsoNaoPassaPeloCache() throws Exception {
+        ConnectionPool.PoolStats antes = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2);
+        
+        // Como as listas IN de findAllByIds: um texto por tamanho de lista
+        try (Connection conn = DatabaseConfig.getH2Connection()) {
+            for (int tamanho = 1; tamanho <= 5; tamanho++) {
+                String sql = "SELECT id FROM usuarios WHERE id IN (" + "?, ".repeat(tamanho - 1) + "?)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 1; i <= tamanho; i++) {
+                        stmt.setLong(i, i);
+                    }
+                    stmt.executeQuery().close();
+                }
+            }
+        }
+        
+        ConnectionPool.PoolStats depois = DatabaseConfig.getPoolStats(DatabaseConfig.DatabaseType.H2);
+        assertEquals(antes.getStatementHits(), depois.getStatementHits());
+        assertEquals(antes.getStatementMisses(), depois.getStatementMisses());
+        assertEquals(antes.getStatementEvictions(), depois.getStatementEvictions());
+    }
+    
+    @Test
+    public void testVarianteEscolhidaPelaConexao() throws Exception {
+        // Os comandos são registrados na carga do repositório
+        new PontoRepository();
+        SqlRegistry.NamedSql comando = SqlRegistry.get("ponto.findUltimoByUsuarioId");
+        assertTrue(comando.hasVariants());
+        assertTrue(comando.getSql(DatabaseConfig.DatabaseType.SQL_SERVER).contains("TOP 1"));
+        
+        try (Connection conn = DatabaseConfig.getH2Connection()) {
+            assertEquals(DatabaseConfig.DatabaseType.H2, SqlRegistry.databaseTypeOf(conn));
+            assertTrue(comando.getSql(conn).contains("LIMIT 1"));
+        }
+    }
+}
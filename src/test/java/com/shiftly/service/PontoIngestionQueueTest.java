@@ -0,0 +1,162 @@
+package com.shiftly.service;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.model.TipoPonto;
+import com.shiftly.repository.PontoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Group commit e isolamento de falhas da fila de ingestão, com um repositório simulado
+ */
+public class PontoIngestionQueueTest {
+    
+    // Usuário cujos pontos o banco simulado recusa por violação de restrição
+    private static final long USUARIO_INVALIDO = 99L;
+    
+    private final List<Integer> lotesRecebidos = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong proximoId = new AtomicLong(1);
+    private volatile boolean bancoForaDoAr = false;
+    private volatile CountDownLatch gravacaoLiberada;
+    private PontoIngestionQueue fila;
+    
+    @AfterEach
+    public void tearDown() {
+        if (fila != null) {
+            fila.shutdown();
+        }
+    }
+    
+    @Test
+    public void testPontosSimultaneosGravadosEmUmLote() throws Exception {
+        fila = new PontoIngestionQueue(new RepositorioSimulado(), 10, 500, 100);
+        
+        List<CompletableFuture<Ponto>> futuros = submeter(1L, 2L, 3L, 4L, 5L);
+        
+        for (CompletableFuture<Ponto> futuro : futuros) {
+            assertNotNull(futuro.get(5, TimeUnit.SECONDS).getId());
+        }
+        assertEquals(List.of(5), lotesRecebidos);
+        assertTrue(fila.getStats().contains("lotes=1"), fila.getStats());
+    }
+    
+    @Test
+    public void testPontoInvalidoFalhaSozinho() throws Exception {
+        fila = new PontoIngestionQueue(new RepositorioSimulado(), 10, 500, 100);
+        
+        List<CompletableFuture<Ponto>> futuros = submeter(1L, 2L, USUARIO_INVALIDO, 4L, 5L);
+        
+        for (int i = 0; i < futuros.size(); i++) {
+            CompletableFuture<Ponto> futuro = futuros.get(i);
+            if (i == 2) {
+                ExecutionException erro = assertThrows(ExecutionException.class, () -> futuro.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(SQLIntegrityConstraintViolationException.class, erro.getCause().getCause());
+            } else {
+                assertNotNull(futuro.get(5, TimeUnit.SECONDS).getId(), "Ponto " + i + " deveria ter sido gravado");
+            }
+        }
+        // Lote inteiro, metade válida, metade com o ponto inválido e as duas partes dela
+        assertEquals(List.of(5, 2, 3, 1, 2), lotesRecebidos);
+        assertTrue(fila.getStats().contains("pontos gravados=4"), fila.getStats());
+        assertTrue(fila.getStats().contains("pontos recusados=1"), fila.getStats());
+    }
+    
+    @Test
+    public void testFalhaDeConexaoFalhaLoteInteiroSemDividir() throws Exception {
+        bancoForaDoAr = true;
+        fila = new PontoIngestionQueue(new RepositorioSimulado(), 10, 500, 100);
+        
+        List<CompletableFuture<Ponto>> futuros = submeter(1L, 2L, 3L, 4L);
+        
+        for (CompletableFuture<Ponto> futuro : futuros) {
+            ExecutionException erro = assertThrows(ExecutionException.class, () -> futuro.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(SQLTransientConnectionException.class, erro.getCause().getCause());
+        }
+        assertEquals(List.of(4), lotesRecebidos);
+    }
+    
+    @Test
+    public void testRetiradaSoAntesDeEntrarEmLote() throws Exception {
+        gravacaoLiberada = new CountDownLatch(1);
+        fila = new PontoIngestionQueue(new RepositorioSimulado(), 1, 0, 100);
+        
+        CompletableFuture<Ponto> emGravacao = submeter(1L).get(0);
+        while (lotesRecebidos.isEmpty()) {
+            Thread.sleep(5);
+        }
+        CompletableFuture<Ponto> naFila = submeter(2L).get(0);
+        
+        assertTrue(fila.withdraw(naFila));
+        assertTrue(naFila.isCancelled());
+        assertFalse(fila.withdraw(emGravacao));
+        
+        gravacaoLiberada.countDown();
+        assertNotNull(emGravacao.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(List.of(1), lotesRecebidos);
+    }
+    
+    @Test
+    public void testSubmitAposEncerramentoRecusado() {
+        fila = new PontoIngestionQueue(new RepositorioSimulado(), 10, 0, 100);
+        fila.shutdown();
+        
+        assertThrows(RejectedExecutionException.class, () -> submeter(1L));
+        assertTrue(fila.getStats().contains("enfileirados=0"), fila.getStats());
+    }
+    
+    private List<CompletableFuture<Ponto>> submeter(Long... usuarios) {
+        List<CompletableFuture<Ponto>> futuros = new ArrayList<>();
+        for (Long usuarioId : usuarios) {
+            futuros.add(fila.submit(new Ponto(usuarioId, LocalDateTime.now(), TipoPonto.ENTRADA)));
+        }
+        return futuros;
+    }
+    
+    /**
+     * Grava em memória; recusa o lote inteiro se algum ponto for do usuário inválido, como o batch transacional
+     */
+    private class RepositorioSimulado extends PontoRepository {
+        
+        @Override
+        public List<Ponto> saveAll(List<Ponto> pontos) {
+            lotesRecebidos.add(pontos.size());
+            
+            if (gravacaoLiberada != null) {
+                try {
+                    gravacaoLiberada.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (bancoForaDoAr) {
+                throw new RuntimeException("Erro de banco de dados",
+                    new SQLTransientConnectionException("Conexão recusada", "08001"));
+            }
+            for (Ponto ponto : pontos) {
+                if (ponto.getUsuarioId() == USUARIO_INVALIDO) {
+                    throw new RuntimeException("Erro de banco de dados",
+                        new SQLIntegrityConstraintViolationException("Usuário inexistente", "23000"));
+                }
+            }
+            for (Ponto ponto : pontos) {
+                ponto.setId(proximoId.getAndIncrement());
+            }
+            return pontos;
+        }
+    }
+}
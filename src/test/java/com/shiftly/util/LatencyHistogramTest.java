@@ -0,0 +1,48 @@
+package com.shiftly.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica os baldes e percentis do histograma de latências
+ */
+public class LatencyHistogramTest {
+    
+    @Test
+    public void testBaldesCobremValoresSemLacunas() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int indice = LatencyHistogram.indice(micros);
+            assertTrue(LatencyHistogram.limiteInferior(indice) <= micros, "Limite inferior acima de " + micros);
+            assertTrue(LatencyHistogram.limiteSuperior(indice) >= micros, "Limite superior abaixo de " + micros);
+        }
+    }
+    
+    @Test
+    public void testPercentisDentroDoErroDoBalde() {
+        LatencyHistogram histograma = new LatencyHistogram();
+        // 1 a 1000 ms, uma amostra de cada
+        for (int millis = 1; millis <= 1000; millis++) {
+            histograma.registrar(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        
+        assertEquals(1000, histograma.getContagem());
+        assertEquals(1000, histograma.getMinimoMicros());
+        assertEquals(1_000_000, histograma.getMaximoMicros());
+        assertEquals(500_500, histograma.getMediaMicros(), 0.001);
+        assertEquals(500_000, histograma.percentilMicros(50), 500_000 * 0.07);
+        assertEquals(990_000, histograma.percentilMicros(99), 990_000 * 0.07);
+        assertEquals(1_000_000, histograma.percentilMicros(100));
+    }
+    
+    @Test
+    public void testHistogramaVazio() {
+        LatencyHistogram histograma = new LatencyHistogram();
+        
+        assertEquals(0, histograma.percentilMicros(99));
+        assertEquals(0, histograma.getMinimoMicros());
+        assertTrue(histograma.formatar("VAZIO").contains("Amostras: 0"));
+    }
+}
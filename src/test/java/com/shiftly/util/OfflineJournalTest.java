@@ -0,0 +1,217 @@
+package com.shiftly.util;
+
+import com.shiftly.model.Ponto;
+import com.shiftly.model.TipoPonto;
+import com.shiftly.model.TipoUsuario;
+import com.shiftly.model.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recuperação, compactação e quarentena do journal offline em um diretório temporário
+ */
+public class OfflineJournalTest {
+    
+    private static final LocalDateTime HORA = LocalDateTime.of(2024, 3, 4, 8, 0);
+    
+    @TempDir
+    Path diretorio;
+    
+    private OfflineJournal journal;
+    
+    @AfterEach
+    public void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+    
+    @Test
+    public void testEntradasPendentesSobrevivemAReabertura() {
+        journal = abrir(100);
+        String primeira = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.ENTRADA));
+        String segunda = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        journal.acknowledge(primeira);
+        
+        journal = reabrir(100);
+        List<OfflineJournal.Entry> pendentes = journal.getPendingEntries();
+        assertEquals(List.of(segunda), chaves(pendentes));
+        Ponto ponto = (Ponto) pendentes.get(0).getEntity();
+        assertEquals(TipoPonto.SAIDA, ponto.getTipoPonto());
+        assertEquals(HORA, ponto.getDataHora());
+    }
+    
+    @Test
+    public void testCaudaIncompletaDescartadaNaRecuperacao() throws Exception {
+        journal = abrir(100);
+        String primeira = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.ENTRADA));
+        long tamanhoAposPrimeira = journal.diskUsage();
+        journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        journal.close();
+        
+        // Simula queda no meio da gravação do segundo registro
+        Path segmento = unicoSegmento();
+        try (FileChannel channel = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segmento) - 5);
+        }
+        
+        journal = abrir(100);
+        assertEquals(List.of(primeira), chaves(journal.getPendingEntries()));
+        assertEquals(tamanhoAposPrimeira, Files.size(segmento));
+        
+        // Novos registros continuam legíveis depois do truncamento
+        String terceira = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        journal = reabrir(100);
+        assertEquals(List.of(primeira, terceira), chaves(journal.getPendingEntries()));
+    }
+    
+    @Test
+    public void testCrcInvalidoDescartaRegistro() throws Exception {
+        journal = abrir(100);
+        String primeira = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.ENTRADA));
+        long tamanhoAposPrimeira = journal.diskUsage();
+        journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        journal.close();
+        
+        // Altera o último byte do payload sem mudar o tamanho do registro
+        Path segmento = unicoSegmento();
+        try (FileChannel channel = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long posicao = channel.size() - 1;
+            ByteBuffer byteFinal = ByteBuffer.allocate(1);
+            channel.read(byteFinal, posicao);
+            byteFinal.flip();
+            byte alterado = (byte) (byteFinal.get() ^ 0x01);
+            channel.write(ByteBuffer.wrap(new byte[] { alterado }), posicao);
+        }
+        
+        journal = abrir(100);
+        assertEquals(List.of(primeira), chaves(journal.getPendingEntries()));
+        assertEquals(tamanhoAposPrimeira, Files.size(segmento));
+    }
+    
+    @Test
+    public void testCompactacaoMantemApenasPendentes() throws Exception {
+        journal = abrir(2);
+        String primeira = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.ENTRADA));
+        String segunda = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        String terceira = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(2L, TipoPonto.ENTRADA));
+        long tamanhoAntes = journal.diskUsage();
+        
+        journal.acknowledge(primeira);
+        journal.acknowledge(segunda);
+        
+        // O segundo ACK atinge o limite e reescreve só a entrada pendente em um segmento novo
+        assertEquals(List.of("journal-000002.log"), segmentos());
+        assertTrue(journal.diskUsage() < tamanhoAntes / 2);
+        
+        journal = reabrir(2);
+        List<OfflineJournal.Entry> pendentes = journal.getPendingEntries();
+        assertEquals(List.of(terceira), chaves(pendentes));
+        assertEquals(2L, ((Ponto) pendentes.get(0).getEntity()).getUsuarioId());
+    }
+    
+    @Test
+    public void testQuarentenaPreservadaNaCompactacao() {
+        journal = abrir(100);
+        String recusada = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.ENTRADA));
+        String aceita = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        
+        journal.quarantine(recusada, "23000: violação de chave");
+        // Sem pendentes, o ACK compacta o journal; a entrada em quarentena precisa continuar em disco
+        journal.acknowledge(aceita);
+        assertEquals(0, journal.size());
+        
+        journal = reabrir(100);
+        assertEquals(0, journal.size());
+        List<OfflineJournal.Entry> quarentena = journal.getQuarantinedEntries();
+        assertEquals(List.of(recusada), chaves(quarentena));
+        assertEquals("23000: violação de chave", quarentena.get(0).getQuarantineReason());
+        
+        journal.requeue(recusada);
+        journal = reabrir(100);
+        assertEquals(List.of(recusada), chaves(journal.getPendingEntries()));
+        assertTrue(journal.getQuarantinedEntries().isEmpty());
+    }
+    
+    @Test
+    public void testUpdateSubstituiConteudoSemMudarPosicao() {
+        journal = abrir(100);
+        Ponto pontoTemporario = ponto(-5L, TipoPonto.ENTRADA);
+        String primeira = journal.append(OfflineJournal.EntryType.PONTO, null, pontoTemporario);
+        String segunda = journal.append(OfflineJournal.EntryType.PONTO, null, ponto(1L, TipoPonto.SAIDA));
+        
+        pontoTemporario.setUsuarioId(10L);
+        journal.update(primeira, pontoTemporario);
+        
+        journal = reabrir(100);
+        List<OfflineJournal.Entry> pendentes = journal.getPendingEntries();
+        assertEquals(List.of(primeira, segunda), chaves(pendentes));
+        assertEquals(10L, ((Ponto) pendentes.get(0).getEntity()).getUsuarioId());
+    }
+    
+    @Test
+    public void testCamposOmitidosNaoVaoParaODisco() throws Exception {
+        journal = abrir(100);
+        Usuario usuario = new Usuario("Maria", "maria@shiftly.com", "12345678901", "hash-secreto", TipoUsuario.COLABORADOR);
+        usuario.setFaceEncoding("rosto-secreto");
+        
+        journal.append(OfflineJournal.EntryType.USUARIO, null, usuario, "senha", "faceEncoding");
+        
+        String conteudo = new String(Files.readAllBytes(unicoSegmento()), StandardCharsets.ISO_8859_1);
+        assertFalse(conteudo.contains("hash-secreto"));
+        assertFalse(conteudo.contains("rosto-secreto"));
+        
+        // A entrada em memória é igual à recuperada do disco
+        Usuario pendente = (Usuario) journal.getPendingEntries().get(0).getEntity();
+        assertNull(pendente.getSenha());
+        assertNull(pendente.getFaceEncoding());
+        
+        journal = reabrir(100);
+        Usuario recuperado = (Usuario) journal.getPendingEntries().get(0).getEntity();
+        assertEquals("maria@shiftly.com", recuperado.getEmail());
+        assertNull(recuperado.getSenha());
+    }
+    
+    private OfflineJournal abrir(int limiteCompactacao) {
+        return new OfflineJournal(diretorio, 1_048_576, 16_777_216, limiteCompactacao);
+    }
+    
+    private OfflineJournal reabrir(int limiteCompactacao) {
+        journal.close();
+        return abrir(limiteCompactacao);
+    }
+    
+    private static Ponto ponto(Long usuarioId, TipoPonto tipo) {
+        return new Ponto(usuarioId, HORA, tipo);
+    }
+    
+    private static List<String> chaves(List<OfflineJournal.Entry> entradas) {
+        return entradas.stream().map(OfflineJournal.Entry::getKey).collect(Collectors.toList());
+    }
+    
+    private List<String> segmentos() throws Exception {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private Path unicoSegmento() throws Exception {
+        List<String> nomes = segmentos();
+        assertEquals(1, nomes.size(), "Esperado um único segmento: " + nomes);
+        return diretorio.resolve(nomes.get(0));
+    }
+}